@@ -0,0 +1,117 @@
+/*
+ This file is part of Airsonic.
+
+ Airsonic is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Airsonic is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Airsonic.  If not, see <http://www.gnu.org/licenses/>.
+
+ Copyright 2025 (C) Y.Tory
+ */
+package org.airsonic.player.ajax;
+
+import org.airsonic.player.domain.PlayQueue.Status;
+
+import java.util.List;
+
+/**
+ * A change of the files of a play queue, sent instead of the whole {@link PlayQueueInfo}.
+ *
+ * The change applies to the play queue of version {@code baseVersion} and results in {@code version}.
+ * A client at another version has missed a change and must request a new {@link PlayQueueInfo}.
+ */
+public class PlayQueueChange {
+
+    public enum Type {
+        /** {@code entries} are inserted at {@code index}. */
+        ADD,
+        /** The entries at the ascending {@code indexes} are removed. */
+        REMOVE,
+        /** The entry at {@code index} is moved to {@code to}. */
+        MOVE,
+        /** The entry at position i is the one previously at {@code indexes[i]}. */
+        REORDER
+    }
+
+    private final Type type;
+    private final long baseVersion;
+    private final long version;
+    private final Status playStatus;
+    private final boolean shuffleRadioEnabled;
+    private int index;
+    private int to;
+    private List<Integer> indexes;
+    private List<MediaFileEntry> entries;
+
+    public PlayQueueChange(Type type, long baseVersion, long version, Status playStatus, boolean shuffleRadioEnabled) {
+        this.type = type;
+        this.baseVersion = baseVersion;
+        this.version = version;
+        this.playStatus = playStatus;
+        this.shuffleRadioEnabled = shuffleRadioEnabled;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Status getPlayStatus() {
+        return playStatus;
+    }
+
+    public boolean isShuffleRadioEnabled() {
+        return shuffleRadioEnabled;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public PlayQueueChange setIndex(int index) {
+        this.index = index;
+        return this;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    public PlayQueueChange setTo(int to) {
+        this.to = to;
+        return this;
+    }
+
+    public List<Integer> getIndexes() {
+        return indexes;
+    }
+
+    public PlayQueueChange setIndexes(List<Integer> indexes) {
+        this.indexes = indexes;
+        return this;
+    }
+
+    public List<MediaFileEntry> getEntries() {
+        return entries;
+    }
+
+    public PlayQueueChange setEntries(List<MediaFileEntry> entries) {
+        this.entries = entries;
+        return this;
+    }
+}
@@ -36,17 +36,19 @@ public class PlayQueueInfo {
     private final boolean shuffleRadioEnabled;
     private final boolean internetRadioEnabled;
     private final float gain;
+    private final long version;
     private int startPlayerAt = -1;
     private long startPlayerAtPosition; // millis
 
     public PlayQueueInfo(List<MediaFileEntry> entries, Status playStatus, RepeatStatus repeatStatus,
-            boolean shuffleRadioEnabled, boolean internetRadioEnabled, float gain) {
+            boolean shuffleRadioEnabled, boolean internetRadioEnabled, float gain, long version) {
         this.entries = entries;
         this.playStatus = playStatus;
         this.repeatStatus = repeatStatus;
         this.shuffleRadioEnabled = shuffleRadioEnabled;
         this.internetRadioEnabled = internetRadioEnabled;
         this.gain = gain;
+        this.version = version;
     }
 
     public List<MediaFileEntry> getEntries() {
@@ -73,6 +75,13 @@ public class PlayQueueInfo {
         return gain;
     }
 
+    /**
+     * Returns the version of the play queue the entries belong to, see {@link PlayQueueChange}.
+     */
+    public long getVersion() {
+        return version;
+    }
+
     public int getStartPlayerAt() {
         return startPlayerAt;
     }
@@ -23,7 +23,6 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Controller
 @MessageMapping("/playlists")
@@ -97,12 +96,10 @@ public class PlaylistWSController {
     @SendToUser(broadcast = false)
     public int appendToPlaylist(PlaylistFilesModificationRequest req) {
         // in this context, modifierIds are mediafile ids
-        List<MediaFile> files = Stream
-                .concat(playlistService.getFilesInPlaylist(req.getId(), true).stream(),
-                        req.getModifierIds().stream().map(mediaFileService::getMediaFile).filter(Objects::nonNull))
+        List<MediaFile> files = req.getModifierIds().stream().map(mediaFileService::getMediaFile).filter(Objects::nonNull)
                 .collect(Collectors.toList());
 
-        playlistService.setFilesInPlaylist(req.getId(), files);
+        playlistService.appendFilesToPlaylist(req.getId(), files);
         playlistService.broadcastFileChange(req.getId(), false, true);
 
         return req.getId();
@@ -123,10 +120,9 @@ public class PlaylistWSController {
     @SendToUser(broadcast = false)
     public int up(PlaylistFilesModificationRequest req) {
         // in this context, modifierIds has one element that is the index of the file
-        List<MediaFile> files = playlistService.getFilesInPlaylist(req.getId(), true);
         if (req.getModifierIds().size() == 1 && req.getModifierIds().get(0) > 0) {
-            Collections.swap(files, req.getModifierIds().get(0), req.getModifierIds().get(0) - 1);
-            playlistService.setFilesInPlaylist(req.getId(), files);
+            int index = req.getModifierIds().get(0);
+            playlistService.moveFilesInPlaylist(req.getId(), List.of(index), index - 1, true);
             playlistService.broadcastFileChange(req.getId(), false, true);
         }
 
@@ -137,10 +133,10 @@ public class PlaylistWSController {
     @SendToUser(broadcast = false)
     public int down(PlaylistFilesModificationRequest req) {
         // in this context, modifierIds has one element that is the index of the file
-        List<MediaFile> files = playlistService.getFilesInPlaylist(req.getId(), true);
-        if (req.getModifierIds().size() == 1 && req.getModifierIds().get(0) < files.size() - 1) {
-            Collections.swap(files, req.getModifierIds().get(0), req.getModifierIds().get(0) + 1);
-            playlistService.setFilesInPlaylist(req.getId(), files);
+        Playlist playlist = playlistService.getPlaylist(req.getId());
+        if (playlist != null && req.getModifierIds().size() == 1 && req.getModifierIds().get(0) < playlist.getFileCount() - 1) {
+            int index = req.getModifierIds().get(0);
+            playlistService.moveFilesInPlaylist(req.getId(), List.of(index), index + 2, true);
             playlistService.broadcastFileChange(req.getId(), false, true);
         }
 
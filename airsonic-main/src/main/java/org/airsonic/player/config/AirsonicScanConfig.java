@@ -39,6 +39,7 @@ public class AirsonicScanConfig {
 
     private static final int DEFAULT_SCAN = 60 * 60;
     private static final int DEFAULT_FULLSCAN = 4 * 60 * 60;
+    private static final int DEFAULT_WATCH_QUIET_PERIOD = 5;
 
     @Positive
     private Integer fullTimeout = DEFAULT_FULLSCAN;
@@ -49,6 +50,11 @@ public class AirsonicScanConfig {
     @Positive
     private Integer parallelism;
 
+    private boolean watch = false;
+
+    @Positive
+    private Integer watchQuietPeriod = DEFAULT_WATCH_QUIET_PERIOD;
+
     public Integer getFullTimeout() {
         return fullTimeout;
     }
@@ -85,4 +91,30 @@ public class AirsonicScanConfig {
     public void setParallelism(Integer parallelism) {
         this.parallelism = parallelism;
     }
+
+    /**
+     * Whether to watch music folders and rescan changed directories as they change.
+     *
+     * @return true if live updates are enabled
+     */
+    public boolean isWatch() {
+        return watch;
+    }
+
+    public void setWatch(boolean watch) {
+        this.watch = watch;
+    }
+
+    /**
+     * Seconds without events before a changed directory is rescanned.
+     *
+     * @return quiet period in seconds
+     */
+    public Integer getWatchQuietPeriod() {
+        return watchQuietPeriod;
+    }
+
+    public void setWatchQuietPeriod(Integer watchQuietPeriod) {
+        this.watchQuietPeriod = watchQuietPeriod;
+    }
 }
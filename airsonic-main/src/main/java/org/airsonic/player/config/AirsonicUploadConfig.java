@@ -0,0 +1,88 @@
+/*
+ * This file is part of Airsonic.
+ *
+ * Airsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Airsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Airsonic.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2025 (C) Y.Tory
+ */
+
+package org.airsonic.player.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import jakarta.validation.constraints.Positive;
+
+import java.util.Objects;
+
+@Component
+@ConfigurationProperties(prefix = "airsonic.upload")
+@Validated
+public class AirsonicUploadConfig {
+
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+    private static final long DEFAULT_MAX_EXTRACTED_MEGABYTES = 50L * 1024L;
+
+    @Positive
+    private Integer maxEntries = DEFAULT_MAX_ENTRIES;
+
+    @Positive
+    private Long maxExtractedMegabytes = DEFAULT_MAX_EXTRACTED_MEGABYTES;
+
+    @Positive
+    private Integer extractParallelism;
+
+    /**
+     * Maximum number of entries of an uploaded archive.
+     *
+     * @return maximum number of entries
+     */
+    public Integer getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(Integer maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Maximum total size of the files extracted from an uploaded archive.
+     *
+     * @return maximum size in megabytes
+     */
+    public Long getMaxExtractedMegabytes() {
+        return maxExtractedMegabytes;
+    }
+
+    public void setMaxExtractedMegabytes(Long maxExtractedMegabytes) {
+        this.maxExtractedMegabytes = maxExtractedMegabytes;
+    }
+
+    /**
+     * Number of entries of an archive extracted at the same time. If not set, use availableProcessors
+     *
+     * @return parallelism
+     */
+    public Integer getExtractParallelism() {
+        if (Objects.nonNull(extractParallelism)) {
+            return extractParallelism;
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    public void setExtractParallelism(Integer extractParallelism) {
+        this.extractParallelism = extractParallelism;
+    }
+}
@@ -4,6 +4,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.util.concurrent.ThreadPoolExecutor;
+
 @Configuration
 public class ThreadPoolConfig {
 
@@ -42,4 +44,34 @@ public class ThreadPoolConfig {
         threadPool.initialize();
         return threadPool;
     }
+
+    @Bean(name = "UploadExtractThreadPool")
+    public ThreadPoolTaskExecutor uploadExtractThreadPool() {
+        var threadPool = new ThreadPoolTaskExecutor();
+        threadPool.setCorePoolSize(Runtime.getRuntime().availableProcessors());
+        threadPool.setMaxPoolSize(Runtime.getRuntime().availableProcessors());
+        threadPool.setQueueCapacity(100);
+        threadPool.setDaemon(true);
+        threadPool.setThreadNamePrefix("upload-extract");
+        // extract on the uploading thread rather than failing when every worker is busy
+        threadPool.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        threadPool.initialize();
+        return threadPool;
+    }
+
+    @Bean(name = "MediaPathScanThreadPool")
+    public ThreadPoolTaskExecutor mediaPathScanThreadPool() {
+        var threadPool = new ThreadPoolTaskExecutor();
+        // paths are scanned one batch after the other
+        threadPool.setCorePoolSize(1);
+        threadPool.setMaxPoolSize(1);
+        threadPool.setQueueCapacity(500);
+        threadPool.setDaemon(true);
+        threadPool.setThreadNamePrefix("media-path-scan");
+        // let the batch in progress finish its database writes on shutdown
+        threadPool.setWaitForTasksToCompleteOnShutdown(true);
+        threadPool.setAwaitTerminationSeconds(30);
+        threadPool.initialize();
+        return threadPool;
+    }
 }
@@ -22,12 +22,10 @@ package org.airsonic.player.controller;
 
 import org.airsonic.player.domain.*;
 import org.airsonic.player.io.PipeStreams.MonitoredResource;
-import org.airsonic.player.io.PipeStreams.PipedInputStream;
-import org.airsonic.player.io.PipeStreams.PipedOutputStream;
+import org.airsonic.player.io.ZipStreamingInputStream;
 import org.airsonic.player.service.*;
 import org.airsonic.player.spring.KnownLengthInputStreamResource;
 import org.airsonic.player.util.FileUtil;
-import org.airsonic.player.util.LambdaUtils;
 import org.airsonic.player.util.StringUtil;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.tuple.Pair;
@@ -47,7 +45,6 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.context.request.ServletWebRequest;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
@@ -58,7 +55,6 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.BiConsumer;
@@ -67,10 +63,6 @@ import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
-import java.util.zip.CRC32;
-import java.util.zip.CheckedInputStream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 /**
  * A controller used for downloading files to a remote client. If the requested
@@ -163,30 +155,6 @@ public class DownloadController {
         return ResponseEntity.ok().headers(headers).body(response.getResource());
     }
 
-    /**
-     * Computes the CRC checksum for the given file.
-     *
-     * @param file The file to compute checksum for.
-     * @return A CRC32 checksum.
-     * @throws IOException If an I/O error occurs.
-     */
-    private static long computeCrc(Path file) throws IOException {
-        try (InputStream is = Files.newInputStream(file);
-                BufferedInputStream bis = new BufferedInputStream(is);
-                CheckedInputStream cis = new CheckedInputStream(bis, new CRC32())) {
-            byte[] buf = new byte[8192];
-            while ((cis.read(buf)) != -1) {
-                continue;
-            }
-
-            return cis.getChecksum().getValue();
-        }
-    }
-
-    private static long zipSize(Stream<Entry<String, Long>> paths) {
-        return paths.mapToLong(e -> 30 + 46 + (2L * e.getKey().length()) + e.getValue()).sum() + 22;
-    }
-
     private ResponseDTO prepareResponse(List<MediaFile> files, List<Integer> indices,
             Supplier<TransferStatus> statusSupplier, Consumer<TransferStatus> statusCloser, Collection<Pair<Path, MusicFolder>> additionalFiles)
             throws IOException {
@@ -252,55 +220,20 @@ public class DownloadController {
                     // need to preserve order because zip file creation needs to create folders first then files
                     .collect(Collectors.toCollection(LinkedHashSet::new));
 
-            // zip to out
-            BiConsumer<InputStream, TransferStatus> poutInit = (input, status) -> {
-                PipedInputStream pin = (PipedInputStream) input;
-
-                // start a new thread to feed data in
-                new Thread(() -> {
-                    try (PipedOutputStream pout = new PipedOutputStream(pin);
-                            ZipOutputStream zout = new ZipOutputStream(pout)) {
-                        zout.setMethod(ZipOutputStream.STORED); // No compression.
-                        pathsToZip.stream().forEach(LambdaUtils.uncheckConsumer(f -> {
-                            status.setExternalFile(f.getLeft());
-                            ZipEntry zipEntry = new ZipEntry(f.getRight().getKey());
-                            zipEntry.setSize(f.getRight().getValue());
-                            zipEntry.setCompressedSize(f.getRight().getValue());
-
-                            if (f.getRight().getKey().endsWith("/") && f.getRight().getValue() == 0L) {
-                                // directory
-                                zipEntry.setCrc(0);
-                                zout.putNextEntry(zipEntry);
-                            } else {
-                                zipEntry.setCrc(computeCrc(f.getLeft()));
-                                zout.putNextEntry(zipEntry);
-                                Files.copy(f.getLeft(), zout);
-                            }
-
-                            zout.closeEntry();
-                        }));
-                    } catch (Exception e1) {
-                        LOG.debug("Error with output to zip", e1);
-                    }
-                }, "DownloadControllerDatafeed").start();
-
-                // wait for src data thread to connect
-                while (pin.source == null) {
-                    // sit and wait and ponder life
-                }
-            };
-
-            long size = zipSize(pathsToZip.stream().map(e -> e.getRight()));
-
-            PipedInputStream pin = new PipedInputStream(null, 16 * 1024); // 16 Kb buffer
+            // the archive is produced lazily as it is read, computing each entry's CRC while streaming it
+            ZipStreamingInputStream zin = new ZipStreamingInputStream(pathsToZip.stream()
+                    .map(f -> new ZipStreamingInputStream.Entry(f.getLeft(), f.getRight().getKey(), f.getRight().getValue()))
+                    .collect(Collectors.toList()));
+            BiConsumer<InputStream, TransferStatus> zinInit = (input, status) -> zin.setEntryListener(status::setExternalFile);
+            long size = zin.length();
 
             return new ResponseDTO(
                     new MonitoredResource(
-                            new KnownLengthInputStreamResource(pin, size),
+                            new KnownLengthInputStreamResource(zin, size),
                             settingsService.getDownloadBitrateLimiter(),
                             statusSupplier,
                             statusCloser,
-                            poutInit),
+                            zinInit),
                     null, size, -1);
         }
     }
@@ -21,6 +21,7 @@ package org.airsonic.player.controller;
 
 import org.airsonic.player.command.GeneralSettingsCommand;
 import org.airsonic.player.domain.Theme;
+import org.airsonic.player.service.MediaFileService;
 import org.airsonic.player.service.PlaylistFileService;
 import org.airsonic.player.service.SettingsService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,6 +34,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.Locale;
+import java.util.Objects;
 
 /**
  * Controller for the page used to administrate general settings.
@@ -49,6 +51,9 @@ public class GeneralSettingsController {
     @Autowired
     private PlaylistFileService playlistFileService;
 
+    @Autowired
+    private MediaFileService mediaFileService;
+
     @GetMapping
     protected String displayForm() {
         return "generalSettings";
@@ -118,6 +123,8 @@ public class GeneralSettingsController {
             settingsService.setClearFullScanSettingAfterScan(true);
         }
 
+        boolean genreSeparatorsChanged = !Objects.equals(settingsService.getGenreSeparators(), command.getGenreSeparators());
+
         settingsService.setIndexString(command.getIndex());
         settingsService.setIgnoredArticles(command.getIgnoredArticles());
         settingsService.setGenreSeparators(command.getGenreSeparators());
@@ -142,6 +149,10 @@ public class GeneralSettingsController {
         settingsService.setLocale(locale);
         settingsService.save();
 
+        if (genreSeparatorsChanged) {
+            mediaFileService.refreshGenres();
+        }
+
         return "redirect:generalSettings.view";
     }
 
@@ -21,11 +21,12 @@ package org.airsonic.player.controller;
 
 import org.airsonic.player.command.HomeCommand;
 import org.airsonic.player.domain.*;
+import org.airsonic.player.domain.dto.MediaFileSummary;
+import org.airsonic.player.service.AlbumListService;
 import org.airsonic.player.service.MediaFileService;
 import org.airsonic.player.service.MediaFolderService;
 import org.airsonic.player.service.MediaScannerService;
 import org.airsonic.player.service.PersonalSettingsService;
-import org.airsonic.player.service.RatingService;
 import org.airsonic.player.service.SearchService;
 import org.airsonic.player.service.SecurityService;
 import org.airsonic.player.service.SettingsService;
@@ -61,7 +62,7 @@ public class HomeController {
     @Autowired
     private MediaScannerService mediaScannerService;
     @Autowired
-    private RatingService ratingService;
+    private AlbumListService albumListService;
     @Autowired
     private SecurityService securityService;
     @Autowired
@@ -152,9 +153,12 @@ public class HomeController {
 
     private List<Album> getHighestRated(int offset, int count, List<MusicFolder> musicFolders) {
         List<Album> result = new ArrayList<>();
-        for (MediaFile mediaFile : ratingService.getHighestRatedAlbums(offset, count, musicFolders)) {
-            Album album = createAlbum(mediaFile);
-            album.setRating((int) Math.round(ratingService.getAverageRating(mediaFile) * 10.0D));
+        for (MediaFileSummary summary : albumListService.getAlbums(AlbumListService.Order.HIGHEST, offset, count, musicFolders)) {
+            Album album = createAlbum(summary);
+            Double rating = albumListService.getAverageRating(summary.id());
+            if (rating != null) {
+                album.setRating((int) Math.round(rating * 10.0D));
+            }
             result.add(album);
         }
         return result;
@@ -162,9 +166,9 @@ public class HomeController {
 
     private List<Album> getMostFrequent(int offset, int count, List<MusicFolder> musicFolders) {
         List<Album> result = new ArrayList<>();
-        for (MediaFile mediaFile : mediaFileService.getMostFrequentlyPlayedAlbums(offset, count, musicFolders)) {
-            Album album = createAlbum(mediaFile);
-            album.setPlayCount(mediaFile.getPlayCount());
+        for (MediaFileSummary summary : albumListService.getAlbums(AlbumListService.Order.FREQUENT, offset, count, musicFolders)) {
+            Album album = createAlbum(summary);
+            album.setPlayCount(summary.playCount());
             result.add(album);
         }
         return result;
@@ -172,9 +176,9 @@ public class HomeController {
 
     private List<Album> getMostRecent(int offset, int count, List<MusicFolder> musicFolders) {
         List<Album> result = new ArrayList<>();
-        for (MediaFile mediaFile : mediaFileService.getMostRecentlyPlayedAlbums(offset, count, musicFolders)) {
-            Album album = createAlbum(mediaFile);
-            album.setLastPlayed(mediaFile.getLastPlayed());
+        for (MediaFileSummary summary : albumListService.getAlbums(AlbumListService.Order.RECENT, offset, count, musicFolders)) {
+            Album album = createAlbum(summary);
+            album.setLastPlayed(summary.lastPlayed());
             result.add(album);
         }
         return result;
@@ -182,13 +186,9 @@ public class HomeController {
 
     private List<Album> getNewest(int offset, int count, List<MusicFolder> musicFolders) {
         List<Album> result = new ArrayList<>();
-        for (MediaFile file : mediaFileService.getNewestAlbums(offset, count, musicFolders)) {
-            Album album = createAlbum(file);
-            Instant created = file.getCreated();
-            if (created == null) {
-                created = file.getChanged();
-            }
-            album.setCreated(created);
+        for (MediaFileSummary summary : albumListService.getAlbums(AlbumListService.Order.NEWEST, offset, count, musicFolders)) {
+            Album album = createAlbum(summary);
+            album.setCreated(summary.createdOrChanged());
             result.add(album);
         }
         return result;
@@ -196,8 +196,8 @@ public class HomeController {
 
     private List<Album> getStarred(int offset, int count, String username, List<MusicFolder> musicFolders) {
         List<Album> result = new ArrayList<>();
-        for (MediaFile file : mediaFileService.getStarredAlbums(offset, count, username, musicFolders)) {
-            result.add(createAlbum(file));
+        for (MediaFileSummary summary : albumListService.getStarredAlbums(offset, count, username, musicFolders)) {
+            result.add(createAlbum(summary));
         }
         return result;
     }
@@ -205,24 +205,24 @@ public class HomeController {
     private List<Album> getRandom(int count, List<MusicFolder> musicFolders) {
         List<Album> result = new ArrayList<>();
         for (MediaFile file : searchService.getRandomAlbums(count, musicFolders)) {
-            result.add(createAlbum(file));
+            result.add(createAlbum(MediaFileSummary.of(file)));
         }
         return result;
     }
 
     private List<Album> getAlphabetical(int offset, int count, boolean byArtist, List<MusicFolder> musicFolders) {
         List<Album> result = new ArrayList<>();
-        for (MediaFile file : mediaFileService.getAlphabeticalAlbums(offset, count, byArtist, musicFolders)) {
-            result.add(createAlbum(file));
+        for (MediaFileSummary summary : albumListService.getAlbums(byArtist ? AlbumListService.Order.ALPHABETICAL_BY_ARTIST : AlbumListService.Order.ALPHABETICAL_BY_NAME, offset, count, musicFolders)) {
+            result.add(createAlbum(summary));
         }
         return result;
     }
 
     private List<Album> getByYear(int offset, int count, int fromYear, int toYear, List<MusicFolder> musicFolders) {
         List<Album> result = new ArrayList<>();
-        for (MediaFile file : mediaFileService.getAlbumsByYear(offset, count, fromYear, toYear, musicFolders)) {
-            Album album = createAlbum(file);
-            album.setYear(file.getYear());
+        for (MediaFileSummary summary : albumListService.getAlbumsByYear(offset, count, fromYear, toYear, musicFolders)) {
+            Album album = createAlbum(summary);
+            album.setYear(summary.year());
             result.add(album);
         }
         return result;
@@ -239,17 +239,17 @@ public class HomeController {
 
     private List<Album> getByGenre(int offset, int count, String genre, List<MusicFolder> musicFolders) {
         List<Album> result = new ArrayList<>();
-        for (MediaFile file : mediaFileService.getAlbumsByGenre(offset, count, genre, musicFolders)) {
-            result.add(createAlbum(file));
+        for (MediaFileSummary summary : albumListService.getAlbumsByGenre(offset, count, genre, musicFolders)) {
+            result.add(createAlbum(summary));
         }
         return result;
     }
 
-    private Album createAlbum(MediaFile file) {
+    private Album createAlbum(MediaFileSummary summary) {
         Album album = new Album();
-        album.setId(file.getId());
-        album.setArtist(file.getArtist());
-        album.setAlbumTitle(file.getAlbumName());
+        album.setId(summary.id());
+        album.setArtist(summary.artist());
+        album.setAlbumTitle(summary.albumName());
         return album;
     }
 
@@ -41,6 +41,8 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -121,6 +123,28 @@ public class SearchController {
         return "search";
     }
 
+    /**
+     * Search-as-you-type. Answered from the search index only.
+     *
+     * @param query the input typed so far
+     * @param count the maximum number of suggestions per type
+     * @return artist, album and song suggestions
+     */
+    @GetMapping("/suggest")
+    public @ResponseBody Map<String, List<Suggestion>> suggest(HttpServletRequest request,
+            @RequestParam("query") String query, @RequestParam(name = "count", defaultValue = "5") int count) {
+
+        String username = securityService.getCurrentUsername(request);
+        List<MusicFolder> musicFolders = mediaFolderService.getMusicFoldersForUser(username);
+        int limit = Math.min(Math.max(count, 0), 50);
+
+        Map<String, List<Suggestion>> result = new LinkedHashMap<>();
+        result.put("artists", searchService.suggest(query, limit, musicFolders, IndexType.ARTIST));
+        result.put("albums", searchService.suggest(query, limit, musicFolders, IndexType.ALBUM));
+        result.put("songs", searchService.suggest(query, limit, musicFolders, IndexType.SONG));
+        return result;
+    }
+
     /**
      * Create a list of search result artists from the search result.
      *
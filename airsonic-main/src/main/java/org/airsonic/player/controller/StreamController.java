@@ -24,10 +24,8 @@ import com.google.re2j.Matcher;
 import com.google.re2j.Pattern;
 import org.airsonic.player.domain.*;
 import org.airsonic.player.io.PipeStreams.MonitoredInputStream;
-import org.airsonic.player.io.PipeStreams.PipedInputStream;
-import org.airsonic.player.io.PipeStreams.PipedOutputStream;
 import org.airsonic.player.io.PlayQueueInputStream;
-import org.airsonic.player.io.ShoutCastOutputStream;
+import org.airsonic.player.io.ShoutCastInputStream;
 import org.airsonic.player.security.JWTAuthenticationToken;
 import org.airsonic.player.service.*;
 import org.airsonic.player.service.sonos.SonosHelper;
@@ -46,7 +44,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
-import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.ServletRequestBindingException;
 import org.springframework.web.bind.ServletRequestUtils;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -102,6 +99,8 @@ public class StreamController {
     private MediaFileService mediaFileService;
     @Autowired
     private SearchService searchService;
+    @Autowired
+    private StreamService streamService;
 
     @GetMapping
     public ResponseEntity<Resource> handleRequest(Authentication authentication,
@@ -151,6 +150,7 @@ public class StreamController {
         boolean isSingleFile = Objects.nonNull(file);
 
         Long byteOffset = null;
+        Double timeOffset = null;
 
         if (isSingleFile) {
 
@@ -176,16 +176,25 @@ public class StreamController {
                 videoTranscodingSettings = createVideoTranscodingSettings(file, swr.getRequest());
             }
 
+            // the transcoder starts at the offset itself if its command takes one
             TranscodingService.Parameters parameters = transcodingService.getParameters(file, player, bitRate,
-                    targetFormat, videoTranscodingSettings);
+                    targetFormat, videoTranscodingSettings, offsetSeconds);
+            timeOffset = parameters.getTimeOffset();
 
             // Support ranges as long as we're not transcoding blindly
             expectedSize = parameters.isRangeAllowed() ? parameters.getExpectedLength() : null;
 
-            // roughly adjust for offset seconds
-            if (expectedSize != null && expectedSize > 0 && offsetSeconds != null && offsetSeconds > 0 && file.getDuration() != null) {
-                byteOffset = Math.round(expectedSize * offsetSeconds / file.getDuration());
-                expectedSize = Math.max(0, expectedSize - byteOffset);
+            // otherwise adjust for offset seconds by skipping bytes
+            if (timeOffset == null && expectedSize != null && expectedSize > 0 && offsetSeconds != null && offsetSeconds > 0 && file.getDuration() != null) {
+                if (parameters.isTranscode()) {
+                    byteOffset = Math.round(expectedSize * offsetSeconds / file.getDuration());
+                } else {
+                    // the original file is entered at its nearest seek point
+                    byteOffset = streamService.getByteOffset(file, offsetSeconds);
+                }
+                if (byteOffset != null) {
+                    expectedSize = Math.max(0, expectedSize - byteOffset);
+                }
             }
 
             if (swr.checkNotModified(
@@ -210,6 +219,7 @@ public class StreamController {
         }
 
         VideoTranscodingSettings videoTranscodingSettingsF = videoTranscodingSettings;
+        Double timeOffsetF = timeOffset;
         TransferStatus status = statusService.createStreamStatus(player);
 
         Consumer<MediaFile> fileStartListener = mediaFile -> {
@@ -231,7 +241,7 @@ public class StreamController {
         };
         Function<MediaFile, InputStream> streamGenerator = LambdaUtils.uncheckFunction(
             mediaFile -> transcodingService.getTranscodedInputStream(
-                    transcodingService.getParameters(mediaFile, player, bitRate, targetFormat, videoTranscodingSettingsF)));
+                    transcodingService.getParameters(mediaFile, player, bitRate, targetFormat, videoTranscodingSettingsF, timeOffsetF)));
 
         HttpHeaders headers = new HttpHeaders();
         InputStream playStream = new PlayQueueInputStream(player.getPlayQueue(), fileStartListener, fileEndListener, streamGenerator);
@@ -241,10 +251,11 @@ public class StreamController {
         String clientId = Optional.ofNullable(swr.getParameter("c")).orElse("");
         if (!ICY_IGNORED_CLIENT.contains(clientId) && "1".equals(swr.getHeader("icy-metadata"))) {
             expectedSize = null;
-            ShoutcastDetails shoutcastDetails = getShoutcastDetails(playStream);
-            playStream = shoutcastDetails.getStream();
-            streamInit = shoutcastDetails.getStreamInit();
-            headers.addAll(shoutcastDetails.getHeaders());
+            playStream = new ShoutCastInputStream(playStream,
+                    () -> Optional.ofNullable(status.getMediaFile())
+                            .map(MediaFile::getTitle)
+                            .orElseGet(settingsService::getWelcomeTitle));
+            headers.addAll(getShoutcastHeaders());
         }
 
         // Deal with offset seconds by skipping over bytes from the underlying stream
@@ -298,70 +309,15 @@ public class StreamController {
         }
     }
 
-    private ShoutcastDetails getShoutcastDetails(InputStream input) throws IOException {
+    private HttpHeaders getShoutcastHeaders() {
         HttpHeaders responseHeaders = new HttpHeaders();
-        responseHeaders.set("icy-metaint", String.valueOf(ShoutCastOutputStream.META_DATA_INTERVAL));
+        responseHeaders.set("icy-metaint", String.valueOf(ShoutCastInputStream.META_DATA_INTERVAL));
         responseHeaders.set("icy-notice1", "This stream is served using Airsonic");
         responseHeaders.set("icy-notice2", "Airsonic - Free media streamer");
         responseHeaders.set("icy-name", "Airsonic");
         responseHeaders.set("icy-genre", "Mixed");
         responseHeaders.set("icy-url", "https://airsonic.github.io/");
-
-        return new ShoutcastDetails(new PipedInputStream(), (i, s) -> {
-            PipedInputStream pin = (PipedInputStream) i;
-
-            // start a new thread to feed data in
-            new Thread(() -> {
-                try (InputStream in = input;
-                        PipedOutputStream pout = new PipedOutputStream(pin);
-                        ShoutCastOutputStream shout = new ShoutCastOutputStream(pout,
-                            () -> Optional.ofNullable(s)
-                                    .map(TransferStatus::getMediaFile)
-                                    .map(MediaFile::getTitle)
-                                .orElseGet(settingsService::getWelcomeTitle))) {
-                    StreamUtils.copy(in, shout);
-                } catch (Exception e) {
-                    LOG.debug("Error with output to Shoutcast stream", e);
-                }
-            }, "ShoutcastStreamDatafeed").start();
-
-            // wait for src data thread to connect
-            while (pin.source == null) {
-                // sit and wait and ponder life
-                try {
-                    Thread.sleep(500);
-                } catch (InterruptedException e) {
-                    LOG.debug("Interrupted while waiting for PipedInputStream to connect", e);
-                    Thread.currentThread().interrupt();
-                    return;
-                }
-                LOG.debug("Waiting for a source {}", pin.source == null);
-            }
-        }, responseHeaders);
-    }
-
-    private static class ShoutcastDetails {
-        private final InputStream stream;
-        private final BiConsumer<InputStream, TransferStatus> streamInit;
-        private final HttpHeaders headers;
-
-        public ShoutcastDetails(InputStream stream, BiConsumer<InputStream, TransferStatus> streamInit, HttpHeaders headers) {
-            this.stream = stream;
-            this.streamInit = streamInit;
-            this.headers = headers;
-        }
-
-        public InputStream getStream() {
-            return stream;
-        }
-
-        public BiConsumer<InputStream, TransferStatus> getStreamInit() {
-            return streamInit;
-        }
-
-        public HttpHeaders getHeaders() {
-            return headers;
-        }
+        return responseHeaders;
     }
 
     /**
@@ -27,6 +27,7 @@ import org.airsonic.player.domain.Bookmark;
 import org.airsonic.player.domain.MusicFolder;
 import org.airsonic.player.domain.PlayQueue;
 import org.airsonic.player.domain.User;
+import org.airsonic.player.domain.dto.MediaFileSummary;
 import org.airsonic.player.i18n.LocaleResolver;
 import org.airsonic.player.service.*;
 import org.airsonic.player.service.podcast.PodcastDownloadClient;
@@ -141,6 +142,8 @@ public class SubsonicRESTController {
     @Autowired
     private AlbumService albumService;
     @Autowired
+    private AlbumListService albumListService;
+    @Autowired
     private BookmarkService bookmarkService;
     @Autowired
     private MediaScannerService mediaScannerService;
@@ -987,28 +990,27 @@ public class SubsonicRESTController {
 //                    playlistService.deletePlaylistUser(id, usernameToRemove);
 //                }
 //            }
-        List<MediaFile> songs = playlistService.getFilesInPlaylist(id);
         boolean songsChanged = false;
 
-        SortedSet<Integer> tmp = new TreeSet<Integer>();
+        SortedSet<Integer> songIndexesToRemove = new TreeSet<Integer>();
         for (int songIndexToRemove : getIntParameters(request, "songIndexToRemove")) {
-            tmp.add(songIndexToRemove);
+            songIndexesToRemove.add(songIndexToRemove);
         }
-        List<Integer> songIndexesToRemove = new ArrayList<Integer>(tmp);
-        Collections.reverse(songIndexesToRemove);
-        for (Integer songIndexToRemove : songIndexesToRemove) {
-            songs.remove(songIndexToRemove.intValue());
+        if (!songIndexesToRemove.isEmpty()) {
+            // indexes refer to the present songs only, as returned by getPlaylist
+            playlistService.removeFilesInPlaylistByIndices(id, songIndexesToRemove, false);
             songsChanged = true;
         }
+        List<MediaFile> songsToAdd = new ArrayList<MediaFile>();
         for (int songToAdd : getIntParameters(request, "songIdToAdd")) {
             MediaFile song = mediaFileService.getMediaFile(songToAdd);
             if (song != null) {
-                songs.add(song);
-                songsChanged = true;
+                songsToAdd.add(song);
             }
         }
-        if (songsChanged) {
-            playlistService.setFilesInPlaylist(id, songs);
+        if (!songsToAdd.isEmpty()) {
+            playlistService.insertFilesInPlaylist(id, -1, songsToAdd, false);
+            songsChanged = true;
         }
         playlistService.broadcastFileChange(id, playlist.getShared(), songsChanged);
 
@@ -1050,35 +1052,36 @@ public class SubsonicRESTController {
         size = Math.max(0, Math.min(size, 500));
         String type = getRequiredStringParameter(request, "type");
 
-        List<MediaFile> albums;
-        if ("highest".equals(type)) {
-            albums = ratingService.getHighestRatedAlbums(offset, size, musicFolders);
-        } else if ("frequent".equals(type)) {
-            albums = mediaFileService.getMostFrequentlyPlayedAlbums(offset, size, musicFolders);
-        } else if ("recent".equals(type)) {
-            albums = mediaFileService.getMostRecentlyPlayedAlbums(offset, size, musicFolders);
-        } else if ("newest".equals(type)) {
-            albums = mediaFileService.getNewestAlbums(offset, size, musicFolders);
-        } else if ("starred".equals(type)) {
-            albums = mediaFileService.getStarredAlbums(offset, size, username, musicFolders);
-        } else if ("alphabeticalByArtist".equals(type)) {
-            albums = mediaFileService.getAlphabeticalAlbums(offset, size, true, musicFolders);
-        } else if ("alphabeticalByName".equals(type)) {
-            albums = mediaFileService.getAlphabeticalAlbums(offset, size, false, musicFolders);
-        } else if ("byGenre".equals(type)) {
-            albums = mediaFileService.getAlbumsByGenre(offset, size, getRequiredStringParameter(request, "genre"), musicFolders);
-        } else if ("byYear".equals(type)) {
-            albums = mediaFileService.getAlbumsByYear(offset, size, getRequiredIntParameter(request, "fromYear"),
-                    getRequiredIntParameter(request, "toYear"), musicFolders);
-        } else if ("random".equals(type)) {
-            albums = searchService.getRandomAlbums(size, musicFolders);
-        } else {
-            throw new Exception("Invalid list type: " + type);
-        }
-
         AlbumList result = new AlbumList();
-        for (MediaFile album : albums) {
-            result.getAlbum().add(jaxbContentService.createJaxbChild(player, album, username));
+        if ("random".equals(type)) {
+            for (MediaFile album : searchService.getRandomAlbums(size, musicFolders)) {
+                result.getAlbum().add(jaxbContentService.createJaxbChild(player, album, username));
+            }
+        } else {
+            List<MediaFileSummary> albums;
+            if ("highest".equals(type)) {
+                albums = albumListService.getAlbums(AlbumListService.Order.HIGHEST, offset, size, musicFolders);
+            } else if ("frequent".equals(type)) {
+                albums = albumListService.getAlbums(AlbumListService.Order.FREQUENT, offset, size, musicFolders);
+            } else if ("recent".equals(type)) {
+                albums = albumListService.getAlbums(AlbumListService.Order.RECENT, offset, size, musicFolders);
+            } else if ("newest".equals(type)) {
+                albums = albumListService.getAlbums(AlbumListService.Order.NEWEST, offset, size, musicFolders);
+            } else if ("starred".equals(type)) {
+                albums = albumListService.getStarredAlbums(offset, size, username, musicFolders);
+            } else if ("alphabeticalByArtist".equals(type)) {
+                albums = albumListService.getAlbums(AlbumListService.Order.ALPHABETICAL_BY_ARTIST, offset, size, musicFolders);
+            } else if ("alphabeticalByName".equals(type)) {
+                albums = albumListService.getAlbums(AlbumListService.Order.ALPHABETICAL_BY_NAME, offset, size, musicFolders);
+            } else if ("byGenre".equals(type)) {
+                albums = albumListService.getAlbumsByGenre(offset, size, getRequiredStringParameter(request, "genre"), musicFolders);
+            } else if ("byYear".equals(type)) {
+                albums = albumListService.getAlbumsByYear(offset, size, getRequiredIntParameter(request, "fromYear"),
+                        getRequiredIntParameter(request, "toYear"), musicFolders);
+            } else {
+                throw new Exception("Invalid list type: " + type);
+            }
+            result.getAlbum().addAll(jaxbContentService.createJaxbDirectoryChildren(albums, username));
         }
 
         Response res = createResponse();
@@ -1100,22 +1103,22 @@ public class SubsonicRESTController {
 
         List<Album> albums;
         if ("frequent".equals(type)) {
-            albums = albumService.getMostFrequentlyPlayedAlbums(offset, size, musicFolders);
+            albums = albumListService.getAlbumsId3(AlbumListService.Order.FREQUENT, offset, size, musicFolders);
         } else if ("recent".equals(type)) {
-            albums = albumService.getMostResentlyPlayedAlbums(offset, size, musicFolders);
+            albums = albumListService.getAlbumsId3(AlbumListService.Order.RECENT, offset, size, musicFolders);
         } else if ("newest".equals(type)) {
-            albums = albumService.getRecentlyAddedAlbums(offset, size, musicFolders);
+            albums = albumListService.getAlbumsId3(AlbumListService.Order.NEWEST, offset, size, musicFolders);
         } else if ("alphabeticalByArtist".equals(type)) {
-            albums = albumService.getAlphabeticalAlbums(offset, size, true, false, musicFolders);
+            albums = albumListService.getAlbumsId3(AlbumListService.Order.ALPHABETICAL_BY_ARTIST, offset, size, musicFolders);
         } else if ("alphabeticalByName".equals(type)) {
-            albums = albumService.getAlphabeticalAlbums(offset, size, false, false, musicFolders);
+            albums = albumListService.getAlbumsId3(AlbumListService.Order.ALPHABETICAL_BY_NAME, offset, size, musicFolders);
         } else if ("byGenre".equals(type)) {
-            albums = albumService.getAlbumsByGenre(offset, size, getRequiredStringParameter(request, "genre"), musicFolders);
+            albums = albumListService.getAlbumsId3ByGenre(offset, size, getRequiredStringParameter(request, "genre"), musicFolders);
         } else if ("byYear".equals(type)) {
-            albums = albumService.getAlbumsByYear(offset, size, getRequiredIntParameter(request, "fromYear"),
-                                              getRequiredIntParameter(request, "toYear"), musicFolders);
+            albums = albumListService.getAlbumsId3ByYear(offset, size, getRequiredIntParameter(request, "fromYear"),
+                    getRequiredIntParameter(request, "toYear"), musicFolders);
         } else if ("starred".equals(type)) {
-            albums = albumService.getStarredAlbums(offset, size, username, musicFolders);
+            albums = albumListService.getStarredAlbumsId3(offset, size, username, musicFolders);
         } else if ("random".equals(type)) {
             albums = searchService.getRandomAlbumsId3(size, musicFolders);
         } else {
@@ -1363,9 +1366,8 @@ public class SubsonicRESTController {
         for (MediaFile artist : mediaFileService.getStarredArtists(0, Integer.MAX_VALUE, username, musicFolders)) {
             result.getArtist().add(jaxbContentService.createJaxbArtist(artist, username));
         }
-        for (MediaFile album : mediaFileService.getStarredAlbums(0, Integer.MAX_VALUE, username, musicFolders)) {
-            result.getAlbum().add(jaxbContentService.createJaxbChild(player, album, username));
-        }
+        result.getAlbum().addAll(jaxbContentService.createJaxbDirectoryChildren(
+                albumListService.getStarredAlbums(0, Integer.MAX_VALUE, username, musicFolders), username));
         for (MediaFile song : mediaFileService.getStarredSongs(0, Integer.MAX_VALUE, username, musicFolders)) {
             result.getSong().add(jaxbContentService.createJaxbChild(player, song, username));
         }
@@ -20,10 +20,8 @@
  */
 package org.airsonic.player.controller;
 
-import com.github.junrar.Archive;
-import com.github.junrar.exception.RarException;
-import com.github.junrar.rarfile.FileHeader;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.io.MoreFiles;
 import com.google.common.util.concurrent.RateLimiter;
 import com.google.re2j.Pattern;
@@ -31,21 +29,15 @@ import org.airsonic.player.ajax.UploadInfo;
 import org.airsonic.player.config.AirsonicHomeConfig;
 import org.airsonic.player.domain.TransferStatus;
 import org.airsonic.player.domain.User;
+import org.airsonic.player.service.MediaScannerService;
 import org.airsonic.player.service.PlayerService;
 import org.airsonic.player.service.SecurityService;
 import org.airsonic.player.service.SettingsService;
 import org.airsonic.player.service.StatusService;
+import org.airsonic.player.upload.ArchiveExtractor;
 import org.airsonic.player.upload.MonitoredMultipartFile;
 import org.airsonic.player.upload.UploadListener;
 import org.airsonic.player.util.FileUtil;
-import org.airsonic.player.util.LambdaUtils;
-import org.apache.commons.compress.archivers.ArchiveEntry;
-import org.apache.commons.compress.archivers.ArchiveInputStream;
-import org.apache.commons.compress.archivers.ArchiveStreamFactory;
-import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
-import org.apache.commons.compress.archivers.sevenz.SevenZFile;
-import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
-import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.commons.io.FilenameUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -61,11 +53,7 @@ import org.springframework.web.servlet.ModelAndView;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.nio.channels.FileChannel;
 import java.nio.file.AccessDeniedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -99,6 +87,10 @@ public class UploadController {
     private SimpMessagingTemplate brokerTemplate;
     @Autowired
     private AirsonicHomeConfig homeConfig;
+    @Autowired
+    private ArchiveExtractor archiveExtractor;
+    @Autowired
+    private MediaScannerService mediaScannerService;
 
     private static final Set<String> SUPPORTED_ZIP_FORMATS = ImmutableSet.of("zip", "7z", "rar", "cpio", "jar", "tar");
     public static final Map<UUID, Consumer<Path>> registeredCallbacks = new ConcurrentHashMap<>();
@@ -131,6 +123,7 @@ public class UploadController {
         User user = securityService.getCurrentUser(request);
         TransferStatus status = null;
         Path dir = null;
+        long ingestedFiles = 0;
 
         try {
 
@@ -170,16 +163,37 @@ public class UploadController {
                             exceptions.add(e.getMessage());
                             continue;
                         }
-                        monitoredFile.transferTo(targetFile.toFile());
-                        uploadedFiles.add(targetFile);
-                        LOG.info("Uploaded {} ", targetFile);
-
                         if (unzip && SUPPORTED_ZIP_FORMATS.contains(MoreFiles.getFileExtension(targetFile).toLowerCase())) {
-                            unzip(targetFile, unzippedFiles, exceptions);
+                            // a zip extracted while uploading is never written
+                            if (!archiveExtractor.extractUpload(monitoredFile, targetFile, status.getPlayer(), unzippedFiles, exceptions)) {
+                                monitoredFile.transferTo(targetFile.toFile());
+                                uploadedFiles.add(targetFile);
+                                LOG.info("Uploaded {} ", targetFile);
+                                archiveExtractor.extract(targetFile, status.getPlayer(), unzippedFiles, exceptions);
+                            }
+                        } else {
+                            monitoredFile.transferTo(targetFile.toFile());
+                            uploadedFiles.add(targetFile);
+                            LOG.info("Uploaded {} ", targetFile);
                         }
                     }
                 }
             }
+
+            // make the new files available right away instead of after the next scan, archives are not media
+            List<Path> newFiles = new ArrayList<>();
+            for (Path file : Iterables.concat(uploadedFiles, unzippedFiles)) {
+                if (Files.isRegularFile(file) && !SUPPORTED_ZIP_FORMATS.contains(MoreFiles.getFileExtension(file).toLowerCase())) {
+                    newFiles.add(file);
+                }
+            }
+            if (!newFiles.isEmpty()) {
+                String username = user.getUsername();
+                int count = newFiles.size();
+                mediaScannerService.scanPathsInBackground(newFiles).thenRun(() ->
+                        brokerTemplate.convertAndSendToUser(username, "/queue/uploads/ingested", count));
+                ingestedFiles = count;
+            }
         } catch (Exception x) {
             LOG.warn("Uploading failed.", x);
             exceptions.add(x.getMessage());
@@ -203,170 +217,11 @@ public class UploadController {
         map.put("exceptions", exceptions);
         map.put("uploadedFiles", uploadedFiles);
         map.put("unzippedFiles", unzippedFiles);
+        map.put("ingestedFiles", ingestedFiles);
 
         return new ModelAndView("upload", "model", map);
     }
 
-    private void unzip(Path file, List<Path> unzippedFiles, List<String> exceptions) {
-        LOG.info("Unzipping {}", file);
-        boolean unzipped = false;
-
-        // rar files
-        if (file.getFileName().toString().toLowerCase().endsWith(".rar")) {
-            LOG.info("Trying rar-specific extraction method for {}", file);
-            try (Archive zip = new Archive(file.toFile())) {
-                if (zip.isEncrypted()) {
-                    throw new AccessDeniedException(file.toString(), null, "Archive is encrypted");
-                }
-
-                for (FileHeader fh : zip) {
-                    if (fh.isEncrypted()) {
-                        LOG.info("Can't read {} in {}", fh.getFileName(), file);
-                        continue;
-                    }
-
-                    copyEntry(file, new ArchiveEntry() {
-                        @Override
-                        public boolean isDirectory() {
-                            return fh.isDirectory();
-                        }
-
-                        @Override
-                        public long getSize() {
-                            return fh.getFullUnpackSize();
-                        }
-
-                        @Override
-                        public String getName() {
-                            return fh.getFileName();
-                        }
-
-                        @Override
-                        public Date getLastModifiedDate() {
-                            return fh.getArcTime();
-                        }
-                    }, dest -> {
-                            try (OutputStream os = Files.newOutputStream(dest)) {
-                                zip.extractFile(fh, os);
-                            } catch (RarException e) {
-                                throw new IOException(e);
-                            }
-                        }, unzippedFiles, exceptions);
-                }
-            } catch (Exception e) {
-                LOG.warn("Something went wrong unzipping {}", file, e);
-                exceptions.add(e.getMessage());
-            } finally {
-                unzipped = true;
-                FileUtil.delete(file);
-            }
-        }
-
-        // zip files
-        if (file.getFileName().toString().toLowerCase().endsWith(".zip")) {
-            LOG.info("Trying zip-specific extraction method for {}", file);
-            try (FileChannel channel = FileChannel.open(file);
-                ZipFile zip = ZipFile.builder().setSeekableByteChannel(channel).get()) {
-                Enumeration<ZipArchiveEntry> entries = zip.getEntries();
-                ZipArchiveEntry entry = null;
-                while (entries.hasMoreElements()) {
-                    entry = entries.nextElement();
-
-                    if (!zip.canReadEntryData(entry)) {
-                        LOG.info("Can't read {} in {}", entry.getName(), file);
-                        continue;
-                    }
-
-                    try (InputStream is = zip.getInputStream(entry)) {
-                        copyEntry(file, entry, dest -> Files.copy(is, dest), unzippedFiles, exceptions);
-                    }
-                }
-            } catch (Exception e) {
-                LOG.warn("Something went wrong unzipping {}", file, e);
-                exceptions.add(e.getMessage());
-            } finally {
-                unzipped = true;
-                FileUtil.delete(file);
-            }
-        }
-
-        // 7z files
-        if (file.getFileName().toString().toLowerCase().endsWith(".7z")) {
-            LOG.info("Trying 7z-specific extraction method for {}", file);
-            try (FileChannel channel = FileChannel.open(file);
-                    SevenZFile zip = SevenZFile.builder().setSeekableByteChannel(channel).get()) {
-                byte[] buffer = new byte[8042];
-                SevenZArchiveEntry entry = null;
-                while ((entry = zip.getNextEntry()) != null) {
-                    copyEntry(file, entry, dest -> {
-                        int bytesRead = -1;
-                        try (OutputStream os = Files.newOutputStream(dest)) {
-                            while ((bytesRead = zip.read(buffer)) != -1) {
-                                os.write(buffer, 0, bytesRead);
-                            }
-                        }
-                    }, unzippedFiles, exceptions);
-                }
-            } catch (Exception e) {
-                LOG.warn("Something went wrong unzipping {}", file, e);
-                exceptions.add(e.getMessage());
-            } finally {
-                unzipped = true;
-                FileUtil.delete(file);
-            }
-        }
-
-        // Generic
-        if (!unzipped) {
-            LOG.info("Trying a generic extraction method for {}", file);
-            try (BufferedInputStream bis = new BufferedInputStream(Files.newInputStream(file));
-                    ArchiveInputStream<ArchiveEntry> ais = new ArchiveStreamFactory().createArchiveInputStream(bis)) {
-                ArchiveEntry entry = null;
-                while ((entry = ais.getNextEntry()) != null) {
-                    if (!ais.canReadEntryData(entry)) {
-                        LOG.info("Can't read {} in {}", entry.getName(), file);
-                        continue;
-                    }
-                    copyEntry(file, entry, dest -> Files.copy(ais, dest), unzippedFiles, exceptions);
-                }
-            } catch (Exception e) {
-                LOG.warn("Something went wrong unzipping {}", file, e);
-                exceptions.add(e.getMessage());
-            } finally {
-                FileUtil.delete(file);
-            }
-        }
-    }
-
-    private void copyEntry(Path file, ArchiveEntry entry, LambdaUtils.ThrowingConsumer<Path, IOException> copier,
-            List<Path> unzippedFiles, List<String> exceptions) {
-        final Path toPath = file.resolveSibling(entry.getName().replaceAll("\\\\", "/"));
-        try {
-            if (!toPath.normalize().startsWith(file.getParent())) {
-                throw new IOException("Bad zip filename: " + toPath.toString());
-            }
-            if (entry.isDirectory()) {
-                Files.createDirectories(toPath);
-            } else {
-                Path parent = toPath.getParent();
-                Files.createDirectories(parent);
-                if (!Files.isDirectory(parent)) {
-                    throw new IOException("Failed to create directory: " + parent);
-                }
-
-                copier.accept(toPath);
-                unzippedFiles.add(toPath);
-                LOG.debug("Unzipped {}", toPath);
-
-            }
-        } catch (IOException e) {
-            exceptions.add(e.getMessage());
-            LOG.debug("Could not unzip {}", toPath, e);
-        }
-
-        LOG.info("Processed {}", toPath);
-    }
-
     /**
      * Receives callbacks as the file upload progresses.
      */
@@ -1,19 +1,17 @@
 package org.airsonic.player.dao;
 
 import org.airsonic.player.util.LambdaUtils.ThrowingBiFunction;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
 import java.nio.file.Path;
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.function.Consumer;
 
 @Repository
 public class DatabaseDao {
-    private static final Logger LOG = LoggerFactory.getLogger(DatabaseDao.class);
 
     @Autowired
     private JdbcTemplate jdbcTemplate;
@@ -24,11 +22,20 @@ public class DatabaseDao {
         }
     }
 
-    public void importDB(Consumer<Connection> importFunction) {
+    /**
+     * Writes a compressed snapshot of a running HSQLDB database to the given .tar.gz file.
+     * The database keeps serving reads and writes while the snapshot is written.
+     *
+     * @param target backup file to create
+     */
+    public void backupOnline(Path target) {
+        String file = target.toAbsolutePath().toString().replace("'", "''");
+        jdbcTemplate.execute("BACKUP DATABASE TO '" + file + "' COMPRESSED NOT BLOCKING");
+    }
+
+    public void importDB(Consumer<Connection> importFunction) throws SQLException {
         try (Connection con = jdbcTemplate.getDataSource().getConnection()) {
             importFunction.accept(con);
-        } catch (Exception e) {
-            LOG.info("DB Import failed!", e);
         }
     }
 }
@@ -0,0 +1,354 @@
+/*
+ This file is part of Airsonic.
+
+ Airsonic is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Airsonic is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Airsonic.  If not, see <http://www.gnu.org/licenses/>.
+
+ Copyright 2025 (C) Y.Tory
+ */
+package org.airsonic.player.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Compact, versioned row dump of the database.
+ *
+ * Rows are read with a forward-only cursor and written one at a time, and inserted back with JDBC batches,
+ * so export and import time grow linearly with the number of rows and the heap stays bounded.
+ * An import commits every {@value #COMMIT_INTERVAL} rows, so that the database does not keep the undo
+ * of the whole import; {@link #readOrRestore} saves the current rows first and puts them back if it fails.
+ *
+ * Layout: magic, format version, schema version (last Liquibase changeset), then per table its name,
+ * its column names and its rows, each value prefixed with a type tag.
+ */
+public final class RowStreamFormat {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RowStreamFormat.class);
+
+    public static final String FILE_NAME = "airsonic-data.rows";
+
+    private static final String MAGIC = "AIRSONIC-ROWS";
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int BATCH_SIZE = 1000;
+    private static final int COMMIT_INTERVAL = 10 * BATCH_SIZE;
+    private static final int PROGRESS_INTERVAL = 100_000;
+
+    private static final byte NULL = 0;
+    private static final byte LONG = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte STRING = 3;
+    private static final byte BYTES = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte TIMESTAMP = 6;
+    private static final byte DECIMAL = 7;
+    private static final byte OFFSET_DATE_TIME = 8;
+
+    private RowStreamFormat() {
+    }
+
+    /**
+     * Returns the id of the last Liquibase changeset applied to the database.
+     */
+    public static String getSchemaVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.setMaxRows(1);
+            try (ResultSet rs = statement.executeQuery("select id from databasechangelog order by orderexecuted desc")) {
+                return rs.next() ? rs.getString(1) : "";
+            }
+        }
+    }
+
+    /**
+     * Writes all rows of the given tables.
+     *
+     * @param progress receives a message per table and every {@value #PROGRESS_INTERVAL} rows
+     * @return number of rows written
+     */
+    public static long write(Connection connection, List<String> tables, OutputStream out, Consumer<String> progress)
+            throws SQLException, IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeUTF(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        data.writeUTF(getSchemaVersion(connection));
+
+        boolean autoCommit = connection.getAutoCommit();
+        // some drivers only stream the result set within a transaction
+        connection.setAutoCommit(false);
+        long total = 0;
+        try {
+            for (String table : tables) {
+                long rows = 0;
+                try (Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    statement.setFetchSize(getFetchSize(connection));
+                    try (ResultSet rs = statement.executeQuery("select * from " + table)) {
+                        ResultSetMetaData meta = rs.getMetaData();
+                        int columns = meta.getColumnCount();
+                        data.writeBoolean(true);
+                        data.writeUTF(table);
+                        data.writeInt(columns);
+                        for (int i = 1; i <= columns; i++) {
+                            data.writeUTF(meta.getColumnName(i));
+                        }
+                        while (rs.next()) {
+                            data.writeBoolean(true);
+                            for (int i = 1; i <= columns; i++) {
+                                writeValue(data, rs.getObject(i));
+                            }
+                            if (++rows % PROGRESS_INTERVAL == 0) {
+                                progress.accept(table + ": " + rows + " rows");
+                            }
+                        }
+                        data.writeBoolean(false);
+                    }
+                }
+                total += rows;
+                LOG.debug("Exported {} rows of {}", rows, table);
+                progress.accept(table + ": " + rows + " rows exported");
+            }
+            data.writeBoolean(false);
+            data.flush();
+        } finally {
+            connection.rollback();
+            connection.setAutoCommit(autoCommit);
+        }
+        return total;
+    }
+
+    /*
+     * MySQL Connector/J reads the whole result set into memory unless it is asked to stream it row by row.
+     */
+    private static int getFetchSize(Connection connection) throws SQLException {
+        String driver = connection.getMetaData().getDriverName();
+        return driver != null && driver.startsWith("MySQL Connector") ? Integer.MIN_VALUE : FETCH_SIZE;
+    }
+
+    /**
+     * Replaces the rows of the tables like {@link #read}, after writing the current rows to the given file.
+     * If the import fails, the rows of the file are read back, and the file is kept if that fails as well.
+     *
+     * @param previous file that holds the current rows until the import completed
+     * @return number of rows inserted
+     */
+    public static long readOrRestore(Connection connection, List<String> tables, InputStream in, Path previous,
+            Consumer<String> progress) throws SQLException, IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(previous))) {
+            write(connection, tables, out, msg -> { });
+        }
+        try {
+            long rows = read(connection, tables, in, progress);
+            Files.delete(previous);
+            return rows;
+        } catch (SQLException | IOException | RuntimeException e) {
+            LOG.warn("Import failed, restoring the previous rows from {}", previous);
+            progress.accept("Import failed, restoring the previous rows");
+            try (InputStream restore = new BufferedInputStream(Files.newInputStream(previous))) {
+                read(connection, tables, restore, msg -> { });
+            } catch (SQLException | IOException | RuntimeException restoreFailure) {
+                LOG.error("Previous rows could not be restored, they are kept in {}", previous, restoreFailure);
+                e.addSuppressed(restoreFailure);
+                throw e;
+            }
+            Files.delete(previous);
+            throw e;
+        }
+    }
+
+    /**
+     * Replaces the rows of the tables contained in the dump, committing every {@value #COMMIT_INTERVAL} rows.
+     * The uncommitted rows are rolled back if the dump cannot be read or inserted, so a dump of fewer rows
+     * leaves the database as it was; use {@link #readOrRestore} to get the same for any dump.
+     * The dump must have been written from a database at the same schema version.
+     *
+     * @param tables all tables of the dump, parents before children
+     * @param progress receives a message per table and every {@value #PROGRESS_INTERVAL} rows
+     * @return number of rows inserted
+     */
+    public static long read(Connection connection, List<String> tables, InputStream in, Consumer<String> progress)
+            throws SQLException, IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (!MAGIC.equals(data.readUTF())) {
+            throw new IOException("Not an Airsonic row dump");
+        }
+        int formatVersion = data.readInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported row dump format " + formatVersion);
+        }
+        String schemaVersion = data.readUTF();
+        String currentSchemaVersion = getSchemaVersion(connection);
+        if (!schemaVersion.equals(currentSchemaVersion)) {
+            throw new IOException("Row dump was written at schema version " + schemaVersion
+                    + ", but the database is at " + currentSchemaVersion);
+        }
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        long total = 0;
+        try {
+            try (Statement statement = connection.createStatement()) {
+                for (int i = tables.size() - 1; i >= 0; i--) {
+                    statement.executeUpdate("delete from " + tables.get(i));
+                }
+            }
+
+            while (data.readBoolean()) {
+                String table = data.readUTF();
+                if (!tables.contains(table)) {
+                    throw new IOException("Unexpected table " + table);
+                }
+                int columns = data.readInt();
+                List<String> names = new ArrayList<>(columns);
+                for (int i = 0; i < columns; i++) {
+                    names.add(data.readUTF());
+                }
+                String sql = "insert into " + table + " (" + String.join(", ", names) + ") values ("
+                        + names.stream().map(n -> "?").collect(joining(", ")) + ")";
+                long rows = 0;
+                try (PreparedStatement insert = connection.prepareStatement(sql)) {
+                    while (data.readBoolean()) {
+                        for (int i = 1; i <= columns; i++) {
+                            insert.setObject(i, readValue(data));
+                        }
+                        insert.addBatch();
+                        if (++rows % BATCH_SIZE == 0) {
+                            insert.executeBatch();
+                        }
+                        if ((total + rows) % COMMIT_INTERVAL == 0) {
+                            connection.commit();
+                        }
+                        if (rows % PROGRESS_INTERVAL == 0) {
+                            progress.accept(table + ": " + rows + " rows");
+                        }
+                    }
+                    insert.executeBatch();
+                }
+                total += rows;
+                LOG.debug("Imported {} rows of {}", rows, table);
+                progress.accept(table + ": " + rows + " rows imported");
+            }
+            connection.commit();
+        } catch (SQLException | IOException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        return total;
+    }
+
+    private static void writeValue(DataOutputStream data, Object value) throws IOException, SQLException {
+        if (value == null) {
+            data.writeByte(NULL);
+        } else if (value instanceof Boolean b) {
+            data.writeByte(BOOLEAN);
+            data.writeBoolean(b);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            data.writeByte(LONG);
+            data.writeLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            data.writeByte(DOUBLE);
+            data.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof BigDecimal d) {
+            data.writeByte(DECIMAL);
+            writeBytes(data, d.toString().getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof Timestamp t) {
+            data.writeByte(TIMESTAMP);
+            data.writeLong(t.getTime());
+            data.writeInt(t.getNanos());
+        } else if (value instanceof OffsetDateTime t) {
+            data.writeByte(OFFSET_DATE_TIME);
+            writeBytes(data, t.toString().getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof byte[] b) {
+            data.writeByte(BYTES);
+            writeBytes(data, b);
+        } else if (value instanceof Blob b) {
+            data.writeByte(BYTES);
+            writeBytes(data, b.getBytes(1, (int) b.length()));
+        } else if (value instanceof Clob c) {
+            data.writeByte(STRING);
+            writeBytes(data, c.getSubString(1, (int) c.length()).getBytes(StandardCharsets.UTF_8));
+        } else {
+            // strings, and anything the database accepts back as text
+            data.writeByte(STRING);
+            writeBytes(data, value.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Object readValue(DataInputStream data) throws IOException {
+        byte tag = data.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case BOOLEAN:
+                return data.readBoolean();
+            case LONG:
+                return data.readLong();
+            case DOUBLE:
+                return data.readDouble();
+            case DECIMAL:
+                return new BigDecimal(new String(readBytes(data), StandardCharsets.UTF_8));
+            case TIMESTAMP:
+                Timestamp timestamp = new Timestamp(data.readLong());
+                timestamp.setNanos(data.readInt());
+                return timestamp;
+            case OFFSET_DATE_TIME:
+                return OffsetDateTime.parse(new String(readBytes(data), StandardCharsets.UTF_8));
+            case BYTES:
+                return readBytes(data);
+            case STRING:
+                return new String(readBytes(data), StandardCharsets.UTF_8);
+            default:
+                throw new IOException("Unknown value type " + tag);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream data, byte[] bytes) throws IOException {
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream data) throws IOException {
+        byte[] bytes = new byte[data.readInt()];
+        data.readFully(bytes);
+        return bytes;
+    }
+}
@@ -82,6 +82,14 @@ public class Genre {
         songCount.incrementAndGet();
     }
 
+    public void addAlbumCount(int count) {
+        albumCount.addAndGet(count);
+    }
+
+    public void addSongCount(int count) {
+        songCount.addAndGet(count);
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(name);
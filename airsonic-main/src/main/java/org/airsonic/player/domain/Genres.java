@@ -44,25 +44,35 @@ public class Genres {
     // - abc; xyz --> ['abc', ' xyz']
 
     public void incrementAlbumCount(String genreName, String separators) {
-        String[] splitGenres = StringUtils.split(genreName, separators);
-        if (splitGenres.length > 1) { // otherwise it's the same genre as the original
-            Stream.of(splitGenres)
-                    .map(StringUtils::trim)
-                    .filter(StringUtils::isNotBlank)
-                    .forEach(s -> genres.computeIfAbsent(s, k -> new Genre(k)).incrementAlbumCount());
-        }
-        genres.computeIfAbsent(genreName, k -> new Genre(k)).incrementAlbumCount();
+        addAlbumCount(genreName, separators, 1);
     }
 
     public void incrementSongCount(String genreName, String separators) {
+        addSongCount(genreName, separators, 1);
+    }
+
+    /**
+     * Adds the albums of a genre tag to the tag and to each genre it is split to.
+     */
+    public void addAlbumCount(String genreName, String separators, int count) {
+        split(genreName, separators).forEach(s -> genres.computeIfAbsent(s, k -> new Genre(k)).addAlbumCount(count));
+    }
+
+    /**
+     * Adds the songs of a genre tag to the tag and to each genre it is split to.
+     */
+    public void addSongCount(String genreName, String separators, int count) {
+        split(genreName, separators).forEach(s -> genres.computeIfAbsent(s, k -> new Genre(k)).addSongCount(count));
+    }
+
+    private static Stream<String> split(String genreName, String separators) {
         String[] splitGenres = StringUtils.split(genreName, separators);
         if (splitGenres.length > 1) { // otherwise it's the same genre as the original
-            Stream.of(splitGenres)
+            return Stream.concat(Stream.of(splitGenres)
                     .map(StringUtils::trim)
-                    .filter(StringUtils::isNotBlank)
-                    .forEach(s -> genres.computeIfAbsent(s, k -> new Genre(k)).incrementSongCount());
+                    .filter(StringUtils::isNotBlank), Stream.of(genreName));
         }
-        genres.computeIfAbsent(genreName, k -> new Genre(k)).incrementSongCount();
+        return Stream.of(genreName);
     }
 
     public List<Genre> getGenres() {
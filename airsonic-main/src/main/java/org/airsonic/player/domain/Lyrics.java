@@ -33,6 +33,13 @@ public class Lyrics {
     @Column(name = "updated", nullable = false)
     private Instant updated;
 
+    // the LRC file the lyrics were read from, and its last modified date at the time
+    @Column(name = "lrc_path")
+    private String lrcPath;
+
+    @Column(name = "lrc_modified")
+    private Instant lrcModified;
+
     /**
      * Creates a new Lyrics instance with the provided lyrics.
      * The created and updated timestamps are set to the current time.
@@ -100,6 +107,22 @@ public class Lyrics {
         this.source = source;
     }
 
+    public String getLrcPath() {
+        return lrcPath;
+    }
+
+    public void setLrcPath(String lrcPath) {
+        this.lrcPath = lrcPath;
+    }
+
+    public Instant getLrcModified() {
+        return lrcModified;
+    }
+
+    public void setLrcModified(Instant lrcModified) {
+        this.lrcModified = lrcModified;
+    }
+
     @Override
     public int hashCode() {
         return lyrics != null ? lyrics.hashCode() : 0;
@@ -34,6 +34,7 @@ import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -152,6 +153,9 @@ public class MediaFile {
     @Column(name = "mb_recording_id", nullable = true)
     private String musicBrainzRecordingId;
 
+    @Column(name = "random_key", nullable = false)
+    private double randomKey = ThreadLocalRandom.current().nextDouble();
+
     @Transient
     private Double averageRating = 0.0;
 
@@ -477,6 +481,25 @@ public class MediaFile {
         this.musicBrainzRecordingId = musicBrainzRecordingId;
     }
 
+    /**
+     * Returns the uniformly distributed sort key used for random sampling.
+     */
+    @JsonIgnore
+    public double getRandomKey() {
+        return randomKey;
+    }
+
+    public void setRandomKey(double randomKey) {
+        this.randomKey = randomKey;
+    }
+
+    /**
+     * Assigns a fresh random sort key.
+     */
+    public void reseedRandomKey() {
+        this.randomKey = ThreadLocalRandom.current().nextDouble();
+    }
+
     /**
      * Returns when the children was last updated in the database.
      */
@@ -508,6 +531,22 @@ public class MediaFile {
         this.averageRating = averageRating;
     }
 
+    // lyrics read along with the other tags, until the lyrics service picks them up
+    @Transient
+    private String embeddedLyrics;
+
+    /**
+     * Returns the lyrics read from the tags when the file was last read, {@code ""} if it has none,
+     * or null if the tags were not read since the lyrics service last picked them up.
+     */
+    public String getEmbeddedLyrics() {
+        return embeddedLyrics;
+    }
+
+    public void setEmbeddedLyrics(String embeddedLyrics) {
+        this.embeddedLyrics = embeddedLyrics;
+    }
+
     // placeholder to use prior to persistence
     @Transient
     private CoverArt art;
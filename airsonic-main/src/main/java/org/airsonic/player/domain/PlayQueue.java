@@ -55,6 +55,11 @@ public class PlayQueue {
     private List<MediaFile> filesBackup = new ArrayList<>();
     private int indexBackup = 0;
 
+    /**
+     * Incremented whenever the files change, so that clients can tell whether they missed a change.
+     */
+    private volatile long version = 0;
+
     /**
      * Returns the user-defined name of the playlist.
      *
@@ -88,6 +93,7 @@ public class PlayQueue {
             // Remove file from playlist if it doesn't exist.
             if (!Files.exists(file.getFullPath())) {
                 files.remove(index);
+                version++;
                 index = Math.max(0, Math.min(index, size() - 1));
                 return getCurrentFile();
             }
@@ -132,6 +138,16 @@ public class PlayQueue {
         }
     }
 
+    /**
+     * Returns the version of the files in the playlist, which is incremented whenever they change.
+     * Read it while holding the lock of the play queue to relate it to the files.
+     *
+     * @return The version of the files in the playlist.
+     */
+    public long getVersion() {
+        return version;
+    }
+
     /**
      * Returns the number of songs in the playlists.
      *
@@ -179,6 +195,7 @@ public class PlayQueue {
     public synchronized void addFilesAt(Collection<MediaFile> mediaFiles, int index) {
         makeBackup();
         files.addAll(index, mediaFiles);
+        version++;
         setStatus(Status.PLAYING);
     }
 
@@ -195,6 +212,7 @@ public class PlayQueue {
             files.clear();
         }
         files.addAll(mediaFiles);
+        version++;
         setStatus(Status.PLAYING);
     }
 
@@ -217,6 +235,7 @@ public class PlayQueue {
             this.index--;
         }
         files.remove(index);
+        version++;
 
         this.index = Math.max(0, Math.min(this.index, size() - 1));
     }
@@ -227,6 +246,7 @@ public class PlayQueue {
     public synchronized void clear() {
         makeBackup();
         files.clear();
+        version++;
         setRandomSearchCriteria(null);
         setInternetRadio(null);
         index = 0;
@@ -239,6 +259,7 @@ public class PlayQueue {
         makeBackup();
         MediaFile currentFile = getCurrentFile();
         Collections.shuffle(files);
+        version++;
         if (currentFile != null) {
             Collections.swap(files, files.indexOf(currentFile), 0);
             index = 0;
@@ -280,6 +301,7 @@ public class PlayQueue {
         };
 
         files.sort(comparator);
+        version++;
         if (currentFile != null) {
             index = files.indexOf(currentFile);
         }
@@ -303,6 +325,7 @@ public class PlayQueue {
 
         files.clear();
         files.addAll(Arrays.asList(newFiles));
+        version++;
     }
 
     /**
@@ -325,6 +348,7 @@ public class PlayQueue {
         }
         makeBackup();
         Collections.swap(files, index, index + 1);
+        version++;
 
         if (this.index == index) {
             this.index++;
@@ -376,6 +400,7 @@ public class PlayQueue {
 
         indexBackup = indexTmp;
         filesBackup = filesTmp;
+        version++;
     }
 
     /**
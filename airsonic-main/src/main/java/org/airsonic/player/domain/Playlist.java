@@ -64,7 +64,7 @@ public class Playlist {
             inverseJoinColumns = @JoinColumn(name = "username"))
     private List<User> sharedUsers;
 
-    @OrderBy("orderIndex ASC")
+    @OrderBy("orderIndex ASC, id ASC")
     @OneToMany(mappedBy = "playlist", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<PlaylistMediaFile> mediaFiles;
 
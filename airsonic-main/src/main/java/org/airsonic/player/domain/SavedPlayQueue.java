@@ -59,6 +59,8 @@ public class SavedPlayQueue {
     private Instant changed;
     @Column(name = "changed_by")
     private String changedBy;
+    @Column(name = "content_hash")
+    private String contentHash;
 
     public SavedPlayQueue() {
     }
@@ -134,6 +136,19 @@ public class SavedPlayQueue {
         this.changedBy = changedBy;
     }
 
+    /**
+     * Returns the hash of the media files in the play queue, used to detect saves that only change the position.
+     *
+     * @return The hash, or <code>null</code> if the play queue was saved before hashes were stored.
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(id);
@@ -0,0 +1,30 @@
+/*
+ This file is part of Airsonic.
+
+ Airsonic is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Airsonic is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Airsonic.  If not, see <http://www.gnu.org/licenses/>.
+
+ Copyright 2025 (C) Y.Tory
+ */
+package org.airsonic.player.domain.dto;
+
+/**
+ * Average of the user ratings of a media file, as computed by the database.
+ */
+public record AverageRating(int mediaFileId, Double rating) {
+
+    /**
+     * JPQL select clause producing this projection from a {@code UserRating u} grouped by media file.
+     */
+    public static final String SELECT = "SELECT new org.airsonic.player.domain.dto.AverageRating(u.mediaFileId, AVG(u.rating)) ";
+}
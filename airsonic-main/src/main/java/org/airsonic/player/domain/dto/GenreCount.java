@@ -0,0 +1,32 @@
+/*
+ This file is part of Airsonic.
+
+ Airsonic is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Airsonic is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Airsonic.  If not, see <http://www.gnu.org/licenses/>.
+
+ Copyright 2025 (C) Y.Tory
+ */
+package org.airsonic.player.domain.dto;
+
+import org.airsonic.player.domain.MediaFile.MediaType;
+
+/**
+ * Number of present media files of a type with the same genre tag, as counted by the database.
+ */
+public record GenreCount(String genre, MediaType mediaType, long count) {
+
+    /**
+     * JPQL select clause producing this projection from a {@code MediaFile m} grouped by genre and media type.
+     */
+    public static final String SELECT = "SELECT new org.airsonic.player.domain.dto.GenreCount(m.genre, m.mediaType, COUNT(m)) ";
+}
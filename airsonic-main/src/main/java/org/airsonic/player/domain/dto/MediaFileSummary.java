@@ -0,0 +1,81 @@
+/*
+ This file is part of Airsonic.
+
+ Airsonic is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Airsonic is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Airsonic.  If not, see <http://www.gnu.org/licenses/>.
+
+ Copyright 2025 (C) Y.Tory
+ */
+package org.airsonic.player.domain.dto;
+
+import org.airsonic.player.domain.MediaFile;
+import org.airsonic.player.domain.MediaFile.MediaType;
+import org.apache.commons.io.FilenameUtils;
+
+import java.time.Instant;
+
+/**
+ * Read-only projection of the {@link org.airsonic.player.domain.MediaFile} columns needed to render list views.
+ * Built directly by JPQL constructor expressions, so neither the entity nor its music folder is hydrated.
+ */
+public record MediaFileSummary(
+        Integer id,
+        Integer folderId,
+        String path,
+        String parentPath,
+        MediaType mediaType,
+        String title,
+        String albumName,
+        String artist,
+        Integer year,
+        String genre,
+        Instant created,
+        Instant changed,
+        int playCount,
+        Instant lastPlayed,
+        Double duration) {
+
+    /**
+     * JPQL select clause producing this projection from a {@code MediaFile m}.
+     */
+    public static final String SELECT = "SELECT new org.airsonic.player.domain.dto.MediaFileSummary("
+            + "m.id, m.folder.id, m.path, m.parentPath, m.mediaType, m.title, m.albumName, m.artist, "
+            + "m.year, m.genre, m.created, m.changed, m.playCount, m.lastPlayed, m.duration) ";
+
+    /**
+     * Same projection of an already loaded media file.
+     */
+    public static MediaFileSummary of(MediaFile m) {
+        return new MediaFileSummary(m.getId(), m.getFolder().getId(), m.getPath(), m.getParentPath(), m.getMediaType(),
+                m.getTitle(), m.getAlbumName(), m.getArtist(), m.getYear(), m.getGenre(), m.getCreated(), m.getChanged(),
+                m.getPlayCount(), m.getLastPlayed(), m.getDuration());
+    }
+
+    /**
+     * The creation date, or the change date of media files without a creation date.
+     */
+    public Instant createdOrChanged() {
+        return created != null ? created : changed;
+    }
+
+    public boolean isDirectory() {
+        return mediaType == MediaType.DIRECTORY || mediaType == MediaType.ALBUM;
+    }
+
+    /**
+     * Same semantics as {@link org.airsonic.player.domain.MediaFile#getName()}.
+     */
+    public String name() {
+        return title != null ? title : isDirectory() ? FilenameUtils.getName(path) : FilenameUtils.getBaseName(path);
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ This file is part of Airsonic.
+
+ Airsonic is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Airsonic is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Airsonic.  If not, see <http://www.gnu.org/licenses/>.
+
+ Copyright 2016 (C) Airsonic Authors
+ Based upon Subsonic, Copyright 2009 (C) Sindre Mehus
+ */
+package org.airsonic.player.io;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * Implements SHOUTcast support by decorating an existing input stream.
+ * <p/>
+ * A meta-data block is interleaved after every {@link #META_DATA_INTERVAL} bytes of the underlying stream
+ * while reading, so no thread or pipe is needed to feed the decorated stream.
+ * <p/>
+ * Based on protocol description found on
+ * <em>http://www.smackfu.com/stuff/programming/shoutcast.html</em>
+ *
+ * @author Sindre Mehus
+ */
+public class ShoutCastInputStream extends FilterInputStream {
+
+    /**
+     * Number of bytes between each SHOUTcast metadata block.
+     */
+    public static final int META_DATA_INTERVAL = 20480;
+
+    /**
+     * Keeps track of the number of bytes read (excluding meta-data).  Between 0 and {@link #META_DATA_INTERVAL}.
+     */
+    private int byteCount;
+
+    /**
+     * The meta-data block being read, or {@code null} if the underlying stream is read.
+     */
+    private byte[] metaData;
+    private int metaDataPosition;
+
+    /**
+     * The last stream title sent.
+     */
+    private String previousStreamTitle;
+
+    private final Supplier<String> titleSupplier;
+
+    /**
+     * Creates a new SHOUTcast-decorated stream for the given input stream.
+     *
+     * @param in            The input stream to decorate.
+     * @param titleSupplier Meta-data title is fetched from this supplier.
+     */
+    public ShoutCastInputStream(InputStream in, Supplier<String> titleSupplier) {
+        super(in);
+        this.titleSupplier = titleSupplier;
+    }
+
+    /**
+     * Reads from the underlying stream, adding SHOUTcast meta-data as necessary.
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        if (metaData != null) {
+            int n = Math.min(len, metaData.length - metaDataPosition);
+            System.arraycopy(metaData, metaDataPosition, b, off, n);
+            metaDataPosition += n;
+            if (metaDataPosition == metaData.length) {
+                metaData = null;
+            }
+            return n;
+        }
+
+        // never read past the next meta-data block
+        int n = in.read(b, off, Math.min(len, META_DATA_INTERVAL - byteCount));
+        if (n > 0) {
+            byteCount += n;
+
+            // Reached meta-data block?
+            if (byteCount == META_DATA_INTERVAL) {
+                metaData = createMetaData();
+                metaDataPosition = 0;
+                byteCount = 0;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Reads a byte from the underlying stream, adding SHOUTcast meta-data as necessary.
+     */
+    @Override
+    public int read() throws IOException {
+        byte[] buf = new byte[1];
+        int n;
+        do {
+            n = read(buf, 0, 1);
+        } while (n == 0);
+        return n < 0 ? -1 : buf[0] & 0xFF;
+    }
+
+    /**
+     * Skips bytes of the underlying stream. Skipped bytes are never sent, so they do not count towards the
+     * next meta-data block.
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        return metaData == null ? in.skip(n) : 0;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (metaData != null) {
+            return metaData.length - metaDataPosition;
+        }
+        return Math.min(in.available(), META_DATA_INTERVAL - byteCount);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    private byte[] createMetaData() {
+        String streamTitle = titleSupplier.get();
+
+        byte[] bytes;
+
+        if (streamTitle == null || streamTitle.equals(previousStreamTitle)) {
+            bytes = new byte[0];
+        } else {
+            previousStreamTitle = streamTitle;
+            bytes = createStreamTitle(streamTitle);
+        }
+
+        // Length in groups of 16 bytes.
+        int length = bytes.length / 16;
+        if (bytes.length % 16 > 0) {
+            length++;
+        }
+
+        // The length as a single byte, then the message, then padding zero bytes.
+        byte[] block = new byte[1 + length * 16];
+        block[0] = (byte) length;
+        System.arraycopy(bytes, 0, block, 1, bytes.length);
+        return block;
+    }
+
+    /**
+     * creates a stream title for the given title data.
+     *
+     * @param title title data
+     * @return stream title.
+     */
+    private byte[] createStreamTitle(String title) {
+        // Remove any quotes from the title.
+        title = title.replaceAll("'", "");
+
+        title = "StreamTitle='" + title + "';";
+
+        // Original icy specification needs ascii encode,
+        // but external player (Winamp/AIMP/foobar etc) support UTF-8 encoded value.
+        return title.getBytes(StandardCharsets.UTF_8);
+    }
+}
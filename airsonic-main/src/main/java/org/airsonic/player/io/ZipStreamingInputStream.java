@@ -0,0 +1,382 @@
+/*
+ This file is part of Airsonic.
+
+ Airsonic is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Airsonic is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Airsonic.  If not, see <http://www.gnu.org/licenses/>.
+
+ Copyright 2016 (C) Airsonic Authors
+ */
+package org.airsonic.player.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * An input stream producing an uncompressed (STORED) zip archive of a fixed list of files.
+ * <p/>
+ * The layout of the archive, and therefore its exact length, is computed up front from the entry names
+ * and sizes. Each file is read exactly once while the archive is streamed: its CRC is computed on the fly
+ * and written in a data descriptor following the entry data, and again in the central directory at the end.
+ * Readers using the central directory, such as {@link java.util.zip.ZipFile}, accept this layout, while
+ * streaming readers need support for data descriptors on STORED entries, which
+ * {@link java.util.zip.ZipInputStream} lacks.
+ * Zip64 records are used where sizes, offsets or the number of entries exceed the classic zip limits.
+ * <p/>
+ * No thread or pipe is involved; file data is read from a {@link FileChannel} straight into the buffer
+ * passed to {@link #read(byte[], int, int)}.
+ */
+public class ZipStreamingInputStream extends InputStream {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int END_SIZE = 22;
+    private static final int ZIP64_END_SIZE = 56;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+    private static final short ZIP64_EXTRA_ID = 0x0001;
+
+    private static final short VERSION_STORED = 10;
+    private static final short VERSION_DATA_DESCRIPTOR = 20;
+    private static final short VERSION_ZIP64 = 45;
+
+    private static final short FLAG_DATA_DESCRIPTOR = 0x0008;
+    private static final short FLAG_UTF8 = 0x0800;
+
+    private static final int DOS_DIRECTORY_ATTRIBUTE = 0x10;
+
+    /**
+     * A file or directory to add to the archive.
+     */
+    public static class Entry {
+        private final Path path;
+        private final byte[] name;
+        private final long size;
+        private final boolean directory;
+        private final boolean zip64;
+        private long offset;
+        private long crc;
+
+        /**
+         * Creates a new entry.
+         *
+         * @param path The file to read the entry data from. Ignored for directories.
+         * @param name The name of the entry in the archive. Directory names end with {@code /}.
+         * @param size The size of the file. It must not change until the archive has been streamed.
+         */
+        public Entry(Path path, String name, long size) {
+            this.path = path;
+            this.name = name.getBytes(StandardCharsets.UTF_8);
+            this.directory = name.endsWith("/");
+            this.size = directory ? 0L : size;
+            this.zip64 = this.size >= ZIP64_MAGIC;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        private int localHeaderSize() {
+            return LOCAL_HEADER_SIZE + name.length + (zip64 ? 20 : 0);
+        }
+
+        private int dataDescriptorSize() {
+            if (directory) {
+                return 0;
+            }
+            return zip64 ? 24 : 16;
+        }
+
+        private int centralExtraSize() {
+            int fields = (zip64 ? 2 : 0) + (offset >= ZIP64_MAGIC ? 1 : 0);
+            return fields == 0 ? 0 : 4 + 8 * fields;
+        }
+
+        private int centralHeaderSize() {
+            return CENTRAL_HEADER_SIZE + name.length + centralExtraSize();
+        }
+
+        private short version() {
+            if (zip64 || offset >= ZIP64_MAGIC) {
+                return VERSION_ZIP64;
+            }
+            return directory ? VERSION_STORED : VERSION_DATA_DESCRIPTOR;
+        }
+
+        private short flags() {
+            return directory ? FLAG_UTF8 : (short) (FLAG_UTF8 | FLAG_DATA_DESCRIPTOR);
+        }
+    }
+
+    private final List<Entry> entries;
+    private final short dosTime;
+    private final short dosDate;
+    private final long centralDirectoryOffset;
+    private final long centralDirectorySize;
+    private final boolean zip64End;
+    private final long length;
+
+    private Consumer<Path> entryListener = p -> {};
+
+    private int nextEntry;
+    private boolean finished;
+    private ByteBuffer pending;
+    private Entry current;
+    private FileChannel channel;
+    private long remaining;
+    private final CRC32 crc = new CRC32();
+
+    public ZipStreamingInputStream(List<Entry> entries) {
+        this.entries = new ArrayList<>(entries);
+        LocalDateTime now = LocalDateTime.now();
+        this.dosTime = (short) ((now.getHour() << 11) | (now.getMinute() << 5) | (now.getSecond() >> 1));
+        this.dosDate = (short) (((Math.max(now.getYear(), 1980) - 1980) << 9) | (now.getMonthValue() << 5) | now.getDayOfMonth());
+
+        long offset = 0L;
+        for (Entry entry : this.entries) {
+            entry.offset = offset;
+            offset += entry.localHeaderSize() + entry.size + entry.dataDescriptorSize();
+        }
+        this.centralDirectoryOffset = offset;
+        this.centralDirectorySize = this.entries.stream().mapToLong(Entry::centralHeaderSize).sum();
+        this.zip64End = this.entries.size() >= ZIP64_MAGIC_COUNT || centralDirectoryOffset >= ZIP64_MAGIC
+                || centralDirectorySize >= ZIP64_MAGIC;
+        this.length = centralDirectoryOffset + centralDirectorySize + END_SIZE
+                + (zip64End ? ZIP64_END_SIZE + ZIP64_LOCATOR_SIZE : 0);
+    }
+
+    /**
+     * Returns the exact number of bytes this stream produces.
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Sets a listener notified with the path of each file entry before its data is streamed.
+     */
+    public void setEntryListener(Consumer<Path> entryListener) {
+        this.entryListener = entryListener;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (true) {
+            if (pending != null && pending.hasRemaining()) {
+                int n = Math.min(len, pending.remaining());
+                pending.get(b, off, n);
+                return n;
+            }
+            if (channel != null) {
+                if (remaining > 0) {
+                    int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)));
+                    if (n < 0) {
+                        throw new EOFException("File shrank while being zipped: " + current.path);
+                    }
+                    crc.update(b, off, n);
+                    remaining -= n;
+                    return n;
+                }
+                closeChannel();
+                current.crc = crc.getValue();
+                pending = dataDescriptor(current);
+                continue;
+            }
+            if (!advance()) {
+                return -1;
+            }
+        }
+    }
+
+    @Override
+    public int available() {
+        return pending == null ? 0 : pending.remaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        pending = null;
+        closeChannel();
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            try {
+                channel.close();
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    /**
+     * Moves on to the next entry, or to the central directory after the last entry.
+     *
+     * @return false if the whole archive has been produced
+     */
+    private boolean advance() throws IOException {
+        if (finished) {
+            return false;
+        }
+        if (nextEntry < entries.size()) {
+            current = entries.get(nextEntry++);
+            pending = localHeader(current);
+            if (!current.directory) {
+                entryListener.accept(current.path);
+                channel = FileChannel.open(current.path, StandardOpenOption.READ);
+                remaining = current.size;
+                crc.reset();
+            }
+            return true;
+        }
+        pending = centralDirectory();
+        current = null;
+        finished = true;
+        return true;
+    }
+
+    private static ByteBuffer allocate(long size) {
+        return ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private ByteBuffer localHeader(Entry entry) {
+        ByteBuffer buf = allocate(entry.localHeaderSize());
+        buf.putInt(LOCAL_HEADER_SIGNATURE);
+        buf.putShort(entry.version());
+        buf.putShort(entry.flags());
+        buf.putShort((short) 0); // STORED
+        buf.putShort(dosTime);
+        buf.putShort(dosDate);
+        // the crc is not known yet and follows in the data descriptor, but the sizes are
+        buf.putInt(0);
+        buf.putInt((int) (entry.zip64 ? ZIP64_MAGIC : entry.size));
+        buf.putInt((int) (entry.zip64 ? ZIP64_MAGIC : entry.size));
+        buf.putShort((short) entry.name.length);
+        buf.putShort((short) (entry.zip64 ? 20 : 0));
+        buf.put(entry.name);
+        if (entry.zip64) {
+            buf.putShort(ZIP64_EXTRA_ID);
+            buf.putShort((short) 16);
+            buf.putLong(entry.size);
+            buf.putLong(entry.size);
+        }
+        return buf.flip();
+    }
+
+    private static ByteBuffer dataDescriptor(Entry entry) {
+        ByteBuffer buf = allocate(entry.dataDescriptorSize());
+        buf.putInt(DATA_DESCRIPTOR_SIGNATURE);
+        buf.putInt((int) entry.crc);
+        if (entry.zip64) {
+            buf.putLong(entry.size);
+            buf.putLong(entry.size);
+        } else {
+            buf.putInt((int) entry.size);
+            buf.putInt((int) entry.size);
+        }
+        return buf.flip();
+    }
+
+    private ByteBuffer centralDirectory() {
+        ByteBuffer buf = allocate(length - centralDirectoryOffset);
+        for (Entry entry : entries) {
+            buf.putInt(CENTRAL_HEADER_SIGNATURE);
+            buf.putShort(entry.version());
+            buf.putShort(entry.version());
+            buf.putShort(entry.flags());
+            buf.putShort((short) 0);
+            buf.putShort(dosTime);
+            buf.putShort(dosDate);
+            buf.putInt((int) entry.crc);
+            buf.putInt((int) Math.min(entry.size, ZIP64_MAGIC));
+            buf.putInt((int) Math.min(entry.size, ZIP64_MAGIC));
+            buf.putShort((short) entry.name.length);
+            buf.putShort((short) entry.centralExtraSize());
+            buf.putShort((short) 0); // comment length
+            buf.putShort((short) 0); // disk number
+            buf.putShort((short) 0); // internal attributes
+            buf.putInt(entry.directory ? DOS_DIRECTORY_ATTRIBUTE : 0);
+            buf.putInt((int) Math.min(entry.offset, ZIP64_MAGIC));
+            buf.put(entry.name);
+            if (entry.centralExtraSize() > 0) {
+                buf.putShort(ZIP64_EXTRA_ID);
+                buf.putShort((short) (entry.centralExtraSize() - 4));
+                if (entry.zip64) {
+                    buf.putLong(entry.size);
+                    buf.putLong(entry.size);
+                }
+                if (entry.offset >= ZIP64_MAGIC) {
+                    buf.putLong(entry.offset);
+                }
+            }
+        }
+        if (zip64End) {
+            long zip64EndOffset = centralDirectoryOffset + centralDirectorySize;
+            buf.putInt(ZIP64_END_SIGNATURE);
+            buf.putLong(ZIP64_END_SIZE - 12);
+            buf.putShort(VERSION_ZIP64);
+            buf.putShort(VERSION_ZIP64);
+            buf.putInt(0);
+            buf.putInt(0);
+            buf.putLong(entries.size());
+            buf.putLong(entries.size());
+            buf.putLong(centralDirectorySize);
+            buf.putLong(centralDirectoryOffset);
+
+            buf.putInt(ZIP64_LOCATOR_SIGNATURE);
+            buf.putInt(0);
+            buf.putLong(zip64EndOffset);
+            buf.putInt(1);
+        }
+        buf.putInt(END_SIGNATURE);
+        buf.putShort((short) 0);
+        buf.putShort((short) 0);
+        buf.putShort((short) Math.min(entries.size(), ZIP64_MAGIC_COUNT));
+        buf.putShort((short) Math.min(entries.size(), ZIP64_MAGIC_COUNT));
+        buf.putInt((int) Math.min(centralDirectorySize, ZIP64_MAGIC));
+        buf.putInt((int) Math.min(centralDirectoryOffset, ZIP64_MAGIC));
+        buf.putShort((short) 0);
+        return buf.flip();
+    }
+}
@@ -21,6 +21,8 @@ package org.airsonic.player.repository;
 import org.airsonic.player.domain.MediaFile;
 import org.airsonic.player.domain.MediaFile.MediaType;
 import org.airsonic.player.domain.MusicFolder;
+import org.airsonic.player.domain.dto.GenreCount;
+import org.airsonic.player.domain.dto.MediaFileSummary;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
@@ -32,6 +34,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -90,10 +93,25 @@ public interface MediaFileRepository extends JpaRepository<MediaFile, Integer> {
 
     public Optional<MediaFile> findByPathAndFolderAndStartPosition(String path, MusicFolder folder, Double startPosition);
 
+    @Query(MediaFileSummary.SELECT + "FROM MediaFile m WHERE m.folder IN :folders AND m.mediaType = :mediaType AND m.present = true")
+    public List<MediaFileSummary> findSummariesByFolderInAndMediaType(@Param("folders") List<MusicFolder> folders,
+            @Param("mediaType") MediaType mediaType, Pageable page);
+
+    @Query(GenreCount.SELECT + "FROM MediaFile m WHERE m.folder IN :folders AND m.genre IS NOT NULL AND m.present = true "
+            + "GROUP BY m.genre, m.mediaType")
+    public List<GenreCount> countGenres(@Param("folders") List<MusicFolder> folders);
+
+    @Query(MediaFileSummary.SELECT + "FROM MediaFile m WHERE m.folder.id = :folderId AND m.path IN :paths")
+    public List<MediaFileSummary> findSummariesByFolderIdAndPathIn(@Param("folderId") Integer folderId, @Param("paths") Collection<String> paths);
+
     public int countByFolder(MusicFolder folder);
 
     public int countByFolderInAndMediaTypeAndPresentTrue(List<MusicFolder> folders, MediaType mediaType);
 
+    public int countByFolderInAndMediaTypeAndGenreAndPresentTrue(List<MusicFolder> folders, MediaType mediaType, String genre);
+
+    public int countByFolderInAndMediaTypeAndYearBetweenAndPresentTrue(List<MusicFolder> folders, MediaType mediaType, Integer startYear, Integer endYear);
+
     public int countByFolderInAndMediaTypeAndPlayCountGreaterThanAndPresentTrue(List<MusicFolder> folders, MediaType mediaType, Integer playCount);
 
     public List<MediaFile> findAll(Specification<MediaFile> spec, Pageable page);
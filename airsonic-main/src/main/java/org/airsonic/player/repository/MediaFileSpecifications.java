@@ -14,7 +14,30 @@ import java.util.List;
 
 public class MediaFileSpecifications {
 
-    public static Specification<MediaFile> matchCriteria(RandomSearchCriteria criteria, String username, String databaseType) {
+    /**
+     * Matches media files whose random key lies in one of the ranges of the given width starting at the pivots.
+     * Ranges reaching past 1 wrap around to 0, so that every key is as likely to be matched.
+     * Each range is a walk of the random key index instead of a sort of the whole table.
+     *
+     * @param pivots the lower bounds (inclusive) of the ranges, between 0 and 1
+     * @param width  the width of each range, at most 1
+     */
+    public static Specification<MediaFile> randomKeyWithin(double[] pivots, double width) {
+        return (root, query, cb) -> {
+            Path<Double> randomKey = root.get("randomKey");
+            List<Predicate> ranges = new ArrayList<>();
+            for (double pivot : pivots) {
+                double to = pivot + width;
+                ranges.add(cb.and(cb.greaterThanOrEqualTo(randomKey, pivot), cb.lessThan(randomKey, Math.min(to, 1.0))));
+                if (to > 1.0) {
+                    ranges.add(cb.lessThan(randomKey, to - 1.0));
+                }
+            }
+            return cb.or(ranges.toArray(new Predicate[0]));
+        };
+    }
+
+    public static Specification<MediaFile> matchCriteria(RandomSearchCriteria criteria, String username) {
         return (Root<MediaFile> root, CriteriaQuery<?> query, CriteriaBuilder cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
@@ -112,20 +135,6 @@ public class MediaFileSpecifications {
                     predicates.add(cb.lessThanOrEqualTo(root.get("playCount"), criteria.getMaxPlayCount()));
                 }
             }
-            String randomFunctionName;
-            switch (databaseType.toLowerCase()) {
-                case "postgresql":
-                    randomFunctionName = "RANDOM";
-                    break;
-                case "mysql":
-                case "mariadb":
-                case "hsqldb":
-                default:
-                    randomFunctionName = "RAND";
-                    break;
-            }
-            Expression<Double> randomFunction = cb.function(randomFunctionName, Double.class);
-            query.orderBy(cb.asc(randomFunction));
             return cb.and(predicates.toArray(new Predicate[0]));
         };
     }
@@ -20,12 +20,15 @@ package org.airsonic.player.repository;
 
 import org.airsonic.player.domain.MediaFile;
 import org.airsonic.player.domain.PlaylistMediaFile;
+import org.airsonic.player.domain.dto.PlaylistStats;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PlaylistMediaFileRepository extends JpaRepository<PlaylistMediaFile, Integer> {
@@ -34,7 +37,23 @@ public interface PlaylistMediaFileRepository extends JpaRepository<PlaylistMedia
         select pmf.mediaFile
         from PlaylistMediaFile pmf
         where pmf.playlist.id = :playlistId
-        order by pmf.orderIndex
+        order by pmf.orderIndex, pmf.id
         """)
     List<MediaFile> findMediaFilesByPlaylistId(@Param("playlistId") Integer playlistId);
+
+    List<PlaylistMediaFile> findByPlaylistIdOrderByOrderIndexAscIdAsc(Integer playlistId);
+
+    List<PlaylistMediaFile> findByPlaylistIdOrderByOrderIndexAscIdAsc(Integer playlistId, Pageable page);
+
+    List<PlaylistMediaFile> findByPlaylistIdAndMediaFilePresentTrueOrderByOrderIndexAscIdAsc(Integer playlistId, Pageable page);
+
+    List<PlaylistMediaFile> findByPlaylistIdAndMediaFilePresentFalse(Integer playlistId);
+
+    Optional<PlaylistMediaFile> findFirstByPlaylistIdAndOrderIndexLessThanOrderByOrderIndexDesc(Integer playlistId, int orderIndex);
+
+    @Query("select max(pmf.orderIndex) from PlaylistMediaFile pmf where pmf.playlist.id = :playlistId")
+    Optional<Integer> findMaxOrderIndexByPlaylistId(@Param("playlistId") Integer playlistId);
+
+    @Query(PlaylistStats.SELECT + "FROM PlaylistMediaFile pmf LEFT JOIN pmf.mediaFile m WHERE pmf.playlist.id = :playlistId")
+    PlaylistStats getStatsByPlaylistId(@Param("playlistId") Integer playlistId);
 }
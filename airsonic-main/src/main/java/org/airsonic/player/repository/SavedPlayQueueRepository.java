@@ -1,9 +1,15 @@
 package org.airsonic.player.repository;
 
+import org.airsonic.player.domain.MediaFile;
 import org.airsonic.player.domain.SavedPlayQueue;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +17,17 @@ public interface SavedPlayQueueRepository extends JpaRepository<SavedPlayQueue,
 
     Optional<SavedPlayQueue> findByUsername(String username);
 
+    /**
+     * Updates the position of a saved play queue without touching its media files.
+     *
+     * @return the number of updated rows, 0 if the media files of the play queue no longer match the hash
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SavedPlayQueue q SET q.currentMediaFile = :currentMediaFile, q.positionMillis = :positionMillis, "
+            + "q.changed = :changed, q.changedBy = :changedBy WHERE q.username = :username AND q.contentHash = :contentHash")
+    int updatePosition(@Param("username") String username, @Param("contentHash") String contentHash,
+            @Param("currentMediaFile") MediaFile currentMediaFile, @Param("positionMillis") Long positionMillis,
+            @Param("changed") Instant changed, @Param("changedBy") String changedBy);
+
 }
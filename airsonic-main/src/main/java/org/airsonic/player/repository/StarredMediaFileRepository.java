@@ -23,12 +23,17 @@ package org.airsonic.player.repository;
 import org.airsonic.player.domain.MediaFile;
 import org.airsonic.player.domain.MediaFile.MediaType;
 import org.airsonic.player.domain.MusicFolder;
+import org.airsonic.player.domain.dto.MediaFileSummary;
 import org.airsonic.player.domain.entity.StarredMediaFile;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,6 +43,9 @@ public interface StarredMediaFileRepository extends JpaRepository<StarredMediaFi
     public int countByUsernameAndMediaFileMediaTypeAndMediaFileFolderInAndMediaFilePresentTrue(
             String username, MediaType mediaType, Iterable<MusicFolder> folders);
 
+    public int countByUsernameAndMediaFileMediaTypeInAndMediaFileFolderInAndMediaFilePresentTrue(
+            String username, Iterable<MediaType> mediaTypes, Iterable<MusicFolder> folders);
+
     public Optional<StarredMediaFile> findByUsernameAndMediaFile(String username, MediaFile mediaFile);
 
     public List<StarredMediaFile> findByUsername(String username);
@@ -48,7 +56,20 @@ public interface StarredMediaFileRepository extends JpaRepository<StarredMediaFi
     public List<StarredMediaFile> findByUsernameAndMediaFileMediaTypeInAndMediaFileFolderInAndMediaFilePresentTrue(
             String username, Iterable<MediaType> mediaType, Iterable<MusicFolder> folders, Pageable page);
 
+    @Query(MediaFileSummary.SELECT + "FROM StarredMediaFile s JOIN s.mediaFile m WHERE s.username = :username AND m.mediaType = :mediaType AND m.folder IN :folders AND m.present = true")
+    public List<MediaFileSummary> findSummariesByUsernameAndMediaType(@Param("username") String username,
+            @Param("mediaType") MediaType mediaType, @Param("folders") Iterable<MusicFolder> folders, Pageable page);
+
+    @Query("SELECT s.mediaFile.id AS mediaFileId, s.created AS created FROM StarredMediaFile s WHERE s.username = :username AND s.mediaFile.id IN :mediaFileIds")
+    public List<StarredDate> findStarredDatesByUsernameAndMediaFileIdIn(@Param("username") String username, @Param("mediaFileIds") Collection<Integer> mediaFileIds);
+
     @Transactional
     public void deleteAllByMediaFileIdInAndUsername(List<Integer> mediaFileIds, String username);
 
+    public interface StarredDate {
+        Integer getMediaFileId();
+
+        Instant getCreated();
+    }
+
 }
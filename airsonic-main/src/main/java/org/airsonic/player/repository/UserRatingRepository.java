@@ -19,6 +19,8 @@
 
 package org.airsonic.player.repository;
 
+import org.airsonic.player.domain.MediaFile.MediaType;
+import org.airsonic.player.domain.dto.AverageRating;
 import org.airsonic.player.domain.entity.UserRating;
 import org.airsonic.player.domain.entity.UserRatingKey;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -37,11 +39,19 @@ public interface UserRatingRepository extends JpaRepository<UserRating, UserRati
 
     public Integer countByUsernameAndMediaFileIdIn(String username, Iterable<Integer> mediaFileIds);
 
+    public List<UserRating> findByUsernameAndMediaFileIdIn(String username, Iterable<Integer> mediaFileIds);
+
+    public List<UserRating> findByMediaFileIdIn(Iterable<Integer> mediaFileIds);
+
     public List<UserRating> findByUsernameAndRatingBetween(String username, Integer fromRating, Integer toRating);
 
     @Query("SELECT AVG(u.rating) FROM UserRating u WHERE u.mediaFileId = :mediaFileId")
     public Double getAverageRatingByMediaFileId(@Param("mediaFileId") int mediaFileId);
 
+    @Query(AverageRating.SELECT + "FROM UserRating u, MediaFile m WHERE m.id = u.mediaFileId AND m.mediaType = :mediaType "
+            + "AND u.rating IS NOT NULL GROUP BY u.mediaFileId")
+    public List<AverageRating> findAverageRatingsByMediaType(@Param("mediaType") MediaType mediaType);
+
     @Transactional
     public void deleteByUsernameAndMediaFileId(String username, int mediaFileId);
 
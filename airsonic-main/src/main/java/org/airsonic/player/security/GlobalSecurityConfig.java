@@ -87,7 +87,7 @@ public class GlobalSecurityConfig {
             settingsService.setJWTKey(jwtKey);
             settingsService.save();
         }
-        JWTAuthenticationProvider jwtAuth = new JWTAuthenticationProvider(jwtKey);
+        JWTAuthenticationProvider jwtAuth = new JWTAuthenticationProvider(settingsService::getJWTKey);
         jwtAuth.addAdditionalCheck("/ws/Sonos", sonosJwtVerification);
         auth.authenticationProvider(jwtAuth);
         auth.authenticationProvider(multipleCredsProvider);
@@ -3,6 +3,8 @@ package org.airsonic.player.security;
 import com.auth0.jwt.exceptions.TokenExpiredException;
 import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.MapDifference;
 import com.google.common.collect.Maps;
 import org.airsonic.player.service.JWTSecurityService;
@@ -20,20 +22,34 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 public class JWTAuthenticationProvider implements AuthenticationProvider {
 
     private static final Logger LOG = LoggerFactory.getLogger(JWTAuthenticationProvider.class);
 
-    private final String jwtKey;
+    private final Supplier<String> jwtKeySupplier;
+
+    // (raw token, requested path) -> token already verified and matched against that path
+    private final Cache<VerifiedTokenKey, VerifiedToken> verifiedTokens = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+    private volatile String verifiedTokensKey;
 
     public JWTAuthenticationProvider(String jwtSignAndVerifyKey) {
-        this.jwtKey = jwtSignAndVerifyKey;
+        this(() -> jwtSignAndVerifyKey);
+    }
+
+    public JWTAuthenticationProvider(Supplier<String> jwtSignAndVerifyKeySupplier) {
+        this.jwtKeySupplier = jwtSignAndVerifyKeySupplier;
     }
 
     private Map<String, List<VerificationCheck>> additionalChecks = new HashMap<>();
@@ -46,6 +62,41 @@ public class JWTAuthenticationProvider implements AuthenticationProvider {
             return null;
         }
         String rawToken = (String) auth.getCredentials();
+        VerifiedToken verified = getVerifiedToken(rawToken, authentication.getRequestedPath());
+        DecodedJWT token = verified.token();
+
+        List<VerificationCheck> moreChecks = additionalChecks.get(verified.requestedPath());
+        if (moreChecks != null) {
+            for (VerificationCheck check : moreChecks) {
+                check.check(token);
+            }
+        }
+
+        return new JWTAuthenticationToken(token.getSubject(), rawToken, authentication.getRequestedPath(), JWT_AUTHORITIES, token);
+    }
+
+    /**
+     * Verifies the token signature and its path claim against the requested path. Successful results are cached
+     * until the token expires or the jwt key changes, so repeated requests with the same token (e.g. HLS segments)
+     * skip the signature check and uri parsing.
+     */
+    private VerifiedToken getVerifiedToken(String rawToken, String requestedPath) {
+        String jwtKey = jwtKeySupplier.get();
+        if (!Objects.equals(jwtKey, verifiedTokensKey)) {
+            verifiedTokens.invalidateAll();
+            verifiedTokensKey = jwtKey;
+        }
+
+        VerifiedTokenKey cacheKey = new VerifiedTokenKey(rawToken, requestedPath);
+        VerifiedToken cached = verifiedTokens.getIfPresent(cacheKey);
+        if (cached != null) {
+            if (cached.token().getExpiresAt() == null || cached.token().getExpiresAt().toInstant().isAfter(Instant.now())) {
+                return cached;
+            }
+            // expired: drop it and let the verifier report it
+            verifiedTokens.invalidate(cacheKey);
+        }
+
         DecodedJWT token = null;
 
         try {
@@ -58,19 +109,16 @@ public class JWTAuthenticationProvider implements AuthenticationProvider {
 
         Claim path = token.getClaim(JWTSecurityService.CLAIM_PATH);
 
-        if (!roughlyEqual(path.asString(), authentication.getRequestedPath())) {
-            throw new InsufficientAuthenticationException("Credentials not valid for path " + authentication
-                    .getRequestedPath() + ". They are valid for " + path.asString());
+        if (!roughlyEqual(path.asString(), requestedPath)) {
+            throw new InsufficientAuthenticationException("Credentials not valid for path " + requestedPath
+                    + ". They are valid for " + path.asString());
         }
 
-        List<VerificationCheck> moreChecks = additionalChecks.get(UriComponentsBuilder.fromUriString(authentication.getRequestedPath()).build().getPath());
-        if (moreChecks != null) {
-            for (VerificationCheck check : moreChecks) {
-                check.check(token);
-            }
+        VerifiedToken verified = new VerifiedToken(token, UriComponentsBuilder.fromUriString(requestedPath).build().getPath());
+        if (Objects.equals(jwtKey, verifiedTokensKey)) {
+            verifiedTokens.put(cacheKey, verified);
         }
-
-        return new JWTAuthenticationToken(token.getSubject(), rawToken, authentication.getRequestedPath(), JWT_AUTHORITIES, token);
+        return verified;
     }
 
     public static List<GrantedAuthority> JWT_AUTHORITIES = List.of(
@@ -130,6 +178,12 @@ public class JWTAuthenticationProvider implements AuthenticationProvider {
         return JWTAuthenticationToken.class.isAssignableFrom(authentication);
     }
 
+    private record VerifiedTokenKey(String rawToken, String requestedPath) {
+    }
+
+    private record VerifiedToken(DecodedJWT token, String requestedPath) {
+    }
+
     @FunctionalInterface
     public interface VerificationCheck {
         public void check(DecodedJWT jwt) throws AuthenticationException;
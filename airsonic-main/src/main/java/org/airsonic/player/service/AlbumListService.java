@@ -0,0 +1,323 @@
+/*
+ This file is part of Airsonic.
+
+ Airsonic is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Airsonic is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Airsonic.  If not, see <http://www.gnu.org/licenses/>.
+
+ Copyright 2025 (C) Y.Tory
+ */
+package org.airsonic.player.service;
+
+import org.airsonic.player.domain.Album;
+import org.airsonic.player.domain.MediaFile;
+import org.airsonic.player.domain.MediaFile.MediaType;
+import org.airsonic.player.domain.MusicFolder;
+import org.airsonic.player.domain.dto.AverageRating;
+import org.airsonic.player.domain.dto.MediaFileSummary;
+import org.airsonic.player.domain.entity.StarredAlbum;
+import org.airsonic.player.repository.AlbumRepository;
+import org.airsonic.player.repository.MediaFileRepository;
+import org.airsonic.player.repository.MusicFolderRepository;
+import org.airsonic.player.repository.OffsetBasedPageRequest;
+import org.airsonic.player.repository.StarredAlbumRepository;
+import org.airsonic.player.repository.StarredMediaFileRepository;
+import org.airsonic.player.repository.UserRatingRepository;
+import org.airsonic.player.service.AlbumRankings.RankedAlbum;
+import org.airsonic.player.service.AlbumRankings.ViewKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.CollectionUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Album lists of the home page and of getAlbumList/getAlbumList2, served from rankings kept in memory.
+ *
+ * The rankings are built per music folder set on first use from one snapshot of the albums, and updated in place
+ * when an album is played or rated. Starred lists are reloaded after the user stars or unstars, and everything is
+ * reloaded after the library or the music folders changed.
+ */
+@Service
+public class AlbumListService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AlbumListService.class);
+
+    public enum Order {
+        HIGHEST, FREQUENT, RECENT, NEWEST, STARRED, ALPHABETICAL_BY_ARTIST, ALPHABETICAL_BY_NAME, BY_YEAR, BY_GENRE
+    }
+
+    private final MusicFolderRepository musicFolderRepository;
+    private final MediaFileRepository mediaFileRepository;
+    private final StarredMediaFileRepository starredMediaFileRepository;
+    private final AlbumRepository albumRepository;
+    private final StarredAlbumRepository starredAlbumRepository;
+    private final UserRatingRepository userRatingRepository;
+
+    /**
+     * Rankings and albums of one load. Replaced as a whole, while the albums are updated in place.
+     */
+    private record Snapshot(AlbumRankings directoryRankings, Map<Integer, MediaFileSummary> directoryAlbums,
+            AlbumRankings id3Rankings, Map<Integer, Album> id3Albums) {
+    }
+
+    // null until the next read after an invalidation
+    private volatile Snapshot snapshot;
+    // incremented on every change, so that a load which may have missed one is not published
+    private final AtomicLong generation = new AtomicLong();
+
+    public AlbumListService(
+            MusicFolderRepository musicFolderRepository,
+            MediaFileRepository mediaFileRepository,
+            StarredMediaFileRepository starredMediaFileRepository,
+            AlbumRepository albumRepository,
+            StarredAlbumRepository starredAlbumRepository,
+            UserRatingRepository userRatingRepository) {
+        this.musicFolderRepository = musicFolderRepository;
+        this.mediaFileRepository = mediaFileRepository;
+        this.starredMediaFileRepository = starredMediaFileRepository;
+        this.albumRepository = albumRepository;
+        this.starredAlbumRepository = starredAlbumRepository;
+        this.userRatingRepository = userRatingRepository;
+    }
+
+    /**
+     * Returns a page of album directories.
+     *
+     * @param order        any order but {@link Order#STARRED}, {@link Order#BY_YEAR} and {@link Order#BY_GENRE}
+     * @param offset       Number of albums to skip.
+     * @param count        Maximum number of albums to return.
+     * @param musicFolders Only return albums in these folders.
+     */
+    public List<MediaFileSummary> getAlbums(Order order, int offset, int count, List<MusicFolder> musicFolders) {
+        return getDirectoryPage(new ViewKey(order, folderIds(musicFolders), null), offset, count, musicFolders);
+    }
+
+    public List<MediaFileSummary> getAlbumsByYear(int offset, int count, int fromYear, int toYear, List<MusicFolder> musicFolders) {
+        return getDirectoryPage(ViewKey.byYear(folderIds(musicFolders), fromYear, toYear), offset, count, musicFolders);
+    }
+
+    public List<MediaFileSummary> getAlbumsByGenre(int offset, int count, String genre, List<MusicFolder> musicFolders) {
+        return getDirectoryPage(new ViewKey(Order.BY_GENRE, folderIds(musicFolders), genre), offset, count, musicFolders);
+    }
+
+    /**
+     * Returns a page of the album directories starred by a user, most recently starred first.
+     */
+    public List<MediaFileSummary> getStarredAlbums(int offset, int count, String username, List<MusicFolder> musicFolders) {
+        return getDirectoryPage(new ViewKey(Order.STARRED, folderIds(musicFolders), username), offset, count, musicFolders);
+    }
+
+    /**
+     * Returns the average rating of an album directory.
+     *
+     * @return the average rating, or null if the album is not rated
+     */
+    public Double getAverageRating(int mediaFileId) {
+        return getSnapshot().directoryRankings().getRating(mediaFileId);
+    }
+
+    /**
+     * Returns a page of ID3 albums.
+     *
+     * @param order any order but {@link Order#HIGHEST}, {@link Order#STARRED}, {@link Order#BY_YEAR} and {@link Order#BY_GENRE}
+     */
+    public List<Album> getAlbumsId3(Order order, int offset, int count, List<MusicFolder> musicFolders) {
+        return getId3Page(new ViewKey(order, folderIds(musicFolders), null), offset, count, musicFolders);
+    }
+
+    public List<Album> getAlbumsId3ByYear(int offset, int count, int fromYear, int toYear, List<MusicFolder> musicFolders) {
+        return getId3Page(ViewKey.byYear(folderIds(musicFolders), fromYear, toYear), offset, count, musicFolders);
+    }
+
+    public List<Album> getAlbumsId3ByGenre(int offset, int count, String genre, List<MusicFolder> musicFolders) {
+        return getId3Page(new ViewKey(Order.BY_GENRE, folderIds(musicFolders), genre), offset, count, musicFolders);
+    }
+
+    public List<Album> getStarredAlbumsId3(int offset, int count, String username, List<MusicFolder> musicFolders) {
+        return getId3Page(new ViewKey(Order.STARRED, folderIds(musicFolders), username), offset, count, musicFolders);
+    }
+
+    /**
+     * Moves a played album directory in the rankings.
+     */
+    public void albumPlayed(MediaFile album) {
+        if (album.getMediaType() != MediaType.ALBUM || !album.isPresent() || album.getFolder() == null) {
+            return;
+        }
+        MediaFileSummary summary = MediaFileSummary.of(album);
+        update(s -> {
+            s.directoryAlbums().put(summary.id(), summary);
+            s.directoryRankings().update(rank(summary));
+        });
+    }
+
+    /**
+     * Moves a played ID3 album in the rankings.
+     */
+    public void albumPlayed(Album album) {
+        if (!album.isPresent() || album.getFolder() == null) {
+            return;
+        }
+        update(s -> {
+            s.id3Albums().put(album.getId(), album);
+            s.id3Rankings().update(rank(album));
+        });
+    }
+
+    /**
+     * Moves an album directory in the rankings by rating after one of its ratings changed.
+     */
+    public void ratingChanged(MediaFile mediaFile) {
+        if (mediaFile.getMediaType() != MediaType.ALBUM) {
+            return;
+        }
+        update(s -> s.directoryRankings().updateRating(mediaFile.getId(),
+                userRatingRepository.getAverageRatingByMediaFileId(mediaFile.getId())));
+    }
+
+    /**
+     * Drops the starred lists of a user, after albums were starred or unstarred.
+     */
+    public void starredChanged(String username) {
+        update(s -> {
+            s.directoryRankings().invalidateStarred(username);
+            s.id3Rankings().invalidateStarred(username);
+        });
+    }
+
+    /**
+     * Drops all rankings, after the library or the music folders changed. They are rebuilt on the next read.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+        LOG.debug("Album lists invalidated");
+    }
+
+    /*
+     * Applies a change to the current snapshot now, and again after the commit, as a list read or loaded
+     * before the commit would miss it.
+     */
+    private void update(Consumer<Snapshot> change) {
+        Runnable apply = () -> {
+            generation.incrementAndGet();
+            Snapshot current = snapshot;
+            if (current != null) {
+                change.accept(current);
+            }
+        };
+        apply.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        }
+    }
+
+    private List<MediaFileSummary> getDirectoryPage(ViewKey key, int offset, int count, List<MusicFolder> musicFolders) {
+        if (CollectionUtils.isEmpty(musicFolders)) {
+            return Collections.emptyList();
+        }
+        Snapshot current = getSnapshot();
+        Supplier<List<Integer>> starred = () -> starredMediaFileRepository.findSummariesByUsernameAndMediaType(key.param(),
+                MediaType.ALBUM, musicFolders, new OffsetBasedPageRequest(0, Integer.MAX_VALUE,
+                        Sort.by("created").descending().and(Sort.by("id"))))
+                .stream().map(MediaFileSummary::id).toList();
+        return current.directoryRankings().page(key, offset, count, starred).stream()
+                .map(current.directoryAlbums()::get).filter(Objects::nonNull).toList();
+    }
+
+    private List<Album> getId3Page(ViewKey key, int offset, int count, List<MusicFolder> musicFolders) {
+        if (CollectionUtils.isEmpty(musicFolders)) {
+            return Collections.emptyList();
+        }
+        Snapshot current = getSnapshot();
+        Supplier<List<Integer>> starred = () -> starredAlbumRepository.findByUsernameAndAlbumFolderInAndAlbumPresentTrue(key.param(),
+                musicFolders, Sort.by(Sort.Order.desc("created"), Sort.Order.asc("albumId")))
+                .stream().map(StarredAlbum::getAlbum).map(Album::getId).toList();
+        return current.id3Rankings().page(key, offset, count, starred).stream()
+                .map(current.id3Albums()::get).filter(Objects::nonNull).toList();
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        return current != null ? current : load();
+    }
+
+    private synchronized Snapshot load() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        long loadedGeneration = generation.get();
+        long start = System.currentTimeMillis();
+        List<MusicFolder> folders = musicFolderRepository.findByDeleted(false);
+
+        List<MediaFileSummary> summaries = folders.isEmpty() ? Collections.emptyList()
+                : mediaFileRepository.findSummariesByFolderInAndMediaType(folders, MediaType.ALBUM,
+                        new OffsetBasedPageRequest(0, Integer.MAX_VALUE, Sort.by("id")));
+        Map<Integer, MediaFileSummary> directoryAlbums = new ConcurrentHashMap<>();
+        summaries.forEach(summary -> directoryAlbums.put(summary.id(), summary));
+        Map<Integer, Double> ratings = userRatingRepository.findAverageRatingsByMediaType(MediaType.ALBUM).stream()
+                .filter(r -> directoryAlbums.containsKey(r.mediaFileId()))
+                .collect(Collectors.toMap(AverageRating::mediaFileId, AverageRating::rating));
+        AlbumRankings directoryRankings = new AlbumRankings(summaries.stream().map(AlbumListService::rank).toList(), ratings);
+
+        List<Album> albums = folders.isEmpty() ? Collections.emptyList()
+                : albumRepository.findByFolderInAndPresentTrue(folders, Sort.by("id"));
+        Map<Integer, Album> id3Albums = new ConcurrentHashMap<>();
+        albums.forEach(album -> id3Albums.put(album.getId(), album));
+        AlbumRankings id3Rankings = new AlbumRankings(albums.stream().map(AlbumListService::rank).toList(), Collections.emptyMap());
+
+        Snapshot loaded = new Snapshot(directoryRankings, directoryAlbums, id3Rankings, id3Albums);
+        snapshot = loaded;
+        if (generation.get() != loadedGeneration) {
+            // a change during the load may have missed both the database reads and the snapshot
+            snapshot = null;
+            LOG.debug("Album lists changed while loading, loading them again on the next read");
+        }
+        LOG.info("Loaded album lists of {} albums and {} ID3 albums in {} ms", summaries.size(), albums.size(),
+                System.currentTimeMillis() - start);
+        return loaded;
+    }
+
+    private static Set<Integer> folderIds(List<MusicFolder> musicFolders) {
+        return musicFolders.stream().map(MusicFolder::getId).collect(Collectors.toUnmodifiableSet());
+    }
+
+    private static RankedAlbum rank(MediaFileSummary album) {
+        return new RankedAlbum(album.id(), album.folderId(), album.albumName(), album.artist(), album.year(),
+                album.genre(), album.createdOrChanged(), album.playCount(), album.lastPlayed());
+    }
+
+    private static RankedAlbum rank(Album album) {
+        return new RankedAlbum(album.getId(), album.getFolder().getId(), album.getName(), album.getArtist(),
+                album.getYear(), album.getGenre(), album.getCreated(), album.getPlayCount(), album.getLastPlayed());
+    }
+}
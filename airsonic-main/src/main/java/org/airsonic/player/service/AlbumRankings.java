@@ -0,0 +1,273 @@
+/*
+ This file is part of Airsonic.
+
+ Airsonic is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Airsonic is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Airsonic.  If not, see <http://www.gnu.org/licenses/>.
+
+ Copyright 2025 (C) Y.Tory
+ */
+package org.airsonic.player.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.airsonic.player.service.AlbumListService.Order;
+
+import java.text.Collator;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static java.util.stream.Collectors.toCollection;
+
+/**
+ * Album rankings kept in memory per list order and music folder set.
+ *
+ * A ranking is sorted once from the snapshot of all albums, then kept sorted by moving single albums
+ * when their play count or rating changes, so reading a page does not depend on the size of the library.
+ */
+final class AlbumRankings {
+
+    /**
+     * Sort and filter keys of an album.
+     */
+    record RankedAlbum(int id, int folderId, String name, String artist, Integer year, String genre,
+            Instant created, int playCount, Instant lastPlayed) {
+    }
+
+    /**
+     * @param param genre for {@link Order#BY_GENRE}, year range for {@link Order#BY_YEAR}, username for {@link Order#STARRED}
+     */
+    record ViewKey(Order order, Set<Integer> folderIds, String param) {
+
+        static ViewKey byYear(Set<Integer> folderIds, int fromYear, int toYear) {
+            return new ViewKey(Order.BY_YEAR, folderIds, fromYear + ":" + toYear);
+        }
+
+        int fromYear() {
+            return Integer.parseInt(param.substring(0, param.indexOf(':')));
+        }
+
+        int toYear() {
+            return Integer.parseInt(param.substring(param.indexOf(':') + 1));
+        }
+    }
+
+    private static final Comparator<RankedAlbum> BY_ID = Comparator.comparingInt(RankedAlbum::id);
+    private static final Comparator<String> TEXT = Comparator.nullsFirst(caseInsensitiveCollator());
+    private static final Comparator<Instant> LATEST_FIRST = Comparator.nullsLast(Comparator.reverseOrder());
+
+    // guarded by this
+    private final Map<Integer, RankedAlbum> albums = new HashMap<>();
+    // written while holding this
+    private volatile long starredVersion;
+
+    private final Map<Integer, Double> ratings;
+
+    // each view is guarded by itself, and only added while holding this
+    private final Cache<ViewKey, List<RankedAlbum>> views = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+
+    /**
+     * @param all            snapshot of all albums
+     * @param averageRatings average rating per album id
+     */
+    AlbumRankings(Collection<RankedAlbum> all, Map<Integer, Double> averageRatings) {
+        all.forEach(album -> albums.put(album.id(), album));
+        ratings = new ConcurrentHashMap<>(averageRatings);
+    }
+
+    /**
+     * Returns the ids of a page of a ranking.
+     *
+     * @param source ordered album ids of rankings which are not derived from the snapshot, such as starred albums
+     */
+    List<Integer> page(ViewKey key, int offset, int count, Supplier<List<Integer>> source) {
+        List<RankedAlbum> view = views.getIfPresent(key);
+        if (view == null) {
+            view = build(key, source);
+        }
+        synchronized (view) {
+            if (offset >= view.size() || count < 1) {
+                return Collections.emptyList();
+            }
+            return view.subList(offset, Math.min(view.size(), offset + count)).stream().map(RankedAlbum::id).toList();
+        }
+    }
+
+    Double getRating(int id) {
+        return ratings.get(id);
+    }
+
+    /**
+     * Adds an album, or moves it to its new position in every ranking.
+     */
+    synchronized void update(RankedAlbum album) {
+        RankedAlbum old = albums.put(album.id(), album);
+        views.asMap().forEach((key, view) -> {
+            synchronized (view) {
+                if (key.order() == Order.STARRED) {
+                    // ordered by star date, which does not change here
+                    view.replaceAll(a -> a.id() == album.id() ? album : a);
+                    return;
+                }
+                Comparator<RankedAlbum> comparator = comparator(key);
+                if (old != null) {
+                    remove(view, old, comparator);
+                }
+                insert(key, view, album, comparator);
+            }
+        });
+    }
+
+    /**
+     * Moves an album to its new position in the rankings by rating.
+     *
+     * @param average new average rating, or null if the album has no ratings anymore
+     */
+    synchronized void updateRating(int id, Double average) {
+        List<Map.Entry<ViewKey, List<RankedAlbum>>> highest = views.asMap().entrySet().stream()
+                .filter(e -> e.getKey().order() == Order.HIGHEST)
+                .toList();
+        // removed while the comparator still sees the old rating
+        highest.forEach(e -> {
+            synchronized (e.getValue()) {
+                e.getValue().removeIf(a -> a.id() == id);
+            }
+        });
+        if (average == null) {
+            ratings.remove(id);
+        } else {
+            ratings.put(id, average);
+        }
+        RankedAlbum album = albums.get(id);
+        if (album != null) {
+            highest.forEach(e -> {
+                synchronized (e.getValue()) {
+                    insert(e.getKey(), e.getValue(), album, comparator(e.getKey()));
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops the starred rankings of a user.
+     */
+    synchronized void invalidateStarred(String username) {
+        starredVersion++;
+        views.asMap().keySet().removeIf(key -> key.order() == Order.STARRED && Objects.equals(username, key.param()));
+    }
+
+    /*
+     * Views are sorted and added while holding this, so that no update can land between the two. Starred ids are
+     * read before, as they come from the database, and the view is only kept if no star changed meanwhile.
+     */
+    private List<RankedAlbum> build(ViewKey key, Supplier<List<Integer>> source) {
+        long version = starredVersion;
+        List<Integer> ids = key.order() == Order.STARRED ? source.get() : null;
+        synchronized (this) {
+            List<RankedAlbum> view = views.getIfPresent(key);
+            if (view != null) {
+                return view;
+            }
+            if (ids != null) {
+                view = ids.stream().map(albums::get).filter(Objects::nonNull).collect(toCollection(ArrayList::new));
+                if (version != starredVersion) {
+                    return view;
+                }
+            } else {
+                view = albums.values().stream()
+                        .filter(album -> accepts(key, album))
+                        .sorted(comparator(key))
+                        .collect(toCollection(ArrayList::new));
+            }
+            views.put(key, view);
+            return view;
+        }
+    }
+
+    private void insert(ViewKey key, List<RankedAlbum> view, RankedAlbum album, Comparator<RankedAlbum> comparator) {
+        if (!accepts(key, album)) {
+            return;
+        }
+        int index = Collections.binarySearch(view, album, comparator);
+        view.add(index < 0 ? -index - 1 : index, album);
+    }
+
+    private static void remove(List<RankedAlbum> view, RankedAlbum old, Comparator<RankedAlbum> comparator) {
+        int index = Collections.binarySearch(view, old, comparator);
+        if (index >= 0 && view.get(index).id() == old.id()) {
+            view.remove(index);
+        } else {
+            view.removeIf(a -> a.id() == old.id());
+        }
+    }
+
+    private boolean accepts(ViewKey key, RankedAlbum album) {
+        if (!key.folderIds().contains(album.folderId())) {
+            return false;
+        }
+        return switch (key.order()) {
+            case HIGHEST -> ratings.containsKey(album.id());
+            case FREQUENT -> album.playCount() > 0;
+            case RECENT -> album.lastPlayed() != null;
+            case BY_GENRE -> Objects.equals(key.param(), album.genre());
+            case BY_YEAR -> album.year() != null
+                    && album.year() >= Math.min(key.fromYear(), key.toYear())
+                    && album.year() <= Math.max(key.fromYear(), key.toYear());
+            default -> true;
+        };
+    }
+
+    /*
+     * Same orders as the database queries the rankings replace, with names compared regardless of case.
+     * Every order ends with the id, so that an album can be found again by binary search.
+     */
+    private Comparator<RankedAlbum> comparator(ViewKey key) {
+        return switch (key.order()) {
+            case HIGHEST -> Comparator.comparing((RankedAlbum a) -> ratings.get(a.id()),
+                    Comparator.nullsLast(Comparator.<Double>reverseOrder())).thenComparing(BY_ID);
+            case FREQUENT -> Comparator.comparingInt(RankedAlbum::playCount).reversed().thenComparing(BY_ID);
+            case RECENT -> Comparator.comparing(RankedAlbum::lastPlayed, LATEST_FIRST).thenComparing(BY_ID);
+            case NEWEST -> Comparator.comparing(RankedAlbum::created, LATEST_FIRST).thenComparing(BY_ID);
+            case ALPHABETICAL_BY_ARTIST -> Comparator.comparing(RankedAlbum::artist, TEXT)
+                    .thenComparing(RankedAlbum::name, TEXT).thenComparing(BY_ID);
+            case ALPHABETICAL_BY_NAME -> Comparator.comparing(RankedAlbum::name, TEXT).thenComparing(BY_ID);
+            case BY_YEAR -> {
+                Comparator<Integer> years = Comparator.nullsFirst(Comparator.naturalOrder());
+                yield Comparator.comparing(RankedAlbum::year, key.fromYear() <= key.toYear() ? years : years.reversed())
+                        .thenComparing(BY_ID);
+            }
+            default -> BY_ID;
+        };
+    }
+
+    private static Comparator<String> caseInsensitiveCollator() {
+        Collator collator = Collator.getInstance(Locale.ROOT);
+        // accents still count, case does not
+        collator.setStrength(Collator.SECONDARY);
+        return collator::compare;
+    }
+}
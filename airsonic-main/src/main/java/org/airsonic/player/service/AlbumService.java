@@ -25,10 +25,12 @@ public class AlbumService {
 
     private final AlbumRepository albumRepository;
     private final StarredAlbumRepository starredAlbumRepository;
+    private final AlbumListService albumListService;
 
-    public AlbumService(AlbumRepository albumRepository, StarredAlbumRepository starredAlbumRepository) {
+    public AlbumService(AlbumRepository albumRepository, StarredAlbumRepository starredAlbumRepository, AlbumListService albumListService) {
         this.albumRepository = albumRepository;
         this.starredAlbumRepository = starredAlbumRepository;
+        this.albumListService = albumListService;
     }
 
     /**
@@ -265,6 +267,7 @@ public class AlbumService {
             } else {
                 starredAlbumRepository.deleteByAlbumAndUsername(album, username);
             }
+            albumListService.starredChanged(username);
             return true;
         }).orElse(false);
     }
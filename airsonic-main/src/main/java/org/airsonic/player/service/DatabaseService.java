@@ -20,37 +20,32 @@
  */
 package org.airsonic.player.service;
 
-import liquibase.CatalogAndSchema;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
 import liquibase.Scope;
 import liquibase.Scope.ScopedRunner;
 import liquibase.changelog.ChangeLogParameters;
 import liquibase.command.CommandScope;
-import liquibase.command.core.DiffChangelogCommandStep;
-import liquibase.command.core.DiffCommandStep;
 import liquibase.command.core.ExecuteSqlCommandStep;
-import liquibase.command.core.GenerateChangelogCommandStep;
 import liquibase.command.core.UpdateCommandStep;
 import liquibase.command.core.helpers.DatabaseChangelogCommandStep;
 import liquibase.command.core.helpers.DbUrlConnectionArgumentsCommandStep;
-import liquibase.command.core.helpers.DiffOutputControlCommandStep;
-import liquibase.command.core.helpers.PreCompareCommandStep;
-import liquibase.command.core.helpers.ReferenceDbUrlConnectionCommandStep;
 import liquibase.database.Database;
 import liquibase.database.DatabaseConnection;
 import liquibase.database.DatabaseFactory;
 import liquibase.database.jvm.JdbcConnection;
-import liquibase.diff.compare.CompareControl;
-import liquibase.diff.output.DiffOutputControl;
-import liquibase.diff.output.StandardObjectChangeFilter;
-import liquibase.exception.CommandExecutionException;
-import liquibase.exception.LiquibaseException;
 import liquibase.resource.DirectoryResourceAccessor;
 import org.airsonic.player.config.AirsonicHomeConfig;
 import org.airsonic.player.dao.DatabaseDao;
+import org.airsonic.player.dao.RowStreamFormat;
 import org.airsonic.player.util.FileUtil;
 import org.airsonic.player.util.LambdaUtils;
 import org.airsonic.player.util.LambdaUtils.ThrowingBiFunction;
 import org.airsonic.player.util.LegacyHsqlMigrationUtil;
+import org.airsonic.player.util.Util;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
 import org.slf4j.Logger;
@@ -60,16 +55,19 @@ import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
-import javax.xml.parsers.ParserConfigurationException;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
 import java.sql.Connection;
-import java.text.MessageFormat;
+import java.sql.Statement;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -78,7 +76,6 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -140,6 +137,17 @@ public class DatabaseService {
         LOG.info("Completed scheduled DB backup");
     };
 
+    /**
+     * Metadata of an online backup, stored next to it as {@code <backup>.json}.
+     *
+     * @param verified whether the backup could be opened as a database
+     */
+    record BackupInfo(String file, long size, long durationMillis, String sha256, boolean verified, Instant created) {
+    }
+
+    /*
+     * Serializes backups only. With an online backup the database keeps serving requests while the snapshot is written.
+     */
     public synchronized void backup() {
         brokerTemplate.convertAndSend("/topic/backupStatus", "started");
 
@@ -147,7 +155,10 @@ public class DatabaseService {
             try {
                 String dbPath = StringUtils.substringBetween(settingsService.getDatabaseUrl(), "jdbc:hsqldb:file:",
                         ";");
-                Path backupLocation = LegacyHsqlMigrationUtil.performHsqlDbBackup(dbPath);
+                Path backupLocation = performOnlineBackup(dbPath);
+                if (backupLocation == null) {
+                    backupLocation = LegacyHsqlMigrationUtil.performHsqlDbBackup(dbPath);
+                }
                 LOG.info("Backed up DB to location: {}", backupLocation);
                 brokerTemplate.convertAndSend("/topic/backupStatus", "location: " + backupLocation);
                 deleteObsoleteBackups(backupLocation);
@@ -160,24 +171,130 @@ public class DatabaseService {
         brokerTemplate.convertAndSend("/topic/backupStatus", "ended");
     }
 
+    /**
+     * Writes a compressed snapshot with BACKUP DATABASE, then records and verifies it.
+     *
+     * @return the backup file, or null if the database could not write it
+     */
+    private Path performOnlineBackup(String dbPath) throws Exception {
+        Path dbFolder = Paths.get(dbPath).getParent();
+        String timestamp = DATE_TIME_FORMATTER.format(LocalDateTime.now());
+        Path target = dbFolder.resolveSibling("backups")
+                .resolve(String.format("%s.backup.%s.tar.gz", dbFolder.getFileName(), timestamp));
+        Files.createDirectories(target.getParent());
+
+        Instant start = Instant.now();
+        try {
+            databaseDao.backupOnline(target);
+        } catch (Exception e) {
+            LOG.warn("Online DB backup failed, copying the database files instead", e);
+            FileUtil.delete(target);
+            return null;
+        }
+        if (!Files.exists(target)) {
+            return null;
+        }
+        long duration = Duration.between(start, Instant.now()).toMillis();
+        String sha256 = MoreFiles.asByteSource(target).hash(Hashing.sha256()).toString();
+        boolean verified = verifyBackup(target, Paths.get(dbPath).getFileName().toString());
+        BackupInfo info = new BackupInfo(target.getFileName().toString(), Files.size(target), duration, sha256,
+                verified, start);
+        Util.getObjectMapper().writeValue(getBackupInfoFile(target).toFile(), info);
+        LOG.info("Online DB backup of {} bytes written in {} ms, verified: {}", info.size(), duration, verified);
+        return target;
+    }
+
+    /**
+     * Extracts the backup into a temporary folder and opens it there as a separate, read-only database.
+     */
+    private boolean verifyBackup(Path backup, String dbName) {
+        Path tmp = null;
+        try {
+            tmp = Files.createTempDirectory("airsonic-backup-verify");
+            try (TarArchiveInputStream tar = new TarArchiveInputStream(
+                    new GzipCompressorInputStream(new BufferedInputStream(Files.newInputStream(backup))))) {
+                TarArchiveEntry entry;
+                while ((entry = tar.getNextEntry()) != null) {
+                    Path dest = tmp.resolve(entry.getName()).normalize();
+                    if (!dest.startsWith(tmp)) {
+                        throw new IOException("Illegal entry in backup: " + entry.getName());
+                    }
+                    if (entry.isDirectory()) {
+                        Files.createDirectories(dest);
+                    } else {
+                        Files.createDirectories(dest.getParent());
+                        Files.copy(tar, dest);
+                    }
+                }
+            }
+            String url = "jdbc:hsqldb:file:" + tmp.resolve(dbName) + ";readonly=true;ifexists=true";
+            try (Connection connection = LegacyHsqlMigrationUtil.getHsqlDbConnection(url,
+                    settingsService.getDatabaseUsername(), settingsService.getDatabasePassword());
+                    Statement statement = connection.createStatement()) {
+                String schemaVersion = RowStreamFormat.getSchemaVersion(connection);
+                statement.execute("SHUTDOWN");
+                return !schemaVersion.isEmpty();
+            }
+        } catch (Exception e) {
+            LOG.warn("DB backup {} could not be opened", backup, e);
+            return false;
+        } finally {
+            if (tmp != null) {
+                FileUtil.delete(tmp);
+            }
+        }
+    }
+
+    private static Path getBackupInfoFile(Path backup) {
+        return backup.resolveSibling(backup.getFileName() + ".json");
+    }
+
+    /*
+     * Copies of the database folder predate the metadata, they are trusted as before.
+     */
+    private static boolean isTrustedBackup(Path backup) {
+        Path infoFile = getBackupInfoFile(backup);
+        if (!Files.exists(infoFile)) {
+            return Files.isDirectory(backup);
+        }
+        try {
+            return Util.getObjectMapper().readValue(infoFile.toFile(), BackupInfo.class).verified();
+        } catch (Exception e) {
+            LOG.warn("Could not read {}", infoFile, e);
+            return false;
+        }
+    }
+
+    /**
+     * Keeps the configured number of verified backups. Unverified backups do not count towards it,
+     * and are removed with everything older than the oldest kept verified backup.
+     */
     private synchronized void deleteObsoleteBackups(Path backupLocation) {
-        AtomicInteger backupCount = new AtomicInteger(settingsService.getDbBackupRetentionCount());
-        if (backupCount.get() == -1) {
+        int retentionCount = settingsService.getDbBackupRetentionCount();
+        if (retentionCount == -1) {
             return;
         }
 
-        String backupNamePattern = StringUtils.substringBeforeLast(backupLocation.getFileName().toString(), ".");
+        String backupNamePrefix = StringUtils.substringBefore(backupLocation.getFileName().toString(), ".backup.")
+                + ".backup.";
         try (Stream<Path> backups = Files.list(backupLocation.getParent());) {
-            backups.filter(p -> p.getFileName().toString().startsWith(backupNamePattern))
+            List<Path> sorted = backups
+                    .filter(p -> p.getFileName().toString().startsWith(backupNamePrefix))
+                    .filter(p -> !p.getFileName().toString().endsWith(".json"))
                     .sorted(Comparator.comparing(
                             LambdaUtils.<Path, FileTime, Exception>uncheckFunction(
                                     p -> Files.readAttributes(p, BasicFileAttributes.class).creationTime()),
                             Comparator.reverseOrder()))
-                    .forEach(p -> {
-                        if (backupCount.getAndDecrement() <= 0) {
-                            FileUtil.delete(p);
-                        }
-                    });
+                    .toList();
+            int kept = 0;
+            for (Path p : sorted) {
+                if (kept >= retentionCount) {
+                    FileUtil.delete(p);
+                    FileUtil.delete(getBackupInfoFile(p));
+                } else if (isTrustedBackup(p)) {
+                    kept++;
+                }
+            }
         } catch (Exception e) {
             LOG.warn("Could not clean up DB backups", e);
         }
@@ -189,10 +306,41 @@ public class DatabaseService {
     }
 
     ThrowingBiFunction<Path, Connection, Boolean, Exception> exportFunction = (tmpPath,
-            connection) -> generateChangeLog(tmpPath, connection, "data", "airsonic-data", makeDiffOutputControl());
+            connection) -> writeRows(tmpPath, connection);
 
-    Function<Path, Consumer<Connection>> importFunction = p -> LambdaUtils.uncheckConsumer(
-            connection -> runLiquibaseUpdate(connection, p));
+    Function<Path, Consumer<Connection>> importFunction = p -> LambdaUtils.uncheckConsumer(connection -> {
+        if (Files.exists(p.resolve(RowStreamFormat.FILE_NAME))) {
+            readRows(connection, p);
+        } else {
+            // exports of earlier versions
+            runLiquibaseUpdate(connection, p);
+        }
+    });
+
+    private static List<String> getTables() {
+        return TABLE_ORDER.stream().flatMap(List::stream).toList();
+    }
+
+    private boolean writeRows(Path fPath, Connection connection) throws Exception {
+        Files.createDirectories(fPath);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(fPath.resolve(RowStreamFormat.FILE_NAME)))) {
+            long rows = RowStreamFormat.write(connection, getTables(), out,
+                    msg -> brokerTemplate.convertAndSend("/topic/exportStatus", msg));
+            LOG.info("Exported {} rows", rows);
+        }
+        return true;
+    }
+
+    private void readRows(Connection connection, Path p) throws Exception {
+        Path previous = homeConfig.getAirsonicHome().resolve("backups").resolve(String.format("airsonic.preImport.%s.rows",
+                LocalDateTime.now().format(DATE_TIME_FORMATTER)));
+        Files.createDirectories(previous.getParent());
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(p.resolve(RowStreamFormat.FILE_NAME)))) {
+            long rows = RowStreamFormat.readOrRestore(connection, getTables(), in, previous,
+                    msg -> brokerTemplate.convertAndSend("/topic/importStatus", msg));
+            LOG.info("Imported {} rows", rows);
+        }
+    }
 
     public synchronized Path exportDB() throws Exception {
         brokerTemplate.convertAndSend("/topic/exportStatus", "started");
@@ -242,9 +390,14 @@ public class DatabaseService {
             brokerTemplate.convertAndSend("/topic/importStatus", "Nothing imported");
         } else {
             backup();
-            brokerTemplate.convertAndSend("/topic/importStatus", "Importing XML");
-            databaseDao.importDB(importFunction.apply(p));
-            brokerTemplate.convertAndSend("/topic/importStatus", "Import complete. Cleaning up...");
+            brokerTemplate.convertAndSend("/topic/importStatus", "Importing rows");
+            try {
+                databaseDao.importDB(importFunction.apply(p));
+                brokerTemplate.convertAndSend("/topic/importStatus", "Import complete. Cleaning up...");
+            } catch (Exception e) {
+                LOG.warn("DB Import failed!", e);
+                brokerTemplate.convertAndSend("/topic/importStatus", "Error with DB import, check logs...");
+            }
             cleanup(p);
         }
         brokerTemplate.convertAndSend("/topic/importStatus", "ended");
@@ -290,19 +443,6 @@ public class DatabaseService {
             Arrays.asList("podcast_channel_rules", "podcast_episode", "bookmark", "share_file", "sonoslink"),
             Arrays.asList("starred_album", "starred_artist", "starred_media_file", "user_rating", "custom_avatar"));
 
-    private boolean generateChangeLog(Path fPath, Connection connection, String snapshotTypes, String author,
-            DiffOutputControl diffOutputControl) throws Exception {
-        Database database = getDatabase(connection);
-        Files.createDirectories(fPath);
-        for (int i = 0; i < TABLE_ORDER.size(); i++) {
-            setTableFilter(diffOutputControl, TABLE_ORDER.get(i));
-            doGenerateChangeLog(fPath.resolve(i + ".xml").toString(), database, snapshotTypes, author,
-                    diffOutputControl);
-        }
-
-        return true;
-    }
-
     private Database getDatabase(Connection connection) throws Exception {
         DatabaseConnection databaseConnection = new JdbcConnection(connection);
         return DatabaseFactory.getInstance().findCorrectDatabaseImplementation(databaseConnection);
@@ -319,71 +459,4 @@ public class DatabaseService {
         return homeConfig.getAirsonicHome().resolve("backups")
                 .resolve(String.format("airsonic.importDB.%s", timestamp));
     }
-
-    private DiffOutputControl makeDiffOutputControl() {
-        return new DiffOutputControl(false, false, false, null);
-    }
-
-    private void setTableFilter(DiffOutputControl diffOutputControl, List<String> tables) {
-        StandardObjectChangeFilter filter = new StandardObjectChangeFilter(
-                StandardObjectChangeFilter.FilterType.INCLUDE,
-                tables.stream().map(t -> MessageFormat.format("table:(?i){0}", t)).collect(joining(",")));
-        diffOutputControl.setObjectChangeFilter(filter);
-    }
-
-    /**
-     * Generate a change log for the given database.
-     * this method is customized to generate a change log for a specific set of
-     * tables
-     * {@link liquibase.integration.commandline.CommandLineUtils#doGenerateChangeLog(String,
-     * Database, String, String, String, String, String, DiffOutputControl)}
-     *
-     * @param changeLogFile     the file to write the change log to
-     * @param originalDatabase  the original database to compare to
-     * @param snapshotTypes     the types of snapshots to take
-     * @param author            the author to use for the change log
-     * @param diffOutputControl the output control to use
-     * @throws IOException
-     * @throws ParserConfigurationException
-     * @throws LiquibaseException
-     */
-    private void doGenerateChangeLog(String changeLogFile, Database originalDatabase,
-            String snapshotTypes, String author, DiffOutputControl diffOutputControl)
-            throws IOException, ParserConfigurationException,
-            LiquibaseException {
-        CatalogAndSchema[] schemas = new CatalogAndSchema[] { new CatalogAndSchema(null, null) };
-        CompareControl.SchemaComparison[] comparisons = new CompareControl.SchemaComparison[schemas.length];
-        int i = 0;
-        for (CatalogAndSchema schema : schemas) {
-            comparisons[i++] = new CompareControl.SchemaComparison(schema, schema);
-        }
-        CompareControl compareControl = new CompareControl(comparisons, snapshotTypes);
-        CommandScope command = new CommandScope("generateChangeLog");
-        command
-                .addArgumentValue(ReferenceDbUrlConnectionCommandStep.REFERENCE_DATABASE_ARG, originalDatabase)
-                .addArgumentValue(DbUrlConnectionArgumentsCommandStep.DATABASE_ARG, originalDatabase)
-                .addArgumentValue(PreCompareCommandStep.SNAPSHOT_TYPES_ARG,
-                        DiffCommandStep.parseSnapshotTypes(snapshotTypes))
-                .addArgumentValue(PreCompareCommandStep.COMPARE_CONTROL_ARG, compareControl)
-                .addArgumentValue(PreCompareCommandStep.OBJECT_CHANGE_FILTER_ARG,
-                        diffOutputControl.getObjectChangeFilter())
-                .addArgumentValue(DiffChangelogCommandStep.CHANGELOG_FILE_ARG, changeLogFile)
-                .addArgumentValue(DiffOutputControlCommandStep.INCLUDE_CATALOG_ARG,
-                        diffOutputControl.getIncludeCatalog())
-                .addArgumentValue(DiffOutputControlCommandStep.INCLUDE_SCHEMA_ARG, diffOutputControl.getIncludeSchema())
-                .addArgumentValue(DiffOutputControlCommandStep.INCLUDE_TABLESPACE_ARG,
-                        diffOutputControl.getIncludeTablespace())
-                .addArgumentValue(GenerateChangelogCommandStep.AUTHOR_ARG, author);
-
-        if (diffOutputControl.isReplaceIfExistsSet()) {
-            command.addArgumentValue(GenerateChangelogCommandStep.USE_OR_REPLACE_OPTION, true);
-        }
-        command.setOutput(System.out);
-        try {
-            command.execute();
-        } catch (CommandExecutionException e) {
-            throw new LiquibaseException(e);
-        }
-
-    }
 }
@@ -1,9 +1,12 @@
 package org.airsonic.player.service;
 
 import chameleon.playlist.*;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.airsonic.player.domain.InternetRadio;
 import org.airsonic.player.domain.InternetRadioSource;
 import org.airsonic.player.repository.InternetRadioRepository;
+import org.airsonic.player.util.Util;
 import org.apache.commons.io.input.BoundedInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,8 +19,19 @@ import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class InternetRadioService {
@@ -43,9 +57,56 @@ public class InternetRadioService {
     private static final int PLAYLIST_REMOTE_MAX_REDIRECTS = 20;
 
     /**
-     * A list of cached source URLs for remote playlists.
+     * How long resolved sources are served before they are resolved again in the background.
      */
-    private final Map<Integer, List<InternetRadioSource>> cachedSources;
+    private static final Duration SOURCES_TIME_TO_LIVE = Duration.ofMinutes(30);
+
+    /**
+     * How long a failed resolution is served before it is retried, doubled with every further failure.
+     */
+    private static final Duration SOURCES_RETRY_DELAY = Duration.ofMinutes(1);
+
+    /**
+     * How long a request waits for sources which were never resolved, in seconds.
+     */
+    private static final long SOURCES_FIRST_RESOLUTION_TIMEOUT = 10;
+
+    /**
+     * Sources and health of the last resolution of a radio, by radio id.
+     */
+    private final Cache<Integer, CachedSources> cachedSources = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .build();
+
+    /**
+     * Resolutions in progress, by radio id.
+     */
+    private final ConcurrentMap<Integer, CompletableFuture<List<InternetRadioSource>>> resolutions = new ConcurrentHashMap<>();
+
+    private final ExecutorService resolutionPool = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(100), Util.getDaemonThreadfactory("internet-radio-resolution"));
+
+    /**
+     * Sources of a radio, with the health of the remote playlist.
+     *
+     * @param streamUrl    the url the sources were resolved from
+     * @param sources      the sources of the last successful resolution
+     * @param lastAttempt  time of the last resolution
+     * @param lastSuccess  time of the last successful resolution, or null
+     * @param failureCount number of failed resolutions since the last successful one
+     */
+    private record CachedSources(String streamUrl, List<InternetRadioSource> sources, Instant lastAttempt,
+            Instant lastSuccess, int failureCount) {
+
+        boolean isExpired(Instant now) {
+            Duration delay = SOURCES_TIME_TO_LIVE;
+            if (failureCount > 0) {
+                Duration retryDelay = SOURCES_RETRY_DELAY.multipliedBy(1L << Math.min(failureCount - 1, 5));
+                delay = retryDelay.compareTo(delay) < 0 ? retryDelay : delay;
+            }
+            return now.isAfter(lastAttempt.plus(delay));
+        }
+    }
 
     /**
      * Generic exception class for playlists.
@@ -83,15 +144,11 @@ public class InternetRadioService {
         }
     }
 
-    public InternetRadioService() {
-        this.cachedSources = new HashMap<>();
-    }
-
     /**
      * Clear the radio source cache.
      */
     public void clearInternetRadioSourceCache() {
-        cachedSources.clear();
+        cachedSources.invalidateAll();
     }
 
     /**
@@ -100,40 +157,101 @@ public class InternetRadioService {
      */
     public void clearInternetRadioSourceCache(Integer internetRadioId) {
         if (internetRadioId != null) {
-            cachedSources.remove(internetRadioId);
+            cachedSources.invalidate(internetRadioId);
         }
     }
 
     /**
      * Retrieve a list of sources for the given internet radio.
      *
-     * This method caches the sources using the InternetRadio.getId
-     * method as a key, until clearInternetRadioSourceCache is called.
+     * Sources are cached by radio id. Cached sources older than their time to live are returned as they are
+     * while they are resolved again in the background. Only sources which were never resolved are waited for,
+     * and at most {@link #SOURCES_FIRST_RESOLUTION_TIMEOUT} seconds, so a slow remote playlist host never
+     * holds a request for long.
      *
      * @param radio an internet radio
-     * @return a list of internet radio sources
+     * @return a list of internet radio sources, empty if they could not be resolved in time
      */
     public List<InternetRadioSource> getInternetRadioSources(InternetRadio radio) {
-        List<InternetRadioSource> sources;
-        if (cachedSources.containsKey(radio.getId())) {
+        CachedSources cached = cachedSources.getIfPresent(radio.getId());
+        if (cached != null && Objects.equals(cached.streamUrl(), radio.getStreamUrl())) {
             LOG.debug("Got cached sources for internet radio {}!", radio.getStreamUrl());
-            sources = cachedSources.get(radio.getId());
-        } else {
-            LOG.debug("Retrieving sources for internet radio {}...", radio.getStreamUrl());
-            try {
-                sources = retrieveInternetRadioSources(radio);
-                if (sources.isEmpty()) {
-                    LOG.warn("No entries found for internet radio {}.", radio.getStreamUrl());
-                } else {
-                    LOG.info("Retrieved playlist for internet radio {}, got {} sources.", radio.getStreamUrl(), sources.size());
+            if (cached.isExpired(Instant.now())) {
+                resolveInternetRadioSources(radio);
+            }
+            return cached.sources();
+        }
+
+        LOG.debug("Retrieving sources for internet radio {}...", radio.getStreamUrl());
+        try {
+            return resolveInternetRadioSources(radio).get(SOURCES_FIRST_RESOLUTION_TIMEOUT, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            LOG.warn("Internet radio {} did not respond in {}s, its sources are still being retrieved.",
+                    radio.getStreamUrl(), SOURCES_FIRST_RESOLUTION_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOG.error("Failed to retrieve sources for internet radio {}.", radio.getStreamUrl(), e.getCause());
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Resolves the sources of a radio on the resolution pool, unless a resolution is already in progress.
+     *
+     * @param radio an internet radio
+     * @return the resolution, which always completes with the sources to serve
+     */
+    private CompletableFuture<List<InternetRadioSource>> resolveInternetRadioSources(InternetRadio radio) {
+        CompletableFuture<List<InternetRadioSource>> resolution = new CompletableFuture<>();
+        CompletableFuture<List<InternetRadioSource>> running = resolutions.putIfAbsent(radio.getId(), resolution);
+        if (running != null) {
+            return running;
+        }
+        try {
+            resolutionPool.execute(() -> {
+                try {
+                    resolution.complete(resolve(radio));
+                } catch (Exception e) {
+                    resolution.completeExceptionally(e);
+                } finally {
+                    resolutions.remove(radio.getId(), resolution);
                 }
-            } catch (Exception e) {
-                LOG.error("Failed to retrieve sources for internet radio {}.", radio.getStreamUrl(), e);
-                sources = new ArrayList<>();
+            });
+        } catch (RejectedExecutionException e) {
+            resolutions.remove(radio.getId(), resolution);
+            resolution.completeExceptionally(e);
+        }
+        return resolution;
+    }
+
+    /*
+     * Retrieves the sources of a radio and records the health of its remote playlist. On failure, the sources
+     * of the last successful resolution are kept.
+     */
+    private List<InternetRadioSource> resolve(InternetRadio radio) {
+        Instant now = Instant.now();
+        CachedSources previous = Optional.ofNullable(cachedSources.getIfPresent(radio.getId()))
+                .filter(c -> Objects.equals(c.streamUrl(), radio.getStreamUrl()))
+                .orElse(null);
+        CachedSources result;
+        try {
+            List<InternetRadioSource> sources = retrieveInternetRadioSources(radio);
+            if (sources.isEmpty()) {
+                LOG.warn("No entries found for internet radio {}.", radio.getStreamUrl());
+            } else {
+                LOG.info("Retrieved playlist for internet radio {}, got {} sources.", radio.getStreamUrl(), sources.size());
             }
-            cachedSources.put(radio.getId(), sources);
+            result = new CachedSources(radio.getStreamUrl(), List.copyOf(sources), now, now, 0);
+        } catch (Exception e) {
+            int failureCount = previous == null ? 1 : previous.failureCount() + 1;
+            LOG.error("Failed to retrieve sources for internet radio {} ({} failures in a row, last success {}).",
+                    radio.getStreamUrl(), failureCount, previous == null ? null : previous.lastSuccess(), e);
+            result = new CachedSources(radio.getStreamUrl(), previous == null ? List.of() : previous.sources(), now,
+                    previous == null ? null : previous.lastSuccess(), failureCount);
         }
-        return sources;
+        cachedSources.put(radio.getId(), result);
+        return result.sources();
     }
 
     private static final Set<String> DIRECT_PLAYABLE_TYPES = Set.of("audio/mpeg", "audio/aac", "audio/aacp");
@@ -278,6 +396,7 @@ public class InternetRadioService {
     public void deleteInternetRadioById(Integer id) {
         internetRadioRepository.findById(id).ifPresentOrElse(radio -> {
             internetRadioRepository.delete(radio);
+            clearInternetRadioSourceCache(id);
             LOG.info("Deleted internet radio with id {}", id);
         },
             () -> {
@@ -304,6 +423,10 @@ public class InternetRadioService {
             radio.setChanged(Instant.now());
             internetRadioRepository.save(radio);
             LOG.info("Updated internet radio with id {}", id);
+            if (isEnabled) {
+                // resolved before it is played, sources of the previous url are not served anymore
+                resolveInternetRadioSources(radio);
+            }
         },
             () -> {
                 LOG.warn("Internet radio with id {} not found", id);
@@ -320,8 +443,12 @@ public class InternetRadioService {
      */
     @Transactional
     public void createInternetRadio(String name, String streamUrl, String homepageUrl, boolean isEnabled) {
-        internetRadioRepository.save(new InternetRadio(name, streamUrl, homepageUrl, isEnabled, Instant.now()));
+        InternetRadio radio = internetRadioRepository.save(new InternetRadio(name, streamUrl, homepageUrl, isEnabled, Instant.now()));
         LOG.info("Created internet radio station with name {}", name);
+        if (isEnabled) {
+            // resolved before it is played
+            resolveInternetRadioSources(radio);
+        }
     }
 
     /**
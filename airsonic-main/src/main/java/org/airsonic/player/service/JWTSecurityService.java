@@ -25,8 +25,13 @@ import com.auth0.jwt.JWTCreator.Builder;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import org.airsonic.player.security.JWTAuthenticationToken;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -40,6 +45,7 @@ import java.util.Date;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Service("jwtSecurityService")
 public class JWTSecurityService {
@@ -49,10 +55,23 @@ public class JWTSecurityService {
 
     // TODO make this configurable
     public static final int DEFAULT_DAYS_VALID_FOR = 7;
+    // reusable tokens are handed out until they have less than this left before expiry
+    public static final int REUSABLE_DAYS_REMAINING = 1;
     private static SecureRandom secureRandom = new SecureRandom();
 
+    // verifiers are immutable and thread safe, so one per key is enough
+    private static final LoadingCache<String, JWTVerifier> VERIFIERS = CacheBuilder.newBuilder()
+            .maximumSize(4)
+            .build(CacheLoader.from(jwtKey -> JWT.require(getAlgorithm(jwtKey)).build()));
+
     private final SettingsService settingsService;
 
+    // (user, uri) -> (jwt key used, signed uri)
+    private final Cache<Pair<String, String>, Pair<String, String>> reusableTokens = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(DEFAULT_DAYS_VALID_FOR - REUSABLE_DAYS_REMAINING, TimeUnit.DAYS)
+            .build();
+
     public JWTSecurityService(SettingsService settingsService) {
         this.settingsService = settingsService;
     }
@@ -88,6 +107,23 @@ public class JWTSecurityService {
         return addJWTToken(user, UriComponentsBuilder.fromUriString(uri)).build().toString();
     }
 
+    /**
+     * Same as {@link #addJWTToken(String, String)}, but returns a previously signed uri for the same user and uri as
+     * long as it stays valid for at least {@link #REUSABLE_DAYS_REMAINING} more days. Meant for listings that sign
+     * the same stream and cover art uris over and over again.
+     */
+    public String addReusableJWTToken(String user, String uri) {
+        String jwtKey = settingsService.getJWTKey();
+        Pair<String, String> key = Pair.of(user, uri);
+        Pair<String, String> cached = reusableTokens.getIfPresent(key);
+        if (cached != null && StringUtils.equals(cached.getLeft(), jwtKey)) {
+            return cached.getRight();
+        }
+        String signed = addJWTToken(user, uri);
+        reusableTokens.put(key, Pair.of(jwtKey, signed));
+        return signed;
+    }
+
     public UriComponentsBuilder addJWTToken(String user, UriComponentsBuilder builder) {
         return addJWTToken(user, builder, Collections.emptyMap());
     }
@@ -114,9 +150,7 @@ public class JWTSecurityService {
     }
 
     public static DecodedJWT verify(String jwtKey, String token) {
-        Algorithm algorithm = JWTSecurityService.getAlgorithm(jwtKey);
-        JWTVerifier verifier = JWT.require(algorithm).build();
-        return verifier.verify(token);
+        return VERIFIERS.getUnchecked(jwtKey).verify(token);
     }
 
     public DecodedJWT verify(String credentials) {
@@ -25,6 +25,7 @@ import org.airsonic.player.domain.CoverArt;
 import org.airsonic.player.domain.MediaFile;
 import org.airsonic.player.domain.Player;
 import org.airsonic.player.domain.Playlist;
+import org.airsonic.player.domain.dto.MediaFileSummary;
 import org.airsonic.player.util.StringUtil;
 import org.springframework.stereotype.Service;
 import org.subsonic.restapi.AlbumID3;
@@ -32,7 +33,11 @@ import org.subsonic.restapi.ArtistID3;
 import org.subsonic.restapi.Child;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Service
 public class JaxbContentService {
@@ -201,6 +206,44 @@ public class JaxbContentService {
         return child;
     }
 
+    /**
+     * Creates REST children for a page of album or directory summaries, as used by the album lists. Parents,
+     * starred dates and ratings are loaded for the whole page at once instead of once per child.
+     */
+    public List<Child> createJaxbDirectoryChildren(List<MediaFileSummary> directories, String username) {
+        List<Integer> ids = directories.stream().map(MediaFileSummary::id).collect(Collectors.toList());
+        Map<Integer, Integer> parentIds = mediaFileService.getParentIds(directories);
+        Map<Integer, Instant> starredDates = mediaFileService.getMediaFileStarredDates(ids, username);
+        Map<Integer, Integer> userRatings = ratingService.getRatingsForUser(username, ids);
+        Map<Integer, Double> averageRatings = ratingService.getAverageRatings(ids);
+
+        List<Child> result = new ArrayList<>(directories.size());
+        for (MediaFileSummary directory : directories) {
+            Child child = new Child();
+            child.setId(String.valueOf(directory.id()));
+            Integer parentId = parentIds.get(directory.id());
+            if (parentId != null) {
+                child.setParent(String.valueOf(parentId));
+            }
+            child.setTitle(directory.name());
+            child.setAlbum(directory.albumName());
+            child.setArtist(directory.artist());
+            child.setIsDir(true);
+            if (!CoverArt.NULL_ART.equals(coverArtService.getMediaFileArt(directory.id()))) {
+                child.setCoverArt(String.valueOf(directory.id()));
+            }
+            child.setYear(directory.year());
+            child.setGenre(directory.genre());
+            child.setCreated(jaxbWriter.convertDate(directory.created()));
+            child.setStarred(jaxbWriter.convertDate(starredDates.get(directory.id())));
+            child.setUserRating(userRatings.get(directory.id()));
+            child.setAverageRating(averageRatings.get(directory.id()));
+            child.setPlayCount((long) directory.playCount());
+            result.add(child);
+        }
+        return result;
+    }
+
     private String findCoverArt(MediaFile mediaFile, MediaFile parent) {
         MediaFile dir = mediaFile.isDirectory() ? mediaFile : parent;
         if (dir != null && !CoverArt.NULL_ART.equals(coverArtService.getMediaFileArt(dir.getId()))) {
@@ -7,7 +7,11 @@ import org.airsonic.player.parser.lyrics.LrcFile;
 import org.airsonic.player.parser.lyrics.LrcParser;
 import org.airsonic.player.parser.lyrics.LyricsLine;
 import org.airsonic.player.repository.LyricsRepository;
+import org.airsonic.player.service.metadata.MetaDataParser;
+import org.airsonic.player.service.metadata.MetaDataParserFactory;
+import org.airsonic.player.util.FileUtil;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -18,32 +22,48 @@ import jakarta.transaction.Transactional;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class LyricsService {
 
     private final static Logger LOG = LoggerFactory.getLogger(LyricsService.class);
 
+    /** Lyrics read from a LRC file next to the song. */
+    public static final String SOURCE_FILE = "file";
+    /** Lyrics read from the tags of the song. */
+    public static final String SOURCE_EMBEDDED = "embedded";
+    /** Marks a song which was looked at without finding lyrics. Never returned. */
+    public static final String SOURCE_NONE = "none";
+
+    private static final Set<String> DISCOVERED_SOURCES = Set.of(SOURCE_FILE, SOURCE_EMBEDDED, SOURCE_NONE);
+
     private final LrcParser lrcParser;
     private final LyricsRepository lyricsRepository;
     private final MediaFileService mediaFileService;
+    private final MetaDataParserFactory metaDataParserFactory;
 
-    public LyricsService(LyricsRepository lyricsRepository, MediaFileService mediaFileService) {
+    public LyricsService(LyricsRepository lyricsRepository, MediaFileService mediaFileService, MetaDataParserFactory metaDataParserFactory) {
         this.lrcParser = new LrcParser();
         this.lyricsRepository = lyricsRepository;
         this.mediaFileService = mediaFileService;
+        this.metaDataParserFactory = metaDataParserFactory;
     }
 
     /**
      * Create lyrics from a MediaFile object.
-     * This method checks if the MediaFile is a valid file type and then attempts to find
-     * the corresponding LRC file. If found, it parses the LRC file and creates
-     * a Lyrics object which is then saved to the repository.
+     * Lyrics already found by a scan or an earlier request are read from the repository, without looking at
+     * the file system; scans keep them up to date with the LRC files. Otherwise the LRC file next to the song
+     * and the tags of the song are looked at, and the result is saved, including the absence of lyrics,
+     * so that the file system is only read again after the song changed.
      *
      * @param mediaFile the MediaFile object from which to create lyrics
      *                  (should not be a directory or indexed track)
-     * @return the created Lyrics object, or null if the MediaFile is not valid or no LRC file is found
+     * @return the created Lyrics object, or null if the MediaFile is not valid or has no lyrics
      */
     @Nullable
     @Transactional
@@ -56,39 +76,149 @@ public class LyricsService {
         }
 
         // get existing lyrics if available
-        return lyricsRepository.findByMediaFileId(mediaFile.getId()).orElseGet(() -> {
-            if (mediaFile.isIndexedTrack()) {
-                LOG.info("MediaFile is an indexed track, does not support lyrics");
+        Optional<Lyrics> existing = lyricsRepository.findByMediaFileId(mediaFile.getId());
+        if (existing.isPresent()) {
+            Lyrics lyrics = existing.get();
+            if (!SOURCE_NONE.equals(lyrics.getSource())) {
+                return lyrics;
+            } else if (!isOutdated(lyrics, mediaFile.getChanged())) {
+                LOG.debug("No lyrics for media: {}", mediaFile.getId());
                 return null;
             }
-            // generate LRC file path
-            Path filePath = mediaFile.getFullPath();
-            String baseName = FilenameUtils.removeExtension(filePath.toString());
-            Path lrcPath = Path.of(baseName + ".lrc");
-            Path lrcPathUpper = Path.of(baseName + ".LRC");
-
-            Path targetLrcPath = null;
-            if (Files.exists(lrcPath)) {
-                targetLrcPath = lrcPath;
-            } else if (Files.exists(lrcPathUpper)) {
-                targetLrcPath = lrcPathUpper;
-            } else {
-                LOG.debug("LRC file does not exist for media: {}", mediaFile.getId());
-                return null;
+        }
+        if (mediaFile.isIndexedTrack()) {
+            LOG.info("MediaFile is an indexed track, does not support lyrics");
+            return null;
+        }
+        return discoverLyrics(mediaFile, existing.orElse(null), findLrcFile(mediaFile.getFullPath()), null);
+    }
+
+    /**
+     * Looks for the lyrics of a song during a scan. The tags are only looked at if they were just read
+     * along with the rest of the song, so that unchanged songs without a LRC file cost neither a database lookup
+     * nor another read of their tags. Lyrics read from a LRC file are read again once its path or last modified
+     * date differ from the stored ones, or once it is removed. Lyrics saved by users or fetched from the internet are kept.
+     *
+     * @param mediaFile the song, before the current scan updates its last scanned date
+     * @param parent    the directory of the song, whose change reveals removed LRC files
+     */
+    @Transactional
+    public void harvestLyrics(@Nonnull MediaFile mediaFile, @Nullable MediaFile parent) {
+        String embedded = mediaFile.getEmbeddedLyrics();
+        mediaFile.setEmbeddedLyrics(null);
+        if (!mediaFile.isAudio() || mediaFile.isIndexedTrack() || !mediaFile.isPresent()) {
+            return;
+        }
+        Instant lastScanned = mediaFile.getLastScanned();
+        Path lrcPath = findLrcFile(mediaFile.getFullPath());
+        boolean tagsRead = embedded != null;
+        boolean lrcRemoved = lrcPath == null && parent != null && isChangedSince(parent.getChanged(), lastScanned);
+        if (!tagsRead && lrcPath == null && !lrcRemoved) {
+            return;
+        }
+        Lyrics existing = lyricsRepository.findByMediaFileId(mediaFile.getId()).orElse(null);
+        if (existing != null && !DISCOVERED_SOURCES.contains(existing.getSource())) {
+            return;
+        }
+        if (!tagsRead && existing != null) {
+            boolean fromLrc = SOURCE_FILE.equals(existing.getSource());
+            if (lrcPath == null && !fromLrc) {
+                // the directory changed, but these lyrics did not come from a LRC file
+                return;
             }
-            LrcFile lrcFile = lrcParser.parse(targetLrcPath);
-            if (lrcFile == null || lrcFile.getLyricsLines().isEmpty()) {
-                LOG.debug("No lyrics found in LRC file: {}", targetLrcPath);
-                return null;
+            if (lrcPath != null && fromLrc && lrcPath.toString().equals(existing.getLrcPath())
+                    && lrcModified(lrcPath).equals(existing.getLrcModified())) {
+                // the same LRC file as when the lyrics were read
+                return;
             }
-            StringBuilder lyricsText = new StringBuilder();
-            for (LyricsLine line : lrcFile.getLyricsLines()) {
-                lyricsText.append(line.getText()).append("\n");
+            if (lrcPath != null && !fromLrc && !isChangedSince(lrcModified(lrcPath), lastScanned)) {
+                // the LRC file had no lyrics when the song was last scanned
+                return;
             }
-            Lyrics newLyrics = new Lyrics(lyricsText.toString(), mediaFile.getId(), "file");
-            return lyricsRepository.save(newLyrics);
-        });
+        }
+        discoverLyrics(mediaFile, existing, lrcPath, embedded);
+    }
+
+    private static Instant lrcModified(Path lrcPath) {
+        return FileUtil.lastModified(lrcPath).truncatedTo(ChronoUnit.MICROS);
+    }
+
+    /*
+     * Whether the song changed after the lyrics were looked for.
+     */
+    private static boolean isOutdated(Lyrics lyrics, @Nullable Instant changed) {
+        return changed == null || lyrics.getUpdated() == null || lyrics.getUpdated().isBefore(changed);
+    }
+
+    private static boolean isChangedSince(@Nullable Instant changed, @Nullable Instant since) {
+        return changed == null || since == null || changed.isAfter(since);
+    }
 
+    /**
+     * Looks at the LRC file, then at the tags of the song.
+     *
+     * @param lrcPath  the LRC file of the song, or null if it has none
+     * @param embedded the lyrics in the tags if they were just read, or null to read them
+     */
+    @Nullable
+    private Lyrics discoverLyrics(MediaFile mediaFile, @Nullable Lyrics existing, @Nullable Path lrcPath, @Nullable String embedded) {
+        String source = SOURCE_FILE;
+        String text = lrcPath != null ? readLrcFile(lrcPath) : null;
+        if (text == null) {
+            source = SOURCE_EMBEDDED;
+            text = embedded != null ? StringUtils.trimToNull(embedded) : readEmbeddedLyrics(mediaFile.getFullPath());
+        }
+        if (text == null) {
+            LOG.debug("No lyrics found for media: {}", mediaFile.getId());
+            source = SOURCE_NONE;
+        }
+        Lyrics lyrics = existing != null ? existing : new Lyrics("", mediaFile.getId(), source);
+        lyrics.setLyrics(text != null ? text : "");
+        lyrics.setSource(source);
+        lyrics.setLrcPath(SOURCE_FILE.equals(source) ? lrcPath.toString() : null);
+        lyrics.setLrcModified(SOURCE_FILE.equals(source) ? lrcModified(lrcPath) : null);
+        lyrics.setUpdated(Instant.now().truncatedTo(ChronoUnit.MICROS));
+        Lyrics saved = lyricsRepository.save(lyrics);
+        return text != null ? saved : null;
+    }
+
+    @Nullable
+    private static Path findLrcFile(Path filePath) {
+        String baseName = FilenameUtils.removeExtension(filePath.toString());
+        Path lrcPath = Path.of(baseName + ".lrc");
+        if (Files.exists(lrcPath)) {
+            return lrcPath;
+        }
+        Path lrcPathUpper = Path.of(baseName + ".LRC");
+        return Files.exists(lrcPathUpper) ? lrcPathUpper : null;
+    }
+
+    @Nullable
+    private String readLrcFile(Path targetLrcPath) {
+        LrcFile lrcFile = lrcParser.parse(targetLrcPath);
+        if (lrcFile == null || lrcFile.getLyricsLines().isEmpty()) {
+            LOG.debug("No lyrics found in LRC file: {}", targetLrcPath);
+            return null;
+        }
+        StringBuilder lyricsText = new StringBuilder();
+        for (LyricsLine line : lrcFile.getLyricsLines()) {
+            lyricsText.append(line.getText()).append("\n");
+        }
+        return lyricsText.toString();
+    }
+
+    @Nullable
+    private String readEmbeddedLyrics(Path filePath) {
+        MetaDataParser parser = metaDataParserFactory.getParser(filePath);
+        if (parser == null) {
+            return null;
+        }
+        try {
+            return StringUtils.trimToNull(parser.getMetaData(filePath).getLyrics());
+        } catch (Exception e) {
+            LOG.debug("Could not read embedded lyrics of {}", filePath, e);
+            return null;
+        }
     }
 
     /**
@@ -29,6 +29,8 @@ import org.airsonic.player.domain.*;
 import org.airsonic.player.domain.CoverArt.EntityType;
 import org.airsonic.player.domain.MediaFile.MediaType;
 import org.airsonic.player.domain.MusicFolder.Type;
+import org.airsonic.player.domain.dto.GenreCount;
+import org.airsonic.player.domain.dto.MediaFileSummary;
 import org.airsonic.player.domain.entity.StarredMediaFile;
 import org.airsonic.player.i18n.LocaleResolver;
 import org.airsonic.player.repository.AlbumRepository;
@@ -38,6 +40,7 @@ import org.airsonic.player.repository.MediaFileSpecifications;
 import org.airsonic.player.repository.MusicFileInfoRepository;
 import org.airsonic.player.repository.OffsetBasedPageRequest;
 import org.airsonic.player.repository.StarredMediaFileRepository;
+import org.airsonic.player.repository.StarredMediaFileRepository.StarredDate;
 import org.airsonic.player.service.cache.MediaFileCache;
 import org.airsonic.player.service.metadata.Chapter;
 import org.airsonic.player.service.metadata.FFmpegParser;
@@ -45,6 +48,7 @@ import org.airsonic.player.service.metadata.JaudiotaggerParser;
 import org.airsonic.player.service.metadata.MetaData;
 import org.airsonic.player.service.metadata.MetaDataParser;
 import org.airsonic.player.service.metadata.MetaDataParserFactory;
+import org.airsonic.player.service.search.IndexManager;
 import org.airsonic.player.util.FileUtil;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.StringUtils;
@@ -58,9 +62,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
@@ -84,6 +88,8 @@ import java.time.format.FormatStyle;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -99,6 +105,12 @@ public class MediaFileService {
 
     private static final Logger LOG = LoggerFactory.getLogger(MediaFileService.class);
 
+    // upper bound of the random key ranges of a random song query
+    static final int MAX_RANDOM_PIVOTS = 50;
+    // songs read per song requested, so that the ranges rarely hold too few
+    private static final int RANDOM_OVERSAMPLING = 2;
+    private static final int MAX_RANDOM_ROUNDS = 10;
+
     @Autowired
     private SecurityService securityService;
     @Autowired
@@ -127,6 +139,10 @@ public class MediaFileService {
     private MediaFileCache mediaFileCache;
     @Autowired
     private FFmpegParser ffmpegParser;
+    @Autowired
+    private IndexManager indexManager;
+    @Autowired
+    private AlbumListService albumListService;
 
     private final double DURATION_EPSILON = 1e-2;
 
@@ -134,6 +150,8 @@ public class MediaFileService {
 
     private final Map<Integer, Pair<Integer, Instant>> lastPlayed = new ConcurrentHashMap<>();
 
+    private final AtomicBoolean genresChanged = new AtomicBoolean(false);
+
     private boolean hasBOM(byte[] bom, int bytesRead) {
         return bytesRead == 3 && bom[0] == (byte) 0xEF && bom[1] == (byte) 0xBB && bom[2] == (byte) 0xBF;
     }
@@ -200,6 +218,7 @@ public class MediaFileService {
                     // Put in database.
                     if (mediaFile != null) {
                         updateMediaFile(mediaFile);
+                        albumChanged(mediaFile);
                     }
                     return mediaFile;
                 });
@@ -237,6 +256,34 @@ public class MediaFileService {
         return result;
     }
 
+    /**
+     * Returns the media files with the given ids, fetching those not in the cache with a single query.
+     *
+     * @param ids The media file ids.
+     * @return Map from id to media file, in the iteration order of {@code ids}. Missing files are absent.
+     */
+    public Map<Integer, MediaFile> getMediaFiles(Collection<Integer> ids) {
+        Map<Integer, MediaFile> result = new LinkedHashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : ids) {
+            MediaFile cached = mediaFileCache.getMediaFileById(id);
+            result.put(id, cached);
+            if (cached == null) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            boolean minimizeDiskAccess = settingsService.isFastCacheEnabled();
+            for (MediaFile mediaFile : mediaFileRepository.findAllById(missing)) {
+                MediaFile checked = checkLastModified(mediaFile, minimizeDiskAccess);
+                mediaFileCache.putMediaFileById(checked.getId(), checked);
+                result.put(checked.getId(), checked);
+            }
+        }
+        result.values().removeIf(Objects::isNull);
+        return result;
+    }
+
     public List<MediaFile> getMediaFilesByRelativePath(Path relativePath) {
         return mediaFileRepository.findByPath(relativePath.toString());
     }
@@ -288,6 +335,9 @@ public class MediaFileService {
         }
         LOG.debug("Updating database file from disk (id {}, path {} in folder {} ({}))", mediaFile.getId(), mediaFile.getPath(), folder.getId(), folder.getName());
         if (!Files.exists(mediaFile.getFullPath())) {
+            if (mediaFile.getGenre() != null) {
+                genresChanged.set(true);
+            }
             mediaFile.setPresent(false);
             mediaFile.setChildrenLastUpdated(Instant.ofEpochMilli(1));
             updateMediaFile(mediaFile);
@@ -318,9 +368,20 @@ public class MediaFileService {
                 updateMediaFile(mediaFile);
             }
         }
+        albumChanged(mediaFile);
         return mediaFile;
     }
 
+    /*
+     * Album lists are served from memory, so they are reloaded after an album was discovered or changed
+     * outside of a scan.
+     */
+    private void albumChanged(MediaFile mediaFile) {
+        if (mediaFile != null && mediaFile.getMediaType() == MediaType.ALBUM) {
+            albumListService.invalidate();
+        }
+    }
+
     /**
      * Returns all user-visible media files that are children of a given media file
      *
@@ -565,14 +626,37 @@ public class MediaFileService {
     }
 
     /**
-     * update genres
+     * Recomputes the genre statistics with one aggregate query over the present media files,
+     * and removes the genres which have no albums or songs left.
      *
-     * @param genres The genres to update.
-     * @return The updated genres.
+     * @return The genres.
      */
     @Transactional
-    public List<Genre> updateGenres(List <Genre> genres) {
-        return genreRepository.saveAll(genres);
+    public List<Genre> refreshGenres() {
+        genresChanged.set(false);
+        List<MusicFolder> musicFolders = mediaFolderService.getAllMusicFolders();
+        Genres genres = new Genres();
+        if (!musicFolders.isEmpty()) {
+            String separators = settingsService.getGenreSeparators();
+            for (GenreCount count : mediaFileRepository.countGenres(musicFolders)) {
+                if (count.mediaType() == MediaType.ALBUM) {
+                    genres.addAlbumCount(count.genre(), separators, (int) count.count());
+                } else if (MediaType.audioTypes().contains(count.mediaType())) {
+                    genres.addSongCount(count.genre(), separators, (int) count.count());
+                }
+            }
+        }
+        List<Genre> result = genres.getGenres();
+        Set<String> names = result.stream().map(Genre::getName).collect(Collectors.toSet());
+        genreRepository.deleteAll(genreRepository.findAll().stream().filter(g -> !names.contains(g.getName())).toList());
+        return genreRepository.saveAll(result);
+    }
+
+    /**
+     * Whether the genre, type or presence of a media file changed since the genres were last refreshed.
+     */
+    public boolean hasGenreChanges() {
+        return genresChanged.get();
     }
 
     /**
@@ -704,6 +788,47 @@ public class MediaFileService {
     }
 
 
+    /**
+     * Resolves the ids of the parents of the given summaries with one query per music folder. Root folders are not
+     * resolved, matching the REST API which omits the parent of top level directories.
+     *
+     * @param summaries The media file summaries.
+     * @return Map from media file id to parent id.
+     */
+    public Map<Integer, Integer> getParentIds(List<MediaFileSummary> summaries) {
+        Map<Integer, Integer> result = new HashMap<>();
+        summaries.stream()
+                .filter(s -> StringUtils.isNotEmpty(s.parentPath()))
+                .collect(Collectors.groupingBy(MediaFileSummary::folderId))
+                .forEach((folderId, children) -> {
+                    Set<String> parentPaths = children.stream().map(MediaFileSummary::parentPath).collect(Collectors.toSet());
+                    Map<String, Integer> parentIdByPath = mediaFileRepository.findSummariesByFolderIdAndPathIn(folderId, parentPaths)
+                            .stream().collect(Collectors.toMap(MediaFileSummary::path, MediaFileSummary::id, (a, b) -> a));
+                    children.forEach(child -> {
+                        Integer parentId = parentIdByPath.get(child.parentPath());
+                        if (parentId != null) {
+                            result.put(child.id(), parentId);
+                        }
+                    });
+                });
+        return result;
+    }
+
+    /**
+     * Returns the starred dates of the given media files for a user with a single query.
+     *
+     * @param mediaFileIds The media file ids.
+     * @param username     The user name.
+     * @return Map from media file id to starred date. Media files not starred are absent.
+     */
+    public Map<Integer, Instant> getMediaFileStarredDates(Collection<Integer> mediaFileIds, String username) {
+        if (mediaFileIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return starredMediaFileRepository.findStarredDatesByUsernameAndMediaFileIdIn(username, mediaFileIds).stream()
+                .collect(Collectors.toMap(StarredDate::getMediaFileId, StarredDate::getCreated, (a, b) -> a));
+    }
+
     /**
      * Returns random songs for the given parent.
      *
@@ -725,14 +850,39 @@ public class MediaFileService {
 
     /**
      * Returns random songs matching search criteria.
-     *
+     * <p>
+     * Instead of sorting the whole filtered table by a random function, the matching songs are counted, then
+     * read in one query from up to {@value #MAX_RANDOM_PIVOTS} ranges of the {@code random_key} index starting
+     * at random pivots. The ranges are sized to hold about twice the songs requested, which are drawn from them.
+     * As the keys are uniform, every song has the same chance to fall in a range, whatever the gaps between keys.
+     * Few matching songs are read as a whole instead.
      */
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public List<MediaFile> getRandomSongs(RandomSearchCriteria criteria, String username) {
-        if (criteria == null || CollectionUtils.isEmpty(criteria.getMusicFolders())) {
+        if (criteria == null || CollectionUtils.isEmpty(criteria.getMusicFolders()) || criteria.getCount() <= 0) {
             return Collections.emptyList();
         }
-        return mediaFileRepository.findAll(MediaFileSpecifications.matchCriteria(criteria, username, settingsService.getDatabaseType()), Pageable.ofSize(criteria.getCount()));
+        Specification<MediaFile> spec = MediaFileSpecifications.matchCriteria(criteria, username);
+        int count = criteria.getCount();
+        long matching = mediaFileRepository.count(spec);
+
+        List<MediaFile> songs;
+        if (matching <= (long) RANDOM_OVERSAMPLING * count) {
+            songs = new ArrayList<>(mediaFileRepository.findAll(spec));
+        } else {
+            int pivots = Math.min(count, MAX_RANDOM_PIVOTS);
+            double width = (double) RANDOM_OVERSAMPLING * count / pivots / matching;
+            Map<Integer, MediaFile> ranges = new LinkedHashMap<>();
+            // a single requested song misses every range now and then
+            for (int i = 0; i < MAX_RANDOM_ROUNDS && ranges.size() < count; i++) {
+                double[] from = ThreadLocalRandom.current().doubles(pivots).toArray();
+                mediaFileRepository.findAll(spec.and(MediaFileSpecifications.randomKeyWithin(from, width)))
+                        .forEach(song -> ranges.putIfAbsent(song.getId(), song));
+            }
+            songs = new ArrayList<>(ranges.values());
+        }
+        Collections.shuffle(songs);
+        return new ArrayList<>(songs.subList(0, Math.min(count, songs.size())));
     }
 
     /**
@@ -790,6 +940,7 @@ public class MediaFileService {
                             mediaFile = createMediaFileByFile(relativePath, folder);
                             if (mediaFile != null) {
                                 updateMediaFile(mediaFile);
+                                albumChanged(mediaFile);
                             }
                         } else if (!mediaFile.hasIndex()) {
                             mediaFile = checkLastModified(mediaFile, false); // has to be false, only time it's called
@@ -971,6 +1122,18 @@ public class MediaFileService {
      * @return media file reflected from file system
      */
     private MediaFile updateMediaFileByFile(MediaFile mediaFile, boolean isCheckedExistence) {
+        String genre = mediaFile == null ? null : mediaFile.getGenre();
+        MediaType mediaType = mediaFile == null ? null : mediaFile.getMediaType();
+        boolean present = mediaFile != null && mediaFile.isPresent();
+        MediaFile result = readMediaFileByFile(mediaFile, isCheckedExistence);
+        if (!Objects.equals(genre, result.getGenre())
+                || (genre != null && (mediaType != result.getMediaType() || present != result.isPresent()))) {
+            genresChanged.set(true);
+        }
+        return result;
+    }
+
+    private MediaFile readMediaFileByFile(MediaFile mediaFile, boolean isCheckedExistence) {
 
         if (mediaFile == null || mediaFile.getFolder() == null || mediaFile.getPath() == null) {
             throw new IllegalArgumentException("mediaFile, folder and mediaFile.path must not be null");
@@ -1008,8 +1171,10 @@ public class MediaFileService {
         if (Files.isRegularFile(file)) {
 
             MetaDataParser parser = metaDataParserFactory.getParser(file);
+            mediaFile.setEmbeddedLyrics("");
             if (parser != null) {
                 MetaData metaData = parser.getMetaData(file);
+                mediaFile.setEmbeddedLyrics(StringUtils.defaultString(metaData.getLyrics()));
                 mediaFile.setArtist(metaData.getArtist());
                 mediaFile.setAlbumArtist(metaData.getAlbumArtist());
                 mediaFile.setAlbumName(metaData.getAlbumName());
@@ -1323,6 +1488,47 @@ public class MediaFileService {
     public void refreshMediaFile(MediaFile mediaFile) {
         mediaFile = updateMediaFileByFile(mediaFile);
         updateMediaFile(mediaFile);
+        indexManager.index(mediaFile);
+        albumChanged(mediaFile);
+    }
+
+    /**
+     * Brings a directory up to date with the disk and the search index, without scanning the rest of the library.
+     *
+     * @param fullPath  Directory that changed on disk.
+     * @param recursive Whether the directories below it are rescanned too, otherwise only its files are.
+     * @return Media files visited, empty if the directory is not in an enabled music folder or no longer exists.
+     */
+    public List<MediaFile> rescanDirectory(Path fullPath, boolean recursive) {
+        MusicFolder folder = mediaFolderService.getMusicFolderForFile(fullPath, false, true).orElse(null);
+        if (folder == null) {
+            return Collections.emptyList();
+        }
+        Path relativePath = folder.getPath().relativize(fullPath);
+        // the cached instance would skip the last modified check that detects new children
+        mediaFileCache.removeMediaFile(mediaFileCache.getMediaFileByPath(relativePath, folder, MediaFile.NOT_INDEXED));
+        MediaFile directory = getMediaFile(relativePath, folder, false);
+        if (directory == null || !directory.isPresent() || !directory.isDirectory()) {
+            return Collections.emptyList();
+        }
+        List<MediaFile> visited = new ArrayList<>();
+        rescanTree(directory, recursive, visited);
+        return visited;
+    }
+
+    private void rescanTree(MediaFile directory, boolean recursive, List<MediaFile> visited) {
+        visited.add(directory);
+        indexManager.index(directory);
+        for (MediaFile child : getChildrenOf(directory, true, true, false, false)) {
+            if (child.isDirectory()) {
+                if (recursive) {
+                    rescanTree(child, true, visited);
+                }
+            } else {
+                indexManager.index(child);
+                visited.add(child);
+            }
+        }
     }
 
     public void setMemoryCacheEnabled(boolean memoryCacheEnabled) {
@@ -1495,6 +1701,9 @@ public class MediaFileService {
                 mediaFile.setId(m.getId());
                 mediaFileRepository.save(mediaFile);
             }, () -> {
+                    if (mediaFile.getGenre() != null) {
+                        genresChanged.set(true);
+                    }
                     MusicFolder folder = mediaFile.getFolder();
                     if (folder != null) {
                         musicFileInfoRepository.findByPath(mediaFile.getFullPath().toString()).ifPresent(musicFileInfo -> {
@@ -1535,12 +1744,13 @@ public class MediaFileService {
             parent.setLastPlayed(now);
             parent.setPlayCount(parent.getPlayCount() + 1);
             updateMediaFile(parent);
+            albumListService.albumPlayed(parent);
         }
 
         albumRepository.findByArtistAndName(file.getAlbumArtist(), file.getAlbumName()).ifPresent(album -> {
                 album.setLastPlayed(now);
                 album.incrementPlayCount();
-                albumRepository.save(album);
+                albumListService.albumPlayed(albumRepository.save(album));
             }
         );
 
@@ -1586,6 +1796,34 @@ public class MediaFileService {
         return starredMediaFileRepository.countByUsernameAndMediaFileMediaTypeAndMediaFileFolderInAndMediaFilePresentTrue(username, MediaType.ALBUM, musicFolders);
     }
 
+    public int getStarredArtistCount(String username, List<MusicFolder> musicFolders) {
+        if (CollectionUtils.isEmpty(musicFolders)) {
+            return 0;
+        }
+        return starredMediaFileRepository.countByUsernameAndMediaFileMediaTypeAndMediaFileFolderInAndMediaFilePresentTrue(username, MediaType.DIRECTORY, musicFolders);
+    }
+
+    public int getStarredSongCount(String username, List<MusicFolder> musicFolders) {
+        if (CollectionUtils.isEmpty(musicFolders)) {
+            return 0;
+        }
+        return starredMediaFileRepository.countByUsernameAndMediaFileMediaTypeInAndMediaFileFolderInAndMediaFilePresentTrue(username, MediaType.audioTypes(), musicFolders);
+    }
+
+    public int getAlbumCountByGenre(String genre, List<MusicFolder> musicFolders) {
+        if (CollectionUtils.isEmpty(musicFolders)) {
+            return 0;
+        }
+        return mediaFileRepository.countByFolderInAndMediaTypeAndGenreAndPresentTrue(musicFolders, MediaType.ALBUM, genre);
+    }
+
+    public int getAlbumCountByYear(int fromYear, int toYear, List<MusicFolder> musicFolders) {
+        if (CollectionUtils.isEmpty(musicFolders)) {
+            return 0;
+        }
+        return mediaFileRepository.countByFolderInAndMediaTypeAndYearBetweenAndPresentTrue(musicFolders, MediaType.ALBUM, Math.min(fromYear, toYear), Math.max(fromYear, toYear));
+    }
+
     /**
      * star media files
      *
@@ -1607,6 +1845,7 @@ public class MediaFileService {
                     starredMediaFileRepository.save(starredMediaFile);
                 });
         });
+        albumListService.starredChanged(username);
     }
 
     /**
@@ -1621,6 +1860,7 @@ public class MediaFileService {
             return;
         }
         starredMediaFileRepository.deleteAllByMediaFileIdInAndUsername(ids, username);
+        albumListService.starredChanged(username);
     }
 
     /**
@@ -1686,10 +1926,14 @@ public class MediaFileService {
             return null;
         }
         mediaFileCache.removeMediaFile(file);
+        if (file.getGenre() != null) {
+            genresChanged.set(true);
+        }
         file.setPresent(false);
         file.setChildrenLastUpdated(Instant.ofEpochMilli(1));
         mediaFileRepository.save(file);
         coverArtService.delete(EntityType.MEDIA_FILE, file.getId());
+        indexManager.delete(file);
 
         // delete children recursively
         if (file.isDirectory()) {
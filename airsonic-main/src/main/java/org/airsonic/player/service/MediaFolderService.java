@@ -9,12 +9,13 @@ import org.airsonic.player.repository.CoverArtRepository;
 import org.airsonic.player.repository.MediaFileRepository;
 import org.airsonic.player.repository.MusicFolderRepository;
 import org.airsonic.player.repository.UserRepository;
-import org.airsonic.player.util.FileUtil;
 import org.apache.commons.lang3.tuple.Triple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -22,14 +23,18 @@ import org.springframework.util.StringUtils;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -48,9 +53,14 @@ public class MediaFolderService {
     private MediaFileRepository mediaFileRepository;
     @Autowired
     private CoverArtRepository coverArtRepository;
+    @Autowired
+    private TaskSchedulingService taskService;
+    @Autowired
+    private AlbumListService albumListService;
 
-    private List<MusicFolder> cachedMusicFolders;
+    private final AtomicReference<MusicFolderResolver> cachedMusicFolders = new AtomicReference<>();
     private final ConcurrentMap<String, List<MusicFolder>> cachedMusicFoldersPerUser = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<Integer>> cachedMusicFolderIdsPerUser = new ConcurrentHashMap<>();
 
     /**
      * Returns all music folders. Non-existing and disabled folders are not included.
@@ -69,14 +79,58 @@ public class MediaFolderService {
      * @return Possibly empty list of all music folders.
      */
     public List<MusicFolder> getAllMusicFolders(boolean includeDisabled, boolean includeNonExisting) {
-        if (cachedMusicFolders == null) {
-            cachedMusicFolders = musicFolderRepository.findByDeleted(false);
-        }
-        return cachedMusicFolders.stream()
-                .filter(folder -> (includeDisabled || folder.isEnabled()) && (includeNonExisting || Files.exists(folder.getPath())))
+        MusicFolderResolver resolver = getResolver();
+        return resolver.getFolders().stream()
+                .filter(folder -> (includeDisabled || folder.isEnabled()) && (includeNonExisting || resolver.exists(folder)))
                 .toList();
     }
 
+    /*
+     * Loaded when first needed after the folder configuration changed.
+     * Folder existence is checked once here and then by refreshMusicFolderHealth.
+     */
+    private MusicFolderResolver getResolver() {
+        MusicFolderResolver resolver = cachedMusicFolders.get();
+        if (resolver == null) {
+            List<MusicFolder> folders = musicFolderRepository.findByDeleted(false);
+            resolver = new MusicFolderResolver(folders, checkExisting(folders));
+            cachedMusicFolders.compareAndSet(null, resolver);
+        }
+        return resolver;
+    }
+
+    private static Set<Integer> checkExisting(List<MusicFolder> folders) {
+        return folders.stream()
+                .filter(folder -> Files.exists(folder.getPath()))
+                .map(MusicFolder::getId)
+                .collect(Collectors.toSet());
+    }
+
+    @EventListener
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        taskService.scheduleFixedDelayTask("music-folder-health", this::refreshMusicFolderHealth,
+                Instant.now().plus(1, ChronoUnit.MINUTES), Duration.ofMinutes(1), true);
+    }
+
+    /**
+     * Checks which music folders exist, so that folder lookups do not need to.
+     * Folders mounted or unmounted since the last check are picked up here.
+     */
+    public void refreshMusicFolderHealth() {
+        MusicFolderResolver resolver = cachedMusicFolders.get();
+        if (resolver == null) {
+            return;
+        }
+        Set<Integer> existing = checkExisting(resolver.getFolders());
+        if (!existing.equals(resolver.getExistingIds())
+                && cachedMusicFolders.compareAndSet(resolver, resolver.withExistingIds(existing))) {
+            LOG.info("Available music folders changed: {}", resolver.getFolders().stream()
+                    .filter(f -> existing.contains(f.getId())).map(MusicFolder::getName).collect(joining(", ")));
+            cachedMusicFoldersPerUser.clear();
+            cachedMusicFolderIdsPerUser.clear();
+        }
+    }
+
     public List<MusicFolder> getAllMusicFolders(boolean includeDisabled, boolean includeNonExisting, boolean includeDeleted) {
         return Streams.concat(
                 getAllMusicFolders(includeDisabled, includeNonExisting).stream(),
@@ -96,13 +150,24 @@ public class MediaFolderService {
                 .map(user -> {
                     return user.getMusicFolders()
                         .stream()
-                        .filter(folder -> folder.isEnabled() && !folder.isDeleted() && Files.exists(folder.getPath()))
+                        .filter(folder -> folder.isEnabled() && !folder.isDeleted() && getResolver().exists(folder))
                         .collect(Collectors.toList());
                 })
                 .orElse(new ArrayList<>());
         });
     }
 
+    /**
+     * Returns the ids of all music folders a user have access to, as an immutable set suitable for per-item checks.
+     * Non-existing and disabled folders are not included.
+     * @param username Username to get music folder ids for.
+     * @return Possibly empty set of music folder ids.
+     */
+    public Set<Integer> getMusicFolderIdsForUser(String username) {
+        return cachedMusicFolderIdsPerUser.computeIfAbsent(username, u ->
+                getMusicFoldersForUser(u).stream().map(MusicFolder::getId).collect(Collectors.toUnmodifiableSet()));
+    }
+
     /**
      * Returns all music folders a user have access to. Non-existing and disabled folders are not included.
      *
@@ -122,7 +187,7 @@ public class MediaFolderService {
             u.setMusicFolders(folders);
             userRepository.save(u);
         });
-        cachedMusicFoldersPerUser.remove(username);
+        clearMusicFolderCacheForUser(username);
     }
 
     public MusicFolder getMusicFolderById(Integer id) {
@@ -398,8 +463,15 @@ public class MediaFolderService {
     }
 
     public void clearMusicFolderCache() {
-        cachedMusicFolders = null;
+        cachedMusicFolders.set(null);
         cachedMusicFoldersPerUser.clear();
+        cachedMusicFolderIdsPerUser.clear();
+        albumListService.invalidate();
+    }
+
+    public void clearMusicFolderCacheForUser(String username) {
+        cachedMusicFoldersPerUser.remove(username);
+        cachedMusicFolderIdsPerUser.remove(username);
     }
 
     @CacheEvict(cacheNames = { "mediaFilePathCache", "mediaFileIdCache" }, allEntries = true)
@@ -416,10 +488,7 @@ public class MediaFolderService {
      * @return Music folder that contains the file, or null if no music folder contains the file.
      */
     public Optional<MusicFolder> getMusicFolderForFile(Path file, boolean includeDisabled, boolean includeNonExisting) {
-        return getAllMusicFolders(includeDisabled, includeNonExisting).stream()
-                .filter(folder -> FileUtil.isFileInFolder(file, folder.getPath()))
-                .sorted(Comparator.comparing(folder -> folder.getPath().getNameCount(), Comparator.reverseOrder()))
-                .findFirst();
+        return getResolver().resolve(file, includeDisabled, includeNonExisting);
     }
 
     /**
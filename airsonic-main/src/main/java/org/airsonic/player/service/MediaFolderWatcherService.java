@@ -0,0 +1,208 @@
+/*
+ This file is part of Airsonic.
+
+ Airsonic is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Airsonic is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Airsonic.  If not, see <http://www.gnu.org/licenses/>.
+
+ Copyright 2025 (C) Y.Tory
+ */
+package org.airsonic.player.service;
+
+import org.airsonic.player.config.AirsonicScanConfig;
+import org.airsonic.player.domain.MusicFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Live updates of the media library.
+ *
+ * When enabled with {@code airsonic.scan.watch}, every directory of the music folders is watched.
+ * Changed directories are collected until they have been quiet for {@code airsonic.scan.watch-quiet-period} seconds,
+ * then only their own entries are rescanned, together with the albums and artists of their songs.
+ * New directories are rescanned with everything below them. If events were lost, a library scan is started instead.
+ */
+@Service
+public class MediaFolderWatcherService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MediaFolderWatcherService.class);
+
+    private static final String WATCHER_PREFIX = "Media folder watcher: ";
+
+    private final AirsonicScanConfig scanConfig;
+    private final PathWatcherService pathWatcherService;
+    private final MediaFolderService mediaFolderService;
+    private final MediaScannerService mediaScannerService;
+    private final TaskSchedulingService taskService;
+
+    // Changed directory -> time of its last event
+    private final ConcurrentMap<Path, Instant> pendingDirectories = new ConcurrentHashMap<>();
+    // New directory -> time of its creation
+    private final ConcurrentMap<Path, Instant> createdDirectories = new ConcurrentHashMap<>();
+    // Music folder id -> watched directories
+    private final ConcurrentMap<Integer, Set<Path>> watchedDirectories = new ConcurrentHashMap<>();
+    private final AtomicBoolean overflowed = new AtomicBoolean(false);
+
+    public MediaFolderWatcherService(
+            AirsonicScanConfig scanConfig,
+            PathWatcherService pathWatcherService,
+            MediaFolderService mediaFolderService,
+            MediaScannerService mediaScannerService,
+            TaskSchedulingService taskService) {
+        this.scanConfig = scanConfig;
+        this.pathWatcherService = pathWatcherService;
+        this.mediaFolderService = mediaFolderService;
+        this.mediaScannerService = mediaScannerService;
+        this.taskService = taskService;
+    }
+
+    @EventListener
+    public void init(ApplicationReadyEvent event) {
+        if (!scanConfig.isWatch()) {
+            return;
+        }
+        LOG.info("Live media library updates enabled, quiet period {}s.", scanConfig.getWatchQuietPeriod());
+        taskService.scheduleFixedDelayTask("media-folder-watcher", this::processChanges,
+                Instant.now(), Duration.ofSeconds(1), true);
+    }
+
+    /**
+     * Keeps the watches in line with the music folders, then rescans the directories that have been quiet long enough.
+     */
+    void processChanges() {
+        try {
+            updateWatches();
+
+            // a running scan picks up the changes as well, keep them until it is done
+            if (mediaScannerService.isScanning()) {
+                return;
+            }
+            if (overflowed.getAndSet(false)) {
+                LOG.warn("File system events were lost. Falling back to a library scan.");
+                pendingDirectories.clear();
+                createdDirectories.clear();
+                mediaScannerService.scanLibrary();
+                return;
+            }
+
+            Instant quietSince = Instant.now().minusSeconds(scanConfig.getWatchQuietPeriod());
+            List<Path> changed = takeQuiet(pendingDirectories, quietSince);
+            List<Path> created = takeQuiet(createdDirectories, quietSince);
+            if (!changed.isEmpty() || !created.isEmpty()) {
+                mediaScannerService.scanDirectories(changed, created);
+            }
+        } catch (Exception e) {
+            LOG.warn("Failed to process media folder changes", e);
+        }
+    }
+
+    private static List<Path> takeQuiet(ConcurrentMap<Path, Instant> pending, Instant quietSince) {
+        List<Path> ready = new ArrayList<>();
+        pending.forEach((dir, lastEvent) -> {
+            if (lastEvent.isBefore(quietSince) && pending.remove(dir, lastEvent)) {
+                ready.add(dir);
+            }
+        });
+        return ready;
+    }
+
+    private void updateWatches() {
+        Map<Integer, MusicFolder> folders = mediaFolderService.getAllMusicFolders().stream()
+                .collect(Collectors.toMap(MusicFolder::getId, f -> f));
+        for (Integer id : new HashSet<>(watchedDirectories.keySet())) {
+            if (!folders.containsKey(id)) {
+                Set<Path> dirs = watchedDirectories.remove(id);
+                dirs.forEach(dir -> pathWatcherService.invalidateWatcher(WATCHER_PREFIX + dir));
+                LOG.info("Stopped watching {} directories of music folder {}", dirs.size(), id);
+            }
+        }
+        for (MusicFolder folder : folders.values()) {
+            if (!watchedDirectories.containsKey(folder.getId())) {
+                watchedDirectories.put(folder.getId(), ConcurrentHashMap.newKeySet());
+                watchTree(folder, folder.getPath());
+                LOG.info("Watching {} directories of music folder {}", watchedDirectories.get(folder.getId()).size(), folder.getName());
+            }
+        }
+    }
+
+    private void watchTree(MusicFolder folder, Path root) {
+        List<Exception> failures = new ArrayList<>();
+        try (Stream<Path> dirs = Files.walk(root)) {
+            dirs.filter(Files::isDirectory).forEach(dir -> watch(folder, dir, failures));
+        } catch (IOException | UncheckedIOException e) {
+            failures.add(e);
+        }
+        // typically the limit of watches per user is reached, which fails every remaining directory alike
+        if (!failures.isEmpty()) {
+            LOG.warn("Could not watch {} directories below {}: {}. Changes there are picked up by the scheduled scan.",
+                    failures.size(), root, failures.get(0).getMessage());
+            LOG.debug("First failure watching below {}", root, failures.get(0));
+        }
+    }
+
+    private void watch(MusicFolder folder, Path dir, List<Exception> failures) {
+        Set<Path> watched = watchedDirectories.get(folder.getId());
+        if (watched == null || watched.contains(dir)) {
+            return;
+        }
+        try {
+            pathWatcherService.setWatcher(WATCHER_PREFIX + dir, dir,
+                    this::onChange, this::onChange, this::onChange, this::onOverflow);
+            watched.add(dir);
+        } catch (IOException e) {
+            failures.add(e);
+        }
+    }
+
+    private void onChange(Path watched, WatchEvent<Path> event) {
+        pendingDirectories.put(watched, Instant.now());
+        Path child = watched.resolve(event.context());
+        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child)) {
+            createdDirectories.put(child, Instant.now());
+            mediaFolderService.getMusicFolderForFile(child, false, false).ifPresent(folder -> watchTree(folder, child));
+        } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+            watchedDirectories.values().forEach(dirs -> dirs.removeIf(dir -> {
+                if (dir.startsWith(child)) {
+                    pathWatcherService.invalidateWatcher(WATCHER_PREFIX + dir);
+                    return true;
+                }
+                return false;
+            }));
+        }
+    }
+
+    private void onOverflow(Path watched, WatchEvent<Path> event) {
+        overflowed.set(true);
+    }
+}
@@ -24,13 +24,18 @@ import org.airsonic.player.config.AirsonicScanConfig;
 import org.airsonic.player.domain.*;
 import org.airsonic.player.domain.CoverArt.EntityType;
 import org.airsonic.player.service.search.IndexManager;
+import org.airsonic.player.service.websocket.AsyncWebSocketClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
 import org.subsonic.restapi.ScanStatus;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.Instant;
@@ -46,6 +51,8 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -58,7 +65,11 @@ public class MediaScannerService {
 
     private static final Logger LOG = LoggerFactory.getLogger(MediaScannerService.class);
 
+    private static final Duration GENRE_REFRESH_DELAY = Duration.ofSeconds(30);
+
     private final AtomicBoolean scanning = new AtomicBoolean(false);
+    // path scans requested while the library is scanned, run once it is done
+    private final List<Runnable> deferredPathScans = new ArrayList<>();
     private final AtomicBoolean mediaScaninng = new AtomicBoolean(false);
 
     public MediaScannerService(
@@ -70,9 +81,12 @@ public class MediaScannerService {
         CoverArtService coverArtService,
         ArtistService artistService,
         AlbumService albumService,
+        AlbumListService albumListService,
+        LyricsService lyricsService,
         TaskSchedulingService taskService,
-        SimpMessagingTemplate messagingTemplate,
-        AirsonicScanConfig scanConfig
+        AsyncWebSocketClient asyncWebSocketClient,
+        AirsonicScanConfig scanConfig,
+        @Qualifier("MediaPathScanThreadPool") TaskExecutor pathScanThreadPool
     ) {
         this.settingsService = settingsService;
         this.indexManager = indexManager;
@@ -82,9 +96,12 @@ public class MediaScannerService {
         this.coverArtService = coverArtService;
         this.artistService = artistService;
         this.albumService = albumService;
+        this.albumListService = albumListService;
+        this.lyricsService = lyricsService;
         this.taskService = taskService;
-        this.messagingTemplate = messagingTemplate;
+        this.asyncWebSocketClient = asyncWebSocketClient;
         this.scanConfig = scanConfig;
+        this.pathScanThreadPool = pathScanThreadPool;
         init();
     }
 
@@ -96,9 +113,12 @@ public class MediaScannerService {
     private final CoverArtService coverArtService;
     private final ArtistService artistService;
     private final AlbumService albumService;
+    private final AlbumListService albumListService;
+    private final LyricsService lyricsService;
     private final TaskSchedulingService taskService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final AsyncWebSocketClient asyncWebSocketClient;
     private final AirsonicScanConfig scanConfig;
+    private final TaskExecutor pathScanThreadPool;
 
     private int scannerParallelism;
     private AtomicInteger scanCount = new AtomicInteger(0);
@@ -107,6 +127,22 @@ public class MediaScannerService {
         this.scannerParallelism = scanConfig.getParallelism();
         indexManager.initializeIndexDirectory();
         schedule();
+        taskService.scheduleFixedDelayTask("mediascanner-GenreTask", this::refreshChangedGenres,
+                Instant.now().plus(GENRE_REFRESH_DELAY), GENRE_REFRESH_DELAY, true);
+    }
+
+    /*
+     * Picks up genre changes of media files updated outside of scans, such as directories refreshed while browsing.
+     */
+    private void refreshChangedGenres() {
+        try {
+            if (!isScanning() && mediaFileService.hasGenreChanges()) {
+                LOG.debug("Refreshing genres");
+                mediaFileService.refreshGenres();
+            }
+        } catch (Exception e) {
+            LOG.warn("Failed to refresh genres", e);
+        }
     }
 
     public void initNoSchedule() throws IOException {
@@ -173,12 +209,10 @@ public class MediaScannerService {
     }
 
     private void broadcastScanStatus() {
-        CompletableFuture.runAsync(() -> {
-            ScanStatus status = new ScanStatus();
-            status.setCount(scanCount.longValue());
-            status.setScanning(scanning.get());
-            messagingTemplate.convertAndSend("/topic/scanStatus", status);
-        });
+        ScanStatus status = new ScanStatus();
+        status.setCount(scanCount.longValue());
+        status.setScanning(scanning.get());
+        asyncWebSocketClient.sendLatest("/topic/scanStatus", status);
     }
 
     /**
@@ -228,16 +262,244 @@ public class MediaScannerService {
                         LOG.info("Media library scan completed.");
                     }
                     setMediaScanning(false);
+                    albumListService.invalidate();
                 })
                 .thenRunAsync(() -> playlistFileService.importPlaylists(), pool)
                 .whenComplete((r,e) -> {
                     indexManager.stopIndexing(statistics);
                     LOG.info("Indexing complete.");
-                    setScanning(false);
+                    finishScan();
                     pool.shutdown();
                 });
     }
 
+    private synchronized void finishScan() {
+        setScanning(false);
+        deferredPathScans.forEach(Runnable::run);
+        deferredPathScans.clear();
+    }
+
+    /**
+     * Does the same as {@link #scanPaths(Collection)} on a background thread, one call after the other.
+     * Paths given while the library is scanned are scanned once the scan is done.
+     *
+     * @param paths files or directories in the music folders
+     * @return the media files rescanned, once they are
+     */
+    public CompletableFuture<List<MediaFile>> scanPathsInBackground(Collection<Path> paths) {
+        List<Path> copy = List.copyOf(paths);
+        CompletableFuture<List<MediaFile>> result = new CompletableFuture<>();
+        submitPathScan(copy, result);
+        return result.whenComplete((r, e) -> {
+            if (e != null) {
+                LOG.warn("Failed to add {} to the media library", copy, e);
+            }
+        });
+    }
+
+    private void submitPathScan(List<Path> paths, CompletableFuture<List<MediaFile>> result) {
+        try {
+            pathScanThreadPool.execute(() -> {
+                synchronized (this) {
+                    if (isScanning()) {
+                        // the scan may have passed their directories already
+                        deferredPathScans.add(() -> submitPathScan(paths, result));
+                        return;
+                    }
+                    try {
+                        result.complete(scanPaths(paths));
+                    } catch (Exception e) {
+                        result.completeExceptionally(e);
+                    }
+                }
+            });
+        } catch (TaskRejectedException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Brings the given files or directories into the library without scanning the rest of it.
+     * The directories of files are rescanned without their subdirectories, directories are rescanned as a whole.
+     * They are indexed, and the albums and artists of their songs are updated.
+     * Does nothing while a scan is running, as the scan picks them up as well.
+     *
+     * @param paths files or directories in the music folders
+     * @return media files rescanned
+     */
+    public synchronized List<MediaFile> scanPaths(Collection<Path> paths) {
+        if (isScanning()) {
+            return Collections.emptyList();
+        }
+        List<Path> trees = outermost(paths.stream().filter(Files::isDirectory));
+        List<Path> parents = paths.stream()
+                .filter(p -> !Files.isDirectory(p))
+                .map(Path::getParent)
+                .filter(Objects::nonNull)
+                .distinct()
+                .filter(dir -> trees.stream().noneMatch(dir::startsWith))
+                .collect(Collectors.toList());
+        return scan(trees, parents);
+    }
+
+    /**
+     * Brings changed directories into the library without scanning the rest of it.
+     * Changed directories are rescanned without their subdirectories, new directories with everything below them.
+     * They are indexed, and the albums and artists of their songs are updated.
+     * Does nothing while a scan is running, as the scan picks them up as well.
+     *
+     * @param changed directories whose entries were added, modified or removed
+     * @param created directories that are new to the music folders
+     * @return media files rescanned
+     */
+    public synchronized List<MediaFile> scanDirectories(Collection<Path> changed, Collection<Path> created) {
+        if (isScanning()) {
+            return Collections.emptyList();
+        }
+        List<Path> trees = outermost(created.stream());
+        List<Path> directories = changed.stream()
+                .distinct()
+                .filter(dir -> trees.stream().noneMatch(dir::startsWith))
+                .collect(Collectors.toList());
+        return scan(trees, directories);
+    }
+
+    /*
+     * Drops the directories that lie below others.
+     */
+    private static List<Path> outermost(Stream<Path> directories) {
+        List<Path> outermost = new ArrayList<>();
+        directories.distinct()
+                .sorted(Comparator.comparingInt(Path::getNameCount))
+                .forEach(dir -> {
+                    if (outermost.stream().noneMatch(dir::startsWith)) {
+                        outermost.add(dir);
+                    }
+                });
+        return outermost;
+    }
+
+    private List<MediaFile> scan(List<Path> trees, List<Path> directories) {
+        Instant scanDate = Instant.now();
+        List<MediaFile> scanned = new ArrayList<>();
+        for (Path dir : trees) {
+            scanned.addAll(mediaFileService.rescanDirectory(dir, true));
+        }
+        for (Path dir : directories) {
+            scanned.addAll(mediaFileService.rescanDirectory(dir, false));
+        }
+
+        Map<String, List<MediaFile>> songsByAlbum = new LinkedHashMap<>();
+        for (MediaFile file : scanned) {
+            String artist = file.getAlbumArtist() != null ? file.getAlbumArtist() : file.getArtist();
+            if (file.isAudio() && file.isPresent() && file.getAlbumName() != null && artist != null
+                    && file.getParentPath() != null && file.getFolder().getType() == MusicFolder.Type.MEDIA) {
+                songsByAlbum.computeIfAbsent(file.getAlbumName() + "|" + artist, k -> new ArrayList<>()).add(file);
+            }
+        }
+        Map<String, MediaFile> artists = new LinkedHashMap<>();
+        songsByAlbum.values().forEach(songs -> {
+            Album album = refreshAlbum(songs, scanDate);
+            artists.putIfAbsent(album.getArtist(), songs.get(0));
+        });
+        artists.forEach((name, song) -> refreshArtist(name, song, scanDate));
+        scanned.stream().filter(MediaFile::isAudio).forEach(file -> harvestLyrics(file, mediaFileService.getParentOf(file)));
+        mediaFileService.refreshGenres();
+        albumListService.invalidate();
+
+        LOG.info("Rescanned {} media files and {} albums in {} and below {}", scanned.size(), songsByAlbum.size(), directories, trees);
+        return scanned;
+    }
+
+    /*
+     * Recounts an album from its songs in the database, so that songs in other directories are kept.
+     * Its year, genre and release id are the ones most of its songs have, whichever songs were rescanned.
+     */
+    private Album refreshAlbum(List<MediaFile> songs, Instant scanDate) {
+        MediaFile first = songs.get(0);
+        String artist = first.getAlbumArtist() != null ? first.getAlbumArtist() : first.getArtist();
+        Album album = albumService.getAlbumByArtistAndName(artist, first.getAlbumName()).orElseGet(() -> {
+            Album a = new Album();
+            a.setPath(first.getParentPath());
+            a.setName(first.getAlbumName());
+            a.setArtist(artist);
+            a.setCreated(first.getChanged());
+            return a;
+        });
+
+        for (MediaFile file : songs) {
+            if (!Objects.equals(album.getArtist(), file.getAlbumArtist())) {
+                file.setAlbumArtist(album.getArtist());
+                mediaFileService.updateMediaFile(file);
+            }
+        }
+
+        List<MediaFile> albumSongs = mediaFileService.getSongsForAlbum(album.getArtist(), album.getName());
+        album.setSongCount(albumSongs.size());
+        album.setDuration(albumSongs.stream().map(MediaFile::getDuration).filter(Objects::nonNull).mapToDouble(d -> d).sum());
+        mostCommon(albumSongs, MediaFile::getMusicBrainzReleaseId).ifPresent(album::setMusicBrainzReleaseId);
+        mostCommon(albumSongs, MediaFile::getYear).ifPresent(album::setYear);
+        mostCommon(albumSongs, MediaFile::getGenre).ifPresent(album::setGenre);
+        // an album spread over disc directories keeps the directory it was found in
+        if (album.getPath() == null || !album.isPresent()) {
+            album.setPath(first.getParentPath());
+            album.setFolder(first.getFolder());
+        }
+        album.setLastScanned(scanDate);
+        album.setPresent(true);
+
+        if (album.getArt() == null) {
+            MediaFile parent = mediaFileService.getParentOf(first);
+            if (parent != null) {
+                CoverArt art = coverArtService.getMediaFileArt(parent.getId());
+                if (!CoverArt.NULL_ART.equals(art)) {
+                    album.setArt(new CoverArt(-1, EntityType.ALBUM, art.getPath(), art.getFolder(), false));
+                }
+            }
+        }
+
+        albumService.save(album);
+        coverArtService.persistIfNeeded(album);
+        indexManager.index(album);
+        return album;
+    }
+
+    private static <T> Optional<T> mostCommon(List<MediaFile> songs, Function<MediaFile, T> property) {
+        // the first value wins a tie
+        return songs.stream()
+                .map(property)
+                .filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(Function.identity(), LinkedHashMap::new, Collectors.counting()))
+                .entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey);
+    }
+
+    private void refreshArtist(String name, MediaFile song, Instant scanDate) {
+        Artist artist = Optional.ofNullable(artistService.getArtist(name)).orElseGet(() -> new Artist(name));
+        int albumCount = albumService.getAlbumsByArtist(name, mediaFolderService.getAllMusicFolders()).size();
+        artist.setAlbumCount(Math.max(albumCount, Optional.ofNullable(artist.getAlbumCount()).orElse(0)));
+        artist.setFolder(song.getFolder());
+        artist.setLastScanned(scanDate);
+        artist.setPresent(true);
+
+        // directory structure is /artist/album/track
+        if (artist.getArt() == null) {
+            MediaFile parent = mediaFileService.getParentOf(song);
+            MediaFile grandParent = parent == null ? null : mediaFileService.getParentOf(parent);
+            if (grandParent != null) {
+                CoverArt art = coverArtService.getMediaFileArt(grandParent.getId());
+                if (!CoverArt.NULL_ART.equals(art)) {
+                    artist.setArt(new CoverArt(-1, EntityType.ARTIST, art.getPath(), art.getFolder(), false));
+                }
+            }
+        }
+
+        artistService.save(artist);
+        coverArtService.persistIfNeeded(artist);
+        indexManager.index(artist, song.getFolder());
+    }
+
     private void doScanLibrary(ForkJoinPool pool, MediaLibraryStatistics statistics) {
         LOG.info("Starting to scan media library.");
         LOG.debug("New last scan date is {}", statistics.getScanDate());
@@ -247,9 +509,6 @@ public class MediaScannerService {
         Map<String, Album> albums = new ConcurrentHashMap<>();
         Set<Integer> albumsInDb = Collections.synchronizedSet(new HashSet<>());
         try {
-            // Maps from artist name to album count.
-            Genres genres = new Genres();
-
             scanCount.set(0);
 
             indexManager.startIndexing();
@@ -260,7 +519,7 @@ public class MediaScannerService {
                 mediaFolderService.getAllMusicFolders()
                         .parallelStream()
                         .forEach(musicFolder -> scanFile(pool, null, null, mediaFileService.getMediaFile(Paths.get(""), musicFolder, false),
-                                musicFolder, statistics, albumCount, artists, albums, albumsInDb, genres));
+                                musicFolder, statistics, albumCount, artists, albums, albumsInDb));
                 // Update statistics
                 statistics.incrementArtists(albumCount.size());
                 statistics.incrementAlbums(albumCount.values().parallelStream().mapToInt(x -> x.get()).sum());
@@ -307,18 +566,14 @@ public class MediaScannerService {
                         LOG.info("Marking non-present media files.");
                         mediaFileService.markNonPresent(statistics.getScanDate());
                     }, pool)
-                    .thenRunAsync(() -> LOG.info("Media file persistence complete"), pool);
-
-            LOG.info("Persisting genres");
-            CompletableFuture<Void> genrePersistence = CompletableFuture
-                    .runAsync(() -> {
+                    .thenRunAsync(() -> LOG.info("Media file persistence complete"), pool)
+                    // counted from the media files once their presence is final
+                    .thenRunAsync(() -> {
                         LOG.info("Updating genres");
-                        long count = mediaFileService.updateGenres(genres.getGenres()).size();
-                        boolean genresSuccessful = count == genres.getGenres().size();
-                        LOG.info("Genre persistence successfully complete: {}", genresSuccessful);
+                        LOG.info("Genre persistence complete with {} genres", mediaFileService.refreshGenres().size());
                     }, pool);
 
-            CompletableFuture.allOf(albumPersistence, artistPersistence, mediaFilePersistence, genrePersistence).join();
+            CompletableFuture.allOf(albumPersistence, artistPersistence, mediaFilePersistence).join();
             LOG.info("Completed media library scan.");
 
         } catch (Throwable x) {
@@ -341,7 +596,7 @@ public class MediaScannerService {
 
     private void scanFile(ForkJoinPool pool, MediaFile grandParent, MediaFile parent, MediaFile file, MusicFolder musicFolder, MediaLibraryStatistics statistics,
             Map<String, AtomicInteger> albumCount, Map<String, Artist> artists, Map<String, Album> albums,
-            Set<Integer> albumsInDb, Genres genres) {
+            Set<Integer> albumsInDb) {
 
         if (!isMediaScanning()) {
             LOG.debug("Scan cancelled.");
@@ -367,21 +622,23 @@ public class MediaScannerService {
                     try (Stream<MediaFile> children = mediaFileService.getChildrenOf(file, true, true, false, false)
                             .parallelStream()) {
                         children.forEach(child -> scanFile(pool, parent, file, child, musicFolder, statistics, albumCount,
-                                artists, albums, albumsInDb, genres));
+                                artists, albums, albumsInDb));
                     }
                 } else {
                     if (musicFolder.getType() == MusicFolder.Type.MEDIA) {
                         updateAlbum(parent, file, musicFolder, statistics.getScanDate(), albumCount, albums, albumsInDb);
                         updateArtist(grandParent, file, musicFolder, statistics.getScanDate(), albumCount, artists);
                     }
+                    harvestLyrics(file, parent);
                     statistics.incrementSongs(1);
                 }
 
                 if (file.isPresent() && (file.getLastScanned() == null || file.getLastScanned().isBefore(statistics.getScanDate()))) {
                     file.setLastScanned(statistics.getScanDate());
+                    // reshuffle the sampling order used by random song queries once per scan
+                    file.reseedRandomKey();
                     mediaFileService.updateMediaFile(file);
                 }
-                updateGenres(file, genres);
 
                 // don't add indexed tracks to the total duration to avoid double-counting
                 if ((file.getDuration() != null) && (!file.isIndexedTrack())) {
@@ -397,15 +654,14 @@ public class MediaScannerService {
         }
     }
 
-    private void updateGenres(MediaFile file, Genres genres) {
-        String genre = file.getGenre();
-        if (genre == null) {
-            return;
-        }
-        if (file.isAlbum()) {
-            genres.incrementAlbumCount(genre, settingsService.getGenreSeparators());
-        } else if (file.isAudio()) {
-            genres.incrementSongCount(genre, settingsService.getGenreSeparators());
+    /*
+     * Lyrics are looked for while the song is scanned anyway, so that requests for them do not read the file system.
+     */
+    private void harvestLyrics(MediaFile file, MediaFile parent) {
+        try {
+            lyricsService.harvestLyrics(file, parent);
+        } catch (Exception e) {
+            LOG.debug("Could not look for lyrics of {}", file.getPath(), e);
         }
     }
 
@@ -0,0 +1,125 @@
+/*
+ This file is part of Airsonic.
+
+ Airsonic is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Airsonic is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Airsonic.  If not, see <http://www.gnu.org/licenses/>.
+
+ Copyright 2025 (C) Y.Tory
+ */
+package org.airsonic.player.service;
+
+import org.airsonic.player.domain.MusicFolder;
+import org.apache.commons.io.FilenameUtils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the configured music folders, with a trie of their path elements
+ * to find the folder of a file in O(path depth), and the ids of the folders that existed when last checked.
+ * Lookups never touch the file system.
+ */
+final class MusicFolderResolver {
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private final List<MusicFolder> folders = new ArrayList<>(1);
+    }
+
+    private final List<MusicFolder> folders;
+    private final Set<Integer> existingIds;
+    private final Node root;
+
+    MusicFolderResolver(List<MusicFolder> folders, Set<Integer> existingIds) {
+        this.folders = List.copyOf(folders);
+        this.existingIds = Set.copyOf(existingIds);
+        this.root = new Node();
+        for (MusicFolder folder : this.folders) {
+            Node node = root;
+            for (String element : elements(folder.getPath())) {
+                node = node.children.computeIfAbsent(element, k -> new Node());
+            }
+            node.folders.add(folder);
+        }
+    }
+
+    private MusicFolderResolver(MusicFolderResolver resolver, Set<Integer> existingIds) {
+        this.folders = resolver.folders;
+        this.existingIds = Set.copyOf(existingIds);
+        this.root = resolver.root;
+    }
+
+    /*
+     * Same normalization as FileUtil.isFileInFolder, so that both agree on which folder contains a file.
+     */
+    private static List<String> elements(Path path) {
+        Path normalized = Paths.get(FilenameUtils.separatorsToUnix(path.toString())).normalize();
+        List<String> elements = new ArrayList<>(normalized.getNameCount() + 1);
+        if (normalized.getRoot() != null) {
+            elements.add(normalized.getRoot().toString());
+        }
+        for (Path name : normalized) {
+            elements.add(name.toString());
+        }
+        return elements;
+    }
+
+    List<MusicFolder> getFolders() {
+        return folders;
+    }
+
+    Set<Integer> getExistingIds() {
+        return existingIds;
+    }
+
+    /**
+     * Returns a copy of this resolver with another set of existing folders.
+     */
+    MusicFolderResolver withExistingIds(Set<Integer> existingIds) {
+        return new MusicFolderResolver(this, existingIds);
+    }
+
+    boolean exists(MusicFolder folder) {
+        return existingIds.contains(folder.getId());
+    }
+
+    /**
+     * Returns the deepest folder containing the given file.
+     */
+    Optional<MusicFolder> resolve(Path file, boolean includeDisabled, boolean includeNonExisting) {
+        if (file == null) {
+            return Optional.empty();
+        }
+        MusicFolder result = null;
+        Node node = root;
+        for (String element : elements(file)) {
+            node = node.children.get(element);
+            if (node == null) {
+                break;
+            }
+            for (MusicFolder folder : node.folders) {
+                if ((includeDisabled || folder.isEnabled()) && (includeNonExisting || exists(folder))) {
+                    result = folder;
+                    break;
+                }
+            }
+        }
+        return Optional.ofNullable(result);
+    }
+}
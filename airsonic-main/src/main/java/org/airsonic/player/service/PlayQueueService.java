@@ -1,7 +1,10 @@
 package org.airsonic.player.service;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import org.airsonic.player.ajax.MediaFileEntry;
+import org.airsonic.player.ajax.PlayQueueChange;
 import org.airsonic.player.ajax.PlayQueueInfo;
 import org.airsonic.player.domain.InternetRadio;
 import org.airsonic.player.domain.InternetRadioSource;
@@ -26,15 +29,25 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -68,15 +81,30 @@ public class PlayQueueService {
     private AsyncWebSocketClient webSocketClient;
     @Autowired
     private PersonalSettingsService personalSettingsService;
+    @Autowired
+    private TaskSchedulingService taskService;
 
     private static final Logger LOG = LoggerFactory.getLogger(PlayQueueService.class);
 
+    private static final Duration SAVED_POSITION_FLUSH_INTERVAL = Duration.ofSeconds(15);
+
+    // username -> id and content hash of the saved play queue
+    private final ConcurrentMap<String, SavedQueue> savedQueues = new ConcurrentHashMap<>();
+    // username -> latest position saved for an unchanged play queue, not written yet
+    private final ConcurrentMap<String, SavedPosition> pendingPositions = new ConcurrentHashMap<>();
+
+    private record SavedQueue(int id, String contentHash) {
+    }
+
+    private record SavedPosition(String contentHash, MediaFile currentFile, Long positionMillis, Instant changed, String changedBy) {
+    }
+
     public void start(Player player) {
         player.getPlayQueue().setStatus(PlayQueue.Status.PLAYING);
         if (player.isJukebox()) {
             jukeboxService.start(player);
         }
-        webSocketClient.sendToUser(player.getUsername(), "/queue/playqueues/" + player.getId() + "/playstatus",
+        webSocketClient.sendLatestToUser(player.getUsername(), "/queue/playqueues/" + player.getId() + "/playstatus",
                 PlayQueue.Status.PLAYING);
     }
 
@@ -85,7 +113,7 @@ public class PlayQueueService {
         if (player.isJukebox()) {
             jukeboxService.stop(player);
         }
-        webSocketClient.sendToUser(player.getUsername(), "/queue/playqueues/" + player.getId() + "/playstatus",
+        webSocketClient.sendLatestToUser(player.getUsername(), "/queue/playqueues/" + player.getId() + "/playstatus",
                 PlayQueue.Status.STOPPED);
     }
 
@@ -114,7 +142,7 @@ public class PlayQueueService {
         CompletableFuture<Void> resultSkip = webSocketClient.sendToUser(player.getUsername(), "/queue/playqueues/" + player.getId() + "/skip",
                 ImmutableMap.of("index", index, "offset", offset));
 
-        resultSkip.thenRun(() -> webSocketClient.sendToUser(player.getUsername(), "/queue/playqueues/" + player.getId() + "/playstatus",
+        resultSkip.thenRun(() -> webSocketClient.sendLatestToUser(player.getUsername(), "/queue/playqueues/" + player.getId() + "/playstatus",
                 player.getPlayQueue().getStatus()));
     }
 
@@ -129,40 +157,104 @@ public class PlayQueueService {
         broadcastPlayQueue(player, pq -> pq.setStartPlayerAt(size), sessionId);
     }
 
+    @PostConstruct
+    public void init() {
+        taskService.scheduleFixedDelayTask("saved-play-queue-positions", this::flushSavedPositions,
+                Instant.now().plus(SAVED_POSITION_FLUSH_INTERVAL), SAVED_POSITION_FLUSH_INTERVAL, true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flushSavedPositions();
+    }
+
     @Transactional
     public int savePlayQueue(Player player, int index, long offset) {
         PlayQueue playQueue = player.getPlayQueue();
 
         MediaFile currentFile = index == -1 ? null : playQueue.getFile(index);
         String username = player.getUsername();
-        SavedPlayQueue savedPlayQueue = savedPlayQueueRepository.findByUsername(username).orElse(new SavedPlayQueue(username));
-        savedPlayQueue.setMediaFiles(playQueue.getFiles());
-        savedPlayQueue.setCurrentMediaFile(currentFile);
-        savedPlayQueue.setPositionMillis(offset);
-        savedPlayQueue.setChanged(Instant.now());
-        savedPlayQueue.setChangedBy(username);
-        savedPlayQueueRepository.save(savedPlayQueue);
-
-        return savedPlayQueue.getId();
+        return savePlayQueue(username, new ArrayList<>(playQueue.getFiles()), currentFile, offset, username);
     }
 
     @Transactional
     public int savePlayQueue(String username, List<Integer> mediaFileIds, Integer currentFileId, Long position, String changedBy) {
-        SavedPlayQueue savedPlayQueue = savedPlayQueueRepository.findByUsername(username).orElse(new SavedPlayQueue(username));
-
         List<MediaFile> mediaFiles = mediaFileIds.stream().map(mid -> mediaFileService.getMediaFile(mid, true)).filter(Objects::nonNull).collect(Collectors.toList());
+        return savePlayQueue(username, mediaFiles, mediaFileService.getMediaFile(currentFileId, true), position, changedBy);
+    }
+
+    /**
+     * Saves the play queue of a user. If its media files are the ones already saved, only the position is kept
+     * and written later, so that clients saving the position every few seconds do not rewrite the whole queue.
+     */
+    private int savePlayQueue(String username, List<MediaFile> mediaFiles, MediaFile currentFile, Long position, String changedBy) {
+        String contentHash = getContentHash(mediaFiles);
+        SavedQueue saved = savedQueues.get(username);
+        SavedPlayQueue savedPlayQueue = null;
+        if (saved == null) {
+            savedPlayQueue = savedPlayQueueRepository.findByUsername(username).orElseGet(() -> new SavedPlayQueue(username));
+            if (savedPlayQueue.getId() != null && savedPlayQueue.getContentHash() != null) {
+                saved = new SavedQueue(savedPlayQueue.getId(), savedPlayQueue.getContentHash());
+            }
+        }
+
+        if (saved != null && saved.contentHash().equals(contentHash)) {
+            savedQueues.put(username, saved);
+            pendingPositions.put(username, new SavedPosition(contentHash, currentFile, position, Instant.now(), changedBy));
+            return saved.id();
+        }
+
+        pendingPositions.remove(username);
+        if (savedPlayQueue == null) {
+            savedPlayQueue = savedPlayQueueRepository.findByUsername(username).orElseGet(() -> new SavedPlayQueue(username));
+        }
         savedPlayQueue.setMediaFiles(mediaFiles);
-        savedPlayQueue.setCurrentMediaFile(mediaFileService.getMediaFile(currentFileId, true));
+        savedPlayQueue.setContentHash(contentHash);
+        savedPlayQueue.setCurrentMediaFile(currentFile);
         savedPlayQueue.setPositionMillis(position);
         savedPlayQueue.setChanged(Instant.now());
         savedPlayQueue.setChangedBy(changedBy);
         savedPlayQueueRepository.save(savedPlayQueue);
+        savedQueues.put(username, new SavedQueue(savedPlayQueue.getId(), contentHash));
 
         return savedPlayQueue.getId();
     }
 
+    /**
+     * Writes the positions saved since the last flush.
+     */
+    void flushSavedPositions() {
+        for (String username : pendingPositions.keySet()) {
+            try {
+                flushSavedPosition(username);
+            } catch (Exception e) {
+                LOG.warn("Failed to save play queue position of user {}", username, e);
+            }
+        }
+    }
+
+    private void flushSavedPosition(String username) {
+        SavedPosition position = pendingPositions.remove(username);
+        if (position == null) {
+            return;
+        }
+        int updated = savedPlayQueueRepository.updatePosition(username, position.contentHash(), position.currentFile(),
+                position.positionMillis(), position.changed(), position.changedBy());
+        if (updated == 0) {
+            // the play queue was replaced meanwhile, its position is newer
+            savedQueues.remove(username);
+        }
+    }
+
+    private static String getContentHash(List<MediaFile> mediaFiles) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        mediaFiles.forEach(mediaFile -> hasher.putInt(mediaFile.getId()));
+        return hasher.hash().toString();
+    }
+
     @Transactional
     public void loadSavedPlayQueue(Player player, String sessionId) {
+        flushSavedPosition(player.getUsername());
         SavedPlayQueue savedPlayQueue = savedPlayQueueRepository.findByUsername(player.getUsername()).orElse(null);
 
         if (savedPlayQueue == null) {
@@ -192,6 +284,7 @@ public class PlayQueueService {
     public SavedPlayQueue loadSavedPlayQueueForRest(String username) {
 
         LOG.info("Loading saved play queue for user {}", username);
+        flushSavedPosition(username);
         return savedPlayQueueRepository.findByUsername(username).map(sp -> {
             sp.getMediaFiles().forEach(mf -> {
                 mediaFileService.checkLastModified(mf);
@@ -233,10 +326,7 @@ public class PlayQueueService {
      */
     public void playInternetRadio(Player player, int id, Integer index, String sessionId) throws Exception {
         internetRadioRepository.findByIdAndEnabledTrue(id).ifPresentOrElse(
-            radio -> {
-                internetRadioService.clearInternetRadioSourceCache(radio.getId());
-                doPlay(player, Collections.emptyList(), radio, sessionId);
-            },
+            radio -> doPlay(player, Collections.emptyList(), radio, sessionId),
             () -> {
                 throw new RuntimeException("Radio is not enabled");
             }
@@ -387,7 +477,6 @@ public class PlayQueueService {
     }
 
     public void add(Player player, List<Integer> ids, Integer index, boolean removeVideoFiles, boolean broadcast) {
-        PlayQueue playQueue = player.getPlayQueue();
         List<MediaFile> files = new ArrayList<>();
         for (int id : ids) {
             MediaFile ancestor = mediaFileService.getMediaFile(id);
@@ -396,38 +485,58 @@ public class PlayQueueService {
         if (removeVideoFiles) {
             mediaFileService.removeVideoFiles(files);
         }
-        if (index != null) {
-            playQueue.addFilesAt(files, index);
-        } else {
-            playQueue.addFiles(true, files);
-        }
-        playQueue.setRandomSearchCriteria(null);
-        playQueue.setInternetRadio(null);
-        if (broadcast) {
-            broadcastPlayQueue(player);
-        }
+        insertFiles(player, files, index, null, broadcast);
     }
 
     public void addRandomCriteria(Player player, boolean append, RandomSearchCriteria criteria, boolean autoRandom) {
-        player.getPlayQueue().addFiles(append, mediaFileService.getRandomSongs(criteria, player.getUsername()));
+        List<MediaFile> files = mediaFileService.getRandomSongs(criteria, player.getUsername());
+        if (append) {
+            insertFiles(player, files, null, autoRandom ? criteria : null, true);
+            return;
+        }
+        player.getPlayQueue().addFiles(false, files);
         player.getPlayQueue().setRandomSearchCriteria(autoRandom ? criteria : null);
         player.getPlayQueue().setInternetRadio(null);
         broadcastPlayQueue(player);
     }
 
     public void addPlaylist(Player player, int id, boolean removeVideoFiles) {
-        PlayQueue playQueue = player.getPlayQueue();
-
         List<MediaFile> files = playlistService.getFilesInPlaylist(id);
         if (removeVideoFiles) {
             mediaFileService.removeVideoFiles(files);
         }
+        insertFiles(player, files, null, null, true);
+    }
 
-        playQueue.addFiles(true, files);
-
-        playQueue.setRandomSearchCriteria(null);
-        playQueue.setInternetRadio(null);
-        broadcastPlayQueue(player);
+    /**
+     * Inserts files into the play queue and sends only the inserted entries to the clients.
+     *
+     * @param index    where to insert the files, or null to append them
+     * @param criteria the criteria of the shuffle radio, or null to end it
+     */
+    private void insertFiles(Player player, List<MediaFile> files, Integer index, RandomSearchCriteria criteria, boolean broadcast) {
+        PlayQueue playQueue = player.getPlayQueue();
+        boolean internetRadio;
+        int position;
+        PlayQueueChange change;
+        synchronized (playQueue) {
+            internetRadio = playQueue.isInternetRadioEnabled();
+            long baseVersion = playQueue.getVersion();
+            position = index == null ? playQueue.size() : index;
+            playQueue.addFilesAt(files, position);
+            playQueue.setRandomSearchCriteria(criteria);
+            playQueue.setInternetRadio(null);
+            change = createChange(PlayQueueChange.Type.ADD, playQueue, baseVersion);
+        }
+        if (!broadcast) {
+            return;
+        }
+        if (internetRadio) {
+            // the clients show the radio sources, which are replaced as a whole
+            broadcastPlayQueue(player);
+            return;
+        }
+        broadcastPlayQueueChange(player, change.setIndex(position).setEntries(convertMediaFileList(player, "", files)));
     }
 
     public void reset(Player player, List<Integer> ids, boolean removeVideoFiles) {
@@ -450,32 +559,99 @@ public class PlayQueueService {
     }
 
     public void shuffle(Player player) {
-        player.getPlayQueue().shuffle();
-        broadcastPlayQueue(player);
+        reorder(player, PlayQueue::shuffle);
     }
 
     public void remove(Player player, List<Integer> indexes) {
-        Collections.sort(indexes);
-
-        for (int i = indexes.size() - 1; i >= 0; i--) {
-            player.getPlayQueue().removeFileAt(indexes.get(i));
+        PlayQueue playQueue = player.getPlayQueue();
+        PlayQueueChange change;
+        synchronized (playQueue) {
+            List<Integer> removed = indexes.stream().filter(i -> i >= 0 && i < playQueue.size())
+                    .distinct().sorted().collect(Collectors.toList());
+            if (removed.isEmpty()) {
+                return;
+            }
+            long baseVersion = playQueue.getVersion();
+            for (int i = removed.size() - 1; i >= 0; i--) {
+                playQueue.removeFileAt(removed.get(i));
+            }
+            change = createChange(PlayQueueChange.Type.REMOVE, playQueue, baseVersion).setIndexes(removed);
         }
-        broadcastPlayQueue(player);
+        broadcastPlayQueueChange(player, change);
     }
 
     public void rearrange(Player player, List<Integer> indexes) {
-        player.getPlayQueue().rearrange(indexes);
-        broadcastPlayQueue(player);
+        reorder(player, playQueue -> playQueue.rearrange(indexes));
     }
 
     public void up(Player player, int index) {
-        player.getPlayQueue().moveUp(index);
-        broadcastPlayQueue(player);
+        move(player, index, index - 1);
     }
 
     public void down(Player player, int index) {
-        player.getPlayQueue().moveDown(index);
-        broadcastPlayQueue(player);
+        move(player, index, index + 1);
+    }
+
+    private void move(Player player, int from, int to) {
+        PlayQueue playQueue = player.getPlayQueue();
+        PlayQueueChange change;
+        synchronized (playQueue) {
+            if (Math.min(from, to) < 0 || Math.max(from, to) >= playQueue.size()) {
+                return;
+            }
+            long baseVersion = playQueue.getVersion();
+            playQueue.moveDown(Math.min(from, to));
+            change = createChange(PlayQueueChange.Type.MOVE, playQueue, baseVersion).setIndex(from).setTo(to);
+        }
+        broadcastPlayQueueChange(player, change);
+    }
+
+    /**
+     * Changes the order of the play queue and sends the new order as indexes into the previous one.
+     * The whole play queue is sent if the files themselves changed.
+     */
+    private void reorder(Player player, Consumer<PlayQueue> reordering) {
+        PlayQueue playQueue = player.getPlayQueue();
+        PlayQueueChange change = null;
+        synchronized (playQueue) {
+            long baseVersion = playQueue.getVersion();
+            List<MediaFile> before = new ArrayList<>(playQueue.getFiles());
+            reordering.accept(playQueue);
+            if (playQueue.getVersion() == baseVersion) {
+                return;
+            }
+            List<Integer> permutation = getPermutation(before, playQueue.getFiles());
+            if (permutation != null && !playQueue.isInternetRadioEnabled()) {
+                change = createChange(PlayQueueChange.Type.REORDER, playQueue, baseVersion).setIndexes(permutation);
+            }
+        }
+        if (change == null) {
+            broadcastPlayQueue(player);
+        } else {
+            broadcastPlayQueueChange(player, change);
+        }
+    }
+
+    /**
+     * Returns for each file of the new order its index in the previous order, or null if the files differ.
+     */
+    private static List<Integer> getPermutation(List<MediaFile> before, List<MediaFile> after) {
+        if (before.size() != after.size()) {
+            return null;
+        }
+        Map<MediaFile, Deque<Integer>> positions = new IdentityHashMap<>();
+        for (int i = 0; i < before.size(); i++) {
+            positions.computeIfAbsent(before.get(i), file -> new ArrayDeque<>()).add(i);
+        }
+        List<Integer> permutation = new ArrayList<>(after.size());
+        for (MediaFile file : after) {
+            Deque<Integer> candidates = positions.get(file);
+            if (candidates == null || candidates.isEmpty()) {
+                return null;
+            }
+            permutation.add(candidates.poll());
+        }
+        return permutation;
     }
 
     public void toggleRepeat(Player player) {
@@ -496,7 +672,13 @@ public class PlayQueueService {
     }
 
     public void sort(Player player, PlayQueue.SortOrder order) {
-        player.getPlayQueue().sort(order);
+        reorder(player, playQueue -> playQueue.sort(order));
+    }
+
+    /**
+     * Sends the whole play queue to the clients, which request it when they missed a change.
+     */
+    public void resync(Player player) {
         broadcastPlayQueue(player);
     }
 
@@ -508,12 +690,12 @@ public class PlayQueueService {
     //
     public void setJukeboxGain(Player player, float gain) {
         jukeboxService.setGain(player, gain);
-        webSocketClient.sendToUser(player.getUsername(), "/queue/playqueues/" + player.getId() + "/jukebox/gain", gain);
+        webSocketClient.sendLatestToUser(player.getUsername(), "/queue/playqueues/" + player.getId() + "/jukebox/gain", gain);
     }
 
     public void setJukeboxPosition(Player player, int positionInSeconds) {
         jukeboxService.setPosition(player, positionInSeconds);
-        webSocketClient.sendToUser(player.getUsername(), "/queue/playqueues/" + player.getId() + "/jukebox/position", positionInSeconds);
+        webSocketClient.sendLatestToUser(player.getUsername(), "/queue/playqueues/" + player.getId() + "/jukebox/position", positionInSeconds);
     }
 
     //
@@ -526,19 +708,28 @@ public class PlayQueueService {
 
     private void broadcastPlayQueue(Player player, Function<PlayQueueInfo, PlayQueueInfo> playQueueModifier, String triggeringSessionId) {
         PlayQueueInfo info = playQueueModifier.apply(getPlayQueueInfo(player, ""));
-        webSocketClient.sendToUser(player.getUsername(), "/queue/playqueues/" + player.getId() + "/updated", info).join();
-        postBroadcast(info, player, triggeringSessionId);
+        CompletableFuture<Void> sent = webSocketClient.sendLatestToUser(player.getUsername(), "/queue/playqueues/" + player.getId() + "/updated", info);
+        postBroadcast(info, player, triggeringSessionId, sent);
     }
 
-    private void postBroadcast(PlayQueueInfo info, Player player, String sessionId) {
+    private void broadcastPlayQueueChange(Player player, PlayQueueChange change) {
+        webSocketClient.sendToUser(player.getUsername(), "/queue/playqueues/" + player.getId() + "/changed", change).join();
+    }
+
+    private static PlayQueueChange createChange(PlayQueueChange.Type type, PlayQueue playQueue, long baseVersion) {
+        return new PlayQueueChange(type, baseVersion, playQueue.getVersion(), playQueue.getStatus(),
+                playQueue.isShuffleRadioEnabled());
+    }
+
+    private void postBroadcast(PlayQueueInfo info, Player player, String sessionId, CompletableFuture<Void> sent) {
         if (info.getStartPlayerAt() != -1) {
             if (player.isWeb() && sessionId != null) {
-                // trigger the web player to start playing at this location
+                // trigger the web player to start playing at this location, once it has the play queue
                 SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
                 headerAccessor.setSessionId(sessionId);
-                webSocketClient.sendToUser(player.getUsername(), "/queue/playqueues/" + player.getId() + "/skip",
+                sent.thenRun(() -> webSocketClient.sendToUser(player.getUsername(), "/queue/playqueues/" + player.getId() + "/skip",
                         ImmutableMap.of("index", info.getStartPlayerAt(), "offset", info.getStartPlayerAtPosition()),
-                        headerAccessor.getMessageHeaders());
+                        headerAccessor.getMessageHeaders()));
             } else if (!player.isExternalWithPlaylist()) {
                 skip(player, info.getStartPlayerAt(), info.getStartPlayerAtPosition());
             }
@@ -548,25 +739,32 @@ public class PlayQueueService {
     public PlayQueueInfo getPlayQueueInfo(Player player, String basePath) {
         PlayQueue playQueue = player.getPlayQueue();
 
+        List<MediaFile> files;
+        long version;
+        synchronized (playQueue) {
+            files = new ArrayList<>(playQueue.getFiles());
+            version = playQueue.getVersion();
+        }
+
         List<MediaFileEntry> entries;
         if (playQueue.isInternetRadioEnabled()) {
             entries = convertInternetRadio(player);
         } else {
-            entries = convertMediaFileList(player, basePath);
+            entries = convertMediaFileList(player, basePath, files);
         }
 
         float gain = jukeboxService.getGain(player);
 
-        return new PlayQueueInfo(entries, playQueue.getStatus(), playQueue.getRepeatStatus(), playQueue.isShuffleRadioEnabled(), playQueue.isInternetRadioEnabled(), gain);
+        return new PlayQueueInfo(entries, playQueue.getStatus(), playQueue.getRepeatStatus(), playQueue.isShuffleRadioEnabled(), playQueue.isInternetRadioEnabled(), gain, version);
     }
 
-    private List<MediaFileEntry> convertMediaFileList(Player player, String basePath) {
+    private List<MediaFileEntry> convertMediaFileList(Player player, String basePath, List<MediaFile> files) {
         Function<MediaFile, String> streamUrlGenerator = file -> basePath + "stream?player=" + player.getId() + "&id=" + file.getId();
         Function<MediaFile, String> remoteStreamUrlGenerator = file -> basePath + jwtSecurityService
                 .addJWTToken(player.getUsername(), "ext/stream?player=" + player.getId() + "&id=" + file.getId());
         Function<MediaFile, String> remoteCoverArtUrlGenerator = file -> basePath
                 + jwtSecurityService.addJWTToken(player.getUsername(), "ext/coverArt.view?id=" + file.getId());
-        return mediaFileService.toMediaFileEntryList(player.getPlayQueue().getFiles(), player.getUsername(), true, true,
+        return mediaFileService.toMediaFileEntryList(files, player.getUsername(), true, true,
                 streamUrlGenerator, remoteStreamUrlGenerator, remoteCoverArtUrlGenerator);
     }
 
@@ -26,6 +26,8 @@ import org.airsonic.player.domain.Player;
 import org.airsonic.player.domain.Playlist;
 import org.airsonic.player.domain.PlaylistMediaFile;
 import org.airsonic.player.domain.User;
+import org.airsonic.player.domain.dto.PlaylistStats;
+import org.airsonic.player.repository.OffsetBasedPageRequest;
 import org.airsonic.player.repository.PlaylistMediaFileRepository;
 import org.airsonic.player.repository.PlaylistRepository;
 import org.airsonic.player.repository.UserRepository;
@@ -60,6 +62,12 @@ public class PlaylistService {
 
     private static final Logger LOG = LoggerFactory.getLogger(PlaylistService.class);
 
+    /**
+     * Spacing between the order indexes of consecutive playlist entries. The gaps allow entries to be
+     * inserted or moved by updating only the affected rows.
+     */
+    public static final int ORDER_INDEX_GAP = 1024;
+
     private final UserRepository userRepository;
     private final PlaylistRepository playlistRepository;
     private final AsyncWebSocketClient asyncWebSocketClient;
@@ -215,17 +223,19 @@ public class PlaylistService {
             playlist.getPlaylistMediaFiles().stream()
                 .limit(fileCount).collect(Collectors.toList());
         // update order index and media file
-        int orderIndex = 0;
+        long gap = orderIndexGap(fileCount);
+        int position = 0;
         for (MediaFile file : filteredFiles) {
-            if (orderIndex < playlistMediaFiles.size()) {
-                PlaylistMediaFile pmf = playlistMediaFiles.get(orderIndex);
+            int orderIndex = (int) (position * gap);
+            if (position < playlistMediaFiles.size()) {
+                PlaylistMediaFile pmf = playlistMediaFiles.get(position);
                 pmf.setMediaFile(file);
                 pmf.setOrderIndex(orderIndex);
             } else {
                 PlaylistMediaFile pmf = new PlaylistMediaFile(playlist, file, orderIndex);
                 playlistMediaFiles.add(pmf);
             }
-            orderIndex++;
+            position++;
         }
         playlist.setPlaylistMediaFiles(playlistMediaFiles);
         playlist.setFileCount(filteredFiles.size());
@@ -234,25 +244,256 @@ public class PlaylistService {
         return playlist;
     }
 
+    /**
+     * Appends files to the end of a playlist. Only the new entries are written.
+     *
+     * @param id    the playlist id
+     * @param files the files to append
+     */
+    @Transactional
+    public void appendFilesToPlaylist(int id, List<MediaFile> files) {
+        insertFilesInPlaylist(id, -1, files, true);
+    }
+
+    /**
+     * Inserts files into a playlist before the entry at the given position. Only the new entries are
+     * written, unless the gap between the neighbouring order indexes is exhausted, in which case the
+     * playlist is renumbered once.
+     *
+     * @param id                the playlist id
+     * @param position          the position to insert at, or -1 to append
+     * @param files             the files to insert
+     * @param includeNotPresent if false, positions only count entries whose media file is present, and
+     *                          entries whose media file is no longer present are dropped
+     */
+    @Transactional
+    public void insertFilesInPlaylist(int id, int position, List<MediaFile> files, boolean includeNotPresent) {
+        playlistCache.removePlaylistById(id);
+        playlistRepository.findById(id).ifPresentOrElse(p -> {
+            if (!includeNotPresent) {
+                removeNotPresentEntries(p);
+            }
+            List<MediaFile> filteredFiles = filterNoDurationFiles(files);
+            if (filteredFiles.isEmpty()) {
+                return;
+            }
+            PlaylistMediaFile next = position < 0 ? null
+                    : findEntries(id, position, 1, includeNotPresent).stream().findFirst().orElse(null);
+            int[] orderIndexes = allocateOrderIndexes(id, next, filteredFiles.size());
+            List<PlaylistMediaFile> added = new ArrayList<>();
+            for (int i = 0; i < orderIndexes.length; i++) {
+                added.add(new PlaylistMediaFile(p, filteredFiles.get(i), orderIndexes[i]));
+            }
+            playlistMediaFileRepository.saveAll(added);
+            updatePlaylistStats(p);
+        }, () -> {
+                LOG.warn("Playlist {} not found", id);
+            }
+        );
+    }
+
     @Transactional
     public void removeFilesInPlaylistByIndices(Integer id, List<Integer> indices) {
+        removeFilesInPlaylistByIndices(id, indices, true);
+    }
+
+    /**
+     * Removes the entries at the given positions from a playlist. Contiguous positions are looked up as
+     * ranges and only the removed rows are deleted.
+     *
+     * @param id                the playlist id
+     * @param indices           the positions to remove
+     * @param includeNotPresent if false, positions only count entries whose media file is present, and
+     *                          entries whose media file is no longer present are dropped
+     */
+    @Transactional
+    public void removeFilesInPlaylistByIndices(Integer id, Collection<Integer> indices, boolean includeNotPresent) {
+        playlistCache.removePlaylistById(id);
+        playlistRepository.findById(id).ifPresentOrElse(p -> {
+            if (!includeNotPresent) {
+                removeNotPresentEntries(p);
+            }
+            List<PlaylistMediaFile> removed = findEntriesAt(id, new TreeSet<>(indices), includeNotPresent);
+            if (removed.isEmpty()) {
+                return;
+            }
+            playlistMediaFileRepository.deleteAll(removed);
+            updatePlaylistStats(p);
+        }, () -> {
+                LOG.warn("Playlist {} not found", id);
+            }
+        );
+    }
+
+    /**
+     * Moves the entries at the given positions so that they end up, in their current relative order, in
+     * front of the entry that is currently at position {@code to}. Only the moved rows are updated.
+     *
+     * @param id                the playlist id
+     * @param indices           the positions of the entries to move
+     * @param to                the position of the entry to move in front of. If it is beyond the end of
+     *                          the playlist, the entries are moved to the end.
+     * @param includeNotPresent if false, positions only count entries whose media file is present, and
+     *                          entries whose media file is no longer present are dropped
+     */
+    @Transactional
+    public void moveFilesInPlaylist(Integer id, Collection<Integer> indices, int to, boolean includeNotPresent) {
         playlistCache.removePlaylistById(id);
         playlistRepository.findById(id).ifPresentOrElse(p -> {
-            List<PlaylistMediaFile> files = p.getPlaylistMediaFiles();
-            List<MediaFile> newFiles = new ArrayList<>();
-            for (int i = 0; i < files.size(); i++) {
-                if (!indices.contains(i)) {
-                    newFiles.add(files.get(i).getMediaFile());
+            if (!includeNotPresent) {
+                removeNotPresentEntries(p);
+            }
+            SortedSet<Integer> positions = new TreeSet<>(indices);
+            List<PlaylistMediaFile> moved = findEntriesAt(id, positions, includeNotPresent);
+            if (moved.isEmpty()) {
+                return;
+            }
+            // the target is the first entry at or after 'to' that is not moved itself
+            int target = Math.max(to, 0);
+            int skipped = positions.tailSet(target).size();
+            List<PlaylistMediaFile> window = findEntries(id, target, skipped + 1, includeNotPresent);
+            PlaylistMediaFile next = null;
+            for (int i = 0; i < window.size(); i++) {
+                if (!positions.contains(target + i)) {
+                    next = window.get(i);
+                    break;
                 }
             }
-            Playlist playlist = setFilesInPlaylist(p, newFiles);
-            playlistRepository.save(playlist);
+            int[] orderIndexes = allocateOrderIndexes(id, next, moved.size());
+            for (int i = 0; i < orderIndexes.length; i++) {
+                moved.get(i).setOrderIndex(orderIndexes[i]);
+            }
+            playlistMediaFileRepository.saveAll(moved);
+            p.setChanged(Instant.now());
+            playlistRepository.save(p);
         }, () -> {
                 LOG.warn("Playlist {} not found", id);
             }
         );
     }
 
+    /**
+     * Drops the entries whose media file is no longer present, as clients that only see present entries
+     * have always done when editing a playlist.
+     */
+    private void removeNotPresentEntries(Playlist playlist) {
+        List<PlaylistMediaFile> notPresent = playlistMediaFileRepository.findByPlaylistIdAndMediaFilePresentFalse(playlist.getId());
+        if (notPresent.isEmpty()) {
+            return;
+        }
+        playlistMediaFileRepository.deleteAll(notPresent);
+        updatePlaylistStats(playlist);
+    }
+
+    private List<PlaylistMediaFile> findEntries(int playlistId, int offset, int count, boolean includeNotPresent) {
+        OffsetBasedPageRequest page = new OffsetBasedPageRequest(offset, count);
+        return includeNotPresent
+                ? playlistMediaFileRepository.findByPlaylistIdOrderByOrderIndexAscIdAsc(playlistId, page)
+                : playlistMediaFileRepository.findByPlaylistIdAndMediaFilePresentTrueOrderByOrderIndexAscIdAsc(playlistId, page);
+    }
+
+    /**
+     * Looks up the entries at the given positions, fetching each run of contiguous positions with a single query.
+     */
+    private List<PlaylistMediaFile> findEntriesAt(int playlistId, SortedSet<Integer> positions, boolean includeNotPresent) {
+        List<PlaylistMediaFile> result = new ArrayList<>();
+        int start = -1;
+        int end = -1;
+        for (int position : positions.tailSet(0)) {
+            if (start >= 0 && position == end + 1) {
+                end = position;
+                continue;
+            }
+            if (start >= 0) {
+                result.addAll(findEntries(playlistId, start, end - start + 1, includeNotPresent));
+            }
+            start = position;
+            end = position;
+        }
+        if (start >= 0) {
+            result.addAll(findEntries(playlistId, start, end - start + 1, includeNotPresent));
+        }
+        return result;
+    }
+
+    /**
+     * Allocates increasing order indexes for {@code count} entries placed directly in front of {@code next},
+     * or at the end of the playlist if {@code next} is null. If there is no room left between the neighbouring
+     * entries, the playlist is renumbered with room reserved in front of {@code next}.
+     */
+    private int[] allocateOrderIndexes(int playlistId, PlaylistMediaFile next, int count) {
+        long lower;
+        long upper;
+        if (next == null) {
+            lower = playlistMediaFileRepository.findMaxOrderIndexByPlaylistId(playlistId).orElse(-ORDER_INDEX_GAP);
+            upper = lower + (long) ORDER_INDEX_GAP * (count + 1);
+            if (upper > Integer.MAX_VALUE) {
+                lower = renumberOrderIndexes(playlistId, null, count);
+                upper = Math.min(lower + (long) ORDER_INDEX_GAP * (count + 1), Integer.MAX_VALUE);
+            }
+        } else {
+            upper = next.getOrderIndex();
+            long reserved = upper - (long) ORDER_INDEX_GAP * (count + 1);
+            lower = playlistMediaFileRepository.findFirstByPlaylistIdAndOrderIndexLessThanOrderByOrderIndexDesc(playlistId, next.getOrderIndex())
+                    .map(pmf -> (long) pmf.getOrderIndex())
+                    .orElse(reserved);
+            if (upper - lower <= count || lower < Integer.MIN_VALUE) {
+                lower = renumberOrderIndexes(playlistId, next, count);
+                upper = next.getOrderIndex();
+            }
+        }
+        long step = (upper - lower) / (count + 1);
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = (int) (lower + step * (i + 1));
+        }
+        return result;
+    }
+
+    /**
+     * Rewrites the order indexes of all entries of a playlist with {@link #ORDER_INDEX_GAP} spacing, leaving room
+     * for {@code reserve} additional entries in front of {@code reserveBefore}, or at the end if it is null.
+     *
+     * @return the order index the reserved room starts after, which is {@code -gap} if it starts the playlist
+     */
+    private long renumberOrderIndexes(int playlistId, PlaylistMediaFile reserveBefore, int reserve) {
+        LOG.debug("Renumbering order indexes of playlist {}", playlistId);
+        List<PlaylistMediaFile> entries = playlistMediaFileRepository.findByPlaylistIdOrderByOrderIndexAscIdAsc(playlistId);
+        long gap = orderIndexGap(entries.size() + reserve + 1);
+        long orderIndex = -gap;
+        long reservedAfter = -gap;
+        for (PlaylistMediaFile entry : entries) {
+            orderIndex += gap;
+            if (reserveBefore != null && Objects.equals(entry.getId(), reserveBefore.getId())) {
+                reservedAfter = orderIndex - gap;
+                orderIndex += gap * reserve;
+                reserveBefore.setOrderIndex((int) orderIndex);
+            }
+            entry.setOrderIndex((int) orderIndex);
+        }
+        playlistMediaFileRepository.saveAll(entries);
+        return reserveBefore != null ? reservedAfter : orderIndex;
+    }
+
+    /*
+     * The spacing of the order indexes of a playlist numbered from 0, narrower than ORDER_INDEX_GAP
+     * for playlists too long to fit in the int range with it.
+     */
+    private static long orderIndexGap(long entries) {
+        return Math.max(1, Math.min(ORDER_INDEX_GAP, Integer.MAX_VALUE / Math.max(entries, 1)));
+    }
+
+    /*
+     * Counts the entries and their duration again, so that the stats cannot drift from the entries.
+     */
+    private void updatePlaylistStats(Playlist playlist) {
+        PlaylistStats stats = playlistMediaFileRepository.getStatsByPlaylistId(playlist.getId());
+        playlist.setFileCount(stats.fileCount().intValue());
+        playlist.setDuration(stats.duration());
+        playlist.setChanged(Instant.now());
+        playlistRepository.save(playlist);
+    }
+
     /**
      * Refreshes the file count and duration of all playlists.
      */
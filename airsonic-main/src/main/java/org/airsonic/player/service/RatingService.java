@@ -32,6 +32,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -57,6 +58,8 @@ public class RatingService {
     private UserRatingRepository userRatingRepository;
     @Autowired
     private MediaFileRepository mediaFileRepository;
+    @Autowired
+    private AlbumListService albumListService;
 
     /**
      * Returns the highest rated albums.
@@ -79,7 +82,7 @@ public class RatingService {
                 file.setAverageRating(entry.getValue());
                 return file;
             }).orElse(null);
-        }).filter(file -> Objects.nonNull(file) && securityService.isReadAllowed(file, true))
+        }).filter(file -> Objects.nonNull(file) && securityService.isReadAllowed(file))
             .sorted(Comparator.comparing(MediaFile::getAverageRating).reversed())
             .collect(Collectors.toList());
 
@@ -111,6 +114,7 @@ public class RatingService {
                 LOG.error("Failed to save rating for user {} and media file {}", username, mediaFile.getId(), e);
             }
         }
+        albumListService.ratingChanged(mediaFile);
     }
 
     /**
@@ -127,6 +131,39 @@ public class RatingService {
         return userRatingRepository.getAverageRatingByMediaFileId(mediaFile.getId());
     }
 
+    /**
+     * Returns the average ratings for the given music files with a single query.
+     *
+     * @param mediaFileIds The music file ids.
+     * @return Map from music file id to average rating. Music files without ratings are absent.
+     */
+    @Transactional
+    public Map<Integer, Double> getAverageRatings(Collection<Integer> mediaFileIds) {
+        if (mediaFileIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return userRatingRepository.findByMediaFileIdIn(mediaFileIds).stream()
+                .filter(r -> r.getRating() != null)
+                .collect(groupingBy(UserRating::getMediaFileId, Collectors.averagingDouble(UserRating::getRating)));
+    }
+
+    /**
+     * Returns the ratings of the given user for the given music files with a single query.
+     *
+     * @param username     The user name.
+     * @param mediaFileIds The music file ids.
+     * @return Map from music file id to rating. Music files without a rating are absent.
+     */
+    @Transactional
+    public Map<Integer, Integer> getRatingsForUser(String username, Collection<Integer> mediaFileIds) {
+        if (username == null || mediaFileIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return userRatingRepository.findByUsernameAndMediaFileIdIn(username, mediaFileIds).stream()
+                .filter(r -> r.getRating() != null)
+                .collect(Collectors.toMap(UserRating::getMediaFileId, UserRating::getRating, (a, b) -> a));
+    }
+
     /**
      * Returns the rating for the given user and music file.
      *
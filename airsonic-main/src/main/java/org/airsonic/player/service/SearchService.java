@@ -27,6 +27,7 @@ import org.airsonic.player.domain.ParamSearchResult;
 import org.airsonic.player.domain.RandomSearchCriteria;
 import org.airsonic.player.domain.SearchCriteria;
 import org.airsonic.player.domain.SearchResult;
+import org.airsonic.player.domain.Suggestion;
 import org.airsonic.player.service.search.IndexType;
 
 import java.util.List;
@@ -72,4 +73,16 @@ public interface SearchService {
     <T> ParamSearchResult<T> searchByName(
             String name, int offset, int count, List<MusicFolder> folderList, Class<T> clazz);
 
+    /**
+     * Returns names starting with the given input, for search-as-you-type.
+     * Answered from the index alone, without database access.
+     *
+     * @param input        Input typed so far.
+     * @param count        Maximum number of suggestions to return.
+     * @param musicFolders Only return suggestions from these folders.
+     * @param indexType    Type of entity to suggest.
+     * @return Suggestions with distinct names, best match first.
+     */
+    List<Suggestion> suggest(String input, int count, List<MusicFolder> musicFolders, IndexType indexType);
+
 }
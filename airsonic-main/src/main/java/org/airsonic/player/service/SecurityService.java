@@ -518,6 +518,7 @@ public class SecurityService implements UserDetailsService {
         }
         userCache.removeUser(username);
         userRepository.deleteById(username);
+        mediaFolderService.clearMusicFolderCacheForUser(username);
         LOG.info("User {} deleted by {}", username, currentUsername);
     }
 
@@ -632,12 +633,20 @@ public class SecurityService implements UserDetailsService {
         return user;
     }
 
+    /**
+     * Cheap variant of {@link #isReadAllowed(MediaFile, boolean)} for list endpoints. Relies on the scanner-maintained
+     * present flag instead of touching the file system.
+     */
+    public boolean isReadAllowed(MediaFile file) {
+        return file != null && file.isPresent() && file.getFolder() != null && file.getFolder().isEnabled();
+    }
+
     public boolean isReadAllowed(MediaFile file, boolean checkExistence) {
         if (file == null) {
             return false;
         }
         MusicFolder folder = file.getFolder();
-        return folder.isEnabled() && (!checkExistence || Files.exists(file.getFullPath()));
+        return folder != null && folder.isEnabled() && (!checkExistence || Files.exists(file.getFullPath()));
     }
 
     public boolean isWriteAllowed(Path relativePath, MusicFolder folder) {
@@ -663,8 +672,11 @@ public class SecurityService implements UserDetailsService {
     }
 
     public boolean isFolderAccessAllowed(MediaFile file, String username) {
-        return mediaFolderService.getMusicFoldersForUser(username).parallelStream()
-                .anyMatch(musicFolder -> musicFolder.getId().equals(file.getFolder().getId()));
+        return file != null && file.getFolder() != null && isFolderAccessAllowed(file.getFolder().getId(), username);
+    }
+
+    public boolean isFolderAccessAllowed(Integer folderId, String username) {
+        return folderId != null && mediaFolderService.getMusicFolderIdsForUser(username).contains(folderId);
     }
 
     public static class UserDetail extends org.springframework.security.core.userdetails.User {
@@ -58,7 +58,6 @@ import javax.xml.datatype.XMLGregorianCalendar;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeUnit;
 
 import static org.airsonic.player.service.sonos.SonosServiceRegistration.AuthenticationType;
@@ -202,7 +201,7 @@ public class SonosService implements SonosSoap {
             if (ID_SHUFFLE.equals(id)) {
                 media = sonosHelper.forShuffle(count, username, request);
             } else if (ID_LIBRARY.equals(id)) {
-                media = sonosHelper.forLibrary(username, request);
+                mediaList = sonosHelper.forLibrary(index, count, username, request);
             } else if (ID_PLAYLISTS.equals(id)) {
                 media = sonosHelper.forPlaylists(username, request);
             } else if (ID_ALBUMLISTS.equals(id)) {
@@ -212,22 +211,22 @@ public class SonosService implements SonosSoap {
             } else if (ID_STARRED.equals(id)) {
                 media = sonosHelper.forStarred();
             } else if (ID_STARRED_ARTISTS.equals(id)) {
-                media = sonosHelper.forStarredArtists(username, request);
+                mediaList = sonosHelper.forStarredArtists(index, count, username, request);
             } else if (ID_STARRED_ALBUMS.equals(id)) {
-                media = sonosHelper.forStarredAlbums(username, request);
+                mediaList = sonosHelper.forStarredAlbums(index, count, username, request);
             } else if (ID_STARRED_SONGS.equals(id)) {
-                media = sonosHelper.forStarredSongs(username, request);
+                mediaList = sonosHelper.forStarredSongs(index, count, username, request);
             } else if (ID_SEARCH.equals(id)) {
                 media = sonosHelper.forSearchCategories();
             } else if (id.startsWith(ID_PLAYLIST_PREFIX)) {
                 int playlistId = Integer.parseInt(id.replace(ID_PLAYLIST_PREFIX, ""));
-                media = sonosHelper.forPlaylist(playlistId, username, request);
+                mediaList = sonosHelper.forPlaylist(playlistId, index, count, username, request);
             } else if (id.startsWith(ID_DECADE_PREFIX)) {
                 int decade = Integer.parseInt(id.replace(ID_DECADE_PREFIX, ""));
-                media = sonosHelper.forDecade(decade, username, request);
+                mediaList = sonosHelper.forDecade(decade, index, count, username, request);
             } else if (id.startsWith(ID_GENRE_PREFIX)) {
                 int genre = Integer.parseInt(id.replace(ID_GENRE_PREFIX, ""));
-                media = sonosHelper.forGenre(genre, username, request);
+                mediaList = sonosHelper.forGenre(genre, index, count, username, request);
             } else if (id.startsWith(ID_ALBUMLIST_PREFIX)) {
                 AlbumListType albumListType = AlbumListType.fromId(id.replace(ID_ALBUMLIST_PREFIX, ""));
                 mediaList = sonosHelper.forAlbumList(albumListType, index, count, username, request);
@@ -236,7 +235,7 @@ public class SonosService implements SonosSoap {
                 media = sonosHelper.forPodcastChannel(channelId, username, request);
             } else if (id.startsWith(ID_MUSICFOLDER_PREFIX)) {
                 int musicFolderId = Integer.parseInt(id.replace(ID_MUSICFOLDER_PREFIX, ""));
-                media = sonosHelper.forMusicFolder(musicFolderId, username, request);
+                mediaList = sonosHelper.forMusicFolder(musicFolderId, index, count, username, request);
             } else if (id.startsWith(ID_SHUFFLE_MUSICFOLDER_PREFIX)) {
                 int musicFolderId = Integer.parseInt(id.replace(ID_SHUFFLE_MUSICFOLDER_PREFIX, ""));
                 media = sonosHelper.forShuffleMusicFolder(musicFolderId, count, username, request);
@@ -253,7 +252,7 @@ public class SonosService implements SonosSoap {
                 int mediaFileId = Integer.parseInt(id.replace(ID_SIMILAR_ARTISTS_PREFIX, ""));
                 media = sonosHelper.forSimilarArtists(mediaFileId, username, request);
             } else {
-                media = sonosHelper.forDirectoryContent(Integer.parseInt(id), username, request);
+                mediaList = sonosHelper.forDirectoryContent(Integer.parseInt(id), index, count, username, request);
             }
         }
 
@@ -428,13 +427,7 @@ public class SonosService implements SonosSoap {
                 }
             }
         }
-        List<MediaFile> existingSongs = playlistService.getFilesInPlaylist(playlistId);
-        if (index == -1) {
-            index = existingSongs.size();
-        }
-
-        existingSongs.addAll(index, newSongs);
-        playlistService.setFilesInPlaylist(playlistId, existingSongs);
+        playlistService.insertFilesInPlaylist(playlistId, index, newSongs, false);
         playlistService.broadcastFileChange(playlistId, false, true);
     }
 
@@ -443,24 +436,7 @@ public class SonosService implements SonosSoap {
         if (id.startsWith(ID_PLAYLIST_PREFIX)) {
             int playlistId = Integer.parseInt(id.replace(ID_PLAYLIST_PREFIX, ""));
             if (playlistService.isWriteAllowed(playlistId, getUsername())) {
-
-                SortedMap<Integer, MediaFile> indexToSong = new ConcurrentSkipListMap<Integer, MediaFile>();
-                List<MediaFile> songs = playlistService.getFilesInPlaylist(playlistId);
-                for (int i = 0; i < songs.size(); i++) {
-                    indexToSong.put(i, songs.get(i));
-                }
-
-                List<MediaFile> movedSongs = new ArrayList<MediaFile>();
-                for (Integer i : parsePlaylistIndices(from)) {
-                    movedSongs.add(indexToSong.remove(i));
-                }
-
-                List<MediaFile> updatedSongs = new ArrayList<MediaFile>();
-                updatedSongs.addAll(indexToSong.headMap(to).values());
-                updatedSongs.addAll(movedSongs);
-                updatedSongs.addAll(indexToSong.tailMap(to).values());
-
-                playlistService.setFilesInPlaylist(playlistId, updatedSongs);
+                playlistService.moveFilesInPlaylist(playlistId, parsePlaylistIndices(from), to, false);
                 playlistService.broadcastFileChange(playlistId, false, true);
             }
         }
@@ -472,15 +448,7 @@ public class SonosService implements SonosSoap {
         if (id.startsWith(ID_PLAYLIST_PREFIX)) {
             int playlistId = Integer.parseInt(id.replace(ID_PLAYLIST_PREFIX, ""));
             if (playlistService.isWriteAllowed(playlistId, getUsername())) {
-                SortedSet<Integer> indicesToRemove = parsePlaylistIndices(indices);
-                List<MediaFile> songs = playlistService.getFilesInPlaylist(playlistId);
-                List<MediaFile> updatedSongs = new ArrayList<MediaFile>();
-                for (int i = 0; i < songs.size(); i++) {
-                    if (!indicesToRemove.contains(i)) {
-                        updatedSongs.add(songs.get(i));
-                    }
-                }
-                playlistService.setFilesInPlaylist(playlistId, updatedSongs);
+                playlistService.removeFilesInPlaylistByIndices(playlistId, parsePlaylistIndices(indices), false);
                 playlistService.broadcastFileChange(playlistId, false, true);
             }
         }
@@ -1,8 +1,65 @@
 package org.airsonic.player.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.airsonic.player.domain.MediaFile;
+import org.airsonic.player.service.metadata.SeekIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
 @Service
 public class StreamService {
 
-}
\ No newline at end of file
+    private static final Logger LOG = LoggerFactory.getLogger(StreamService.class);
+
+    // path and change time of a file -> its seek points, if any
+    private final Cache<String, Optional<SeekIndex>> seekIndexCache = CacheBuilder.newBuilder()
+            .maximumSize(500)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+
+    /**
+     * Returns the byte offset at which a stream of the original file starts to play at the given time.
+     *
+     * The seek points of VBR MP3 and FLAC files are used when the file has them. Otherwise the offset is
+     * estimated from the size and duration of the file, which is exact for constant bit rates only.
+     *
+     * @param file          the media file, streamed without transcoding
+     * @param offsetSeconds time from the start of the file
+     * @return the byte offset, or null if the size or duration of the file is unknown
+     */
+    public Long getByteOffset(MediaFile file, double offsetSeconds) {
+        if (file.getFileSize() == null || file.getDuration() == null || file.getDuration() <= 0) {
+            return null;
+        }
+        long estimate = Math.round(file.getFileSize() * offsetSeconds / file.getDuration());
+        if (file.isIndexedTrack() || file.isVideo()) {
+            return estimate;
+        }
+        return getSeekIndex(file)
+                .map(index -> index.getByteOffset(offsetSeconds))
+                .filter(offset -> offset >= 0 && offset < file.getFileSize())
+                .orElse(estimate);
+    }
+
+    private Optional<SeekIndex> getSeekIndex(MediaFile file) {
+        String key = file.getFullPath() + "|" + file.getChanged();
+        try {
+            return seekIndexCache.get(key, () -> {
+                try {
+                    return Optional.ofNullable(SeekIndex.read(file.getFullPath()));
+                } catch (Exception e) {
+                    LOG.debug("Could not read seek points of {}", file.getFullPath(), e);
+                    return Optional.empty();
+                }
+            });
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -66,6 +66,8 @@ public class TranscodingService {
 
     private static final Logger LOG = LoggerFactory.getLogger(TranscodingService.class);
     public static final String FORMAT_RAW = "raw";
+    // replaces the split sequence of files which are not indexed when a stream starts later
+    private static final String SEEK_OPTIONS = "-ss %o";
 
     @Autowired
     private SettingsService settingsService;
@@ -240,6 +242,22 @@ public class TranscodingService {
      */
     public Parameters getParameters(MediaFile mediaFile, Player player, Integer maxBitRate, String preferredTargetFormat,
                                     VideoTranscodingSettings videoTranscodingSettings) {
+        return getParameters(mediaFile, player, maxBitRate, preferredTargetFormat, videoTranscodingSettings, null);
+    }
+
+    /**
+     * Creates parameters as {@link #getParameters(MediaFile, Player, Integer, String, VideoTranscodingSettings)} does,
+     * for a stream starting at the given time.
+     *
+     * The start time is handed to the transcoder if its command takes one, see {@link #isSeekSupported}, so that it
+     * starts decoding there instead of transcoding the skipped part. Otherwise it is ignored and
+     * {@link Parameters#getTimeOffset()} is {@code null}, and the caller has to skip bytes itself.
+     *
+     * @param timeOffset Start time in seconds. May be {@code null}.
+     * @return Parameters to be used in the {@link #getTranscodedInputStream} method.
+     */
+    public Parameters getParameters(MediaFile mediaFile, Player player, Integer maxBitRate, String preferredTargetFormat,
+                                    VideoTranscodingSettings videoTranscodingSettings, Double timeOffset) {
 
         Parameters parameters = new Parameters(mediaFile, videoTranscodingSettings);
         String suffix = mediaFile.getFormat();
@@ -269,12 +287,33 @@ public class TranscodingService {
             parameters.setTranscoding(new Transcoding(null, "split", suffix, suffix, settingsService.getSplitCommand(), null, null, true));
         }
 
+        // video is scrubbed through its own settings
+        if (timeOffset != null && timeOffset > 0 && videoTranscodingSettings == null
+                && isSeekSupported(parameters.getTranscoding())
+                && mediaFile.getDuration() != null && timeOffset < mediaFile.getDuration()) {
+            parameters.setTimeOffset(timeOffset);
+        }
+
         parameters.setMaxBitRate(maxBitRate);
         parameters.setExpectedLength(getExpectedLength(parameters));
         parameters.setRangeAllowed(isRangeAllowed(parameters));
         return parameters;
     }
 
+    /**
+     * Returns whether the given transcoding can start at a given time, i.e. whether the command reading the file
+     * takes the split sequence "%S" or the time offset "%o".
+     *
+     * @param transcoding The transcoding. May be {@code null}.
+     * @return Whether a time offset is passed to the transcoder.
+     */
+    public boolean isSeekSupported(Transcoding transcoding) {
+        if (transcoding == null || transcoding.getStep1() == null) {
+            return false;
+        }
+        return transcoding.getStep1().contains("%S") || transcoding.getStep1().contains("%o");
+    }
+
     /**
      * Returns a possibly transcoded, downsampled and/or split input stream for the given music file and player combination.
      *
@@ -338,15 +377,16 @@ public class TranscodingService {
         Integer maxBitRate = parameters.getMaxBitRate();
         VideoTranscodingSettings videoTranscodingSettings = parameters.getVideoTranscodingSettings();
         MediaFile mediaFile = parameters.getMediaFile();
+        Double timeOffset = parameters.getTimeOffset();
 
-        TranscodeInputStream in = createTranscodeInputStream(transcoding.getStep1(), maxBitRate, videoTranscodingSettings, mediaFile, null);
+        TranscodeInputStream in = createTranscodeInputStream(transcoding.getStep1(), maxBitRate, videoTranscodingSettings, mediaFile, timeOffset, null);
 
         if (transcoding.getStep2() != null) {
-            in = createTranscodeInputStream(transcoding.getStep2(), maxBitRate, videoTranscodingSettings, mediaFile, in);
+            in = createTranscodeInputStream(transcoding.getStep2(), maxBitRate, videoTranscodingSettings, mediaFile, timeOffset, in);
         }
 
         if (transcoding.getStep3() != null) {
-            in = createTranscodeInputStream(transcoding.getStep3(), maxBitRate, videoTranscodingSettings, mediaFile, in);
+            in = createTranscodeInputStream(transcoding.getStep3(), maxBitRate, videoTranscodingSettings, mediaFile, timeOffset, in);
         }
 
         return in;
@@ -363,8 +403,9 @@ public class TranscodingService {
      * <li>Replacing occurrences of "%a" with the artist name of the given music file.</li>
      * <li>Replacing occurrences of "%b" with the max bitrate.</li>
      * <li>Replacing occurrences of "%f" with the input file format (used for indexed tracks)</li>
-     * <li>Replacing occurrences of "%o" with the time offset (used for scrubbing video and indexed tracks).</li>
-     * <li>Replacing occurrences of "%d" with the duration (used for HLS and indexed tracks).</li>
+     * <li>Replacing occurrences of "%S" with the split options for indexed tracks, or with a seek to the time offset.</li>
+     * <li>Replacing occurrences of "%o" with the time offset (used for scrubbing video and audio, and indexed tracks).</li>
+     * <li>Replacing occurrences of "%d" with the remaining duration (used for HLS and indexed tracks).</li>
      * <li>Replacing occurrences of "%w" with the video image width.</li>
      * <li>Replacing occurrences of "%h" with the video image height.</li>
      * <li>Prepending the path of the transcoder directory if the transcoder is found there.</li>
@@ -374,12 +415,13 @@ public class TranscodingService {
      * @param maxBitRate               The maximum bitrate to use. May not be {@code null}.
      * @param videoTranscodingSettings Parameters used when transcoding video. May be {@code null}.
      * @param mediaFile                The media file.
+     * @param timeOffset               Start time in seconds within the media file. May be {@code null}.
      * @param in                       Data to feed to the process.  May be {@code null}.
      * @return The newly created input stream.
      */
     private TranscodeInputStream createTranscodeInputStream(String command, Integer maxBitRate,
                                                             VideoTranscodingSettings videoTranscodingSettings,
-                                                            MediaFile mediaFile, InputStream in) throws IOException {
+                                                            MediaFile mediaFile, Double timeOffset, InputStream in) throws IOException {
 
         // Work-around for filename character encoding problem on Windows.
         // Create temporary file, and feed this to the transcoder.
@@ -394,8 +436,17 @@ public class TranscodingService {
             pathString = tmpFile.toString();
         }
 
-        // insert split sequence for indexed tracks
-        command = command.replace("%S", (mediaFile.isIndexedTrack()) ? settingsService.getSplitOptions() : "");
+        // insert split sequence for indexed tracks, or seek sequence for streams starting later
+        String splitOptions = "";
+        if (mediaFile.isIndexedTrack()) {
+            splitOptions = settingsService.getSplitOptions();
+        } else if (timeOffset != null) {
+            splitOptions = SEEK_OPTIONS;
+        }
+        command = command.replace("%S", splitOptions);
+
+        double offset = Optional.ofNullable(timeOffset).orElse(0.0);
+        double start = (mediaFile.isIndexedTrack() ? mediaFile.getStartPosition() : 0.0) + offset;
 
         Map<String, String> vars = generateTranscodingSubstitutionMap(
                 Optional.ofNullable(mediaFile.getTitle()).orElse("Unknown Media"),
@@ -403,8 +454,10 @@ public class TranscodingService {
                 Optional.ofNullable(mediaFile.getAlbumName()).orElse("Unknown Album"),
                 Optional.ofNullable(maxBitRate).map(String::valueOf).orElse(null),
                 Optional.ofNullable(mediaFile.getFormat()).orElse(null),
-                Optional.ofNullable(videoTranscodingSettings).map(VideoTranscodingSettings::getTimeOffset).map(String::valueOf).orElse(String.valueOf(mediaFile.getStartPosition())),
-                Optional.ofNullable(videoTranscodingSettings).map(VideoTranscodingSettings::getDuration).map(String::valueOf).orElse(String.valueOf(mediaFile.getDuration())),
+                Optional.ofNullable(videoTranscodingSettings).map(VideoTranscodingSettings::getTimeOffset).map(String::valueOf)
+                        .orElse(timeOffset != null || mediaFile.isIndexedTrack() ? String.valueOf(start) : String.valueOf(mediaFile.getStartPosition())),
+                Optional.ofNullable(videoTranscodingSettings).map(VideoTranscodingSettings::getDuration).map(String::valueOf)
+                        .orElse(String.valueOf(Optional.ofNullable(mediaFile.getDuration()).map(d -> d - offset).orElse(null))),
                 Optional.ofNullable(videoTranscodingSettings).map(VideoTranscodingSettings::getWidth).map(String::valueOf).orElse(null),
                 Optional.ofNullable(videoTranscodingSettings).map(VideoTranscodingSettings::getHeight).map(String::valueOf).orElse(null),
                 Optional.ofNullable(maxBitRate).map(TranscodingService::getAverageVideoBitRate).map(String::valueOf).orElse(null),
@@ -579,6 +632,9 @@ public class TranscodingService {
         }
         Double duration = file.getDuration();
         Integer maxBitRate = parameters.getMaxBitRate();
+        if (duration != null && parameters.getTimeOffset() != null) {
+            duration -= parameters.getTimeOffset();
+        }
 
         if (duration == null) {
             LOG.warn("Unknown duration for {}. Unable to estimate transcoded size.", file);
@@ -686,6 +742,7 @@ public class TranscodingService {
         private final VideoTranscodingSettings videoTranscodingSettings;
         private Integer maxBitRate;
         private Transcoding transcoding;
+        private Double timeOffset;
 
         public Parameters(MediaFile mediaFile, VideoTranscodingSettings videoTranscodingSettings) {
             this.mediaFile = mediaFile;
@@ -740,5 +797,16 @@ public class TranscodingService {
         public VideoTranscodingSettings getVideoTranscodingSettings() {
             return videoTranscodingSettings;
         }
+
+        /**
+         * @return Start time in seconds passed to the transcoder, or {@code null} if the stream starts at the beginning.
+         */
+        public Double getTimeOffset() {
+            return timeOffset;
+        }
+
+        public void setTimeOffset(Double timeOffset) {
+            this.timeOffset = timeOffset;
+        }
     }
 }
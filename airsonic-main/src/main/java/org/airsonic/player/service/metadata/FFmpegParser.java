@@ -101,6 +101,7 @@ public class FFmpegParser extends MetaDataParser {
             metaData.setArtist(getData(result, "artist"));
             metaData.setAlbumName(getData(result, "album"));
             metaData.setGenre(getData(result, "genre"));
+            metaData.setLyrics(getData(result, "lyrics"));
             metaData.setTitle(getData(result, "title"));
             String data = getData(result, "track");
             if (data != null) {
@@ -46,6 +46,7 @@ public class MetaData {
     private Integer height;
     private String musicBrainzReleaseId;
     private String musicBrainzRecordingId;
+    private String lyrics;
     private final List<Track> tracks = new ArrayList<>();
     private final List<Chapter> chapters = new ArrayList<>();
 
@@ -169,6 +170,17 @@ public class MetaData {
         this.musicBrainzRecordingId = musicBrainzRecordingId;
     }
 
+    /**
+     * Lyrics embedded in the tags of the file.
+     */
+    public String getLyrics() {
+        return lyrics;
+    }
+
+    public void setLyrics(String lyrics) {
+        this.lyrics = lyrics;
+    }
+
     public void addTrack(Track track) {
         this.tracks.add(track);
     }
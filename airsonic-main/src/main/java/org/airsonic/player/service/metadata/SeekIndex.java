@@ -0,0 +1,233 @@
+/*
+ This file is part of Airsonic.
+
+ Airsonic is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Airsonic is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Airsonic.  If not, see <http://www.gnu.org/licenses/>.
+
+ Copyright 2025 (C) Y.Tory
+ */
+package org.airsonic.player.service.metadata;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Seek points of an audio file, mapping times to byte offsets in the file.
+ *
+ * Read from the Xing/Info table of contents of VBR MP3 files and from the SEEKTABLE block of FLAC files,
+ * so that a stream of the original file can start at a given time without decoding it.
+ */
+public final class SeekIndex {
+
+    // MP3 headers are searched for in the first bytes after the ID3v2 tag only
+    private static final int MP3_SYNC_SEARCH_LIMIT = 64 * 1024;
+    private static final int XING_TOC_SIZE = 100;
+    private static final long FLAC_PLACEHOLDER_POINT = -1L;
+    private static final int FLAC_STREAMINFO = 0;
+    private static final int FLAC_SEEKTABLE = 3;
+
+    private final double[] times;
+    private final long[] offsets;
+
+    private SeekIndex(double[] times, long[] offsets) {
+        this.times = times;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Reads the seek points of a file.
+     *
+     * @param path the file
+     * @return the seek points, or null if the file has none
+     * @throws IOException if the file can not be read
+     */
+    public static SeekIndex read(Path path) throws IOException {
+        try (SeekableByteChannel channel = Files.newByteChannel(path)) {
+            byte[] magic = new byte[4];
+            if (readFully(channel, 0, magic) < magic.length) {
+                return null;
+            }
+            if (magic[0] == 'f' && magic[1] == 'L' && magic[2] == 'a' && magic[3] == 'C') {
+                return readFlac(channel);
+            }
+            return readMp3(channel, magic);
+        }
+    }
+
+    /**
+     * Returns the byte offset of the given time, interpolated between the surrounding seek points.
+     *
+     * @param seconds time from the start of the file
+     * @return offset in bytes from the start of the file
+     */
+    public long getByteOffset(double seconds) {
+        int index = Arrays.binarySearch(times, seconds);
+        if (index >= 0) {
+            return offsets[index];
+        }
+        int next = -index - 1;
+        if (next == 0) {
+            return offsets[0];
+        }
+        if (next == times.length) {
+            return offsets[times.length - 1];
+        }
+        int previous = next - 1;
+        double fraction = (seconds - times[previous]) / (times[next] - times[previous]);
+        return offsets[previous] + Math.round(fraction * (offsets[next] - offsets[previous]));
+    }
+
+    int size() {
+        return times.length;
+    }
+
+    private static SeekIndex readMp3(SeekableByteChannel channel, byte[] magic) throws IOException {
+        long position = 0;
+        if (magic[0] == 'I' && magic[1] == 'D' && magic[2] == '3') {
+            byte[] header = new byte[10];
+            readFully(channel, 0, header);
+            int size = ((header[6] & 0x7F) << 21) | ((header[7] & 0x7F) << 14) | ((header[8] & 0x7F) << 7) | (header[9] & 0x7F);
+            boolean footer = (header[5] & 0x10) != 0;
+            position = 10L + size + (footer ? 10 : 0);
+        }
+
+        byte[] buffer = new byte[MP3_SYNC_SEARCH_LIMIT];
+        int length = readFully(channel, position, buffer);
+        for (int i = 0; i + 4 < length; i++) {
+            if ((buffer[i] & 0xFF) != 0xFF || (buffer[i + 1] & 0xE0) != 0xE0) {
+                continue;
+            }
+            int version = (buffer[i + 1] >> 3) & 0x03;  // 3: MPEG 1, 2: MPEG 2, 0: MPEG 2.5
+            int layer = (buffer[i + 1] >> 1) & 0x03;    // 1: layer III
+            int bitRateIndex = (buffer[i + 2] >> 4) & 0x0F;
+            int sampleRateIndex = (buffer[i + 2] >> 2) & 0x03;
+            if (version == 1 || layer != 1 || bitRateIndex == 0 || bitRateIndex == 0x0F || sampleRateIndex == 3) {
+                continue;
+            }
+            boolean mono = ((buffer[i + 3] >> 6) & 0x03) == 3;
+            int sideInfo = version == 3 ? (mono ? 17 : 32) : (mono ? 9 : 17);
+            return readXing(buffer, length, position + i, i + 4 + sideInfo, version, sampleRateIndex);
+        }
+        return null;
+    }
+
+    /*
+     * The Xing header holds the number of frames and bytes, and the byte position of every percent of the duration
+     * relative to the first frame, in 1/256 of the byte count.
+     */
+    private static SeekIndex readXing(byte[] buffer, int length, long frameStart, int offset, int version, int sampleRateIndex) {
+        if (offset + 8 > length) {
+            return null;
+        }
+        String tag = new String(buffer, offset, 4, StandardCharsets.US_ASCII);
+        if (!"Xing".equals(tag) && !"Info".equals(tag)) {
+            return null;
+        }
+        int flags = readInt(buffer, offset + 4);
+        int position = offset + 8;
+        if ((flags & 0x07) != 0x07 || position + 8 + XING_TOC_SIZE > length) {
+            // frames, bytes and table of contents are all needed
+            return null;
+        }
+        long frames = readInt(buffer, position) & 0xFFFFFFFFL;
+        long bytes = readInt(buffer, position + 4) & 0xFFFFFFFFL;
+        position += 8;
+        if (frames == 0 || bytes == 0) {
+            return null;
+        }
+
+        int sampleRate = new int[] {44100, 48000, 32000}[sampleRateIndex] >> (version == 3 ? 0 : version == 2 ? 1 : 2);
+        int samplesPerFrame = version == 3 ? 1152 : 576;
+        double duration = (double) frames * samplesPerFrame / sampleRate;
+
+        double[] times = new double[XING_TOC_SIZE];
+        long[] offsets = new long[XING_TOC_SIZE];
+        for (int i = 0; i < XING_TOC_SIZE; i++) {
+            times[i] = duration * i / XING_TOC_SIZE;
+            offsets[i] = frameStart + (buffer[position + i] & 0xFF) * bytes / 256;
+        }
+        return new SeekIndex(times, offsets);
+    }
+
+    /*
+     * The seek table holds sample numbers and byte positions relative to the first frame, which follows the last
+     * metadata block.
+     */
+    private static SeekIndex readFlac(SeekableByteChannel channel) throws IOException {
+        long position = 4;
+        int sampleRate = 0;
+        List<long[]> points = new ArrayList<>();
+        byte[] header = new byte[4];
+        boolean last = false;
+        while (!last) {
+            if (readFully(channel, position, header) < header.length) {
+                return null;
+            }
+            last = (header[0] & 0x80) != 0;
+            int type = header[0] & 0x7F;
+            int length = ((header[1] & 0xFF) << 16) | ((header[2] & 0xFF) << 8) | (header[3] & 0xFF);
+            position += header.length;
+            if (type == FLAC_STREAMINFO || type == FLAC_SEEKTABLE) {
+                byte[] block = new byte[length];
+                if (readFully(channel, position, block) < length) {
+                    return null;
+                }
+                if (type == FLAC_STREAMINFO && length >= 13) {
+                    sampleRate = ((block[10] & 0xFF) << 12) | ((block[11] & 0xFF) << 4) | ((block[12] & 0xFF) >> 4);
+                } else if (type == FLAC_SEEKTABLE) {
+                    ByteBuffer table = ByteBuffer.wrap(block);
+                    for (int i = 0; i + 18 <= length; i += 18) {
+                        long sample = table.getLong(i);
+                        if (sample != FLAC_PLACEHOLDER_POINT) {
+                            points.add(new long[] {sample, table.getLong(i + 8)});
+                        }
+                    }
+                }
+            }
+            position += length;
+        }
+        if (sampleRate == 0 || points.isEmpty()) {
+            return null;
+        }
+
+        double[] times = new double[points.size()];
+        long[] offsets = new long[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            times[i] = (double) points.get(i)[0] / sampleRate;
+            offsets[i] = position + points.get(i)[1];
+        }
+        return new SeekIndex(times, offsets);
+    }
+
+    private static int readFully(SeekableByteChannel channel, long position, byte[] target) throws IOException {
+        channel.position(position);
+        ByteBuffer buffer = ByteBuffer.wrap(target);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        return buffer.position();
+    }
+
+    private static int readInt(byte[] buffer, int offset) {
+        return ByteBuffer.wrap(buffer, offset, 4).getInt();
+    }
+}
@@ -31,6 +31,7 @@ import org.apache.lucene.analysis.custom.CustomAnalyzer.Builder;
 import org.apache.lucene.analysis.en.EnglishPossessiveFilterFactory;
 import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilterFactory;
 import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramFilterFactory;
 import org.apache.lucene.analysis.pattern.PatternReplaceFilterFactory;
 import org.apache.lucene.analysis.standard.StandardTokenizerFactory;
 import org.springframework.stereotype.Component;
@@ -56,6 +57,12 @@ public final class AnalyzerFactory {
 
     private static final String STOP_WORDS_ARTIST = "org/airsonic/player/service/search/analysis/stopwords_artist.txt";
 
+    /**
+     * Longest prefix indexed for search-as-you-type.
+     * Longer input falls back to a wildcard query.
+     */
+    public static final int MAX_PREFIX_LENGTH = 20;
+
     private Analyzer analyzer;
 
     private Analyzer queryAnalyzer;
@@ -128,6 +135,16 @@ public final class AnalyzerFactory {
         return builder;
     }
 
+    /*
+     * Prefix fields index every leading part of each token (edge n-grams),
+     * so search-as-you-type is an exact term lookup instead of a wildcard walk of the term dictionary.
+     * At search time, the same field is analyzed without n-grams.
+     */
+    private Builder addTokenFilterForPrefixes(Builder builder) throws IOException {
+        return builder.addTokenFilter(EdgeNGramFilterFactory.NAME,
+                "minGramSize", "1", "maxGramSize", Integer.toString(MAX_PREFIX_LENGTH), "preserveOriginal", "true");
+    }
+
     private Builder createKeywordAnalyzerBuilder() throws IOException {
         return CustomAnalyzer.builder()
                 .withTokenizer(KeywordTokenizerFactory.NAME);
@@ -154,9 +171,14 @@ public final class AnalyzerFactory {
 
                 Analyzer defaultAnalyzer = createDefaultAnalyzerBuilder().build();
                 Analyzer artistAnalyzer = createArtistAnalyzerBuilder().build();
+                Analyzer prefixAnalyzer = addTokenFilterForPrefixes(createDefaultAnalyzerBuilder()).build();
+                Analyzer artistPrefixAnalyzer = addTokenFilterForPrefixes(createArtistAnalyzerBuilder()).build();
 
                 Map<String, Analyzer> fieldAnalyzers = new HashMap<>();
                 fieldAnalyzers.put(FieldNames.ARTIST, artistAnalyzer);
+                fieldAnalyzers.put(FieldNames.ARTIST_PREFIX, artistPrefixAnalyzer);
+                fieldAnalyzers.put(FieldNames.ALBUM_PREFIX, prefixAnalyzer);
+                fieldAnalyzers.put(FieldNames.TITLE_PREFIX, prefixAnalyzer);
 
                 analyzer = new PerFieldAnalyzerWrapper(defaultAnalyzer, fieldAnalyzers);
 
@@ -123,6 +123,13 @@ public class DocumentFactory {
         doc.add(new SortedDocValuesField(fieldName, new BytesRef(value)));
     };
 
+    private Consumer<Document, String, String> fieldPrefixes = (doc, fieldName, value) -> {
+        if (isEmpty(value)) {
+            return;
+        }
+        doc.add(new TextField(fieldName, value, Store.NO));
+    };
+
     public final Term createPrimarykey(Integer id) {
         return new Term(FieldNames.ID, Integer.toString(id));
     }
@@ -151,6 +158,7 @@ public class DocumentFactory {
         fieldId.accept(doc, mediaFile.getId());
         fieldWords.accept(doc, FieldNames.ARTIST, mediaFile.getArtist());
         fieldWords.accept(doc, FieldNames.ALBUM, mediaFile.getAlbumName());
+        fieldPrefixes.accept(doc, FieldNames.ALBUM_PREFIX, mediaFile.getAlbumName());
         fieldFolderPath.accept(doc, musicFolder.getPath().toString());
         return doc;
     }
@@ -166,6 +174,7 @@ public class DocumentFactory {
         Document doc = new Document();
         fieldId.accept(doc, mediaFile.getId());
         fieldWords.accept(doc, FieldNames.ARTIST, mediaFile.getName());
+        fieldPrefixes.accept(doc, FieldNames.ARTIST_PREFIX, mediaFile.getName());
         fieldFolderPath.accept(doc, musicFolder.getPath().toString());
         return doc;
     }
@@ -182,6 +191,7 @@ public class DocumentFactory {
         fieldId.accept(doc, album.getId());
         fieldWords.accept(doc, FieldNames.ARTIST, album.getArtist());
         fieldWords.accept(doc, FieldNames.ALBUM, album.getName());
+        fieldPrefixes.accept(doc, FieldNames.ALBUM_PREFIX, album.getName());
         fieldFolderId.accept(doc, album.getFolder().getId());
         return doc;
     }
@@ -209,6 +219,7 @@ public class DocumentFactory {
         Document doc = new Document();
         fieldId.accept(doc, artist.getId());
         fieldWords.accept(doc, FieldNames.ARTIST, artist.getName());
+        fieldPrefixes.accept(doc, FieldNames.ARTIST_PREFIX, artist.getName());
         fieldFolderId.accept(doc, musicFolder.getId());
         return doc;
     }
@@ -225,6 +236,7 @@ public class DocumentFactory {
         fieldId.accept(doc, mediaFile.getId());
         fieldMediatype.accept(doc, mediaFile.getMediaType().name());
         fieldWords.accept(doc, FieldNames.TITLE, mediaFile.getTitle());
+        fieldPrefixes.accept(doc, FieldNames.TITLE_PREFIX, mediaFile.getTitle());
         fieldWords.accept(doc, FieldNames.ARTIST, mediaFile.getArtist());
         fieldGenre.accept(doc, mediaFile.getGenre());
         fieldYear.accept(doc, FieldNames.YEAR, mediaFile.getYear());
@@ -92,4 +92,19 @@ class FieldNames {
      **/
     public static final String TITLE = "title";
 
+    /**
+     * Edge n-grams of {@link #ARTIST}, used for search-as-you-type.
+     **/
+    public static final String ARTIST_PREFIX = "artistPrefix";
+
+    /**
+     * Edge n-grams of {@link #ALBUM}, used for search-as-you-type.
+     **/
+    public static final String ALBUM_PREFIX = "albumPrefix";
+
+    /**
+     * Edge n-grams of {@link #TITLE}, used for search-as-you-type.
+     **/
+    public static final String TITLE_PREFIX = "titlePrefix";
+
 }
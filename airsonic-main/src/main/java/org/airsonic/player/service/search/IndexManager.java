@@ -26,20 +26,26 @@ import org.airsonic.player.domain.MediaFile.MediaType;
 import org.airsonic.player.repository.AlbumRepository;
 import org.airsonic.player.repository.ArtistRepository;
 import org.airsonic.player.repository.MediaFileRepository;
+import org.airsonic.player.service.TaskSchedulingService;
 import org.airsonic.player.util.FileUtil;
 import org.airsonic.player.util.Util;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.*;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.FSDirectory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PreDestroy;
+
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.EnumSet;
 import java.util.Map;
 import java.util.Optional;
@@ -58,6 +64,11 @@ import java.util.stream.Stream;
  * there is often a dependency conflict on the class used.
  * Although the interface of SearchService is left to maintain the legacy implementation,
  * it is desirable that methods of index operations other than search essentially use this class directly.
+ *
+ * IndexWriters are long-lived and SearcherManagers are opened on them (near-real-time),
+ * so documents can be added, updated or deleted at any time, not only during a scan.
+ * Changes become searchable within {@link #REFRESH_INTERVAL} and are committed
+ * in batches every {@link #COMMIT_INTERVAL}, or at the end of a scan.
  */
 @Component
 public class IndexManager {
@@ -73,7 +84,17 @@ public class IndexManager {
      *    DocumentFactory or the class that they use.
      *
      */
-    private static final int INDEX_VERSION = 20;
+    private static final int INDEX_VERSION = 21;
+
+    /**
+     * Maximum delay before a change outside a scan becomes visible to searches.
+     */
+    private static final Duration REFRESH_INTERVAL = Duration.ofSeconds(1);
+
+    /**
+     * Maximum delay before a change outside a scan is committed to disk.
+     */
+    private static final Duration COMMIT_INTERVAL = Duration.ofSeconds(30);
 
     public IndexManager(
             AnalyzerFactory analyzerFactory,
@@ -81,7 +102,8 @@ public class IndexManager {
             ArtistRepository artistRepository,
             AlbumRepository albumRepository,
             MediaFileRepository mediaFileRepository,
-            AirsonicHomeConfig homeConfig
+            AirsonicHomeConfig homeConfig,
+            TaskSchedulingService taskService
     ) {
         this.analyzerFactory = analyzerFactory;
         this.documentFactory = documentFactory;
@@ -90,6 +112,10 @@ public class IndexManager {
         this.mediaFileRepository = mediaFileRepository;
         this.homeConfig = homeConfig;
         this.rootIndexDirectory = homeConfig.getAirsonicHome().resolve(INDEX_ROOT_DIR_NAME.concat(Integer.toString(INDEX_VERSION)));
+        taskService.scheduleFixedDelayTask("index-refresh", this::refreshChanged,
+                Instant.now().plus(REFRESH_INTERVAL), REFRESH_INTERVAL, true);
+        taskService.scheduleFixedDelayTask("index-commit", this::commitChanged,
+                Instant.now().plus(COMMIT_INTERVAL), COMMIT_INTERVAL, true);
     }
 
 
@@ -119,11 +145,18 @@ public class IndexManager {
 
     private Map<IndexType, IndexWriter> writers = new ConcurrentHashMap<>();
 
+    /**
+     * Indexes with changes not yet visible to searches / not yet committed.
+     */
+    private final Set<IndexType> unrefreshed = ConcurrentHashMap.newKeySet();
+    private final Set<IndexType> uncommitted = ConcurrentHashMap.newKeySet();
+
     public void index(Album album) {
         Term primarykey = documentFactory.createPrimarykey(album);
         Document document = documentFactory.createAlbumId3Document(album);
         try {
-            writers.get(IndexType.ALBUM_ID3).updateDocument(primarykey, document);
+            getWriter(IndexType.ALBUM_ID3).updateDocument(primarykey, document);
+            changed(IndexType.ALBUM_ID3);
         } catch (Exception x) {
             LOG.error("Failed to create search index for album {}", album, x);
         }
@@ -133,7 +166,8 @@ public class IndexManager {
         Term primarykey = documentFactory.createPrimarykey(artist);
         Document document = documentFactory.createArtistId3Document(artist, musicFolder);
         try {
-            writers.get(IndexType.ARTIST_ID3).updateDocument(primarykey, document);
+            getWriter(IndexType.ARTIST_ID3).updateDocument(primarykey, document);
+            changed(IndexType.ARTIST_ID3);
         } catch (Exception x) {
             LOG.error("Failed to create search index for artist {}", artist, x);
         }
@@ -141,28 +175,86 @@ public class IndexManager {
 
     public void index(MediaFile mediaFile, MusicFolder musicFolder) {
         Term primarykey = documentFactory.createPrimarykey(mediaFile);
+        IndexType indexType = getIndexType(mediaFile);
         try {
-            if (mediaFile.isFile()) {
-                Document document = documentFactory.createSongDocument(mediaFile, musicFolder);
-                writers.get(IndexType.SONG).updateDocument(primarykey, document);
-            } else if (mediaFile.isAlbum()) {
-                Document document = documentFactory.createAlbumDocument(mediaFile, musicFolder);
-                writers.get(IndexType.ALBUM).updateDocument(primarykey, document);
-            } else {
-                Document document = documentFactory.createArtistDocument(mediaFile, musicFolder);
-                writers.get(IndexType.ARTIST).updateDocument(primarykey, document);
-            }
+            Document document = switch (indexType) {
+                case SONG -> documentFactory.createSongDocument(mediaFile, musicFolder);
+                case ALBUM -> documentFactory.createAlbumDocument(mediaFile, musicFolder);
+                default -> documentFactory.createArtistDocument(mediaFile, musicFolder);
+            };
+            getWriter(indexType).updateDocument(primarykey, document);
+            changed(indexType);
         } catch (Exception x) {
             LOG.error("Failed to create search index for mediaFile {}", mediaFile, x);
         }
     }
 
+    /**
+     * Adds or updates the document of a media file outside of a scan.
+     * Non-present media files are removed from the index instead.
+     */
+    public void index(MediaFile mediaFile) {
+        if (mediaFile == null || mediaFile.getId() == null) {
+            return;
+        }
+        if (!mediaFile.isPresent()) {
+            delete(mediaFile);
+            return;
+        }
+        index(mediaFile, mediaFile.getFolder());
+    }
+
+    /**
+     * Removes the document of a media file outside of a scan.
+     */
+    public void delete(MediaFile mediaFile) {
+        if (mediaFile == null || mediaFile.getId() == null) {
+            return;
+        }
+        IndexType indexType = getIndexType(mediaFile);
+        try {
+            getWriter(indexType).deleteDocuments(documentFactory.createPrimarykey(mediaFile));
+            changed(indexType);
+        } catch (Exception x) {
+            LOG.error("Failed to delete search index for mediaFile {}", mediaFile, x);
+        }
+    }
+
+    private static IndexType getIndexType(MediaFile mediaFile) {
+        if (mediaFile.isFile()) {
+            return IndexType.SONG;
+        }
+        return mediaFile.isAlbum() ? IndexType.ALBUM : IndexType.ARTIST;
+    }
+
+    private void changed(IndexType indexType) {
+        unrefreshed.add(indexType);
+        uncommitted.add(indexType);
+    }
+
+    /**
+     * Returns the long-lived writer of the specified index, opening it if necessary.
+     */
+    private IndexWriter getWriter(IndexType indexType) throws IOException {
+        IndexWriter writer = writers.computeIfAbsent(indexType, k -> {
+            try {
+                return createIndexWriter(k);
+            } catch (IOException e) {
+                LOG.error("Failed to create search index for {}", k, e);
+                return null;
+            }
+        });
+        if (writer == null) {
+            throw new IOException("No index writer for " + indexType);
+        }
+        return writer;
+    }
+
     public final boolean startIndexing() {
         return EnumSet.allOf(IndexType.class).parallelStream().map(x -> {
             try {
-                writers.put(x, createIndexWriter(x));
+                getWriter(x);
             } catch (IOException e) {
-                LOG.error("Failed to create search index for {}", x, e);
                 return false;
             }
             return true;
@@ -180,7 +272,8 @@ public class IndexManager {
                 .map(m -> documentFactory.createPrimarykey(m.getId()))
                 .toArray(i -> new Term[i]);
         try {
-            writers.get(IndexType.ARTIST).deleteDocuments(primarykeys);
+            getWriter(IndexType.ARTIST).deleteDocuments(primarykeys);
+            changed(IndexType.ARTIST);
         } catch (IOException e) {
             LOG.error("Failed to delete artist doc.", e);
         }
@@ -189,7 +282,8 @@ public class IndexManager {
                 .map(m -> documentFactory.createPrimarykey(m.getId()))
                 .toArray(i -> new Term[i]);
         try {
-            writers.get(IndexType.ALBUM).deleteDocuments(primarykeys);
+            getWriter(IndexType.ALBUM).deleteDocuments(primarykeys);
+            changed(IndexType.ALBUM);
         } catch (IOException e) {
             LOG.error("Failed to delete album doc.", e);
         }
@@ -198,7 +292,8 @@ public class IndexManager {
                 .map(m -> documentFactory.createPrimarykey(m.getId()))
                 .toArray(i -> new Term[i]);
         try {
-            writers.get(IndexType.SONG).deleteDocuments(primarykeys);
+            getWriter(IndexType.SONG).deleteDocuments(primarykeys);
+            changed(IndexType.SONG);
         } catch (IOException e) {
             LOG.error("Failed to delete song doc.", e);
         }
@@ -207,7 +302,8 @@ public class IndexManager {
                 .map(m -> documentFactory.createPrimarykey(m.getId()))
                 .toArray(i -> new Term[i]);
         try {
-            writers.get(IndexType.ARTIST_ID3).deleteDocuments(primarykeys);
+            getWriter(IndexType.ARTIST_ID3).deleteDocuments(primarykeys);
+            changed(IndexType.ARTIST_ID3);
         } catch (IOException e) {
             LOG.error("Failed to delete artistId3 doc.", e);
         }
@@ -216,7 +312,8 @@ public class IndexManager {
                 .map(m -> documentFactory.createPrimarykey(m.getId()))
                 .toArray(i -> new Term[i]);
         try {
-            writers.get(IndexType.ALBUM_ID3).deleteDocuments(primarykeys);
+            getWriter(IndexType.ALBUM_ID3).deleteDocuments(primarykeys);
+            changed(IndexType.ALBUM_ID3);
         } catch (IOException e) {
             LOG.error("Failed to delete albumId3 doc.", e);
         }
@@ -224,7 +321,7 @@ public class IndexManager {
     }
 
     /**
-     * Close Writer of all indexes and update SearcherManager.
+     * Commit all indexes with the statistics of the scan and refresh SearcherManager.
      * Called at the end of the Scan flow.
      */
     public void stopIndexing(MediaLibraryStatistics statistics) {
@@ -232,34 +329,104 @@ public class IndexManager {
     }
 
     /**
-     * Close Writer of specified index and refresh SearcherManager.
+     * Commit specified index with the statistics of the scan and refresh SearcherManager.
+     * The writer stays open for changes made outside of scans.
      */
     private void stopIndexing(IndexType type, MediaLibraryStatistics statistics) {
-        writers.computeIfPresent(type, (tw, w) -> {
-            try (IndexWriter writer = w) {
-                Map<String,String> userData = Util.objectToStringMap(statistics);
-                writer.setLiveCommitData(userData.entrySet());
-                boolean updated = (-1 != writer.commit());
-                LOG.trace("Success to create or update search index : [{}]", tw);
-
-                if (updated) {
-                    searchers.computeIfPresent(tw, (ts, s) -> {
-                        try {
-                            s.maybeRefresh();
-                            LOG.trace("SearcherManager has been refreshed : [{}]", ts);
-                            return s;
-                        } catch (IOException e) {
-                            LOG.error("Failed to refresh SearcherManager : [{}]", ts, e);
-                            return null; //remove from map
-                        }
-                    });
-                }
-            } catch (IOException e) {
-                LOG.error("Failed to create search index for {}.", tw, e);
+        IndexWriter writer = writers.get(type);
+        if (writer == null) {
+            return;
+        }
+        Map<String, String> userData = Util.objectToStringMap(statistics);
+        writer.setLiveCommitData(userData.entrySet());
+        commit(type);
+        refresh(type);
+    }
+
+    /**
+     * Make changes since the last refresh visible to searches. Runs every {@link #REFRESH_INTERVAL}.
+     */
+    private void refreshChanged() {
+        for (IndexType type : IndexType.values()) {
+            if (unrefreshed.contains(type)) {
+                refresh(type);
+            }
+        }
+    }
+
+    /**
+     * Commit changes since the last commit. Runs every {@link #COMMIT_INTERVAL}.
+     */
+    private void commitChanged() {
+        for (IndexType type : IndexType.values()) {
+            if (uncommitted.contains(type)) {
+                commit(type);
             }
+        }
+    }
 
-            //remove from map
-            return null;
+    private void refresh(IndexType type) {
+        unrefreshed.remove(type);
+        SearcherManager searcher = searchers.get(type);
+        if (searcher == null) {
+            return;
+        }
+        try {
+            searcher.maybeRefresh();
+            LOG.trace("SearcherManager has been refreshed : [{}]", type);
+        } catch (IOException | AlreadyClosedException e) {
+            LOG.error("Failed to refresh SearcherManager : [{}]", type, e);
+            if (searchers.remove(type, searcher)) {
+                closeQuietly(type, searcher);
+            }
+        }
+    }
+
+    private void commit(IndexType type) {
+        uncommitted.remove(type);
+        IndexWriter writer = writers.get(type);
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.commit();
+            LOG.trace("Success to create or update search index : [{}]", type);
+        } catch (IOException | AlreadyClosedException e) {
+            LOG.error("Failed to create search index for {}.", type, e);
+            // reopened on next change
+            if (writers.remove(type, writer)) {
+                searchers.computeIfPresent(type, (t, s) -> {
+                    closeQuietly(t, s);
+                    return null;
+                });
+                closeQuietly(type, writer);
+            }
+        }
+    }
+
+    private void closeQuietly(IndexType type, AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            LOG.warn("Failed to close {} for {}.", closeable.getClass().getSimpleName(), type, e);
+        }
+    }
+
+    /**
+     * Commit pending changes and close all searchers and writers.
+     */
+    @PreDestroy
+    public void close() {
+        EnumSet.allOf(IndexType.class).forEach(type -> {
+            commit(type);
+            searchers.computeIfPresent(type, (t, s) -> {
+                closeQuietly(t, s);
+                return null;
+            });
+            writers.computeIfPresent(type, (t, w) -> {
+                closeQuietly(t, w);
+                return null;
+            });
         });
     }
 
@@ -274,17 +441,15 @@ public class IndexManager {
                 LOG.trace("No index for type {}", t);
                 return null;
             }
-            IndexReader indexReader = searcher.getIndexReader();
-            if (!(indexReader instanceof DirectoryReader)) {
-                LOG.warn("Unexpected index type {} for {}", indexReader.getClass(), t);
-                return null;
-            }
             try {
-                Map<String, String> userData = ((DirectoryReader) indexReader).getIndexCommit().getUserData();
+                // near-real-time readers do not carry commit data, so read it from the latest commit
+                Map<String, String> userData = SegmentInfos.readLatestCommit(getWriter(t).getDirectory()).getUserData();
                 return Util.stringMapToValidObject(MediaLibraryStatistics.class, userData);
             } catch (IOException | IllegalArgumentException e) {
                 LOG.debug("Exception encountered while fetching index commit data for {}", t, e);
                 return null;
+            } finally {
+                release(t, searcher);
             }
         }).distinct().collect(Collectors.toSet());
 
@@ -306,7 +471,7 @@ public class IndexManager {
             Path indexDirectory = getIndexDirectory.apply(k);
             try {
                 if (Files.exists(indexDirectory)) {
-                    return new SearcherManager(FSDirectory.open(indexDirectory), null);
+                    return new SearcherManager(getWriter(k), null);
                 } else {
                     LOG.warn("{} does not exist. Please run a scan.", indexDirectory.toString());
                 }
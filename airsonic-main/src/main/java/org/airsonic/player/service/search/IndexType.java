@@ -39,7 +39,8 @@ public enum IndexType {
             FieldNames.TITLE,
             FieldNames.ARTIST),
         boosts(
-            entry(FieldNames.TITLE, 1.1F))),
+            entry(FieldNames.TITLE, 1.1F)),
+        suggest(FieldNames.TITLE, FieldNames.TITLE_PREFIX)),
 
     ALBUM(
         fieldNames(
@@ -47,7 +48,8 @@ public enum IndexType {
             FieldNames.ARTIST),
             // FieldNames.FOLDER), // XXX 3.x -> 8.x : Remove folder from multi-field search condition
         boosts(
-            entry(FieldNames.ALBUM, 1.1F))),
+            entry(FieldNames.ALBUM, 1.1F)),
+        suggest(FieldNames.ALBUM, FieldNames.ALBUM_PREFIX)),
 
     ALBUM_ID3(
         fieldNames(
@@ -55,18 +57,21 @@ public enum IndexType {
             FieldNames.ARTIST),
             // FieldNames.FOLDER_ID), // XXX 3.x -> 8.x : Remove folder from multi-field search condition
         boosts(
-            entry(FieldNames.ALBUM, 1.1F))),
+            entry(FieldNames.ALBUM, 1.1F)),
+        suggest(FieldNames.ALBUM, FieldNames.ALBUM_PREFIX)),
 
     ARTIST(
         fieldNames(
             FieldNames.ARTIST),
             // FieldNames.FOLDER), // XXX 3.x -> 8.x : Remove folder from multi-field search condition
-        boosts()),
+        boosts(),
+        suggest(FieldNames.ARTIST, FieldNames.ARTIST_PREFIX)),
 
     ARTIST_ID3(
         fieldNames(
             FieldNames.ARTIST),
-        boosts()),
+        boosts(),
+        suggest(FieldNames.ARTIST, FieldNames.ARTIST_PREFIX)),
 
     ;
 
@@ -103,13 +108,24 @@ public enum IndexType {
         return Arrays.stream(names).toArray(String[]::new);
     }
 
+    /**
+     * Defines the field that is suggested when searching as you type,
+     * followed by the field holding its prefixes.
+     */
+    private static final String[] suggest(String fieldName, String prefixFieldName) {
+        return new String[] {fieldName, prefixFieldName};
+    }
+
     private final Map<String, Float> boosts;
 
     private final String[] fields;
 
-    private IndexType(String[] fieldNames, Map<String, Float> boosts) {
+    private final String[] suggestFields;
+
+    private IndexType(String[] fieldNames, Map<String, Float> boosts, String[] suggestFields) {
         this.fields = fieldNames;
         this.boosts = boosts;
+        this.suggestFields = suggestFields;
     }
 
     /**
@@ -133,4 +149,22 @@ public enum IndexType {
         return fields;
     }
 
+    /**
+     * Returns the field whose value is suggested when searching as you type.
+     *
+     * @return Field with the name of the entity
+     */
+    public String getSuggestField() {
+        return suggestFields[0];
+    }
+
+    /**
+     * Returns the field holding the prefixes of {@link #getSuggestField()}.
+     *
+     * @return Field with the edge n-grams of the name of the entity
+     */
+    public String getSuggestPrefixField() {
+        return suggestFields[1];
+    }
+
 }
@@ -189,6 +189,52 @@ public class QueryFactory {
         return mainQuery.build();
     }
 
+    /**
+     * Query generation for
+     * {@link org.airsonic.player.service.SearchService#suggest(String, int, List, IndexType)}.
+     *
+     * All tokens but the last must match whole words of the suggested field,
+     * the last token is looked up in the prefix field. Whole-word matches of the last token rank higher.
+     *
+     * @param input input typed so far
+     * @param musicFolders musicFolders
+     * @param indexType {@link IndexType}
+     * @return Query, or null if the input has no searchable token
+     * @throws IOException When analyzing the input fails
+     */
+    public Query suggest(String input, List<MusicFolder> musicFolders, IndexType indexType) throws IOException {
+
+        String fieldName = indexType.getSuggestField();
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream stream = analyzerFactory.getQueryAnalyzer().tokenStream(fieldName, input)) {
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add(stream.getAttribute(CharTermAttribute.class).toString());
+            }
+            stream.end();
+        }
+        if (tokens.isEmpty()) {
+            return null;
+        }
+
+        BooleanQuery.Builder mainQuery = new BooleanQuery.Builder();
+        for (String token : tokens.subList(0, tokens.size() - 1)) {
+            mainQuery.add(new TermQuery(new Term(fieldName, token)), Occur.MUST);
+        }
+        String last = tokens.get(tokens.size() - 1);
+        if (last.length() <= AnalyzerFactory.MAX_PREFIX_LENGTH) {
+            mainQuery.add(new TermQuery(new Term(indexType.getSuggestPrefixField(), last)), Occur.MUST);
+            mainQuery.add(new BoostQuery(new TermQuery(new Term(fieldName, last)), 2.0f), Occur.SHOULD);
+        } else {
+            mainQuery.add(new WildcardQuery(new Term(fieldName, last.concat(ASTERISK))), Occur.MUST);
+        }
+
+        boolean isId3 = indexType == IndexType.ALBUM_ID3 || indexType == IndexType.ARTIST_ID3;
+        mainQuery.add(toFolderQuery.apply(isId3, musicFolders), Occur.FILTER);
+
+        return mainQuery.build();
+    }
+
     /**
      * Query generation expression extracted from
      * {@link org.airsonic.player.service.SearchService#getRandomSongs(RandomSearchCriteria)}.
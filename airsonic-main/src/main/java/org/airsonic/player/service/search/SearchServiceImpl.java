@@ -20,9 +20,16 @@
 
 package org.airsonic.player.service.search;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.airsonic.player.domain.*;
 import org.airsonic.player.service.SearchService;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.index.StoredFields;
 import org.apache.lucene.search.*;
 import org.slf4j.Logger;
@@ -32,6 +39,7 @@ import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
@@ -53,6 +61,19 @@ public class SearchServiceImpl implements SearchService {
     // TODO Should be changed to SecureRandom?
     private final Random random = new Random(System.currentTimeMillis());
 
+    /*
+     * Last hit of each page served, so that the following page is collected with searchAfter
+     * instead of re-collecting every preceding hit. Doc ids are only meaningful within one
+     * point-in-time view of the index, so the reader is part of the key.
+     */
+    private final Cache<PageKey, ScoreDoc> pageEnds = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .build();
+
+    private record PageKey(Object reader, Query query, Sort sort, int offset) {
+    }
+
     /**
      * Extracts the integer value from a TotalHits string.
      * The string is expected to be in the format "123 hits" or "123+ hits".
@@ -103,15 +124,10 @@ public class SearchServiceImpl implements SearchService {
         try {
             Query query = queryFactory.search(criteria, musicFolders, indexType);
 
-            TopDocs topDocs = searcher.search(query, offset + count);
+            TopDocs topDocs = searchPage(searcher, query, null, offset, count);
             int totalHits = util.round.apply(extractValue(topDocs.totalHits.toString()));
             result.setTotalHits(totalHits);
-            int start = Math.min(offset, totalHits);
-            int end = Math.min(start + count, totalHits);
-            StoredFields storedFields = searcher.storedFields();
-            for (int i = start; i < end; i++) {
-                util.addIfAnyMatch(result, indexType, storedFields.document(topDocs.scoreDocs[i].doc));
-            }
+            util.addAll(result, indexType, getIds(searcher, topDocs));
 
         } catch (IOException e) {
             LOG.error("Failed to execute Lucene search.", e);
@@ -121,6 +137,50 @@ public class SearchServiceImpl implements SearchService {
         return result;
     }
 
+    /**
+     * Collects the hits from offset to offset + count.
+     * If the previous page was served from the same reader, continues after its last hit,
+     * so deep pages cost the same as the first one.
+     *
+     * @param sort sort order, or null to sort by relevance
+     * @return TopDocs with the total hits of the query and the hits of the page only
+     */
+    private TopDocs searchPage(IndexSearcher searcher, Query query, Sort sort, int offset, int count)
+            throws IOException {
+
+        IndexReader.CacheHelper cacheHelper = searcher.getIndexReader().getReaderCacheHelper();
+        Object reader = isEmpty(cacheHelper) ? null : cacheHelper.getKey();
+        ScoreDoc after = isEmpty(reader) || offset == 0 ? null
+                : pageEnds.getIfPresent(new PageKey(reader, query, sort, offset));
+
+        TopDocs topDocs;
+        if (!isEmpty(after)) {
+            topDocs = isEmpty(sort)
+                    ? searcher.searchAfter(after, query, count)
+                    : searcher.searchAfter(after, query, count, sort);
+        } else {
+            TopDocs all = isEmpty(sort)
+                    ? searcher.search(query, offset + count)
+                    : searcher.search(query, offset + count, sort);
+            int start = Math.min(offset, all.scoreDocs.length);
+            topDocs = new TopDocs(all.totalHits, Arrays.copyOfRange(all.scoreDocs, start, all.scoreDocs.length));
+        }
+
+        if (!isEmpty(reader) && topDocs.scoreDocs.length == count) {
+            pageEnds.put(new PageKey(reader, query, sort, offset + count), topDocs.scoreDocs[count - 1]);
+        }
+        return topDocs;
+    }
+
+    private List<Integer> getIds(IndexSearcher searcher, TopDocs topDocs) throws IOException {
+        StoredFields storedFields = searcher.storedFields();
+        List<Integer> ids = new ArrayList<>(topDocs.scoreDocs.length);
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            ids.add(util.getId.apply(storedFields.document(scoreDoc.doc)));
+        }
+        return ids;
+    }
+
     /**
      * Common processing of random method.
      *
@@ -247,25 +307,69 @@ public class SearchServiceImpl implements SearchService {
                     .toArray(i -> new SortField[i]);
             Sort sort = new Sort(sortFields);
 
-            TopDocs topDocs = searcher.search(query, offset + count, sort);
+            TopDocs topDocs = searchPage(searcher, query, sort, offset, count);
 
             int totalHits = util.round.apply(extractValue(topDocs.totalHits.toString()));
             result.setTotalHits(totalHits);
-            int start = Math.min(offset, totalHits);
-            int end = Math.min(start + count, totalHits);
-            StoredFields storedFields = searcher.storedFields();
+            util.addAllIgnoreNull(result, indexType, getIds(searcher, topDocs), assignableClass);
+
+        } catch (IOException e) {
+            LOG.error("Failed to execute Lucene search.", e);
+        } finally {
+            indexManager.release(indexType, searcher);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Suggestion> suggest(String input, int count, List<MusicFolder> musicFolders,
+            IndexType indexType) {
+
+        if (isEmpty(input) || count <= 0 || isEmpty(musicFolders)) {
+            return Collections.emptyList();
+        }
 
-            for (int i = start; i < end; i++) {
-                Document doc = storedFields.document(topDocs.scoreDocs[i].doc);
-                util.addIgnoreNull(result, indexType, util.getId.apply(doc), assignableClass);
+        IndexSearcher searcher = indexManager.getSearcher(indexType);
+        if (isEmpty(searcher)) {
+            return Collections.emptyList();
+        }
+
+        try {
+            Query query = queryFactory.suggest(input, musicFolders, indexType);
+            if (isEmpty(query)) {
+                return Collections.emptyList();
             }
 
+            // Several documents may share a name (e.g. multi-disc albums), so over-fetch and keep the first of each.
+            TopDocs topDocs = searcher.search(query, count * 4);
+            StoredFields storedFields = searcher.storedFields();
+            List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+            String fieldName = indexType.getSuggestField();
+            Map<String, Suggestion> result = new LinkedHashMap<>();
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                // The name is read from the sorted doc values written alongside the analyzed field.
+                LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(scoreDoc.doc, leaves));
+                SortedDocValues names = DocValues.getSorted(leaf.reader(), fieldName);
+                if (!names.advanceExact(scoreDoc.doc - leaf.docBase)) {
+                    continue;
+                }
+                String name = names.lookupOrd(names.ordValue()).utf8ToString();
+                String key = name.toLowerCase(Locale.ROOT);
+                if (!result.containsKey(key)) {
+                    result.put(key, new Suggestion(util.getId.apply(storedFields.document(scoreDoc.doc)), name));
+                }
+                if (result.size() >= count) {
+                    break;
+                }
+            }
+            return new ArrayList<>(result.values());
+
         } catch (IOException e) {
             LOG.error("Failed to execute Lucene search.", e);
         } finally {
             indexManager.release(indexType, searcher);
         }
-        return result;
+        return Collections.emptyList();
     }
 
 }
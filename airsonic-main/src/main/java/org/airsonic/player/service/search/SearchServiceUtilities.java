@@ -34,9 +34,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.function.BiConsumer;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Termination used by SearchService.
@@ -73,20 +77,16 @@ public class SearchServiceUtilities {
         return Integer.valueOf(d.get(FieldNames.ID));
     };
 
-    public final BiConsumer<List<MediaFile>, Integer> addMediaFileIfAnyMatch = (dist, id) -> {
-        if (!dist.stream().anyMatch(m -> id.equals(m.getId()))) {
-            MediaFile mediaFile = mediaFileService.getMediaFile(id);
-            if (mediaFile != null) {
-                dist.add(mediaFile);
-            }
-        }
-    };
-
-    public final BiConsumer<List<Artist>, Integer> addArtistId3IfAnyMatch = (dist, id) -> {
-        if (!dist.stream().anyMatch(a -> id.equals(a.getId()))) {
-            artistRepository.findById(id).ifPresent(dist::add);
-        }
-    };
+    /*
+     * Fetches all ids with one query and returns them in the order of the hits.
+     * The ids are expected to be distinct already (see addAll).
+     */
+    private <T> List<T> findAllInOrder(Collection<Integer> ids, Function<Collection<Integer>, List<T>> finder,
+            Function<T, Integer> toId) {
+        Map<Integer, T> found = finder.apply(ids).stream()
+                .collect(Collectors.toMap(toId, Function.identity(), (a, b) -> a));
+        return ids.stream().map(found::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
 
     public final Function<Class<?>, IndexType> getIndexType = (assignableClass) -> {
         IndexType indexType = null;
@@ -112,12 +112,6 @@ public class SearchServiceUtilities {
         return fieldName;
     };
 
-    public final BiConsumer<List<Album>, Integer> addAlbumId3IfAnyMatch = (dist, subjectId) -> {
-        if (!dist.stream().anyMatch(a -> subjectId == a.getId())) {
-            albumRepository.findById(subjectId).ifPresent(dist::add);
-        }
-    };
-
     public final boolean addMediaFileIgnoreNull(Collection<MediaFile> collection, IndexType indexType, int subjectId) {
         if (indexType == IndexType.ALBUM || indexType == IndexType.SONG) {
             MediaFile mediaFile = mediaFileService.getMediaFile(subjectId);
@@ -138,29 +132,44 @@ public class SearchServiceUtilities {
         return false;
     }
 
-    public final <T> void addIgnoreNull(ParamSearchResult<T> dist, IndexType indexType, int subjectId, Class<T> subjectClass) {
+    public final <T> void addAllIgnoreNull(ParamSearchResult<T> dist, IndexType indexType, Collection<Integer> subjectIds, Class<T> subjectClass) {
         if (indexType == IndexType.SONG) {
-            MediaFile mediaFile = mediaFileService.getMediaFile(subjectId);
-            if (mediaFile != null) {
-                dist.getItems().add(subjectClass.cast(mediaFile));
-            }
+            mediaFileService.getMediaFiles(subjectIds).values().forEach(m -> dist.getItems().add(subjectClass.cast(m)));
         } else if (indexType == IndexType.ARTIST_ID3) {
-            artistRepository.findById(subjectId).ifPresent(artist -> dist.getItems().add(subjectClass.cast(artist)));
+            findAllInOrder(subjectIds, artistRepository::findAllById, Artist::getId)
+                    .forEach(a -> dist.getItems().add(subjectClass.cast(a)));
         } else if (indexType == IndexType.ALBUM_ID3) {
-            albumRepository.findById(subjectId).ifPresent(album -> dist.getItems().add(subjectClass.cast(album)));
+            findAllInOrder(subjectIds, albumRepository::findAllById, Album::getId)
+                    .forEach(a -> dist.getItems().add(subjectClass.cast(a)));
         }
     }
 
-    public final void addIfAnyMatch(SearchResult dist, IndexType subjectIndexType, Document subject) {
-        int documentId = getId.apply(subject);
+    /**
+     * Adds the entities of the given hits to the result, skipping those already contained.
+     * Each type is fetched with a single query.
+     *
+     * @param dist result to add to
+     * @param subjectIndexType type of the hits
+     * @param subjects ids of the hits, in rank order
+     */
+    public final void addAll(SearchResult dist, IndexType subjectIndexType, Collection<Integer> subjects) {
         if (subjectIndexType == IndexType.ARTIST || subjectIndexType == IndexType.ALBUM
                 || subjectIndexType == IndexType.SONG) {
-            addMediaFileIfAnyMatch.accept(dist.getMediaFiles(), documentId);
+            Set<Integer> ids = distinct(subjects, dist.getMediaFiles(), MediaFile::getId);
+            dist.getMediaFiles().addAll(mediaFileService.getMediaFiles(ids).values());
         } else if (subjectIndexType == IndexType.ARTIST_ID3) {
-            addArtistId3IfAnyMatch.accept(dist.getArtists(), documentId);
+            Set<Integer> ids = distinct(subjects, dist.getArtists(), Artist::getId);
+            dist.getArtists().addAll(findAllInOrder(ids, artistRepository::findAllById, Artist::getId));
         } else if (subjectIndexType == IndexType.ALBUM_ID3) {
-            addAlbumId3IfAnyMatch.accept(dist.getAlbums(), documentId);
+            Set<Integer> ids = distinct(subjects, dist.getAlbums(), Album::getId);
+            dist.getAlbums().addAll(findAllInOrder(ids, albumRepository::findAllById, Album::getId));
         }
     }
 
+    private <T> Set<Integer> distinct(Collection<Integer> subjects, List<T> contained, Function<T, Integer> toId) {
+        Set<Integer> ids = new LinkedHashSet<>(subjects);
+        contained.forEach(c -> ids.remove(toId.apply(c)));
+        return ids;
+    }
+
 }
@@ -36,6 +36,7 @@ import org.springframework.web.util.UriComponentsBuilder;
 import jakarta.annotation.Nonnull;
 import jakarta.servlet.http.HttpServletRequest;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.*;
 
@@ -159,12 +160,12 @@ public class SonosHelper {
         return forMediaFiles(songs, username, request);
     }
 
-    public List<AbstractMedia> forLibrary(String username, HttpServletRequest request) {
+    public MediaList forLibrary(int index, int count, String username, HttpServletRequest request) {
         List<AbstractMedia> result = new ArrayList<AbstractMedia>();
 
         List<MusicFolder> musicFolders = mediaFolderService.getMusicFoldersForUser(username);
         if (musicFolders.size() == 1) {
-            return forMusicFolder(musicFolders.get(0), username, request);
+            return forMusicFolder(musicFolders.get(0), index, count, username, request);
         }
 
         for (MusicFolder musicFolder : musicFolders) {
@@ -174,85 +175,82 @@ public class SonosHelper {
             mediaCollection.setTitle(musicFolder.getName());
             result.add(mediaCollection);
         }
-        return result;
+        return createSubList(index, count, result);
     }
 
-    public List<AbstractMedia> forMusicFolder(int musicFolderId, String username, HttpServletRequest request) {
-        return forMusicFolder(mediaFolderService.getMusicFolderById(musicFolderId), username, request);
+    public MediaList forMusicFolder(int musicFolderId, int index, int count, String username, HttpServletRequest request) {
+        return forMusicFolder(mediaFolderService.getMusicFolderById(musicFolderId), index, count, username, request);
     }
 
-    public List<AbstractMedia> forMusicFolder(MusicFolder musicFolder, String username, HttpServletRequest request) {
+    public MediaList forMusicFolder(MusicFolder musicFolder, int index, int count, String username, HttpServletRequest request) {
         try {
-            List<AbstractMedia> result = new ArrayList<AbstractMedia>();
-
             MediaMetadata shuffle = new MediaMetadata();
             shuffle.setItemType(ItemType.PROGRAM);
             shuffle.setId(SonosService.ID_SHUFFLE_MUSICFOLDER_PREFIX + musicFolder.getId());
             shuffle.setTitle("Shuffle Play");
-            result.add(shuffle);
 
-            for (MediaFile shortcut : musicIndexService.getShortcuts(Arrays.asList(musicFolder))) {
-                result.add(forDirectory(shortcut, request, username));
-            }
+            List<MediaFile> mediaFiles = new ArrayList<>(musicIndexService.getShortcuts(Arrays.asList(musicFolder)));
 
             MusicFolderContent musicFolderContent = musicIndexService.getMusicFolderContent(Arrays.asList(musicFolder), false);
             for (List<MusicIndex.SortableArtistWithMediaFiles> artists : musicFolderContent.getIndexedArtists().values()) {
                 for (MusicIndex.SortableArtistWithMediaFiles artist : artists) {
-                    for (MediaFile artistMediaFile : artist.getMediaFiles()) {
-                        result.add(forDirectory(artistMediaFile, request, username));
-                    }
+                    mediaFiles.addAll(artist.getMediaFiles());
                 }
             }
             for (MediaFile song : musicFolderContent.getSingleSongs()) {
                 if (song.isAudio()) {
-                    result.add(forSong(song, username, request));
+                    mediaFiles.add(song);
                 }
             }
-            return result;
+            return createSubList(index, count, List.of(shuffle), mediaFiles, username, request);
 
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    public List<AbstractMedia> forDirectoryContent(int mediaFileId, String username, HttpServletRequest request) {
-        List<AbstractMedia> result = new ArrayList<AbstractMedia>();
+    public MediaList forDirectoryContent(int mediaFileId, int index, int count, String username, HttpServletRequest request) {
         MediaFile dir = mediaFileService.getMediaFile(mediaFileId);
         List<MediaFile> children = dir.isFile() ? Arrays.asList(dir) : mediaFileService.getVisibleChildrenOf(dir, true, true);
+        List<MediaFile> mediaFiles = new ArrayList<>(children.size());
         boolean isArtist = true;
         for (MediaFile child : children) {
             if (child.isDirectory()) {
-                result.add(forDirectory(child, request, username));
+                mediaFiles.add(child);
                 isArtist &= child.isAlbum();
             } else if (child.isAudio()) {
                 isArtist = false;
-                result.add(forSong(child, username, request));
+                mediaFiles.add(child);
             }
         }
 
+        List<AbstractMedia> programs = new ArrayList<>();
         if (isArtist) {
             MediaMetadata shuffle = new MediaMetadata();
             shuffle.setItemType(ItemType.PROGRAM);
             shuffle.setId(SonosService.ID_SHUFFLE_ARTIST_PREFIX + mediaFileId);
             shuffle.setTitle(String.format("Shuffle Play  - %s", dir.getName()));
-            result.add(0, shuffle);
+            programs.add(shuffle);
 
             MediaMetadata radio = new MediaMetadata();
             radio.setItemType(ItemType.PROGRAM);
             radio.setId(SonosService.ID_RADIO_ARTIST_PREFIX + mediaFileId);
             radio.setTitle(String.format("Artist Radio - %s", dir.getName()));
-            result.add(1, radio);
+            programs.add(radio);
         }
 
-        return result;
+        return createSubList(index, count, programs, mediaFiles, username, request);
     }
 
     private MediaCollection forDirectory(MediaFile dir, HttpServletRequest request, String username) {
-        mediaFileService.populateStarredDate(dir, username);
+        return forDirectory(dir, mediaFileService.getMediaFileStarredDate(dir, username), username, request);
+    }
+
+    private MediaCollection forDirectory(MediaFile dir, Instant starredDate, String username, HttpServletRequest request) {
         MediaCollection mediaCollection = new MediaCollection();
 
         mediaCollection.setId(String.valueOf(dir.getId()));
-        mediaCollection.setIsFavorite(dir.getStarredDate() != null);
+        mediaCollection.setIsFavorite(starredDate != null);
         if (dir.isAlbum()) {
             mediaCollection.setItemType(ItemType.ALBUM);
             mediaCollection.setArtist(dir.getArtist());
@@ -350,9 +348,7 @@ public class SonosHelper {
         }
 
         AlbumList albumList = createAlbumList(albumListType, offset - (includeShuffle ? 0 : 1), count, username);
-        for (MediaFile album : albumList.getAlbums()) {
-            mediaList.getMediaCollectionOrMediaMetadata().add(forDirectory(album, request, username));
-        }
+        mediaList.getMediaCollectionOrMediaMetadata().addAll(forMediaFiles(albumList.getAlbums(), username, request));
 
         mediaList.setIndex(offset);
         mediaList.setCount(mediaList.getMediaCollectionOrMediaMetadata().size());
@@ -429,33 +425,26 @@ public class SonosHelper {
         return createSubList(offset, count, mediaCollections);
     }
 
-    public List<MediaCollection> forDecade(int decade, String username, HttpServletRequest request) {
+    public MediaList forDecade(int decade, int index, int count, String username, HttpServletRequest request) {
         List<MusicFolder> musicFolders = mediaFolderService.getMusicFoldersForUser(username);
-        List<MediaCollection> result = new ArrayList<>();
-        for (MediaFile album : mediaFileService.getAlbumsByYear(0, Integer.MAX_VALUE, decade, decade + 9, musicFolders)) {
-            result.add(forDirectory(album, request, username));
-        }
-        return result;
+        List<MediaFile> albums = mediaFileService.getAlbumsByYear(index, count, decade, decade + 9, musicFolders);
+        return createMediaList(index, mediaFileService.getAlbumCountByYear(decade, decade + 9, musicFolders),
+                forMediaFiles(albums, username, request));
     }
 
-    public List<MediaCollection> forGenre(int genreIndex, String username, HttpServletRequest request) {
+    public MediaList forGenre(int genreIndex, int index, int count, String username, HttpServletRequest request) {
         List<MusicFolder> musicFolders = mediaFolderService.getMusicFoldersForUser(username);
         Genre genre = mediaFileService.getGenres(true).get(genreIndex);
-        List<MediaCollection> result = new ArrayList<MediaCollection>();
-        for (MediaFile album : mediaFileService.getAlbumsByGenre(0, Integer.MAX_VALUE, genre.getName(), musicFolders)) {
-            result.add(forDirectory(album, request, username));
-        }
-        return result;
+        List<MediaFile> albums = mediaFileService.getAlbumsByGenre(index, count, genre.getName(), musicFolders);
+        return createMediaList(index, mediaFileService.getAlbumCountByGenre(genre.getName(), musicFolders),
+                forMediaFiles(albums, username, request));
     }
 
-    public List<MediaMetadata> forPlaylist(int playlistId, String username, HttpServletRequest request) {
-        List<MediaMetadata> result = new ArrayList<MediaMetadata>();
-        for (MediaFile song : playlistService.getFilesInPlaylist(playlistId)) {
-            if (song.isAudio()) {
-                result.add(forSong(song, username, request));
-            }
-        }
-        return result;
+    public MediaList forPlaylist(int playlistId, int index, int count, String username, HttpServletRequest request) {
+        List<MediaFile> songs = playlistService.getFilesInPlaylist(playlistId).stream()
+                .filter(MediaFile::isAudio)
+                .toList();
+        return createSubList(index, count, Collections.emptyList(), songs, username, request);
     }
 
     public List<MediaCollection> forStarred() {
@@ -478,37 +467,27 @@ public class SonosHelper {
         return Arrays.asList(artists, albums, songs);
     }
 
-    public List<MediaCollection> forStarredArtists(String username, HttpServletRequest request) {
-        List<MediaCollection> result = new ArrayList<MediaCollection>();
+    public MediaList forStarredArtists(int index, int count, String username, HttpServletRequest request) {
         List<MusicFolder> musicFolders = mediaFolderService.getMusicFoldersForUser(username);
-        for (MediaFile artist : mediaFileService.getStarredArtists(0, Integer.MAX_VALUE, username, musicFolders)) {
-            MediaCollection mediaCollection = forDirectory(artist, request, username);
-            mediaCollection.setItemType(ItemType.ARTIST);
-            result.add(mediaCollection);
-        }
-        return result;
+        List<MediaFile> artists = mediaFileService.getStarredArtists(index, count, username, musicFolders);
+        List<AbstractMedia> result = forMediaFiles(artists, username, request);
+        result.forEach(mediaCollection -> ((MediaCollection) mediaCollection).setItemType(ItemType.ARTIST));
+        return createMediaList(index, mediaFileService.getStarredArtistCount(username, musicFolders), result);
     }
 
-    public List<MediaCollection> forStarredAlbums(String username, HttpServletRequest request) {
+    public MediaList forStarredAlbums(int index, int count, String username, HttpServletRequest request) {
         List<MusicFolder> musicFolders = mediaFolderService.getMusicFoldersForUser(username);
-        List<MediaCollection> result = new ArrayList<MediaCollection>();
-        for (MediaFile album : mediaFileService.getStarredAlbums(0, Integer.MAX_VALUE, username, musicFolders)) {
-            MediaCollection mediaCollection = forDirectory(album, request, username);
-            mediaCollection.setItemType(ItemType.ALBUM);
-            result.add(mediaCollection);
-        }
-        return result;
+        List<MediaFile> albums = mediaFileService.getStarredAlbums(index, count, username, musicFolders);
+        List<AbstractMedia> result = forMediaFiles(albums, username, request);
+        result.forEach(mediaCollection -> ((MediaCollection) mediaCollection).setItemType(ItemType.ALBUM));
+        return createMediaList(index, mediaFileService.getStarredAlbumCount(username, musicFolders), result);
     }
 
-    public List<MediaMetadata> forStarredSongs(String username, HttpServletRequest request) {
+    public MediaList forStarredSongs(int index, int count, String username, HttpServletRequest request) {
         List<MusicFolder> musicFolders = mediaFolderService.getMusicFoldersForUser(username);
-        List<MediaMetadata> result = new ArrayList<MediaMetadata>();
-        for (MediaFile song : mediaFileService.getStarredSongs(0, Integer.MAX_VALUE, username, musicFolders)) {
-            if (song.isAudio()) {
-                result.add(forSong(song, username, request));
-            }
-        }
-        return result;
+        List<MediaFile> songs = mediaFileService.getStarredSongs(index, count, username, musicFolders);
+        return createMediaList(index, mediaFileService.getStarredSongCount(username, musicFolders),
+                forMediaFiles(songs, username, request));
     }
 
     public List<MediaCollection> forSearchCategories() {
@@ -558,10 +537,31 @@ public class SonosHelper {
         return forMediaFiles(similarArtists, username, request);
     }
 
+    /**
+     * Converts a page of media files. Starred dates, parents and the Sonos player are looked up once for the whole
+     * page rather than once per media file.
+     */
     private List<AbstractMedia> forMediaFiles(List<MediaFile> mediaFiles, String username, HttpServletRequest request) {
-        List<AbstractMedia> result = new ArrayList<AbstractMedia>();
+        List<AbstractMedia> result = new ArrayList<AbstractMedia>(mediaFiles.size());
+        if (mediaFiles.isEmpty()) {
+            return result;
+        }
+        Map<Integer, Instant> starredDates = mediaFileService.getMediaFileStarredDates(
+                mediaFiles.stream().map(MediaFile::getId).toList(), username);
+        Player player = null;
+        Map<Pair<Integer, String>, Optional<MediaFile>> parents = new HashMap<>();
         for (MediaFile mediaFile : mediaFiles) {
-            result.add(forMediaFile(mediaFile, username, request));
+            Instant starredDate = starredDates.get(mediaFile.getId());
+            if (mediaFile.isFile()) {
+                if (player == null) {
+                    player = createPlayerIfNecessary(username);
+                }
+                MediaFile parent = parents.computeIfAbsent(Pair.of(mediaFile.getFolder().getId(), mediaFile.getParentPath()),
+                        k -> Optional.ofNullable(mediaFileService.getParentOf(mediaFile))).orElse(null);
+                result.add(forSong(mediaFile, player, starredDate, parent, username, request));
+            } else {
+                result.add(forDirectory(mediaFile, starredDate, username, request));
+            }
         }
         return result;
     }
@@ -571,16 +571,19 @@ public class SonosHelper {
     }
 
     public MediaMetadata forSong(MediaFile song, String username, HttpServletRequest request) {
-        Player player = createPlayerIfNecessary(username);
+        return forSong(song, createPlayerIfNecessary(username), mediaFileService.getMediaFileStarredDate(song, username),
+                mediaFileService.getParentOf(song), username, request);
+    }
+
+    private MediaMetadata forSong(MediaFile song, Player player, Instant starredDate, MediaFile parent, String username, HttpServletRequest request) {
         String suffix = transcodingService.getSuffix(player, song, null);
-        mediaFileService.populateStarredDate(song, username);
 
         MediaMetadata result = new MediaMetadata();
         result.setId(String.valueOf(song.getId()));
         result.setItemType(ItemType.TRACK);
         result.setMimeType(StringUtil.getMimeType(suffix, true));
         result.setTitle(song.getTitle());
-        result.setIsFavorite(song.getStarredDate() != null);
+        result.setIsFavorite(starredDate != null);
 //        result.setDynamic();// TODO: For starred songs
 
         AlbumArtUrl albumArtURI = new AlbumArtUrl();
@@ -595,7 +598,6 @@ public class SonosHelper {
         trackMetadata.setTrackNumber(song.getTrackNumber());
         trackMetadata.setGenre(song.getGenre());
 
-        MediaFile parent = mediaFileService.getParentOf(song);
         if (parent != null && parent.isAlbum()) {
             trackMetadata.setAlbumId(String.valueOf(parent.getId()));
         }
@@ -619,18 +621,32 @@ public class SonosHelper {
 
     private String getCoverArtUrl(String id, String username, HttpServletRequest request) {
         String uri = "ext/coverArt.view?id=" + id + "&size=" + CoverArtScheme.LARGE.getSize();
-        return getBaseUrl(request) + jwtSecurityService.addJWTToken(username, uri);
+        return getBaseUrl(request) + jwtSecurityService.addReusableJWTToken(username, uri);
     }
 
     public static MediaList createSubList(int index, int count, List<? extends AbstractMedia> mediaCollections) {
-        MediaList result = new MediaList();
-        List<? extends AbstractMedia> selectedMediaCollections = Util.subList(mediaCollections, index, count);
+        return createMediaList(index, mediaCollections.size(), Util.subList(mediaCollections, index, count));
+    }
+
+    /**
+     * Like {@link #createSubList(int, int, List)} for a list made of fixed programs followed by media files, where
+     * only the media files of the requested page are converted.
+     */
+    private MediaList createSubList(int index, int count, List<? extends AbstractMedia> programs, List<MediaFile> mediaFiles,
+            String username, HttpServletRequest request) {
+        List<AbstractMedia> selected = new ArrayList<>(Util.subList(programs, index, count));
+        int mediaFileIndex = Math.max(0, index - programs.size());
+        int mediaFileCount = count - selected.size();
+        selected.addAll(forMediaFiles(Util.subList(mediaFiles, mediaFileIndex, mediaFileCount), username, request));
+        return createMediaList(index, programs.size() + mediaFiles.size(), selected);
+    }
 
+    private static MediaList createMediaList(int index, int total, List<? extends AbstractMedia> selectedMediaCollections) {
+        MediaList result = new MediaList();
         result.setIndex(index);
         result.setCount(selectedMediaCollections.size());
-        result.setTotal(mediaCollections.size());
+        result.setTotal(total);
         result.getMediaCollectionOrMediaMetadata().addAll(selectedMediaCollections);
-
         return result;
     }
 
@@ -654,7 +670,7 @@ public class SonosHelper {
         Player player = createPlayerIfNecessary(username);
         MediaFile song = mediaFileService.getMediaFile(mediaFileId);
         String uri = "ext/stream?id=" + song.getId() + "&player=" + player.getId();
-        return getBaseUrl(request) + jwtSecurityService.addJWTToken(username, uri);
+        return getBaseUrl(request) + jwtSecurityService.addReusableJWTToken(username, uri);
     }
 
     public PositionInformation getPositionInformation(int id, String username) {
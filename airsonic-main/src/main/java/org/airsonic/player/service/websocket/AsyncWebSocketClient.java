@@ -19,10 +19,14 @@
 
 package org.airsonic.player.service.websocket;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.AdviceMode;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -30,6 +34,9 @@ import org.springframework.stereotype.Component;
 
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 @EnableAsync(mode = AdviceMode.ASPECTJ)
@@ -40,6 +47,19 @@ public class AsyncWebSocketClient {
     @Autowired
     private SimpMessagingTemplate brokerTemplate;
 
+    @Autowired
+    @Qualifier("BroadcastThreadPool")
+    private TaskExecutor broadcastThreadPool;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    // (user, destination) -> latest payload not yet handed to the broker, or SENDING
+    private final ConcurrentMap<PendingKey, Pending> pending = new ConcurrentHashMap<>();
+    private final ConcurrentMap<PendingKey, Counts> counts = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
     @Async("BroadcastThreadPool")
     public void send(String destination, Object payload) {
         LOG.debug("Sending to {}: {}", destination, payload);
@@ -59,4 +79,134 @@ public class AsyncWebSocketClient {
         brokerTemplate.convertAndSendToUser(user, destination, payload, headers);
         return CompletableFuture.completedFuture(null);
     }
+
+    /**
+     * Sends a state snapshot to the destination. If an earlier snapshot for the same destination is still waiting
+     * for a broadcast thread, it is replaced instead of sending both, so only the latest value goes out.
+     * If the broadcast thread pool is saturated, the snapshot is dropped, as a later one supersedes it.
+     * Only use this for payloads that fully supersede the previous one.
+     */
+    public CompletableFuture<Void> sendLatest(String destination, Object payload) {
+        return conflate(new PendingKey(null, destination), payload);
+    }
+
+    /**
+     * Same as {@link #sendLatest(String, Object)} for a user destination.
+     */
+    public CompletableFuture<Void> sendLatestToUser(String user, String destination, Object payload) {
+        return conflate(new PendingKey(user, destination), payload);
+    }
+
+    /**
+     * Returns the number of messages replaced by a newer one before they were sent.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Returns the number of messages dropped because the broadcast thread pool was saturated.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    private CompletableFuture<Void> conflate(PendingKey key, Object payload) {
+        boolean[] scheduled = { false };
+        Pending latest = pending.compute(key, (k, previous) -> {
+            if (previous == null) {
+                scheduled[0] = true;
+                return new Pending(payload, new CompletableFuture<>());
+            }
+            if (previous.payload() == null) {
+                // being sent, the sending thread picks this one up afterwards
+                return new Pending(payload, new CompletableFuture<>());
+            }
+            coalescedCount.incrementAndGet();
+            counts(k).coalesced().incrementAndGet();
+            return new Pending(payload, previous.future());
+        });
+        if (scheduled[0]) {
+            try {
+                broadcastThreadPool.execute(() -> flush(key));
+            } catch (RuntimeException e) {
+                // pool saturated, keep the caller responsive; nothing is being sent, so the entry is still waiting
+                Pending dropped = pending.remove(key);
+                droppedCount.incrementAndGet();
+                counts(key).dropped().incrementAndGet();
+                LOG.debug("Dropped message to {} {}: {}", key.user(), key.destination(), e.getMessage());
+                dropped.future().completeExceptionally(e);
+            }
+        }
+        return latest.future();
+    }
+
+    /**
+     * Sends the pending payloads of the key until none is left. The entry stays in the map while sending,
+     * so only one thread sends for a key and the payloads go out in order.
+     */
+    private void flush(PendingKey key) {
+        while (true) {
+            Pending[] taken = { null };
+            pending.computeIfPresent(key, (k, current) -> {
+                if (current.payload() == null) {
+                    // nothing was added while sending
+                    return null;
+                }
+                taken[0] = current;
+                return Pending.SENDING;
+            });
+            Pending latest = taken[0];
+            if (latest == null) {
+                return;
+            }
+            try {
+                LOG.debug("Sending latest to {} {}: {}", key.user(), key.destination(), latest.payload());
+                if (key.user() == null) {
+                    brokerTemplate.convertAndSend(key.destination(), latest.payload());
+                } else {
+                    brokerTemplate.convertAndSendToUser(key.user(), key.destination(), latest.payload());
+                }
+                counts(key).sent().incrementAndGet();
+                latest.future().complete(null);
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to send to {} {}", key.user(), key.destination(), e);
+                latest.future().completeExceptionally(e);
+            }
+        }
+    }
+
+    /*
+     * Returns the counts of the key, published as airsonic.websocket.messages tagged by user, destination and outcome.
+     */
+    private Counts counts(PendingKey key) {
+        return counts.computeIfAbsent(key, k -> {
+            Counts c = new Counts(new AtomicLong(), new AtomicLong(), new AtomicLong());
+            if (meterRegistry != null) {
+                String user = k.user() == null ? "" : k.user();
+                registerCounter(user, k.destination(), "sent", c.sent());
+                registerCounter(user, k.destination(), "coalesced", c.coalesced());
+                registerCounter(user, k.destination(), "dropped", c.dropped());
+            }
+            return c;
+        });
+    }
+
+    private void registerCounter(String user, String destination, String outcome, AtomicLong count) {
+        FunctionCounter.builder("airsonic.websocket.messages", count, AtomicLong::get)
+                .description("Latest-value websocket messages by outcome")
+                .tags("user", user, "destination", destination, "outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record PendingKey(String user, String destination) {
+    }
+
+    private record Counts(AtomicLong sent, AtomicLong coalesced, AtomicLong dropped) {
+    }
+
+    private record Pending(Object payload, CompletableFuture<Void> future) {
+        // marks a key whose payload is being sent, with no newer one waiting
+        private static final Pending SENDING = new Pending(null, null);
+    }
 }
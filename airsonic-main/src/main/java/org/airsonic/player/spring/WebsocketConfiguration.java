@@ -15,6 +15,7 @@ import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 import org.springframework.web.socket.server.HandshakeInterceptor;
 
 import jakarta.servlet.AsyncContext;
@@ -75,6 +76,14 @@ public class WebsocketConfiguration implements WebSocketMessageBrokerConfigurer
         config.setPreservePublishOrder(true);
     }
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // outbound messages are buffered per session; a browser tab that cannot keep up for this long or
+        // accumulates this much is disconnected (and reconnects) instead of holding back other sessions
+        registration.setSendTimeLimit(5 * 1000)
+                .setSendBufferSizeLimit(256 * 1024);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/websocket")
@@ -0,0 +1,465 @@
+/*
+ This file is part of Airsonic.
+
+ Airsonic is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Airsonic is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Airsonic.  If not, see <http://www.gnu.org/licenses/>.
+
+ Copyright 2025 (C) Y.Tory
+ */
+package org.airsonic.player.upload;
+
+import com.github.junrar.Archive;
+import com.github.junrar.exception.RarException;
+import com.github.junrar.rarfile.FileHeader;
+import org.airsonic.player.config.AirsonicUploadConfig;
+import org.airsonic.player.domain.Player;
+import org.airsonic.player.domain.TransferStatus;
+import org.airsonic.player.service.StatusService;
+import org.airsonic.player.util.FileUtil;
+import org.airsonic.player.util.LambdaUtils;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveException;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.ArchiveStreamFactory;
+import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
+import org.apache.commons.compress.archivers.sevenz.SevenZFile;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Extracts uploaded archives next to the archive.
+ *
+ * The format is detected once from the leading bytes. Zip uploads are extracted while they are read from the request,
+ * without writing the archive to disk. Zip files on disk are extracted by several workers at once,
+ * the other formats can only be read front to back.
+ * Progress of each archive is reported as an upload status, and the number of entries and the extracted size are limited.
+ */
+@Component
+public class ArchiveExtractor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArchiveExtractor.class);
+
+    public static final String RAR = "rar";
+
+    private static final byte[] RAR_SIGNATURE = {'R', 'a', 'r', '!', 0x1a, 0x07};
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final AirsonicUploadConfig uploadConfig;
+    private final StatusService statusService;
+    private final TaskExecutor extractThreadPool;
+
+    public ArchiveExtractor(AirsonicUploadConfig uploadConfig, StatusService statusService,
+            @Qualifier("UploadExtractThreadPool") TaskExecutor extractThreadPool) {
+        this.uploadConfig = uploadConfig;
+        this.statusService = statusService;
+        this.extractThreadPool = extractThreadPool;
+    }
+
+    /**
+     * Detects the archive format from the leading bytes of the stream, which must support mark and reset.
+     *
+     * @return {@link #RAR}, one of the {@link ArchiveStreamFactory} names, or null if the format is not known
+     */
+    public static String detect(InputStream in) throws IOException {
+        in.mark(RAR_SIGNATURE.length);
+        byte[] signature = in.readNBytes(RAR_SIGNATURE.length);
+        in.reset();
+        if (Arrays.equals(signature, RAR_SIGNATURE)) {
+            return RAR;
+        }
+        try {
+            return ArchiveStreamFactory.detect(in);
+        } catch (ArchiveException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Extracts a zip upload while it is read from the request.
+     *
+     * @param archive the path the archive would have been uploaded to
+     * @return false if the upload must be written to disk and passed to {@link #extract} instead,
+     *         entries extracted so far are then skipped
+     */
+    public boolean extractUpload(MonitoredMultipartFile file, Path archive, Player player, List<Path> extracted,
+            List<String> exceptions) throws IOException {
+        try (InputStream in = new BufferedInputStream(file.getMonitoredInputStream(), BUFFER_SIZE)) {
+            if (!ArchiveStreamFactory.ZIP.equals(detect(in))) {
+                return false;
+            }
+            LOG.info("Unzipping {} while it is uploaded", archive);
+            Extraction x = new Extraction(archive, player, extracted);
+            try (ZipArchiveInputStream zip = new ZipArchiveInputStream(in, StandardCharsets.UTF_8.name(), true, true)) {
+                ZipArchiveEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    if (!zip.canReadEntryData(entry)) {
+                        LOG.info("Can't read {} in {}", entry.getName(), archive);
+                        continue;
+                    }
+                    copyEntry(x, entry, dest -> copy(zip, dest, x));
+                }
+            } catch (LimitExceededException e) {
+                LOG.warn("Stopped unzipping {}: {}", archive, e.getMessage());
+                x.exceptions.add(e.getMessage());
+            } catch (IOException e) {
+                LOG.info("Could not unzip {} while uploading, extracting it from disk instead", archive, e);
+                x.finish(extracted, null);
+                return false;
+            }
+            x.finish(extracted, exceptions);
+            return true;
+        }
+    }
+
+    /**
+     * Extracts an archive on disk and deletes it.
+     */
+    public void extract(Path archive, Player player, List<Path> extracted, List<String> exceptions) {
+        LOG.info("Unzipping {}", archive);
+        Extraction x = new Extraction(archive, player, extracted);
+        try {
+            String format;
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(archive))) {
+                format = detect(in);
+            }
+            if (format == null) {
+                throw new IOException("Unsupported archive format: " + archive.getFileName());
+            }
+            switch (format) {
+                case ArchiveStreamFactory.ZIP -> extractZip(x);
+                case ArchiveStreamFactory.SEVEN_Z -> extractSevenZ(x);
+                case RAR -> extractRar(x);
+                default -> extractStream(x, format);
+            }
+        } catch (Exception e) {
+            LOG.warn("Something went wrong unzipping {}", archive, e);
+            x.exceptions.add(e.getMessage());
+        } finally {
+            x.finish(extracted, exceptions);
+            FileUtil.delete(archive);
+        }
+    }
+
+    private static ZipFile openZip(FileChannel channel) throws IOException {
+        return ZipFile.builder().setSeekableByteChannel(channel).get();
+    }
+
+    /*
+     * Each worker reads through its own channel and takes the next entry when done with one,
+     * so large and small entries spread evenly.
+     */
+    private void extractZip(Extraction x) throws IOException {
+        int entryCount;
+        try (FileChannel channel = FileChannel.open(x.archive); ZipFile zip = openZip(channel)) {
+            List<ZipArchiveEntry> entries = Collections.list(zip.getEntries());
+            entryCount = entries.size();
+            long size = entries.stream().mapToLong(ZipArchiveEntry::getSize).filter(s -> s > 0).sum();
+            x.checkDeclared(entryCount, size);
+            x.status.setBytesTotal(size);
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        int workers = Math.max(1, Math.min(uploadConfig.getExtractParallelism(), entryCount));
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            tasks.add(CompletableFuture.runAsync(() -> {
+                try (FileChannel channel = FileChannel.open(x.archive); ZipFile zip = openZip(channel)) {
+                    List<ZipArchiveEntry> entries = Collections.list(zip.getEntries());
+                    int index;
+                    while (!x.aborted.get() && (index = next.getAndIncrement()) < entries.size()) {
+                        ZipArchiveEntry entry = entries.get(index);
+                        if (!zip.canReadEntryData(entry)) {
+                            LOG.info("Can't read {} in {}", entry.getName(), x.archive);
+                            continue;
+                        }
+                        try (InputStream is = zip.getInputStream(entry)) {
+                            copyEntry(x, entry, dest -> copy(is, dest, x));
+                        }
+                    }
+                } catch (IOException e) {
+                    x.aborted.set(true);
+                    throw new UncheckedIOException(e);
+                }
+            }, extractThreadPool));
+        }
+        try {
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException u) {
+                throw u.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void extractSevenZ(Extraction x) throws IOException {
+        try (FileChannel channel = FileChannel.open(x.archive);
+                SevenZFile zip = SevenZFile.builder().setSeekableByteChannel(channel).get()) {
+            long size = 0;
+            int entryCount = 0;
+            for (SevenZArchiveEntry entry : zip.getEntries()) {
+                entryCount++;
+                size += Math.max(0, entry.getSize());
+            }
+            x.checkDeclared(entryCount, size);
+            x.status.setBytesTotal(size);
+
+            InputStream current = new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    return zip.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return zip.read(b, off, len);
+                }
+            };
+            SevenZArchiveEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                copyEntry(x, entry, dest -> copy(current, dest, x));
+            }
+        }
+    }
+
+    private void extractRar(Extraction x) throws IOException, RarException {
+        try (Archive zip = new Archive(x.archive.toFile())) {
+            if (zip.isEncrypted()) {
+                throw new AccessDeniedException(x.archive.toString(), null, "Archive is encrypted");
+            }
+            List<FileHeader> headers = zip.getFileHeaders();
+            x.checkDeclared(headers.size(), headers.stream().mapToLong(FileHeader::getFullUnpackSize).filter(s -> s > 0).sum());
+
+            for (FileHeader fh : zip) {
+                if (fh.isEncrypted()) {
+                    LOG.info("Can't read {} in {}", fh.getFileName(), x.archive);
+                    continue;
+                }
+
+                copyEntry(x, new ArchiveEntry() {
+                    @Override
+                    public boolean isDirectory() {
+                        return fh.isDirectory();
+                    }
+
+                    @Override
+                    public long getSize() {
+                        return fh.getFullUnpackSize();
+                    }
+
+                    @Override
+                    public String getName() {
+                        return fh.getFileName();
+                    }
+
+                    @Override
+                    public Date getLastModifiedDate() {
+                        return fh.getArcTime();
+                    }
+                }, dest -> {
+                        try (OutputStream os = x.newOutputStream(dest)) {
+                            zip.extractFile(fh, os);
+                        } catch (RarException e) {
+                            throw new IOException(e);
+                        }
+                    });
+            }
+        }
+    }
+
+    private void extractStream(Extraction x, String format) throws IOException, ArchiveException {
+        try (InputStream bis = new BufferedInputStream(Files.newInputStream(x.archive), BUFFER_SIZE);
+                ArchiveInputStream<?> ais = new ArchiveStreamFactory().createArchiveInputStream(format, bis)) {
+            ArchiveEntry entry;
+            while ((entry = ais.getNextEntry()) != null) {
+                if (!ais.canReadEntryData(entry)) {
+                    LOG.info("Can't read {} in {}", entry.getName(), x.archive);
+                    continue;
+                }
+                copyEntry(x, entry, dest -> copy(ais, dest, x));
+            }
+        }
+    }
+
+    private void copyEntry(Extraction x, ArchiveEntry entry, LambdaUtils.ThrowingConsumer<Path, IOException> copier)
+            throws LimitExceededException {
+        final Path toPath = x.archive.resolveSibling(entry.getName().replaceAll("\\\\", "/"));
+        x.countEntry();
+        if (x.skipped.contains(toPath)) {
+            return;
+        }
+        try {
+            if (!toPath.normalize().startsWith(x.archive.getParent())) {
+                throw new IOException("Bad zip filename: " + toPath.toString());
+            }
+            if (entry.isDirectory()) {
+                Files.createDirectories(toPath);
+            } else {
+                Path parent = toPath.getParent();
+                Files.createDirectories(parent);
+                if (!Files.isDirectory(parent)) {
+                    throw new IOException("Failed to create directory: " + parent);
+                }
+
+                x.status.setExternalFile(toPath);
+                try {
+                    copier.accept(toPath);
+                } catch (FileAlreadyExistsException e) {
+                    throw e;
+                } catch (IOException e) {
+                    // do not leave a truncated file behind
+                    Files.deleteIfExists(toPath);
+                    throw e;
+                }
+                x.extracted.add(toPath);
+                LOG.debug("Unzipped {}", toPath);
+
+            }
+        } catch (LimitExceededException e) {
+            throw e;
+        } catch (IOException e) {
+            x.exceptions.add(e.getMessage());
+            LOG.debug("Could not unzip {}", toPath, e);
+        }
+
+        LOG.debug("Processed {}", toPath);
+    }
+
+    private static void copy(InputStream in, Path dest, Extraction x) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (OutputStream os = x.newOutputStream(dest)) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                os.write(buffer, 0, n);
+            }
+        }
+    }
+
+    private static class LimitExceededException extends IOException {
+        private LimitExceededException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * State of the extraction of one archive, shared by its workers.
+     */
+    private class Extraction {
+        private final Path archive;
+        private final TransferStatus status;
+        private final Set<Path> skipped;
+        private final List<Path> extracted = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> exceptions = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger entries = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicBoolean aborted = new AtomicBoolean();
+        private final long maxBytes = uploadConfig.getMaxExtractedMegabytes() * 1024L * 1024L;
+
+        private Extraction(Path archive, Player player, List<Path> alreadyExtracted) {
+            this.archive = archive;
+            this.skipped = new HashSet<>(alreadyExtracted);
+            this.status = statusService.createUploadStatus(player);
+            status.setExternalFile(archive);
+        }
+
+        private void checkDeclared(int entryCount, long size) throws LimitExceededException {
+            if (entryCount > uploadConfig.getMaxEntries()) {
+                throw limitExceeded("more than " + uploadConfig.getMaxEntries() + " entries");
+            }
+            if (size > maxBytes) {
+                throw limitExceeded("more than " + uploadConfig.getMaxExtractedMegabytes() + " MB");
+            }
+        }
+
+        private void countEntry() throws LimitExceededException {
+            if (entries.incrementAndGet() > uploadConfig.getMaxEntries()) {
+                throw limitExceeded("more than " + uploadConfig.getMaxEntries() + " entries");
+            }
+        }
+
+        private void countBytes(int n) throws LimitExceededException {
+            if (bytes.addAndGet(n) > maxBytes) {
+                throw limitExceeded("more than " + uploadConfig.getMaxExtractedMegabytes() + " MB");
+            }
+            status.addBytesTransferred(n);
+        }
+
+        private LimitExceededException limitExceeded(String limit) {
+            aborted.set(true);
+            return new LimitExceededException(archive.getFileName() + " contains " + limit);
+        }
+
+        /**
+         * Opens a new file which counts the bytes written against the size limit.
+         */
+        private OutputStream newOutputStream(Path dest) throws IOException {
+            return new FilterOutputStream(Files.newOutputStream(dest, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                @Override
+                public void write(int b) throws IOException {
+                    countBytes(1);
+                    out.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    countBytes(len);
+                    out.write(b, off, len);
+                }
+            };
+        }
+
+        /**
+         * Hands the results to the caller, exceptions are dropped if null.
+         */
+        private void finish(List<Path> extractedFiles, List<String> exceptionMessages) {
+            statusService.removeUploadStatus(status);
+            extractedFiles.addAll(extracted);
+            if (exceptionMessages != null) {
+                exceptionMessages.addAll(exceptions);
+            }
+        }
+    }
+}
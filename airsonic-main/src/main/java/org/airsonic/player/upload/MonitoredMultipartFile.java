@@ -18,6 +18,8 @@ public class MonitoredMultipartFile implements MultipartFile {
 
     private MultipartFile file;
     private UploadListener listener;
+    // the content can be read more than once, only bytes beyond those already reported count as uploaded
+    private long bytesReported;
 
     public MonitoredMultipartFile(MultipartFile file, UploadListener listener) {
         this.file = file;
@@ -66,11 +68,43 @@ public class MonitoredMultipartFile implements MultipartFile {
         return file.getInputStream();
     }
 
+    /**
+     * Returns the content as a stream which reports the bytes read to the upload listener.
+     */
+    public InputStream getMonitoredInputStream() throws IOException {
+        return new MonitoredInputStream(file.getInputStream(), newReadListener());
+    }
+
     @Override
     public void transferTo(File dest) throws IOException, IllegalStateException {
         InputStream inputStream = file.getInputStream();
         FileOutputStream outputStream = new FileOutputStream(dest);
-        MonitoredOutputStream monitoredOutputStream = new MonitoredOutputStream(outputStream, listener);
+        MonitoredOutputStream monitoredOutputStream = new MonitoredOutputStream(outputStream, newReadListener());
         FileCopyUtils.copy(inputStream, monitoredOutputStream);
     }
+
+    /**
+     * Returns a listener for one read of the content, which passes on only the bytes read past earlier reads,
+     * so that the upload is counted and throttled once.
+     */
+    private UploadListener newReadListener() {
+        return new UploadListener() {
+            private long position;
+
+            @Override
+            public void start(String fileName) {
+                listener.start(fileName);
+            }
+
+            @Override
+            public void bytesRead(int bytesRead) {
+                position += bytesRead;
+                if (position > bytesReported) {
+                    int newBytes = (int) (position - bytesReported);
+                    bytesReported = position;
+                    listener.bytesRead(newBytes);
+                }
+            }
+        };
+    }
 }
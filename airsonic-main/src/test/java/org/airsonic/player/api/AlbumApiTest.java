@@ -25,12 +25,13 @@ import org.airsonic.player.domain.Album;
 import org.airsonic.player.domain.MediaFile;
 import org.airsonic.player.domain.MusicFolder;
 import org.airsonic.player.domain.Player;
+import org.airsonic.player.domain.dto.MediaFileSummary;
+import org.airsonic.player.service.AlbumListService;
 import org.airsonic.player.service.AlbumService;
 import org.airsonic.player.service.JaxbContentService;
 import org.airsonic.player.service.MediaFileService;
 import org.airsonic.player.service.MediaFolderService;
 import org.airsonic.player.service.PlayerService;
-import org.airsonic.player.service.RatingService;
 import org.airsonic.player.service.SearchService;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.io.TempDir;
@@ -90,7 +91,7 @@ public class AlbumApiTest {
     private MediaFileService mediaFileService;
 
     @MockitoBean
-    private RatingService ratingService;
+    private AlbumListService albumListService;
 
     @MockitoBean
     private SearchService searchService;
@@ -126,6 +127,11 @@ public class AlbumApiTest {
     );
     MediaFile testSong = new MediaFile();
 
+    private MediaFileSummary createAlbumSummary(int id) {
+        return new MediaFileSummary(id, testFolder.getId(), "path/to/album" + id, "path/to", MediaFile.MediaType.ALBUM,
+                "Test Album", "Test Album", "Test Artist", 2000, "Rock", Instant.now(), null, 0, null, null);
+    }
+
     /**
      * tests for the /rest/getAlbum endpoint
      * This endpoint retrieves an album by its ID, including its songs.
@@ -319,15 +325,14 @@ public class AlbumApiTest {
     @ParameterizedTest
     @ValueSource(strings = {"/rest/getAlbumList", "/rest/getAlbumList.view"})
     void getAlbumList_highestType_returnsAlbumList(String endpoint) throws Exception {
-        MediaFile album = new MediaFile();
-        album.setId(1);
+        MediaFileSummary album = createAlbumSummary(1);
         when(musicFolderService.getMusicFoldersForUser(eq(AIRSONIC_USER), any()))
             .thenReturn(List.of(testFolder));
-        when(ratingService.getHighestRatedAlbums(eq(0), eq(10), eq(List.of(testFolder))))
+        when(albumListService.getAlbums(eq(AlbumListService.Order.HIGHEST), eq(0), eq(10), eq(List.of(testFolder))))
             .thenReturn(List.of(album));
         Child albumChild = TestApiUtil.createTestDirectoryChild();
-        when(jaxbContentService.createJaxbChild(any(), eq(album), eq(AIRSONIC_USER)))
-            .thenReturn(albumChild);
+        when(jaxbContentService.createJaxbDirectoryChildren(eq(List.of(album)), eq(AIRSONIC_USER)))
+            .thenReturn(List.of(albumChild));
 
         String response = mvc.perform(get(endpoint)
                 .param("type", "highest")
@@ -357,16 +362,15 @@ public class AlbumApiTest {
     @ParameterizedTest
     @ValueSource(strings = {"/rest/getAlbumList", "/rest/getAlbumList.view"})
     void getAlbumList_recentType_returnsAlbumList(String endpoint) throws Exception {
-        MediaFile album = new MediaFile();
-        album.setId(2);
-        when(mediaFileService.getMostRecentlyPlayedAlbums(eq(0), eq(10), eq(List.of(testFolder))))
+        MediaFileSummary album = createAlbumSummary(2);
+        when(albumListService.getAlbums(eq(AlbumListService.Order.RECENT), eq(0), eq(10), eq(List.of(testFolder))))
             .thenReturn(List.of(album));
         when(musicFolderService.getMusicFoldersForUser(eq(AIRSONIC_USER), any()))
             .thenReturn(List.of(testFolder));
 
         Child albumChild = TestApiUtil.createTestDirectoryChild();
-        when(jaxbContentService.createJaxbChild(any(), eq(album), eq(AIRSONIC_USER)))
-            .thenReturn(albumChild);
+        when(jaxbContentService.createJaxbDirectoryChildren(eq(List.of(album)), eq(AIRSONIC_USER)))
+            .thenReturn(List.of(albumChild));
 
         String response = mvc.perform(get(endpoint)
                 .param("type", "recent")
@@ -395,15 +399,14 @@ public class AlbumApiTest {
     @ParameterizedTest
     @ValueSource(strings = { "/rest/getAlbumList", "/rest/getAlbumList.view" })
     void getAlbumList_frequentType_returnsAlbumList(String endpoint) throws Exception {
-        MediaFile album = new MediaFile();
-        album.setId(3);
-        when(mediaFileService.getMostFrequentlyPlayedAlbums(eq(0), eq(10), eq(List.of(testFolder))))
+        MediaFileSummary album = createAlbumSummary(3);
+        when(albumListService.getAlbums(eq(AlbumListService.Order.FREQUENT), eq(0), eq(10), eq(List.of(testFolder))))
             .thenReturn(List.of(album));
         when(musicFolderService.getMusicFoldersForUser(eq(AIRSONIC_USER), any()))
             .thenReturn(List.of(testFolder));
         Child albumChild = TestApiUtil.createTestDirectoryChild();
-        when(jaxbContentService.createJaxbChild(any(), eq(album), eq(AIRSONIC_USER)))
-            .thenReturn(albumChild);
+        when(jaxbContentService.createJaxbDirectoryChildren(eq(List.of(album)), eq(AIRSONIC_USER)))
+            .thenReturn(List.of(albumChild));
 
         String response = mvc.perform(get(endpoint)
                 .param("type", "frequent")
@@ -432,15 +435,14 @@ public class AlbumApiTest {
     @ParameterizedTest
     @ValueSource(strings = { "/rest/getAlbumList", "/rest/getAlbumList.view" })
     void getAlbumList_newestType_returnsAlbumList(String endpoint) throws Exception {
-        MediaFile album = new MediaFile();
-        album.setId(4);
+        MediaFileSummary album = createAlbumSummary(4);
         when(musicFolderService.getMusicFoldersForUser(eq(AIRSONIC_USER), any()))
             .thenReturn(List.of(testFolder));
-        when(mediaFileService.getNewestAlbums(eq(0), eq(10), eq(List.of(testFolder))))
+        when(albumListService.getAlbums(eq(AlbumListService.Order.NEWEST), eq(0), eq(10), eq(List.of(testFolder))))
             .thenReturn(List.of(album));
         Child albumChild = TestApiUtil.createTestDirectoryChild();
-        when(jaxbContentService.createJaxbChild(any(), eq(album), eq(AIRSONIC_USER)))
-            .thenReturn(albumChild);
+        when(jaxbContentService.createJaxbDirectoryChildren(eq(List.of(album)), eq(AIRSONIC_USER)))
+            .thenReturn(List.of(albumChild));
 
         String response = mvc.perform(get(endpoint)
                 .param("type", "newest")
@@ -469,15 +471,14 @@ public class AlbumApiTest {
     @ParameterizedTest
     @ValueSource(strings = { "/rest/getAlbumList", "/rest/getAlbumList.view" })
     void getAlbumList_starredType_returnsAlbumList(String endpoint) throws Exception {
-        MediaFile album = new MediaFile();
-        album.setId(5);
+        MediaFileSummary album = createAlbumSummary(5);
         when(musicFolderService.getMusicFoldersForUser(eq(AIRSONIC_USER), any()))
             .thenReturn(List.of(testFolder));
-        when(mediaFileService.getStarredAlbums(eq(0), eq(10), eq(AIRSONIC_USER), eq(List.of(testFolder))))
+        when(albumListService.getStarredAlbums(eq(0), eq(10), eq(AIRSONIC_USER), eq(List.of(testFolder))))
             .thenReturn(List.of(album));
         Child albumChild = TestApiUtil.createTestDirectoryChild();
-        when(jaxbContentService.createJaxbChild(any(), eq(album), eq(AIRSONIC_USER)))
-            .thenReturn(albumChild);
+        when(jaxbContentService.createJaxbDirectoryChildren(eq(List.of(album)), eq(AIRSONIC_USER)))
+            .thenReturn(List.of(albumChild));
 
         String response = mvc.perform(get(endpoint)
                 .param("type", "starred")
@@ -506,15 +507,14 @@ public class AlbumApiTest {
     @ParameterizedTest
     @ValueSource(strings = { "/rest/getAlbumList", "/rest/getAlbumList.view" })
     void getAlbumList_alphabeticalByArtistType_returnsAlbumList(String endpoint) throws Exception {
-        MediaFile album = new MediaFile();
-        album.setId(6);
+        MediaFileSummary album = createAlbumSummary(6);
         when(musicFolderService.getMusicFoldersForUser(eq(AIRSONIC_USER), any()))
             .thenReturn(List.of(testFolder));
-        when(mediaFileService.getAlphabeticalAlbums(eq(0), eq(10), eq(true), eq(List.of(testFolder))))
+        when(albumListService.getAlbums(eq(AlbumListService.Order.ALPHABETICAL_BY_ARTIST), eq(0), eq(10), eq(List.of(testFolder))))
             .thenReturn(List.of(album));
         Child albumChild = TestApiUtil.createTestDirectoryChild();
-        when(jaxbContentService.createJaxbChild(any(), eq(album), eq(AIRSONIC_USER)))
-            .thenReturn(albumChild);
+        when(jaxbContentService.createJaxbDirectoryChildren(eq(List.of(album)), eq(AIRSONIC_USER)))
+            .thenReturn(List.of(albumChild));
 
         String response = mvc.perform(get(endpoint)
                 .param("type", "alphabeticalByArtist")
@@ -543,15 +543,14 @@ public class AlbumApiTest {
     @ParameterizedTest
     @ValueSource(strings = { "/rest/getAlbumList", "/rest/getAlbumList.view" })
     void getAlbumList_alphabeticalByNameType_returnsAlbumList(String endpoint) throws Exception {
-        MediaFile album = new MediaFile();
-        album.setId(7);
+        MediaFileSummary album = createAlbumSummary(7);
         when(musicFolderService.getMusicFoldersForUser(eq(AIRSONIC_USER), any()))
             .thenReturn(List.of(testFolder));
-        when(mediaFileService.getAlphabeticalAlbums(eq(0), eq(10), eq(false), eq(List.of(testFolder))))
+        when(albumListService.getAlbums(eq(AlbumListService.Order.ALPHABETICAL_BY_NAME), eq(0), eq(10), eq(List.of(testFolder))))
             .thenReturn(List.of(album));
         Child albumChild = TestApiUtil.createTestDirectoryChild();
-        when(jaxbContentService.createJaxbChild(any(), eq(album), eq(AIRSONIC_USER)))
-            .thenReturn(albumChild);
+        when(jaxbContentService.createJaxbDirectoryChildren(eq(List.of(album)), eq(AIRSONIC_USER)))
+            .thenReturn(List.of(albumChild));
 
         String response = mvc.perform(get(endpoint)
                 .param("type", "alphabeticalByName")
@@ -580,16 +579,15 @@ public class AlbumApiTest {
     @ParameterizedTest
     @ValueSource(strings = { "/rest/getAlbumList", "/rest/getAlbumList.view" })
     void getAlbumList_byGenreType_returnsAlbumList(String endpoint) throws Exception {
-        MediaFile album = new MediaFile();
-        album.setId(8);
+        MediaFileSummary album = createAlbumSummary(8);
         String genre = "Rock";
         when(musicFolderService.getMusicFoldersForUser(eq(AIRSONIC_USER), any()))
             .thenReturn(List.of(testFolder));
-        when(mediaFileService.getAlbumsByGenre(eq(0), eq(10), eq(genre), eq(List.of(testFolder))))
+        when(albumListService.getAlbumsByGenre(eq(0), eq(10), eq(genre), eq(List.of(testFolder))))
             .thenReturn(List.of(album));
         Child albumChild = TestApiUtil.createTestDirectoryChild();
-        when(jaxbContentService.createJaxbChild(any(), eq(album), eq(AIRSONIC_USER)))
-            .thenReturn(albumChild);
+        when(jaxbContentService.createJaxbDirectoryChildren(eq(List.of(album)), eq(AIRSONIC_USER)))
+            .thenReturn(List.of(albumChild));
 
         String response = mvc.perform(get(endpoint)
                 .param("type", "byGenre")
@@ -619,17 +617,16 @@ public class AlbumApiTest {
     @ParameterizedTest
     @ValueSource(strings = { "/rest/getAlbumList", "/rest/getAlbumList.view" })
     void getAlbumList_byYearType_returnsAlbumList(String endpoint) throws Exception {
-        MediaFile album = new MediaFile();
-        album.setId(9);
+        MediaFileSummary album = createAlbumSummary(9);
         int fromYear = 2000;
         int toYear = 2010;
         when(musicFolderService.getMusicFoldersForUser(eq(AIRSONIC_USER), any()))
             .thenReturn(List.of(testFolder));
-        when(mediaFileService.getAlbumsByYear(eq(0), eq(10), eq(fromYear), eq(toYear), eq(List.of(testFolder))))
+        when(albumListService.getAlbumsByYear(eq(0), eq(10), eq(fromYear), eq(toYear), eq(List.of(testFolder))))
             .thenReturn(List.of(album));
         Child albumChild = TestApiUtil.createTestDirectoryChild();
-        when(jaxbContentService.createJaxbChild(any(), eq(album), eq(AIRSONIC_USER)))
-            .thenReturn(albumChild);
+        when(jaxbContentService.createJaxbDirectoryChildren(eq(List.of(album)), eq(AIRSONIC_USER)))
+            .thenReturn(List.of(albumChild));
 
         String response = mvc.perform(get(endpoint)
                 .param("type", "byYear")
@@ -732,15 +729,14 @@ public class AlbumApiTest {
     @ParameterizedTest
     @ValueSource(strings = { "/rest/getAlbumList", "/rest/getAlbumList.view" })
     void getAlbumList_withOver500Size_returnsAlbumList(String endpoint) throws Exception {
-        MediaFile album = new MediaFile();
-        album.setId(11);
+        MediaFileSummary album = createAlbumSummary(11);
         when(musicFolderService.getMusicFoldersForUser(eq(AIRSONIC_USER), any()))
             .thenReturn(List.of(testFolder));
-        when(mediaFileService.getMostFrequentlyPlayedAlbums(eq(0), eq(500), eq(List.of(testFolder))))
+        when(albumListService.getAlbums(eq(AlbumListService.Order.FREQUENT), eq(0), eq(500), eq(List.of(testFolder))))
             .thenReturn(List.of(album));
         Child albumChild = TestApiUtil.createTestDirectoryChild();
-        when(jaxbContentService.createJaxbChild(any(), eq(album), eq(AIRSONIC_USER)))
-            .thenReturn(albumChild);
+        when(jaxbContentService.createJaxbDirectoryChildren(eq(List.of(album)), eq(AIRSONIC_USER)))
+            .thenReturn(List.of(albumChild));
 
         String response = mvc.perform(get(endpoint)
                 .param("type", "frequent")
@@ -779,7 +775,7 @@ public class AlbumApiTest {
         album.setId(2);
         when(musicFolderService.getMusicFoldersForUser(eq(AIRSONIC_USER), any()))
             .thenReturn(List.of(testFolder));
-        when(albumService.getMostFrequentlyPlayedAlbums(eq(0), eq(10), eq(List.of(testFolder))))
+        when(albumListService.getAlbumsId3(eq(AlbumListService.Order.FREQUENT), eq(0), eq(10), eq(List.of(testFolder))))
             .thenReturn(List.of(album));
         AlbumID3 testJaxbAlbum = TestApiUtil.createTestAlbumID3();
         when(jaxbContentService.createJaxbAlbum(any(), eq(album), eq(AIRSONIC_USER)))
@@ -816,7 +812,7 @@ public class AlbumApiTest {
         album.setId(3);
         when(musicFolderService.getMusicFoldersForUser(eq(AIRSONIC_USER), any()))
             .thenReturn(List.of(testFolder));
-        when(albumService.getMostResentlyPlayedAlbums(eq(0), eq(10), eq(List.of(testFolder))))
+        when(albumListService.getAlbumsId3(eq(AlbumListService.Order.RECENT), eq(0), eq(10), eq(List.of(testFolder))))
             .thenReturn(List.of(album));
         AlbumID3 testJaxbAlbum = TestApiUtil.createTestAlbumID3();
         when(jaxbContentService.createJaxbAlbum(any(), eq(album), eq(AIRSONIC_USER)))
@@ -853,7 +849,7 @@ public class AlbumApiTest {
         album.setId(4);
         when(musicFolderService.getMusicFoldersForUser(eq(AIRSONIC_USER), any()))
             .thenReturn(List.of(testFolder));
-        when(albumService.getRecentlyAddedAlbums(eq(0), eq(10), eq(List.of(testFolder))))
+        when(albumListService.getAlbumsId3(eq(AlbumListService.Order.NEWEST), eq(0), eq(10), eq(List.of(testFolder))))
             .thenReturn(List.of(album));
         AlbumID3 testJaxbAlbum = TestApiUtil.createTestAlbumID3();
         when(jaxbContentService.createJaxbAlbum(any(), eq(album), eq(AIRSONIC_USER)))
@@ -890,7 +886,7 @@ public class AlbumApiTest {
         album.setId(5);
         when(musicFolderService.getMusicFoldersForUser(eq(AIRSONIC_USER), any()))
             .thenReturn(List.of(testFolder));
-        when(albumService.getAlphabeticalAlbums(eq(0), eq(10), eq(true), eq(false), eq(List.of(testFolder))))
+        when(albumListService.getAlbumsId3(eq(AlbumListService.Order.ALPHABETICAL_BY_ARTIST), eq(0), eq(10), eq(List.of(testFolder))))
             .thenReturn(List.of(album));
         AlbumID3 testJaxbAlbum = TestApiUtil.createTestAlbumID3();
         when(jaxbContentService.createJaxbAlbum(any(), eq(album), eq(AIRSONIC_USER)))
@@ -927,7 +923,7 @@ public class AlbumApiTest {
         album.setId(6);
         when(musicFolderService.getMusicFoldersForUser(eq(AIRSONIC_USER), any()))
             .thenReturn(List.of(testFolder));
-        when(albumService.getAlphabeticalAlbums(eq(0), eq(10), eq(false), eq(false), eq(List.of(testFolder))))
+        when(albumListService.getAlbumsId3(eq(AlbumListService.Order.ALPHABETICAL_BY_NAME), eq(0), eq(10), eq(List.of(testFolder))))
             .thenReturn(List.of(album));
         AlbumID3 testJaxbAlbum = TestApiUtil.createTestAlbumID3();
         when(jaxbContentService.createJaxbAlbum(any(), eq(album), eq(AIRSONIC_USER)))
@@ -965,7 +961,7 @@ public class AlbumApiTest {
         String genre = "Jazz";
         when(musicFolderService.getMusicFoldersForUser(eq(AIRSONIC_USER), any()))
             .thenReturn(List.of(testFolder));
-        when(albumService.getAlbumsByGenre(eq(0), eq(10), eq(genre), eq(List.of(testFolder))))
+        when(albumListService.getAlbumsId3ByGenre(eq(0), eq(10), eq(genre), eq(List.of(testFolder))))
             .thenReturn(List.of(album));
         AlbumID3 testJaxbAlbum = TestApiUtil.createTestAlbumID3();
         when(jaxbContentService.createJaxbAlbum(any(), eq(album), eq(AIRSONIC_USER)))
@@ -1005,7 +1001,7 @@ public class AlbumApiTest {
         int toYear = 2000;
         when(musicFolderService.getMusicFoldersForUser(eq(AIRSONIC_USER), any()))
             .thenReturn(List.of(testFolder));
-        when(albumService.getAlbumsByYear(eq(0), eq(10), eq(fromYear), eq(toYear), eq(List.of(testFolder))))
+        when(albumListService.getAlbumsId3ByYear(eq(0), eq(10), eq(fromYear), eq(toYear), eq(List.of(testFolder))))
             .thenReturn(List.of(album));
         AlbumID3 testJaxbAlbum = TestApiUtil.createTestAlbumID3();
         when(jaxbContentService.createJaxbAlbum(any(), eq(album), eq(AIRSONIC_USER)))
@@ -1044,7 +1040,7 @@ public class AlbumApiTest {
         album.setId(9);
         when(musicFolderService.getMusicFoldersForUser(eq(AIRSONIC_USER), any()))
             .thenReturn(List.of(testFolder));
-        when(albumService.getStarredAlbums(eq(0), eq(10), eq(AIRSONIC_USER), eq(List.of(testFolder))))
+        when(albumListService.getStarredAlbumsId3(eq(0), eq(10), eq(AIRSONIC_USER), eq(List.of(testFolder))))
             .thenReturn(List.of(album));
         AlbumID3 testJaxbAlbum = TestApiUtil.createTestAlbumID3();
         when(jaxbContentService.createJaxbAlbum(any(), eq(album), eq(AIRSONIC_USER)))
@@ -1153,7 +1149,7 @@ public class AlbumApiTest {
         album.setId(11);
         when(musicFolderService.getMusicFoldersForUser(eq(AIRSONIC_USER), any()))
             .thenReturn(List.of(testFolder));
-        when(albumService.getMostFrequentlyPlayedAlbums(eq(0), eq(500), eq(List.of(testFolder))))
+        when(albumListService.getAlbumsId3(eq(AlbumListService.Order.FREQUENT), eq(0), eq(500), eq(List.of(testFolder))))
             .thenReturn(List.of(album));
         AlbumID3 testJaxbAlbum = TestApiUtil.createTestAlbumID3();
         when(jaxbContentService.createJaxbAlbum(any(), eq(album), eq(AIRSONIC_USER)))
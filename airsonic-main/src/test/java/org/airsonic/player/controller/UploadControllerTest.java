@@ -20,15 +20,20 @@ package org.airsonic.player.controller;
 
 import com.google.common.util.concurrent.RateLimiter;
 import org.airsonic.player.config.AirsonicHomeConfig;
+import org.airsonic.player.config.AirsonicUploadConfig;
+import org.airsonic.player.config.ThreadPoolConfig;
 import org.airsonic.player.domain.Player;
 import org.airsonic.player.domain.TransferStatus;
 import org.airsonic.player.domain.User;
+import org.airsonic.player.service.MediaScannerService;
 import org.airsonic.player.service.PlayerService;
 import org.airsonic.player.service.SecurityService;
 import org.airsonic.player.service.SettingsService;
 import org.airsonic.player.service.StatusService;
+import org.airsonic.player.upload.ArchiveExtractor;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
@@ -62,6 +67,7 @@ import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -69,6 +75,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
@@ -77,8 +85,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @ExtendWith(MockitoExtension.class)
 @WebMvcTest
-@ContextConfiguration(classes = {UploadController.class}, initializers = {ConfigDataApplicationContextInitializer.class})
-@EnableConfigurationProperties({AirsonicHomeConfig.class})
+@ContextConfiguration(classes = {UploadController.class, ArchiveExtractor.class, ThreadPoolConfig.class}, initializers = {ConfigDataApplicationContextInitializer.class})
+@EnableConfigurationProperties({AirsonicHomeConfig.class, AirsonicUploadConfig.class})
 @SuppressWarnings("unchecked")
 class UploadControllerTest {
 
@@ -100,6 +108,9 @@ class UploadControllerTest {
     @MockitoBean
     private SecurityService securityService;
 
+    @MockitoBean
+    private MediaScannerService mediaScannerService;
+
     @TempDir
     private static Path tempDir;
 
@@ -125,6 +136,11 @@ class UploadControllerTest {
         System.clearProperty("airsonic.home");
     }
 
+    @BeforeEach
+    public void setupScanner() {
+        lenient().when(mediaScannerService.scanPathsInBackground(any())).thenReturn(CompletableFuture.completedFuture(List.of()));
+    }
+
     @ParameterizedTest
     @CsvSource({
         "true, false",
@@ -180,6 +196,9 @@ class UploadControllerTest {
         // Check that files were uploaded
         assertTrue(Files.exists(tempUploadDir.resolve("test").resolve("test.txt")));
         assertTrue(Files.exists(tempUploadDir.resolve("test").resolve("test2.txt")));
+
+        // Check that the user learns when the files are in the library
+        verify(brokerTemplate).convertAndSendToUser("user", "/queue/uploads/ingested", 2);
     }
 
     @Test
@@ -441,11 +460,13 @@ class UploadControllerTest {
         Map<String, List<Object>> model = (Map<String, List<Object>>) result.getModelAndView().getModel().get("model");
 
         // Check that model contains expected values
+        // zip and jar uploads are extracted while they are read, the archive is not written
+        boolean streamed = fileName.endsWith(".zip") || fileName.endsWith(".jar");
         assertEquals(List.of(), model.get("exceptions"));
-        assertEquals(2, model.get("uploadedFiles").size());
+        assertEquals(streamed ? 1 : 2, model.get("uploadedFiles").size());
         assertTrue(model.get("unzippedFiles").contains(tempUploadDir.resolve("test").resolve("test.txt")));
         assertTrue(model.get("uploadedFiles").contains(tempUploadDir.resolve("test2.txt")));
-        assertTrue(model.get("uploadedFiles").contains(tempUploadDir.resolve(fileName)));
+        assertEquals(!streamed, model.get("uploadedFiles").contains(tempUploadDir.resolve(fileName)));
 
         // Check that files were uploaded
         assertFalse(Files.exists(tempUploadDir.resolve(fileName)));
@@ -0,0 +1,169 @@
+/*
+ This file is part of Airsonic.
+
+ Airsonic is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Airsonic is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Airsonic.  If not, see <http://www.gnu.org/licenses/>.
+
+ Copyright 2025 (C) Y.Tory
+ */
+package org.airsonic.player.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RowStreamFormatTest {
+
+    private static final List<String> TABLES = List.of("parent", "child");
+
+    private Connection connection;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        connection = DriverManager.getConnection("jdbc:hsqldb:mem:rowstream", "sa", "");
+        try (Statement s = connection.createStatement()) {
+            s.execute("create table databasechangelog (id varchar(255), orderexecuted int)");
+            s.execute("insert into databasechangelog values ('a', 1), ('b', 2)");
+            s.execute("create table parent (id int primary key, name varchar(255), created timestamp, data varbinary(16))");
+            s.execute("create table child (id int primary key, parent_id int references parent(id), score double, enabled boolean)");
+            s.execute("insert into parent values (1, 'first', timestamp '2020-01-02 03:04:05.123456', x'0102'), (2, null, null, null)");
+            s.execute("insert into child values (10, 1, 1.5, true), (11, 2, null, false)");
+        }
+    }
+
+    @AfterEach
+    public void teardown() throws Exception {
+        try (Statement s = connection.createStatement()) {
+            s.execute("shutdown");
+        }
+        connection.close();
+    }
+
+    private List<String> dump() throws Exception {
+        List<String> rows = new ArrayList<>();
+        try (Statement s = connection.createStatement()) {
+            for (String table : TABLES) {
+                try (ResultSet rs = s.executeQuery("select * from " + table + " order by id")) {
+                    while (rs.next()) {
+                        StringBuilder row = new StringBuilder(table);
+                        for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                            Object value = rs.getObject(i);
+                            row.append('|').append(value instanceof byte[] b ? Arrays.toString(b) : value);
+                        }
+                        rows.add(row.toString());
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    public void testWriteAndReadRoundTrip() throws Exception {
+        List<String> before = dump();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<String> progress = new ArrayList<>();
+
+        assertThat(RowStreamFormat.write(connection, TABLES, out, progress::add)).isEqualTo(4);
+
+        try (Statement s = connection.createStatement()) {
+            s.execute("update parent set name = 'changed'");
+            s.execute("insert into child values (12, 1, 0, true)");
+        }
+        assertThat(RowStreamFormat.read(connection, TABLES, new ByteArrayInputStream(out.toByteArray()), progress::add))
+                .isEqualTo(4);
+
+        assertThat(dump()).isEqualTo(before);
+        assertThat(dump()).contains("parent|1|first|" + Timestamp.valueOf("2020-01-02 03:04:05.123456") + "|[1, 2]");
+        assertThat(progress).contains("parent: 2 rows exported", "child: 2 rows imported");
+    }
+
+    @Test
+    public void testReadRejectsOtherSchemaVersion() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RowStreamFormat.write(connection, TABLES, out, msg -> { });
+        try (Statement s = connection.createStatement()) {
+            s.execute("insert into databasechangelog values ('c', 3)");
+        }
+
+        assertThatThrownBy(() -> RowStreamFormat.read(connection, TABLES, new ByteArrayInputStream(out.toByteArray()), msg -> { }))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("schema version b");
+        assertThat(dump()).hasSize(4);
+    }
+
+    @Test
+    public void testFailedReadKeepsExistingRows() throws Exception {
+        List<String> before = dump();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RowStreamFormat.write(connection, TABLES, out, msg -> { });
+        byte[] truncated = Arrays.copyOf(out.toByteArray(), out.size() - 10);
+
+        assertThatThrownBy(() -> RowStreamFormat.read(connection, TABLES, new ByteArrayInputStream(truncated), msg -> { }))
+                .isInstanceOf(IOException.class);
+        assertThat(dump()).isEqualTo(before);
+    }
+
+    @Test
+    public void testFailedImportRestoresPreviousRows(@TempDir Path tmp) throws Exception {
+        try (PreparedStatement insert = connection.prepareStatement("insert into child values (?, 1, null, true)")) {
+            for (int id = 100; id < 25_100; id++) {
+                insert.setInt(1, id);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        List<String> before = dump();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RowStreamFormat.write(connection, TABLES, out, msg -> { });
+        byte[] truncated = Arrays.copyOf(out.toByteArray(), out.size() - 10);
+        Path previous = tmp.resolve("previous.rows");
+
+        assertThatThrownBy(() -> RowStreamFormat.readOrRestore(connection, TABLES, new ByteArrayInputStream(truncated),
+                previous, msg -> { }))
+                .isInstanceOf(IOException.class);
+        assertThat(dump()).isEqualTo(before);
+        assertThat(previous).doesNotExist();
+    }
+
+    @Test
+    public void testImportDeletesPreviousRowsOnceComplete(@TempDir Path tmp) throws Exception {
+        List<String> before = dump();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RowStreamFormat.write(connection, TABLES, out, msg -> { });
+        Path previous = tmp.resolve("previous.rows");
+
+        assertThat(RowStreamFormat.readOrRestore(connection, TABLES, new ByteArrayInputStream(out.toByteArray()),
+                previous, msg -> { })).isEqualTo(4);
+        assertThat(dump()).isEqualTo(before);
+        assertThat(previous).doesNotExist();
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * This file is part of Airsonic.
+ *
+ *  Airsonic is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Airsonic is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Airsonic.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  Copyright 2025 (C) Y.Tory
+ */
+
+package org.airsonic.player.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class GenresTestCase {
+
+    @Test
+    public void testCountsAreAddedToSplitGenres() {
+        Genres genres = new Genres();
+        genres.addSongCount("Rock;Pop", ";", 3);
+        genres.addSongCount("Rock", ";", 2);
+        genres.addAlbumCount("Rock;Pop", ";", 1);
+        genres.incrementAlbumCount("Jazz", ";");
+
+        Map<String, Genre> byName = genres.getGenres().stream().collect(Collectors.toMap(Genre::getName, g -> g));
+        assertEquals(4, byName.size());
+        assertEquals(5, byName.get("Rock").getSongCount());
+        assertEquals(1, byName.get("Rock").getAlbumCount());
+        assertEquals(3, byName.get("Pop").getSongCount());
+        assertEquals(3, byName.get("Rock;Pop").getSongCount());
+        assertEquals(1, byName.get("Rock;Pop").getAlbumCount());
+        assertEquals(0, byName.get("Jazz").getSongCount());
+        assertEquals(1, byName.get("Jazz").getAlbumCount());
+    }
+}
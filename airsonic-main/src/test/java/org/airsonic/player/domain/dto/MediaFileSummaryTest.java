@@ -0,0 +1,47 @@
+package org.airsonic.player.domain.dto;
+
+import org.airsonic.player.domain.MediaFile;
+import org.airsonic.player.domain.MediaFile.MediaType;
+import org.airsonic.player.domain.MusicFolder;
+import org.airsonic.player.domain.MusicFolder.Type;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MediaFileSummaryTest {
+
+    private final MusicFolder folder = new MusicFolder(1, Paths.get("/music"), "Music", Type.MEDIA, true, Instant.now());
+
+    @Test
+    public void testCreatedFallsBackToChanged() {
+        Instant changed = Instant.parse("2024-05-01T10:00:00Z");
+        MediaFile album = album(null, changed);
+        MediaFileSummary summary = MediaFileSummary.of(album);
+
+        assertNull(summary.created());
+        assertEquals(changed, summary.createdOrChanged());
+    }
+
+    @Test
+    public void testCreatedIsKept() {
+        Instant created = Instant.parse("2024-01-01T10:00:00Z");
+        MediaFile album = album(created, Instant.parse("2024-05-01T10:00:00Z"));
+
+        assertEquals(created, MediaFileSummary.of(album).createdOrChanged());
+    }
+
+    private MediaFile album(Instant created, Instant changed) {
+        MediaFile album = new MediaFile();
+        album.setId(1);
+        album.setFolder(folder);
+        album.setPath("Artist/Album");
+        album.setMediaType(MediaType.ALBUM);
+        album.setCreated(created);
+        album.setChanged(changed);
+        return album;
+    }
+}
@@ -0,0 +1,63 @@
+package org.airsonic.player.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ShoutCastInputStreamTest {
+
+    private static final int INTERVAL = ShoutCastInputStream.META_DATA_INTERVAL;
+
+    @Test
+    public void testMetaDataIsInterleaved() throws IOException {
+        byte[] audio = new byte[INTERVAL * 2 + 100];
+        Arrays.fill(audio, (byte) 7);
+        String[] titles = {"First", "First"};
+        int[] calls = {0};
+
+        byte[] result;
+        try (InputStream in = new ShoutCastInputStream(new ByteArrayInputStream(audio), () -> titles[calls[0]++])) {
+            result = in.readAllBytes();
+        }
+
+        byte[] title = "StreamTitle='First';".getBytes(StandardCharsets.UTF_8);
+        int blocks = (title.length + 15) / 16;
+        // audio, titled block, audio, empty block for the unchanged title, audio
+        assertThat(result).hasSize(audio.length + 1 + blocks * 16 + 1);
+        assertThat(result[INTERVAL]).isEqualTo((byte) blocks);
+        assertThat(Arrays.copyOfRange(result, INTERVAL + 1, INTERVAL + 1 + title.length)).isEqualTo(title);
+        int second = INTERVAL + 1 + blocks * 16 + INTERVAL;
+        assertThat(result[second]).isEqualTo((byte) 0);
+        assertThat(result[second - 1]).isEqualTo((byte) 7);
+        assertThat(result[second + 1]).isEqualTo((byte) 7);
+        assertThat(calls[0]).isEqualTo(2);
+    }
+
+    @Test
+    public void testSingleByteReads() throws IOException {
+        byte[] audio = new byte[INTERVAL + 1];
+        Arrays.fill(audio, (byte) 1);
+
+        try (InputStream in = new ShoutCastInputStream(new ByteArrayInputStream(audio), () -> "")) {
+            for (int i = 0; i < INTERVAL; i++) {
+                assertThat(in.read()).isEqualTo(1);
+            }
+            // "StreamTitle='';" fits into one block of 16 bytes
+            assertThat(in.read()).isEqualTo(1);
+            assertThat(in.read()).isEqualTo('S');
+            assertThat(in.skip(14)).isZero();
+            for (int i = 0; i < 14; i++) {
+                in.read();
+            }
+            assertThat(in.read()).isZero();
+            assertThat(in.read()).isEqualTo(1);
+            assertThat(in.read()).isEqualTo(-1);
+        }
+    }
+}
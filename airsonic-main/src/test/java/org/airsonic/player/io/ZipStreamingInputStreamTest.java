@@ -0,0 +1,126 @@
+package org.airsonic.player.io;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.EOFException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ZipStreamingInputStreamTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void testProducesReadableArchiveOfExactLength() throws Exception {
+        Path album = Files.createDirectories(tempDir.resolve("Album"));
+        Path song = Files.write(album.resolve("01 - Song.mp3"), new byte[20000]);
+        byte[] coverBytes = "cover".getBytes(StandardCharsets.UTF_8);
+        Path cover = Files.write(album.resolve("cover.jpg"), coverBytes);
+
+        List<ZipStreamingInputStream.Entry> entries = List.of(
+                new ZipStreamingInputStream.Entry(album, "Album/", 0L),
+                new ZipStreamingInputStream.Entry(song, "Album/01 - Söng.mp3", Files.size(song)),
+                new ZipStreamingInputStream.Entry(cover, "Album/cover.jpg", Files.size(cover)));
+
+        List<Path> notified = new ArrayList<>();
+        Path zip = tempDir.resolve("out.zip");
+        long length;
+        try (ZipStreamingInputStream zin = new ZipStreamingInputStream(entries);
+                OutputStream out = Files.newOutputStream(zip)) {
+            zin.setEntryListener(notified::add);
+            length = zin.length();
+            zin.transferTo(out);
+        }
+
+        assertThat(Files.size(zip)).isEqualTo(length);
+        assertThat(notified).containsExactly(song, cover);
+
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            assertThat(zipFile.size()).isEqualTo(3);
+            assertThat(zipFile.getEntry("Album/").isDirectory()).isTrue();
+
+            ZipEntry songEntry = zipFile.getEntry("Album/01 - Söng.mp3");
+            assertThat(songEntry.getMethod()).isEqualTo(ZipEntry.STORED);
+            assertThat(songEntry.getSize()).isEqualTo(20000L);
+            CRC32 crc = new CRC32();
+            crc.update(new byte[20000]);
+            assertThat(songEntry.getCrc()).isEqualTo(crc.getValue());
+
+            try (InputStream in = zipFile.getInputStream(zipFile.getEntry("Album/cover.jpg"))) {
+                assertThat(in.readAllBytes()).isEqualTo(coverBytes);
+            }
+        }
+    }
+
+    @Test
+    public void testIsReadableAsStream() throws Exception {
+        Path album = Files.createDirectories(tempDir.resolve("Album"));
+        byte[] songBytes = new byte[100000];
+        for (int i = 0; i < songBytes.length; i++) {
+            songBytes[i] = (byte) i;
+        }
+        Path song = Files.write(album.resolve("01.mp3"), songBytes);
+        Path empty = Files.write(album.resolve("empty.txt"), new byte[0]);
+
+        List<ZipStreamingInputStream.Entry> entries = List.of(
+                new ZipStreamingInputStream.Entry(album, "Album/", 0L),
+                new ZipStreamingInputStream.Entry(song, "Album/01.mp3", Files.size(song)),
+                new ZipStreamingInputStream.Entry(empty, "Album/empty.txt", 0L));
+
+        try (ZipArchiveInputStream zip = new ZipArchiveInputStream(new ZipStreamingInputStream(entries),
+                StandardCharsets.UTF_8.name(), true, true)) {
+            ZipArchiveEntry entry = zip.getNextEntry();
+            assertThat(entry.getName()).isEqualTo("Album/");
+            assertThat(entry.isDirectory()).isTrue();
+
+            entry = zip.getNextEntry();
+            assertThat(entry.getName()).isEqualTo("Album/01.mp3");
+            assertThat(entry.getMethod()).isEqualTo(ZipEntry.STORED);
+            assertThat(zip.readAllBytes()).isEqualTo(songBytes);
+
+            entry = zip.getNextEntry();
+            assertThat(entry.getName()).isEqualTo("Album/empty.txt");
+            assertThat(zip.readAllBytes()).isEmpty();
+
+            assertThat(zip.getNextEntry()).isNull();
+        }
+    }
+
+    @Test
+    public void testFailsWhenFileShrinksWhileZipped() throws Exception {
+        Path song = Files.write(tempDir.resolve("01.mp3"), new byte[1000]);
+        List<ZipStreamingInputStream.Entry> entries = List.of(
+                new ZipStreamingInputStream.Entry(song, "01.mp3", Files.size(song)));
+
+        try (ZipStreamingInputStream zin = new ZipStreamingInputStream(entries)) {
+            zin.read(new byte[30]);
+            Files.write(song, new byte[10], StandardOpenOption.TRUNCATE_EXISTING);
+            assertThatThrownBy(zin::readAllBytes).isInstanceOf(EOFException.class).hasMessageContaining("shrank");
+        }
+    }
+
+    @Test
+    public void testEmptyArchive() throws Exception {
+        try (ZipStreamingInputStream zin = new ZipStreamingInputStream(List.of())) {
+            byte[] bytes = zin.readAllBytes();
+            assertThat(bytes).hasSize((int) zin.length());
+            assertThat(bytes).hasSize(22);
+        }
+    }
+}
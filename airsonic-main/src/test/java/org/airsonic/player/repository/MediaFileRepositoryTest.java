@@ -24,6 +24,8 @@ import org.airsonic.player.domain.MediaFile;
 import org.airsonic.player.domain.MediaFile.MediaType;
 import org.airsonic.player.domain.MusicFolder;
 import org.airsonic.player.domain.MusicFolder.Type;
+import org.airsonic.player.domain.RandomSearchCriteria;
+import org.airsonic.player.domain.dto.MediaFileSummary;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
@@ -34,6 +36,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ContextConfiguration;
 
@@ -41,8 +46,10 @@ import java.nio.file.Path;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Unit test of {@link MediaFileDao}.
@@ -140,4 +147,83 @@ public class MediaFileRepositoryTest {
         assertEquals(0, wrongPathTracks.size());
     }
 
-}
\ No newline at end of file
+
+    @Test
+    public void testRandomKeyRangesMatchSongsWithin() {
+        //prepare
+        double[] keys = {0.1, 0.4, 0.6, 0.9};
+        for (int i = 0; i < keys.length; i++) {
+            MediaFile song = new MediaFile();
+            song.setFolder(testFolder);
+            song.setPath("song" + i + ".mp3");
+            song.setMediaType(MediaType.MUSIC);
+            song.setPresent(true);
+            song.setGenre(i % 2 == 0 ? "Rock" : "Jazz");
+            song.setRandomKey(keys[i]);
+            song.setCreated(Instant.now());
+            song.setChanged(Instant.now());
+            song.setLastScanned(Instant.now());
+            song.setChildrenLastUpdated(Instant.now());
+            mediaFileRepository.save(song);
+        }
+
+        RandomSearchCriteria criteria = new RandomSearchCriteria(10, "Rock", null, null, List.of(testFolder));
+        Specification<MediaFile> spec = MediaFileSpecifications.matchCriteria(criteria, "admin");
+        Sort byRandomKey = Sort.by("randomKey");
+
+        // assertion
+        List<MediaFile> rock = mediaFileRepository.findAll(spec.and(MediaFileSpecifications.randomKeyWithin(new double[] {0.5}, 0.2)), byRandomKey);
+        assertEquals(1, rock.size());
+        assertEquals("song2.mp3", rock.get(0).getPath());
+
+        Specification<MediaFile> all = MediaFileSpecifications.matchCriteria(new RandomSearchCriteria(10, null, null, null, List.of(testFolder)), "admin");
+        List<MediaFile> ranges = mediaFileRepository.findAll(all.and(MediaFileSpecifications.randomKeyWithin(new double[] {0.3, 0.55}, 0.15)), byRandomKey);
+        assertEquals(List.of("song1.mp3", "song2.mp3"), ranges.stream().map(MediaFile::getPath).toList());
+
+        // a range reaching past 1 wraps around to 0
+        List<MediaFile> wrapped = mediaFileRepository.findAll(all.and(MediaFileSpecifications.randomKeyWithin(new double[] {0.85}, 0.3)), byRandomKey);
+        assertEquals(List.of("song0.mp3", "song3.mp3"), wrapped.stream().map(MediaFile::getPath).toList());
+    }
+
+    @Test
+    public void testSummaryQueries() {
+        //prepare
+        MediaFile artist = new MediaFile();
+        artist.setFolder(testFolder);
+        artist.setPath("Artist");
+        artist.setParentPath("");
+        artist.setMediaType(MediaType.DIRECTORY);
+        artist.setPresent(true);
+        artist.setCreated(Instant.now());
+        artist.setChanged(Instant.now());
+        artist.setLastScanned(Instant.now());
+        artist.setChildrenLastUpdated(Instant.now());
+        mediaFileRepository.save(artist);
+        for (int i = 0; i < 2; i++) {
+            MediaFile album = new MediaFile();
+            album.setFolder(testFolder);
+            album.setPath("Artist/Album" + i);
+            album.setParentPath("Artist");
+            album.setAlbumName("Album" + i);
+            album.setMediaType(MediaType.ALBUM);
+            album.setPresent(true);
+            album.setPlayCount(i);
+            album.setCreated(Instant.now());
+            album.setChanged(Instant.now());
+            album.setLastScanned(Instant.now());
+            album.setChildrenLastUpdated(Instant.now());
+            mediaFileRepository.save(album);
+        }
+
+        // assertion
+        List<MediaFileSummary> albums = mediaFileRepository.findSummariesByFolderInAndMediaType(List.of(testFolder), MediaType.ALBUM, PageRequest.of(0, 10, Sort.by("albumName")));
+        assertEquals(2, albums.size());
+        assertEquals("Album0", albums.get(0).albumName());
+        assertEquals(testFolder.getId(), albums.get(0).folderId());
+        assertTrue(albums.get(0).isDirectory());
+
+        List<MediaFileSummary> parents = mediaFileRepository.findSummariesByFolderIdAndPathIn(testFolder.getId(), Set.of("Artist"));
+        assertEquals(1, parents.size());
+        assertEquals(artist.getId(), parents.get(0).id());
+    }
+}
@@ -24,6 +24,7 @@ import org.airsonic.player.domain.MusicFolder;
 import org.airsonic.player.domain.MusicFolder.Type;
 import org.airsonic.player.domain.Playlist;
 import org.airsonic.player.domain.PlaylistMediaFile;
+import org.airsonic.player.domain.dto.PlaylistStats;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -169,4 +170,35 @@ class PlaylistMediaFileRepositoryTest {
         List<MediaFile> result = playlistMediaFileRepository.findMediaFilesByPlaylistId(-1);
         assertEquals(0, result.size());
     }
+
+    @Test
+    @DisplayName("getStatsByPlaylistId counts the entries and sums their known durations")
+    void testGetStatsByPlaylistId() {
+        Playlist playlist = new Playlist(
+                "admin", false, "Test Playlist", "A test playlist", 7,
+                999.0, Instant.now(), Instant.now(), "importedFromTest");
+        playlist = playlistRepository.save(playlist);
+        MusicFolder testFolder = new MusicFolder(tempMusicDir, "name", Type.MEDIA, true,
+                Instant.now().truncatedTo(ChronoUnit.MICROS));
+        musicFolderRepository.save(testFolder);
+        for (Double duration : new Double[] {100.0, 50.5, null}) {
+            MediaFile file = new MediaFile();
+            file.setFolder(testFolder);
+            file.setPath("test" + duration + ".wav");
+            file.setMediaType(MediaType.MUSIC);
+            file.setDuration(duration);
+            file.setCreated(Instant.now());
+            file.setChanged(Instant.now());
+            file.setLastScanned(Instant.now());
+            file.setChildrenLastUpdated(Instant.now());
+            mediaFileRepository.save(file);
+            playlistMediaFileRepository.save(new PlaylistMediaFile(playlist, file, 0));
+        }
+
+        PlaylistStats stats = playlistMediaFileRepository.getStatsByPlaylistId(playlist.getId());
+
+        assertEquals(3L, stats.fileCount());
+        assertEquals(150.5, stats.duration());
+        assertEquals(new PlaylistStats(0L, 0.0), playlistMediaFileRepository.getStatsByPlaylistId(-1));
+    }
 }
@@ -0,0 +1,78 @@
+package org.airsonic.player.security;
+
+import com.auth0.jwt.JWT;
+import org.airsonic.player.service.JWTSecurityService;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+import org.springframework.security.core.Authentication;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JWTAuthenticationProviderTest {
+
+    private final AtomicReference<String> jwtKey = new AtomicReference<>("someKey");
+    private final JWTAuthenticationProvider provider = new JWTAuthenticationProvider(jwtKey::get);
+
+    private String token(String key, String path, Instant expires) {
+        return JWT.create()
+                .withSubject("xyz")
+                .withClaim(JWTSecurityService.CLAIM_PATH, path)
+                .withExpiresAt(Date.from(expires))
+                .sign(JWTSecurityService.getAlgorithm(key));
+    }
+
+    private Authentication request(String rawToken, String requestedPath) {
+        return new JWTAuthenticationToken(null, rawToken, requestedPath);
+    }
+
+    @Test
+    public void testAuthenticateRepeatedlyRunsAdditionalChecks() {
+        AtomicInteger checks = new AtomicInteger();
+        provider.addAdditionalCheck("/ext/stream", jwt -> checks.incrementAndGet());
+        String rawToken = token("someKey", "/ext/stream?id=4", Instant.now().plus(1, ChronoUnit.DAYS));
+
+        Authentication first = provider.authenticate(request(rawToken, "/ext/stream?id=4&jwt=" + rawToken));
+        Authentication second = provider.authenticate(request(rawToken, "/ext/stream?id=4&jwt=" + rawToken));
+
+        assertThat(first.getPrincipal()).isEqualTo("xyz");
+        assertThat(second.getPrincipal()).isEqualTo("xyz");
+        assertThat(checks).hasValue(2);
+    }
+
+    @Test
+    public void testAuthenticateChecksPathForEachRequest() {
+        String rawToken = token("someKey", "/ext/stream?id=4", Instant.now().plus(1, ChronoUnit.DAYS));
+        provider.authenticate(request(rawToken, "/ext/stream?id=4"));
+
+        assertThatThrownBy(() -> provider.authenticate(request(rawToken, "/ext/coverArt.view?id=4")))
+                .isInstanceOf(InsufficientAuthenticationException.class);
+    }
+
+    @Test
+    public void testAuthenticateRejectsCachedTokenAfterKeyRotation() {
+        String rawToken = token("someKey", "/ext/stream?id=4", Instant.now().plus(1, ChronoUnit.DAYS));
+        provider.authenticate(request(rawToken, "/ext/stream?id=4"));
+
+        jwtKey.set("otherKey");
+
+        assertThatThrownBy(() -> provider.authenticate(request(rawToken, "/ext/stream?id=4")))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    public void testAuthenticateRejectsExpiredToken() {
+        String rawToken = token("someKey", "/ext/stream?id=4", Instant.now().minus(1, ChronoUnit.MINUTES));
+
+        assertThatThrownBy(() -> provider.authenticate(request(rawToken, "/ext/stream?id=4")))
+                .isInstanceOf(CredentialsExpiredException.class);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ This file is part of Airsonic.
+
+ Airsonic is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Airsonic is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Airsonic.  If not, see <http://www.gnu.org/licenses/>.
+
+ Copyright 2025 (C) Y.Tory
+ */
+package org.airsonic.player.service;
+
+import org.airsonic.player.domain.MediaFile;
+import org.airsonic.player.domain.MediaFile.MediaType;
+import org.airsonic.player.domain.MusicFolder;
+import org.airsonic.player.domain.dto.AverageRating;
+import org.airsonic.player.domain.dto.MediaFileSummary;
+import org.airsonic.player.repository.AlbumRepository;
+import org.airsonic.player.repository.MediaFileRepository;
+import org.airsonic.player.repository.MusicFolderRepository;
+import org.airsonic.player.repository.StarredAlbumRepository;
+import org.airsonic.player.repository.StarredMediaFileRepository;
+import org.airsonic.player.repository.UserRatingRepository;
+import org.airsonic.player.service.AlbumListService.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class AlbumListServiceTest {
+
+    @Mock
+    private MusicFolderRepository musicFolderRepository;
+    @Mock
+    private MediaFileRepository mediaFileRepository;
+    @Mock
+    private StarredMediaFileRepository starredMediaFileRepository;
+    @Mock
+    private AlbumRepository albumRepository;
+    @Mock
+    private StarredAlbumRepository starredAlbumRepository;
+    @Mock
+    private UserRatingRepository userRatingRepository;
+
+    @InjectMocks
+    private AlbumListService albumListService;
+
+    private final MusicFolder folder = new MusicFolder(1, Paths.get("/music"), "Music", MusicFolder.Type.MEDIA, true, Instant.now());
+
+    @BeforeEach
+    public void setup() {
+        when(musicFolderRepository.findByDeleted(false)).thenReturn(List.of(folder));
+        when(userRatingRepository.findAverageRatingsByMediaType(MediaType.ALBUM)).thenReturn(List.of(new AverageRating(2, 4.5)));
+        when(albumRepository.findByFolderInAndPresentTrue(anyList(), any(Sort.class))).thenReturn(List.of());
+    }
+
+    @Test
+    public void listsAreLoadedOnceWithRatingsAveragedByTheDatabase() {
+        when(mediaFileRepository.findSummariesByFolderInAndMediaType(eq(List.of(folder)), eq(MediaType.ALBUM), any(Pageable.class)))
+                .thenReturn(List.of(summary(1, "b"), summary(2, "A")));
+
+        assertEquals(List.of(2, 1), ids(albumListService.getAlbums(Order.ALPHABETICAL_BY_NAME, 0, 10, List.of(folder))));
+        assertEquals(List.of(2), ids(albumListService.getAlbums(Order.HIGHEST, 0, 10, List.of(folder))));
+        assertEquals(4.5, albumListService.getAverageRating(2));
+        assertNull(albumListService.getAverageRating(1));
+
+        verify(mediaFileRepository).findSummariesByFolderInAndMediaType(anyList(), eq(MediaType.ALBUM), any(Pageable.class));
+        verify(userRatingRepository, never()).findAll();
+    }
+
+    @Test
+    public void listsAreReloadedAfterInvalidation() {
+        when(mediaFileRepository.findSummariesByFolderInAndMediaType(eq(List.of(folder)), eq(MediaType.ALBUM), any(Pageable.class)))
+                .thenReturn(List.of(summary(1, "b")), List.of(summary(1, "b"), summary(2, "A")));
+
+        assertEquals(List.of(1), ids(albumListService.getAlbums(Order.ALPHABETICAL_BY_NAME, 0, 10, List.of(folder))));
+        albumListService.invalidate();
+
+        assertEquals(List.of(2, 1), ids(albumListService.getAlbums(Order.ALPHABETICAL_BY_NAME, 0, 10, List.of(folder))));
+    }
+
+    @Test
+    public void listsLoadedWhileAnAlbumIsPlayedAreLoadedAgain() {
+        MediaFile played = new MediaFile();
+        played.setId(1);
+        played.setFolder(folder);
+        played.setPath("b");
+        played.setMediaType(MediaType.ALBUM);
+        played.setPresent(true);
+        played.setPlayCount(1);
+        when(mediaFileRepository.findSummariesByFolderInAndMediaType(eq(List.of(folder)), eq(MediaType.ALBUM), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    // the play lands after this read, so the loaded lists miss it
+                    albumListService.albumPlayed(played);
+                    return List.of(summary(1, "b"));
+                })
+                .thenReturn(List.of(MediaFileSummary.of(played)));
+
+        assertEquals(List.of(), ids(albumListService.getAlbums(Order.FREQUENT, 0, 10, List.of(folder))));
+
+        assertEquals(List.of(1), ids(albumListService.getAlbums(Order.FREQUENT, 0, 10, List.of(folder))));
+        verify(mediaFileRepository, times(2)).findSummariesByFolderInAndMediaType(anyList(), eq(MediaType.ALBUM), any(Pageable.class));
+    }
+
+    private MediaFileSummary summary(int id, String name) {
+        return new MediaFileSummary(id, folder.getId(), name, "", MediaType.ALBUM, name, name, "artist", 2000, "Rock",
+                Instant.now(), null, 0, null, null);
+    }
+
+    private static List<Integer> ids(List<MediaFileSummary> summaries) {
+        return summaries.stream().map(MediaFileSummary::id).toList();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ This file is part of Airsonic.
+
+ Airsonic is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Airsonic is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Airsonic.  If not, see <http://www.gnu.org/licenses/>.
+
+ Copyright 2025 (C) Y.Tory
+ */
+package org.airsonic.player.service;
+
+import org.airsonic.player.service.AlbumListService.Order;
+import org.airsonic.player.service.AlbumRankings.RankedAlbum;
+import org.airsonic.player.service.AlbumRankings.ViewKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AlbumRankingsTest {
+
+    private static final Instant NOW = Instant.now();
+
+    private AlbumRankings rankings;
+
+    @BeforeEach
+    public void setup() {
+        rankings = new AlbumRankings(List.of(
+                album(1, 1, "B", 1990, 5),
+                album(2, 1, "A", 2000, 0),
+                album(3, 2, "C", 1995, 3),
+                album(4, 1, "D", 1985, 1)),
+                Map.of(1, 3.0, 4, 4.5));
+    }
+
+    @Test
+    public void ranksByOrderWithinFolders() {
+        assertEquals(List.of(1, 4), page(Order.FREQUENT, Set.of(1)));
+        assertEquals(List.of(1, 3, 4), page(Order.FREQUENT, Set.of(1, 2)));
+        assertEquals(List.of(2, 1, 4), page(Order.ALPHABETICAL_BY_NAME, Set.of(1)));
+        assertEquals(List.of(4, 1), page(Order.HIGHEST, Set.of(1, 2)));
+        assertEquals(List.of(1, 3), rankings.page(ViewKey.byYear(Set.of(1, 2), 1990, 1999), 0, 10, null));
+        assertEquals(List.of(3, 1), rankings.page(ViewKey.byYear(Set.of(1, 2), 1999, 1990), 0, 10, null));
+    }
+
+    @Test
+    public void pagesRankings() {
+        assertEquals(List.of(2, 1), rankings.page(new ViewKey(Order.ALPHABETICAL_BY_NAME, Set.of(1), null), 0, 2, null));
+        assertEquals(List.of(4), rankings.page(new ViewKey(Order.ALPHABETICAL_BY_NAME, Set.of(1), null), 2, 2, null));
+        assertTrue(rankings.page(new ViewKey(Order.ALPHABETICAL_BY_NAME, Set.of(1), null), 3, 2, null).isEmpty());
+    }
+
+    @Test
+    public void updateMovesPlayedAlbum() {
+        assertEquals(List.of(1, 4), page(Order.FREQUENT, Set.of(1)));
+
+        rankings.update(album(4, 1, "D", 1985, 6));
+        rankings.update(album(2, 1, "A", 2000, 1));
+
+        assertEquals(List.of(4, 1, 2), page(Order.FREQUENT, Set.of(1)));
+        assertEquals(List.of(2, 1, 4), page(Order.ALPHABETICAL_BY_NAME, Set.of(1)));
+    }
+
+    @Test
+    public void updateRatingMovesRatedAlbum() {
+        assertEquals(List.of(4, 1), page(Order.HIGHEST, Set.of(1)));
+
+        rankings.updateRating(1, 5.0);
+        rankings.updateRating(2, 1.0);
+        rankings.updateRating(4, null);
+
+        assertEquals(List.of(1, 2), page(Order.HIGHEST, Set.of(1)));
+        assertEquals(5.0, rankings.getRating(1));
+    }
+
+    @Test
+    public void starredRankingsAreReloadedAfterInvalidation() {
+        ViewKey key = new ViewKey(Order.STARRED, Set.of(1, 2), "user");
+        assertEquals(List.of(3, 1), rankings.page(key, 0, 10, () -> List.of(3, 1)));
+        assertEquals(List.of(3, 1), rankings.page(key, 0, 10, () -> List.of(2)));
+
+        rankings.invalidateStarred("user");
+
+        assertEquals(List.of(2), rankings.page(key, 0, 10, () -> List.of(2)));
+    }
+
+    @Test
+    public void ranksNamesRegardlessOfCase() {
+        rankings = new AlbumRankings(List.of(
+                album(1, 1, "beta", 2000, 0),
+                album(2, 1, "Alpha", 2000, 0),
+                album(3, 1, "alpha", 2000, 0),
+                album(4, 1, "Gamma", 2000, 0),
+                new RankedAlbum(5, 1, null, "artist", 2000, "Rock", NOW, 0, null)),
+                Map.of());
+
+        assertEquals(List.of(5, 2, 3, 1, 4), page(Order.ALPHABETICAL_BY_NAME, Set.of(1)));
+    }
+
+    @Test
+    public void pagesStayConsistentAfterUpdates() {
+        ViewKey key = new ViewKey(Order.FREQUENT, Set.of(1, 2), null);
+        assertEquals(List.of(1, 3), rankings.page(key, 0, 2, null));
+
+        rankings.update(album(5, 2, "E", 2001, 4));
+        rankings.update(album(4, 1, "D", 1985, 2));
+
+        assertEquals(List.of(1, 5), rankings.page(key, 0, 2, null));
+        assertEquals(List.of(3, 4), rankings.page(key, 2, 2, null));
+        assertTrue(rankings.page(key, 4, 2, null).isEmpty());
+        assertTrue(rankings.page(key, 0, 0, null).isEmpty());
+    }
+
+    @Test
+    public void updateAddsNewAlbumToBuiltRankings() {
+        assertEquals(List.of(2, 1, 4), page(Order.ALPHABETICAL_BY_NAME, Set.of(1)));
+
+        rankings.update(album(5, 1, "0", 2010, 0));
+
+        assertEquals(List.of(5, 2, 1, 4), page(Order.ALPHABETICAL_BY_NAME, Set.of(1)));
+    }
+
+    @Test
+    public void starredRankingIsNotKeptWhenStarsChangeWhileItIsRead() {
+        ViewKey key = new ViewKey(Order.STARRED, Set.of(1, 2), "user");
+
+        assertEquals(List.of(3), rankings.page(key, 0, 10, () -> {
+            rankings.invalidateStarred("user");
+            return List.of(3);
+        }));
+
+        assertEquals(List.of(3, 1), rankings.page(key, 0, 10, () -> List.of(3, 1)));
+    }
+
+    private List<Integer> page(Order order, Set<Integer> folderIds) {
+        return rankings.page(new ViewKey(order, folderIds, null), 0, 10, null);
+    }
+
+    private static RankedAlbum album(int id, int folderId, String name, int year, int playCount) {
+        return new RankedAlbum(id, folderId, name, "artist", year, "Rock", NOW, playCount, playCount > 0 ? NOW : null);
+    }
+}
@@ -59,6 +59,9 @@ public class AlbumServiceTest {
     @Mock
     private StarredAlbumRepository starredAlbumRepository;
 
+    @Mock
+    private AlbumListService albumListService;
+
     @InjectMocks
     private AlbumService albumService;
 
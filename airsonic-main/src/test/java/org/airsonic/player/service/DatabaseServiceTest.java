@@ -2,6 +2,10 @@ package org.airsonic.player.service;
 
 import org.airsonic.player.config.AirsonicHomeConfig;
 import org.airsonic.player.dao.DatabaseDao;
+import org.airsonic.player.dao.RowStreamFormat;
+import org.airsonic.player.service.DatabaseService.BackupInfo;
+import org.airsonic.player.util.LegacyHsqlMigrationUtil;
+import org.airsonic.player.util.Util;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -15,11 +19,18 @@ import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -209,6 +220,144 @@ class DatabaseServiceTest {
         verify(brokerTemplate, times(7)).convertAndSend(anyString(), anyString());
     }
 
+    @Test
+    void testImportDBReportsFailure() throws Exception {
+        // Arrange
+        Path importDir = Files.createDirectories(tempDir.resolve("import-failure"));
+        Files.createFile(importDir.resolve(RowStreamFormat.FILE_NAME));
+        Path filePath = Files.createTempFile(tempDir, "airsonic.exportDB", ".xml");
+        when(settingsService.getDatabaseUrl()).thenReturn(String.format("jdbc:hsqldb:file:%s;", filePath));
+        doThrow(new SQLException("import failed")).when(databaseDao).importDB(any());
+
+        // Act
+        databaseService.importDB(importDir);
+
+        // Assert
+        verify(brokerTemplate).convertAndSend("/topic/importStatus", "Error with DB import, check logs...");
+        verify(brokerTemplate, never()).convertAndSend("/topic/importStatus", "Import complete. Cleaning up...");
+        verify(brokerTemplate).convertAndSend("/topic/importStatus", "ended");
+        assertFalse(Files.exists(importDir));
+    }
+
+    @Test
+    void testBackupIsVerifiedByOpeningItReadOnly() throws Exception {
+        // Arrange
+        Path dir = Files.createTempDirectory(tempDir, "backup");
+        String dbPath = dir.resolve("db").resolve("airsonic").toString();
+        String url = "jdbc:hsqldb:file:" + dbPath;
+        try (Connection connection = LegacyHsqlMigrationUtil.getHsqlDbConnection(url, "sa", "");
+                Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE databasechangelog (id VARCHAR(255), orderexecuted INT)");
+            statement.execute("INSERT INTO databasechangelog VALUES ('schema-1', 1)");
+        }
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(url, "sa", "", true);
+        DatabaseDao onlineDao = new DatabaseDao();
+        ReflectionTestUtils.setField(onlineDao, "jdbcTemplate", new JdbcTemplate(dataSource));
+        doAnswer(invocation -> {
+            onlineDao.backupOnline(invocation.getArgument(0));
+            return null;
+        }).when(databaseDao).backupOnline(any());
+        when(settingsService.getDatabaseUrl()).thenReturn(url + ";");
+        when(settingsService.getDatabaseUsername()).thenReturn("sa");
+        when(settingsService.getDatabasePassword()).thenReturn("");
+        when(settingsService.getDbBackupRetentionCount()).thenReturn(-1);
+
+        // Act
+        try {
+            databaseService.backup();
+        } finally {
+            new JdbcTemplate(dataSource).execute("SHUTDOWN");
+            dataSource.destroy();
+        }
+
+        // Assert
+        Path backup = dir.resolve("backups").resolve("db.backup.20200101000000.tar.gz");
+        assertTrue(Files.exists(backup));
+        BackupInfo info = readInfo(backup);
+        assertTrue(info.verified());
+        assertEquals(Files.size(backup), info.size());
+        verify(brokerTemplate).convertAndSend("/topic/backupStatus", "location: " + backup);
+    }
+
+    @Test
+    void testFailedVerificationKeepsLastTrustedBackup() throws Exception {
+        // Arrange
+        Path dir = Files.createTempDirectory(tempDir, "backup");
+        Path backups = Files.createDirectories(dir.resolve("backups"));
+        Path trusted = createBackup(backups, "20190101000000", true);
+        mockCorruptOnlineBackup(dir);
+        when(settingsService.getDbBackupRetentionCount()).thenReturn(1);
+
+        // Act
+        databaseService.backup();
+
+        // Assert
+        Path corrupt = backups.resolve("db.backup.20200101000000.tar.gz");
+        assertTrue(Files.exists(corrupt));
+        assertFalse(readInfo(corrupt).verified());
+        assertTrue(Files.exists(trusted));
+        assertTrue(readInfo(trusted).verified());
+    }
+
+    @Test
+    void testBackupsKeepConfiguredNumberOfTrustedBackups() throws Exception {
+        // Arrange, oldest first
+        Path dir = Files.createTempDirectory(tempDir, "backup");
+        Path backups = Files.createDirectories(dir.resolve("backups"));
+        Path legacy = Files.createDirectories(backups.resolve("db.backup.20180101000000"));
+        setTimes(legacy, 0);
+        Path oldest = createBackup(backups, "20190101000000", true);
+        Path older = createBackup(backups, "20190201000000", true);
+        Path unverified = createBackup(backups, "20190301000000", false);
+        Path newest = createBackup(backups, "20190401000000", true);
+        Path otherDb = Files.write(backups.resolve("other.backup.20170101000000.tar.gz"), new byte[] { 0 });
+        setTimes(otherDb, 0);
+        mockCorruptOnlineBackup(dir);
+        when(settingsService.getDbBackupRetentionCount()).thenReturn(2);
+
+        // Act
+        databaseService.backup();
+
+        // Assert
+        assertTrue(Files.exists(backups.resolve("db.backup.20200101000000.tar.gz")));
+        assertTrue(Files.exists(newest));
+        assertTrue(Files.exists(unverified));
+        assertTrue(Files.exists(older));
+        assertFalse(Files.exists(oldest));
+        assertFalse(Files.exists(backups.resolve(oldest.getFileName() + ".json")));
+        assertFalse(Files.exists(legacy));
+        assertTrue(Files.exists(otherDb));
+    }
+
+    private void mockCorruptOnlineBackup(Path dir) {
+        when(settingsService.getDatabaseUrl()).thenReturn("jdbc:hsqldb:file:" + dir.resolve("db").resolve("airsonic") + ";");
+        doAnswer(invocation -> {
+            Files.write(invocation.<Path>getArgument(0), new byte[] { 1, 2, 3 });
+            return null;
+        }).when(databaseDao).backupOnline(any());
+    }
+
+    private static int backupCount = 1;
+
+    private static Path createBackup(Path backups, String timestamp, boolean verified) throws Exception {
+        Path backup = Files.write(backups.resolve("db.backup." + timestamp + ".tar.gz"), new byte[] { 0 });
+        setTimes(backup, backupCount++);
+        BackupInfo info = new BackupInfo(backup.getFileName().toString(), 1L, 1L, "", verified, Instant.EPOCH);
+        Util.getObjectMapper().writeValue(backups.resolve(backup.getFileName() + ".json").toFile(), info);
+        return backup;
+    }
+
+    /*
+     * Backups are ordered by creation time, which falls back to the modification time on some file systems.
+     */
+    private static void setTimes(Path backup, int order) throws Exception {
+        Files.setLastModifiedTime(backup, FileTime.from(Instant.parse("2019-01-01T00:00:00Z").plusSeconds(order)));
+    }
+
+    private static BackupInfo readInfo(Path backup) throws Exception {
+        return Util.getObjectMapper().readValue(backup.resolveSibling(backup.getFileName() + ".json").toFile(), BackupInfo.class);
+    }
+
     @ParameterizedTest
     @MethodSource("getFiles")
     void testImportDBNotDirectory(File file) throws Exception {
@@ -89,6 +89,30 @@ public class InternetRadioServiceTest {
         assertEquals(TEST_STREAM_URL_2, radioSources.get(1).getStreamUrl());
     }
 
+    @Test
+    public void testSourcesAreCached() throws Exception {
+
+        // given
+        InternetRadio radio1 = new InternetRadio(TEST_RADIO_NAME, TEST_PLAYLIST_URL_1, TEST_RADIO_HOMEPAGE, true,
+                Instant.now().truncatedTo(ChronoUnit.MICROS));
+        radio1.setId(2);
+        HttpURLConnection mockURLConnection1 = Mockito.mock(HttpURLConnection.class);
+        InputStream mockURLInputStream1 = new ByteArrayInputStream(TEST_STREAM_PLAYLIST_CONTENTS_1.getBytes());
+        doReturn(mockURLInputStream1).when(mockURLConnection1).getInputStream();
+        doReturn(HttpURLConnection.HTTP_OK).when(mockURLConnection1).getResponseCode();
+        doReturn(mockURLConnection1).when(internetRadioService).connectToURL(eq(URI.create(TEST_PLAYLIST_URL_1).toURL()));
+
+        // when
+        List<InternetRadioSource> first = internetRadioService.getInternetRadioSources(radio1);
+        List<InternetRadioSource> second = internetRadioService.getInternetRadioSources(radio1);
+
+        // then
+        // the second call is served from the cache without connecting again
+        assertEquals(2, second.size());
+        assertEquals(first, second);
+        verify(internetRadioService, times(1)).connectToURL(any());
+    }
+
     @Test
     public void testRedirects() throws Exception {
 
@@ -5,13 +5,17 @@ import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
 @ExtendWith(SpringExtension.class)
 public class JWTSecurityServiceTest {
@@ -35,6 +39,28 @@ public class JWTSecurityServiceTest {
         assertEquals("xyz", verify.getSubject());
     }
 
+    @Test
+    public void addReusableJWTTokenReusesUntilKeyChanges() {
+        AtomicReference<String> jwtKey = new AtomicReference<>("firstKey");
+        JWTSecurityService reusingService = new JWTSecurityService(new SettingsService() {
+            @Override
+            public String getJWTKey() {
+                return jwtKey.get();
+            }
+        });
+
+        String first = reusingService.addReusableJWTToken("xyz", "ext/stream?id=4");
+        assertEquals(first, reusingService.addReusableJWTToken("xyz", "ext/stream?id=4"));
+        assertNotEquals(first, reusingService.addReusableJWTToken("abc", "ext/stream?id=4"));
+
+        jwtKey.set("secondKey");
+        String second = reusingService.addReusableJWTToken("xyz", "ext/stream?id=4");
+        assertNotEquals(first, second);
+        String jwtToken = UriComponentsBuilder.fromUriString(second).build().getQueryParams().getFirst(
+                JWTSecurityService.JWT_PARAM_NAME);
+        JWT.require(JWTSecurityService.getAlgorithm("secondKey")).build().verify(jwtToken);
+    }
+
     private SettingsService settingsWithKey(String jwtKey) {
         return new SettingsService() {
             @Override
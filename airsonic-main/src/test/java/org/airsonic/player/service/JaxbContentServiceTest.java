@@ -25,6 +25,7 @@ import org.airsonic.player.domain.CoverArt;
 import org.airsonic.player.domain.MediaFile;
 import org.airsonic.player.domain.Player;
 import org.airsonic.player.domain.Playlist;
+import org.airsonic.player.domain.dto.MediaFileSummary;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -38,6 +39,8 @@ import org.subsonic.restapi.MediaType;
 
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -320,6 +323,47 @@ class JaxbContentServiceTest {
         }
     }
 
+    @Nested
+    class CreateJaxbDirectoryChildrenTest {
+        @Test
+        void createJaxbDirectoryChildren_usesBulkLookups() {
+            MediaFileSummary first = new MediaFileSummary(10, 1, "Artist/Album", "Artist", MediaFile.MediaType.ALBUM,
+                    null, "Album", "Artist", 2020, "Rock", Instant.ofEpochMilli(1000L), null, 3, null, null);
+            MediaFileSummary second = new MediaFileSummary(11, 1, "Artist/Other", "Artist", MediaFile.MediaType.ALBUM,
+                    "Other Title", "Other", "Artist", null, null, Instant.ofEpochMilli(2000L), null, 0, null, null);
+            List<MediaFileSummary> summaries = List.of(first, second);
+            when(mediaFileService.getParentIds(summaries)).thenReturn(Map.of(10, 5, 11, 5));
+            when(mediaFileService.getMediaFileStarredDates(List.of(10, 11), "user"))
+                    .thenReturn(Map.of(11, Instant.ofEpochMilli(3000L)));
+            when(ratingService.getRatingsForUser("user", List.of(10, 11))).thenReturn(Map.of(10, 4));
+            when(ratingService.getAverageRatings(List.of(10, 11))).thenReturn(Map.of(10, 3.5));
+            when(coverArtService.getMediaFileArt(10)).thenReturn(new CoverArt());
+            when(coverArtService.getMediaFileArt(11)).thenReturn(CoverArt.NULL_ART);
+
+            List<Child> children = service.createJaxbDirectoryChildren(summaries, "user");
+
+            assertEquals(2, children.size());
+            Child child = children.get(0);
+            assertEquals("10", child.getId());
+            assertEquals("5", child.getParent());
+            assertEquals("Album", child.getTitle());
+            assertTrue(child.isIsDir());
+            assertEquals("10", child.getCoverArt());
+            assertEquals(2020, child.getYear());
+            assertNull(child.getStarred());
+            assertEquals(4, child.getUserRating());
+            assertEquals(3.5, child.getAverageRating());
+            assertEquals(3L, child.getPlayCount());
+
+            Child other = children.get(1);
+            assertEquals("Other Title", other.getTitle());
+            assertNull(other.getCoverArt());
+            assertNotNull(other.getStarred());
+            assertNull(other.getUserRating());
+            verify(mediaFileService, never()).getParentOf(any());
+        }
+    }
+
     @Nested
     class CreateJaxbArtistFromMediaFileTest {
         @Test
@@ -3,6 +3,8 @@ package org.airsonic.player.service;
 import org.airsonic.player.domain.Lyrics;
 import org.airsonic.player.domain.MediaFile;
 import org.airsonic.player.repository.LyricsRepository;
+import org.airsonic.player.service.metadata.MetaDataParserFactory;
+import org.airsonic.player.util.FileUtil;
 import org.airsonic.player.util.MusicFolderTestData;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,10 +16,13 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -30,6 +35,8 @@ class LyricsServiceTest {
     private LyricsRepository lyricsRepository;
     @Mock
     private MediaFileService mediaFileService;
+    @Mock
+    private MetaDataParserFactory metaDataParserFactory;
     @InjectMocks
     private LyricsService lyricsService;
 
@@ -69,6 +76,7 @@ class LyricsServiceTest {
 
         Lyrics result = lyricsService.getLyricsFromMediaFile(mediaFile);
         verifyNoMoreInteractions(lyricsRepository);
+        verify(mediaFile, never()).getFullPath();
 
         assertEquals(lyrics, result);
     }
@@ -85,9 +93,130 @@ class LyricsServiceTest {
 
         // Simulate Files.exists() by using a spy
         Lyrics result = lyricsService.getLyricsFromMediaFile(mediaFile);
-        verifyNoMoreInteractions(lyricsRepository);
 
         assertNull(result);
+        ArgumentCaptor<Lyrics> captor = ArgumentCaptor.forClass(Lyrics.class);
+        verify(lyricsRepository).save(captor.capture());
+        assertEquals(LyricsService.SOURCE_NONE, captor.getValue().getSource());
+        assertEquals(3, captor.getValue().getMediaFileId());
+    }
+
+    @Test
+    void getLyricsFromMediaFile_shouldNotLookAgainIfSongIsUnchanged() {
+        when(mediaFile.isDirectory()).thenReturn(false);
+        when(mediaFile.getId()).thenReturn(4);
+        when(mediaFile.getChanged()).thenReturn(Instant.now().minusSeconds(60));
+        Lyrics marker = new Lyrics("", 4, LyricsService.SOURCE_NONE);
+        when(lyricsRepository.findByMediaFileId(eq(4))).thenReturn(Optional.of(marker));
+
+        Lyrics result = lyricsService.getLyricsFromMediaFile(mediaFile);
+
+        assertNull(result);
+        verify(mediaFile, never()).getFullPath();
+        verifyNoMoreInteractions(lyricsRepository);
+        verifyNoInteractions(metaDataParserFactory);
+    }
+
+    @Test
+    void getLyricsFromMediaFile_shouldLookAgainIfSongChanged() {
+        Path path = MusicFolderTestData.resolveLyricsFolderPath().resolve("simple.mp3");
+        when(mediaFile.isDirectory()).thenReturn(false);
+        when(mediaFile.isIndexedTrack()).thenReturn(false);
+        when(mediaFile.getId()).thenReturn(5);
+        when(mediaFile.getFullPath()).thenReturn(path);
+        Lyrics marker = new Lyrics("", 5, LyricsService.SOURCE_NONE);
+        when(mediaFile.getChanged()).thenReturn(marker.getUpdated().plusSeconds(60));
+        when(lyricsRepository.findByMediaFileId(eq(5))).thenReturn(Optional.of(marker));
+        when(lyricsRepository.save(any(Lyrics.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Lyrics result = lyricsService.getLyricsFromMediaFile(mediaFile);
+
+        assertNotNull(result);
+        assertEquals(LyricsService.SOURCE_FILE, result.getSource());
+        assertFalse(result.getLyrics().isEmpty());
+    }
+
+    @Test
+    void harvestLyrics_shouldReadLrcFileAgainIfItChanged() {
+        Path path = MusicFolderTestData.resolveLyricsFolderPath().resolve("simple.mp3");
+        Path lrcPath = path.resolveSibling("simple.lrc");
+        when(mediaFile.isAudio()).thenReturn(true);
+        when(mediaFile.isIndexedTrack()).thenReturn(false);
+        when(mediaFile.isPresent()).thenReturn(true);
+        when(mediaFile.getId()).thenReturn(6);
+        when(mediaFile.getLastScanned()).thenReturn(Instant.now());
+        when(mediaFile.getFullPath()).thenReturn(path);
+        Lyrics lyrics = new Lyrics("old lyrics", 6, LyricsService.SOURCE_FILE);
+        lyrics.setLrcPath(lrcPath.toString());
+        lyrics.setLrcModified(Instant.EPOCH);
+        when(lyricsRepository.findByMediaFileId(eq(6))).thenReturn(Optional.of(lyrics));
+
+        lyricsService.harvestLyrics(mediaFile, null);
+
+        ArgumentCaptor<Lyrics> captor = ArgumentCaptor.forClass(Lyrics.class);
+        verify(lyricsRepository).save(captor.capture());
+        assertEquals(LyricsService.SOURCE_FILE, captor.getValue().getSource());
+        assertNotEquals("old lyrics", captor.getValue().getLyrics());
+        assertEquals(lrcPath.toString(), captor.getValue().getLrcPath());
+        assertEquals(FileUtil.lastModified(lrcPath).truncatedTo(ChronoUnit.MICROS), captor.getValue().getLrcModified());
+    }
+
+    @Test
+    void harvestLyrics_shouldKeepLyricsOfUnchangedLrcFile() {
+        Path path = MusicFolderTestData.resolveLyricsFolderPath().resolve("simple.mp3");
+        Path lrcPath = path.resolveSibling("simple.lrc");
+        when(mediaFile.isAudio()).thenReturn(true);
+        when(mediaFile.isIndexedTrack()).thenReturn(false);
+        when(mediaFile.isPresent()).thenReturn(true);
+        when(mediaFile.getId()).thenReturn(6);
+        when(mediaFile.getFullPath()).thenReturn(path);
+        Lyrics lyrics = new Lyrics("lyrics", 6, LyricsService.SOURCE_FILE);
+        lyrics.setLrcPath(lrcPath.toString());
+        lyrics.setLrcModified(FileUtil.lastModified(lrcPath).truncatedTo(ChronoUnit.MICROS));
+        when(lyricsRepository.findByMediaFileId(eq(6))).thenReturn(Optional.of(lyrics));
+
+        lyricsService.harvestLyrics(mediaFile, null);
+
+        verifyNoMoreInteractions(lyricsRepository);
+        verifyNoInteractions(metaDataParserFactory);
+    }
+
+    @Test
+    void harvestLyrics_shouldSkipUnchangedSong() {
+        when(mediaFile.isAudio()).thenReturn(true);
+        when(mediaFile.isIndexedTrack()).thenReturn(false);
+        when(mediaFile.isPresent()).thenReturn(true);
+        when(mediaFile.getLastScanned()).thenReturn(Instant.now());
+        when(mediaFile.getFullPath()).thenReturn(Path.of("lyrics.mp3"));
+        MediaFile parent = new MediaFile();
+        parent.setChanged(Instant.EPOCH);
+
+        lyricsService.harvestLyrics(mediaFile, parent);
+
+        verifyNoInteractions(lyricsRepository);
+        verifyNoInteractions(metaDataParserFactory);
+    }
+
+    @Test
+    void harvestLyrics_shouldUseTagsJustRead() {
+        MediaFile song = new MediaFile();
+        song.setId(7);
+        song.setMediaType(MediaFile.MediaType.MUSIC);
+        song.setPresent(true);
+        song.setFolder(MusicFolderTestData.getTestMusicFolders().get(0));
+        song.setPath("lyrics.mp3");
+        song.setLastScanned(Instant.now());
+        song.setEmbeddedLyrics(" la la la ");
+        when(lyricsRepository.findByMediaFileId(eq(7))).thenReturn(Optional.empty());
+
+        lyricsService.harvestLyrics(song, null);
+
+        ArgumentCaptor<Lyrics> captor = ArgumentCaptor.forClass(Lyrics.class);
+        verify(lyricsRepository).save(captor.capture());
+        assertEquals(LyricsService.SOURCE_EMBEDDED, captor.getValue().getSource());
+        assertEquals("la la la", captor.getValue().getLyrics());
+        assertNull(song.getEmbeddedLyrics());
+        verifyNoInteractions(metaDataParserFactory);
     }
 
     @Test
@@ -111,6 +240,8 @@ class LyricsServiceTest {
         assertEquals(3, result.getMediaFileId());
         assertEquals(1, result.getId());
         assertEquals("file", result.getSource());
+        assertEquals(path.resolveSibling("simple.lrc").toString(), result.getLrcPath());
+        assertNotNull(result.getLrcModified());
         assertNotNull(result.getCreated());
         assertNotNull(result.getUpdated());
 
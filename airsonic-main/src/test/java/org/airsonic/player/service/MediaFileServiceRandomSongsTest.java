@@ -0,0 +1,107 @@
+/*
+ This file is part of Airsonic.
+
+ Airsonic is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Airsonic is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Airsonic.  If not, see <http://www.gnu.org/licenses/>.
+
+ Copyright 2025 (C) Y.Tory
+ */
+package org.airsonic.player.service;
+
+import org.airsonic.player.domain.MediaFile;
+import org.airsonic.player.domain.MusicFolder;
+import org.airsonic.player.domain.MusicFolder.Type;
+import org.airsonic.player.domain.RandomSearchCriteria;
+import org.airsonic.player.repository.MediaFileRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class MediaFileServiceRandomSongsTest {
+
+    @Mock
+    private MediaFileRepository mediaFileRepository;
+
+    @InjectMocks
+    private MediaFileService mediaFileService;
+
+    private final MusicFolder folder = new MusicFolder(1, Paths.get("/music"), "Music", Type.MEDIA, true, Instant.now());
+
+    @Test
+    public void fewMatchingSongsAreReadAsAWhole() {
+        List<MediaFile> library = songs(1, 3);
+        when(mediaFileRepository.count(any(Specification.class))).thenReturn(3L);
+        when(mediaFileRepository.findAll(any(Specification.class))).thenReturn(library);
+
+        List<MediaFile> songs = mediaFileService.getRandomSongs(criteria(5), "user");
+
+        assertEquals(Set.copyOf(library), Set.copyOf(songs));
+        assertEquals(3, songs.size());
+    }
+
+    @Test
+    public void songsAreDrawnFromOneQueryOfRandomKeyRanges() {
+        List<MediaFile> ranges = songs(1, 10);
+        when(mediaFileRepository.count(any(Specification.class))).thenReturn(1000L);
+        when(mediaFileRepository.findAll(any(Specification.class))).thenReturn(ranges);
+
+        List<MediaFile> songs = mediaFileService.getRandomSongs(criteria(5), "user");
+
+        assertEquals(5, songs.size());
+        assertEquals(5, Set.copyOf(songs).size());
+        assertTrue(ranges.containsAll(songs));
+        verify(mediaFileRepository, times(1)).findAll(any(Specification.class));
+    }
+
+    @Test
+    public void rangesAreDrawnAgainUntilEnoughSongsAreFound() {
+        when(mediaFileRepository.count(any(Specification.class))).thenReturn(1000L);
+        when(mediaFileRepository.findAll(any(Specification.class))).thenReturn(List.of(), songs(1, 1), songs(2, 2));
+
+        List<MediaFile> songs = mediaFileService.getRandomSongs(criteria(2), "user");
+
+        assertEquals(2, songs.size());
+        verify(mediaFileRepository, times(3)).findAll(any(Specification.class));
+    }
+
+    private RandomSearchCriteria criteria(int count) {
+        return new RandomSearchCriteria(count, null, null, null, List.of(folder));
+    }
+
+    private List<MediaFile> songs(int fromId, int toId) {
+        return IntStream.rangeClosed(fromId, toId).mapToObj(id -> {
+            MediaFile song = new MediaFile();
+            song.setId(id);
+            song.setFolder(folder);
+            song.setPath("song" + id + ".mp3");
+            return song;
+        }).toList();
+    }
+}
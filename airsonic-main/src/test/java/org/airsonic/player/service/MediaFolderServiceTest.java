@@ -31,6 +31,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -154,6 +155,34 @@ public class MediaFolderServiceTest {
         verify(userRepository).findByUsername(TEST_USER_NAME);
     }
 
+    @Test
+    public void testGetMusicFolderIdsForUser() {
+        // given
+        Mockito.reset(musicFolderRepository);
+        User user = userRepository.findById(TEST_USER_NAME).get();
+        MusicFolder musicFolder = new MusicFolder(tempMusicFolder, "testMusicFolder", Type.MEDIA, true, Instant.now());
+        musicFolderRepository.save(musicFolder);
+        MusicFolder musicFolder2 = new MusicFolder(tempMusicFolder2, "testMusicFolder2", Type.MEDIA, true, Instant.now());
+        musicFolderRepository.save(musicFolder2);
+        user.addMusicFolder(musicFolder);
+        userRepository.save(user);
+
+        // when
+        Set<Integer> ids = mediaFolderService.getMusicFolderIdsForUser(TEST_USER_NAME);
+
+        // then
+        assertEquals(Set.of(musicFolder.getId()), ids);
+        assertThrows(UnsupportedOperationException.class, () -> ids.add(musicFolder2.getId()));
+
+        // caching test
+        mediaFolderService.getMusicFolderIdsForUser(TEST_USER_NAME);
+        verify(userRepository).findByUsername(TEST_USER_NAME);
+
+        // invalidated on user folder change
+        mediaFolderService.setMusicFoldersForUser(TEST_USER_NAME, List.of(musicFolder.getId(), musicFolder2.getId()));
+        assertEquals(Set.of(musicFolder.getId(), musicFolder2.getId()), mediaFolderService.getMusicFolderIdsForUser(TEST_USER_NAME));
+    }
+
     @Test
     public void testSetMusicFoldersForUser() {
         // given
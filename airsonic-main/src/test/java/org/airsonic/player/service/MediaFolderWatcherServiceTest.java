@@ -0,0 +1,142 @@
+package org.airsonic.player.service;
+
+import org.airsonic.player.config.AirsonicScanConfig;
+import org.airsonic.player.domain.MusicFolder;
+import org.airsonic.player.domain.MusicFolder.Type;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class MediaFolderWatcherServiceTest {
+
+    @Mock
+    private AirsonicScanConfig scanConfig;
+    @Mock
+    private PathWatcherService pathWatcherService;
+    @Mock
+    private MediaFolderService mediaFolderService;
+    @Mock
+    private MediaScannerService mediaScannerService;
+    @Mock
+    private TaskSchedulingService taskService;
+
+    @TempDir
+    private Path root;
+
+    private MusicFolder folder;
+    private MediaFolderWatcherService watcherService;
+
+    @BeforeEach
+    public void setUp() {
+        folder = new MusicFolder(1, root, "Music", Type.MEDIA, true, Instant.now());
+        when(mediaFolderService.getAllMusicFolders()).thenReturn(List.of(folder));
+        when(scanConfig.getWatchQuietPeriod()).thenReturn(60);
+        watcherService = new MediaFolderWatcherService(scanConfig, pathWatcherService, mediaFolderService, mediaScannerService, taskService);
+    }
+
+    @Test
+    public void changesAreScannedOnceTheDirectoryIsQuiet() throws Exception {
+        Path album = Files.createDirectory(root.resolve("Album"));
+        watcherService.processChanges();
+        BiConsumer<Path, WatchEvent<Path>> onModify = captureWatcher(album, 2);
+
+        onModify.accept(album, new Event(StandardWatchEventKinds.ENTRY_MODIFY, Path.of("01.mp3")));
+        watcherService.processChanges();
+        verify(mediaScannerService, never()).scanDirectories(anyList(), anyList());
+
+        when(scanConfig.getWatchQuietPeriod()).thenReturn(0);
+        Thread.sleep(10);
+        watcherService.processChanges();
+        watcherService.processChanges();
+        verify(mediaScannerService).scanDirectories(List.of(album), List.of());
+    }
+
+    @Test
+    public void changesAreKeptWhileTheLibraryIsScanned() throws Exception {
+        watcherService.processChanges();
+        BiConsumer<Path, WatchEvent<Path>> onModify = captureWatcher(root, 2);
+
+        onModify.accept(root, new Event(StandardWatchEventKinds.ENTRY_MODIFY, Path.of("01.mp3")));
+        when(mediaScannerService.isScanning()).thenReturn(true);
+        watcherService.processChanges();
+        verify(mediaScannerService, never()).scanDirectories(anyList(), anyList());
+
+        when(mediaScannerService.isScanning()).thenReturn(false);
+        when(scanConfig.getWatchQuietPeriod()).thenReturn(0);
+        Thread.sleep(10);
+        watcherService.processChanges();
+        verify(mediaScannerService).scanDirectories(List.of(root), List.of());
+    }
+
+    @Test
+    public void newDirectoriesAreWatchedAndScannedWithTheirSubdirectories() throws Exception {
+        watcherService.processChanges();
+        BiConsumer<Path, WatchEvent<Path>> onCreate = captureWatcher(root, 0);
+
+        Path album = Files.createDirectories(root.resolve("Album"));
+        Path disc = Files.createDirectories(album.resolve("CD1"));
+        when(mediaFolderService.getMusicFolderForFile(album, false, false)).thenReturn(Optional.of(folder));
+        onCreate.accept(root, new Event(StandardWatchEventKinds.ENTRY_CREATE, Path.of("Album")));
+        verify(pathWatcherService).setWatcher(eq("Media folder watcher: " + disc), eq(disc), any(), any(), any(), any());
+
+        when(scanConfig.getWatchQuietPeriod()).thenReturn(0);
+        Thread.sleep(10);
+        watcherService.processChanges();
+        verify(mediaScannerService).scanDirectories(List.of(root), List.of(album));
+    }
+
+    @Test
+    public void lostEventsStartALibraryScan() throws Exception {
+        watcherService.processChanges();
+        BiConsumer<Path, WatchEvent<Path>> onOverflow = captureWatcher(root, 3);
+
+        onOverflow.accept(root, null);
+        watcherService.processChanges();
+
+        verify(mediaScannerService).scanLibrary();
+        verify(mediaScannerService, never()).scanDirectories(anyList(), anyList());
+    }
+
+    /*
+     * Returns the callback registered for the directory: 0 create, 1 delete, 2 modify, 3 overflow.
+     */
+    @SuppressWarnings("unchecked")
+    private BiConsumer<Path, WatchEvent<Path>> captureWatcher(Path dir, int kind) throws Exception {
+        ArgumentCaptor<BiConsumer<Path, WatchEvent<Path>>> create = ArgumentCaptor.forClass(BiConsumer.class);
+        ArgumentCaptor<BiConsumer<Path, WatchEvent<Path>>> delete = ArgumentCaptor.forClass(BiConsumer.class);
+        ArgumentCaptor<BiConsumer<Path, WatchEvent<Path>>> modify = ArgumentCaptor.forClass(BiConsumer.class);
+        ArgumentCaptor<BiConsumer<Path, WatchEvent<Path>>> overflow = ArgumentCaptor.forClass(BiConsumer.class);
+        verify(pathWatcherService).setWatcher(eq("Media folder watcher: " + dir), eq(dir),
+                create.capture(), delete.capture(), modify.capture(), overflow.capture());
+        return List.of(create, delete, modify, overflow).get(kind).getValue();
+    }
+
+    private record Event(WatchEvent.Kind<Path> kind, Path context) implements WatchEvent<Path> {
+
+        @Override
+        public int count() {
+            return 1;
+        }
+    }
+}
@@ -1,15 +1,35 @@
 package org.airsonic.player.service;
 
 import org.airsonic.player.config.AirsonicScanConfig;
+import org.airsonic.player.domain.Album;
+import org.airsonic.player.domain.Artist;
+import org.airsonic.player.domain.MediaFile;
+import org.airsonic.player.domain.MediaFile.MediaType;
 import org.airsonic.player.domain.MediaLibraryStatistics;
+import org.airsonic.player.domain.MusicFolder;
+import org.airsonic.player.domain.MusicFolder.Type;
 import org.airsonic.player.service.search.IndexManager;
+import org.airsonic.player.service.websocket.AsyncWebSocketClient;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 
@@ -31,23 +51,158 @@ public class MediaScannerServiceUnitTest {
     @Mock
     private AlbumService albumService;
     @Mock
+    private AlbumListService albumListService;
+    @Mock
+    private LyricsService lyricsService;
+    @Mock
     private TaskSchedulingService taskService;
     @Mock
-    private SimpMessagingTemplate messagingTemplate;
+    private AsyncWebSocketClient asyncWebSocketClient;
     @Mock
     IndexManager indexManager;
     @Mock
     AirsonicScanConfig scanConfig;
+    @Mock
+    TaskExecutor pathScanThreadPool;
 
     @Test
     public void neverScanned() {
         when(settingsService.getIndexCreationInterval()).thenReturn(-1);
         when(settingsService.getIndexCreationHour()).thenReturn(-1);
         when(indexManager.getStatistics()).thenReturn(null);
-        MediaScannerService mediaScannerService = new MediaScannerService(settingsService, indexManager, playlistFileService, mediaFileService, mediaFolderService, coverArtService, artistService, albumService, taskService, messagingTemplate, scanConfig);
+        MediaScannerService mediaScannerService = new MediaScannerService(settingsService, indexManager, playlistFileService, mediaFileService, mediaFolderService, coverArtService, artistService, albumService, albumListService, lyricsService, taskService, asyncWebSocketClient, scanConfig, pathScanThreadPool);
         assertTrue(mediaScannerService.neverScanned());
 
         when(indexManager.getStatistics()).thenReturn(new MediaLibraryStatistics());
         assertFalse(mediaScannerService.neverScanned());
     }
+
+    @Test
+    public void scanPathsRecountsAlbumsOfNewSongs() {
+        when(settingsService.getIndexCreationInterval()).thenReturn(-1);
+        when(settingsService.getIndexCreationHour()).thenReturn(-1);
+        MediaScannerService mediaScannerService = new MediaScannerService(settingsService, indexManager, playlistFileService, mediaFileService, mediaFolderService, coverArtService, artistService, albumService, albumListService, lyricsService, taskService, asyncWebSocketClient, scanConfig, pathScanThreadPool);
+
+        MusicFolder folder = new MusicFolder(1, Paths.get("/music"), "Music", Type.MEDIA, true, Instant.now());
+        MediaFile uploaded = song(folder, "Disc 2", 120.0);
+        MediaFile existing = song(folder, "Disc 1", 60.0);
+        existing.setAlbumArtist("Artist");
+        when(mediaFileService.rescanDirectory(Paths.get("/music/Artist/Album/Disc 2"), false)).thenReturn(List.of(uploaded));
+        when(mediaFileService.getSongsForAlbum("Artist", "Album")).thenReturn(List.of(existing, uploaded));
+        when(albumService.getAlbumByArtistAndName("Artist", "Album")).thenReturn(Optional.empty());
+        when(mediaFolderService.getAllMusicFolders()).thenReturn(List.of(folder));
+
+        List<MediaFile> scanned = mediaScannerService.scanPaths(List.of(
+                Paths.get("/music/Artist/Album/Disc 2/01.mp3"), Paths.get("/music/Artist/Album/Disc 2/02.mp3")));
+
+        assertEquals(List.of(uploaded), scanned);
+        assertEquals("Artist", uploaded.getAlbumArtist());
+        verify(mediaFileService).updateMediaFile(uploaded);
+        ArgumentCaptor<Album> album = ArgumentCaptor.forClass(Album.class);
+        verify(albumService).save(album.capture());
+        assertEquals(2, album.getValue().getSongCount());
+        assertEquals(180.0, album.getValue().getDuration());
+        assertTrue(album.getValue().isPresent());
+        ArgumentCaptor<Artist> artist = ArgumentCaptor.forClass(Artist.class);
+        verify(artistService).save(artist.capture());
+        assertEquals("Artist", artist.getValue().getName());
+        verify(indexManager).index(album.getValue());
+        verify(indexManager).index(artist.getValue(), folder);
+    }
+
+    @Test
+    public void scanPathsKeepsTheAlbumDirectoryAndTheYearOfMostSongs() {
+        when(settingsService.getIndexCreationInterval()).thenReturn(-1);
+        when(settingsService.getIndexCreationHour()).thenReturn(-1);
+        MediaScannerService mediaScannerService = new MediaScannerService(settingsService, indexManager, playlistFileService, mediaFileService, mediaFolderService, coverArtService, artistService, albumService, albumListService, lyricsService, taskService, asyncWebSocketClient, scanConfig, pathScanThreadPool);
+
+        MusicFolder folder = new MusicFolder(1, Paths.get("/music"), "Music", Type.MEDIA, true, Instant.now());
+        MediaFile first = song(folder, "Disc 1", 60.0);
+        MediaFile second = song(folder, "Disc 1", 60.0);
+        MediaFile uploaded = song(folder, "Disc 2", 60.0);
+        first.setYear(1999);
+        first.setGenre("Rock");
+        second.setYear(1999);
+        uploaded.setYear(2005);
+        uploaded.setGenre("Pop");
+        Album existing = new Album();
+        existing.setName("Album");
+        existing.setArtist("Artist");
+        existing.setPath("Artist/Album/Disc 1");
+        existing.setFolder(folder);
+        existing.setPresent(true);
+        when(mediaFileService.rescanDirectory(Paths.get("/music/Artist/Album/Disc 2"), false)).thenReturn(List.of(uploaded));
+        when(mediaFileService.getSongsForAlbum("Artist", "Album")).thenReturn(List.of(first, second, uploaded));
+        when(albumService.getAlbumByArtistAndName("Artist", "Album")).thenReturn(Optional.of(existing));
+        when(mediaFolderService.getAllMusicFolders()).thenReturn(List.of(folder));
+
+        mediaScannerService.scanPaths(List.of(Paths.get("/music/Artist/Album/Disc 2/01.mp3")));
+
+        verify(albumService).save(existing);
+        assertEquals("Artist/Album/Disc 1", existing.getPath());
+        assertEquals(1999, existing.getYear());
+        assertEquals("Rock", existing.getGenre());
+        assertEquals(3, existing.getSongCount());
+    }
+
+    @Test
+    public void scanPathsRescansDirectoriesOfFilesWithoutSubdirectories(@TempDir Path root) throws IOException {
+        when(settingsService.getIndexCreationInterval()).thenReturn(-1);
+        when(settingsService.getIndexCreationHour()).thenReturn(-1);
+        MediaScannerService mediaScannerService = new MediaScannerService(settingsService, indexManager, playlistFileService, mediaFileService, mediaFolderService, coverArtService, artistService, albumService, albumListService, lyricsService, taskService, asyncWebSocketClient, scanConfig, pathScanThreadPool);
+        Path album = Files.createDirectories(root.resolve("Album"));
+        Path single = Files.createFile(root.resolve("single.mp3"));
+        Path song = Files.createFile(album.resolve("song.mp3"));
+
+        mediaScannerService.scanPaths(List.of(single, song, album));
+
+        verify(mediaFileService).rescanDirectory(album, true);
+        verify(mediaFileService).rescanDirectory(root, false);
+        verify(mediaFileService, never()).rescanDirectory(root, true);
+        verify(mediaFileService, never()).rescanDirectory(album, false);
+    }
+
+    @Test
+    public void scanDirectoriesRecursesOnlyIntoNewDirectories(@TempDir Path root) throws IOException {
+        when(settingsService.getIndexCreationInterval()).thenReturn(-1);
+        when(settingsService.getIndexCreationHour()).thenReturn(-1);
+        MediaScannerService mediaScannerService = new MediaScannerService(settingsService, indexManager, playlistFileService, mediaFileService, mediaFolderService, coverArtService, artistService, albumService, albumListService, lyricsService, taskService, asyncWebSocketClient, scanConfig, pathScanThreadPool);
+        Path artist = Files.createDirectories(root.resolve("Artist"));
+        Path album = Files.createDirectories(artist.resolve("Album"));
+        Path disc = Files.createDirectories(album.resolve("CD1"));
+
+        mediaScannerService.scanDirectories(List.of(root, artist, disc), List.of(album, disc));
+
+        verify(mediaFileService).rescanDirectory(root, false);
+        verify(mediaFileService).rescanDirectory(artist, false);
+        verify(mediaFileService).rescanDirectory(album, true);
+        verify(mediaFileService, never()).rescanDirectory(root, true);
+        verify(mediaFileService, never()).rescanDirectory(artist, true);
+        verify(mediaFileService, never()).rescanDirectory(disc, false);
+        verify(mediaFileService, never()).rescanDirectory(disc, true);
+    }
+
+    @Test
+    public void scanPathsInBackgroundCompletesOnceScanned(@TempDir Path root) throws Exception {
+        when(settingsService.getIndexCreationInterval()).thenReturn(-1);
+        when(settingsService.getIndexCreationHour()).thenReturn(-1);
+        MediaScannerService mediaScannerService = new MediaScannerService(settingsService, indexManager, playlistFileService, mediaFileService, mediaFolderService, coverArtService, artistService, albumService, albumListService, lyricsService, taskService, asyncWebSocketClient, scanConfig, new SyncTaskExecutor());
+        Path song = Files.createFile(root.resolve("song.mp3"));
+        MediaFile scanned = new MediaFile();
+        when(mediaFileService.rescanDirectory(root, false)).thenReturn(List.of(scanned));
+
+        assertEquals(List.of(scanned), mediaScannerService.scanPathsInBackground(List.of(song)).get());
+    }
+
+    private static MediaFile song(MusicFolder folder, String disc, double duration) {
+        MediaFile song = new MediaFile();
+        song.setFolder(folder);
+        song.setMediaType(MediaType.MUSIC);
+        song.setPresent(true);
+        song.setArtist("Artist");
+        song.setAlbumName("Album");
+        song.setParentPath("Artist/Album/" + disc);
+        song.setDuration(duration);
+        return song;
+    }
 }
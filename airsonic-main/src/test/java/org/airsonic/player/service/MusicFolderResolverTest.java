@@ -0,0 +1,48 @@
+package org.airsonic.player.service;
+
+import org.airsonic.player.domain.MusicFolder;
+import org.airsonic.player.domain.MusicFolder.Type;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MusicFolderResolverTest {
+
+    private final MusicFolder music = new MusicFolder(1, Paths.get("/music"), "Music", Type.MEDIA, true, Instant.now());
+    private final MusicFolder classical = new MusicFolder(2, Paths.get("/music/classical"), "Classical", Type.MEDIA, true, Instant.now());
+    private final MusicFolder disabled = new MusicFolder(3, Paths.get("/music/jazz"), "Jazz", Type.MEDIA, false, Instant.now());
+    private final MusicFolder musicals = new MusicFolder(4, Paths.get("/musicals"), "Musicals", Type.MEDIA, true, Instant.now());
+
+    private final MusicFolderResolver resolver = new MusicFolderResolver(
+            List.of(music, classical, disabled, musicals), Set.of(1, 3, 4));
+
+    @Test
+    public void testResolveReturnsDeepestFolder() {
+        assertThat(resolver.resolve(Paths.get("/music/pop/a.mp3"), false, true)).contains(music);
+        assertThat(resolver.resolve(Paths.get("/music/classical/b.flac"), false, true)).contains(classical);
+        assertThat(resolver.resolve(Paths.get("/music/classical/../pop/a.mp3"), false, true)).contains(music);
+        assertThat(resolver.resolve(Paths.get("/musicals/c.mp3"), false, true)).contains(musicals);
+        assertThat(resolver.resolve(Paths.get("/other/d.mp3"), true, true)).isEmpty();
+    }
+
+    @Test
+    public void testResolveSkipsDisabledAndNonExistingFolders() {
+        assertThat(resolver.resolve(Paths.get("/music/jazz/e.mp3"), false, true)).contains(music);
+        assertThat(resolver.resolve(Paths.get("/music/jazz/e.mp3"), true, true)).contains(disabled);
+        assertThat(resolver.resolve(Paths.get("/music/classical/b.flac"), false, false)).contains(music);
+    }
+
+    @Test
+    public void testWithExistingIdsKeepsFolders() {
+        MusicFolderResolver updated = resolver.withExistingIds(Set.of(2));
+        assertThat(updated.getFolders()).isEqualTo(resolver.getFolders());
+        assertThat(updated.exists(classical)).isTrue();
+        assertThat(updated.exists(music)).isFalse();
+        assertThat(updated.resolve(Paths.get("/music/classical/b.flac"), false, false)).contains(classical);
+    }
+}
@@ -19,6 +19,7 @@
 package org.airsonic.player.service;
 
 import com.google.common.collect.ImmutableMap;
+import org.airsonic.player.ajax.PlayQueueChange;
 import org.airsonic.player.domain.MediaFile;
 import org.airsonic.player.domain.PlayQueue;
 import org.airsonic.player.domain.Player;
@@ -50,9 +51,12 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -105,14 +109,14 @@ public class PlayQueueServiceTest {
             when(mockedPlayer.getId()).thenReturn(1);
 
             // Verify websocketClient is called to send message
-            when(webSocketClient.sendToUser(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+            when(webSocketClient.sendLatestToUser(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
 
             // Test
             playQueueService.start(mockedPlayer);
 
             // then
             verify(mockedPlayQueue).setStatus(PlayQueue.Status.PLAYING);
-            verify(webSocketClient).sendToUser("testuser", "/queue/playqueues/1/playstatus", PlayQueue.Status.PLAYING);
+            verify(webSocketClient).sendLatestToUser("testuser", "/queue/playqueues/1/playstatus", PlayQueue.Status.PLAYING);
         }
 
         @Test
@@ -123,14 +127,14 @@ public class PlayQueueServiceTest {
             when(mockedPlayer.getId()).thenReturn(1);
 
             // Verify websocketClient is called to send message
-            when(webSocketClient.sendToUser(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+            when(webSocketClient.sendLatestToUser(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
 
             // Test
             playQueueService.stop(mockedPlayer);
 
             // then
             verify(mockedPlayQueue).setStatus(PlayQueue.Status.STOPPED);
-            verify(webSocketClient).sendToUser("testuser", "/queue/playqueues/1/playstatus", PlayQueue.Status.STOPPED);
+            verify(webSocketClient).sendLatestToUser("testuser", "/queue/playqueues/1/playstatus", PlayQueue.Status.STOPPED);
         }
 
         @ParameterizedTest
@@ -146,14 +150,14 @@ public class PlayQueueServiceTest {
             when(mockedPlayQueue.getStatus()).thenReturn(initialStatus);
 
             // Verify websocketClient is called to send message
-            when(webSocketClient.sendToUser(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+            when(webSocketClient.sendLatestToUser(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
 
             // Test
             playQueueService.toggleStartStop(mockedPlayer);
 
             // then
             verify(mockedPlayQueue).setStatus(expectedStatus);
-            verify(webSocketClient).sendToUser("testuser", "/queue/playqueues/1/playstatus", expectedStatus);
+            verify(webSocketClient).sendLatestToUser("testuser", "/queue/playqueues/1/playstatus", expectedStatus);
         }
 
         @Test
@@ -170,7 +174,7 @@ public class PlayQueueServiceTest {
 
             // then
             verify(webSocketClient).sendToUser("testuser", "/queue/playqueues/1/skip", ImmutableMap.of("index", 2, "offset", 3L));
-            verify(webSocketClient).sendToUser("testuser", "/queue/playqueues/1/playstatus", PlayQueue.Status.PLAYING);
+            verify(webSocketClient).sendLatestToUser("testuser", "/queue/playqueues/1/playstatus", PlayQueue.Status.PLAYING);
             verify(mockedPlayQueue).setIndex(2);
         }
     }
@@ -245,6 +249,95 @@ public class PlayQueueServiceTest {
         assertEquals("testuser", savedPlayQueue.getChangedBy());
     }
 
+    @Test
+    public void testSavingPositionOfUnchangedPlayQueueIsDeferred() {
+        // given
+        when(mockedPlayer.getPlayQueue()).thenReturn(mockedPlayQueue);
+        List<MediaFile> files = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            MediaFile mediaFile = new MediaFile();
+            mediaFile.setId(i);
+            files.add(mediaFile);
+        }
+        when(mockedPlayer.getUsername()).thenReturn("testuser");
+        when(mockedPlayQueue.getFiles()).thenReturn(files);
+        when(mockedPlayQueue.getFile(anyInt())).thenAnswer(invocation -> files.get(invocation.getArgument(0, Integer.class)));
+        when(savedPlayQueueRepository.findByUsername("testuser")).thenReturn(Optional.empty());
+        doAnswer(invocation -> {
+            SavedPlayQueue savedPlayQueue = invocation.getArgument(0, SavedPlayQueue.class);
+            savedPlayQueue.setId(1);
+            return savedPlayQueue;
+        }).when(savedPlayQueueRepository).save(any());
+        playQueueService.savePlayQueue(mockedPlayer, 0, 10L);
+
+        // when
+        int id = playQueueService.savePlayQueue(mockedPlayer, 1, 20L);
+        playQueueService.flushSavedPositions();
+
+        // then
+        assertEquals(1, id);
+        verify(savedPlayQueueRepository, times(1)).save(any());
+        verify(savedPlayQueueRepository).updatePosition(eq("testuser"), anyString(), eq(files.get(1)), eq(20L), any(), eq("testuser"));
+    }
+
+    @Test
+    public void testRemoveSendsChange() {
+        // given
+        PlayQueue playQueue = createPlayQueue(5);
+        long baseVersion = playQueue.getVersion();
+        when(webSocketClient.sendToUser(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        playQueueService.remove(mockedPlayer, new ArrayList<>(List.of(3, 1, 1, 9)));
+
+        // then
+        PlayQueueChange change = captureChange();
+        assertEquals(PlayQueueChange.Type.REMOVE, change.getType());
+        assertEquals(List.of(1, 3), change.getIndexes());
+        assertEquals(baseVersion, change.getBaseVersion());
+        assertEquals(playQueue.getVersion(), change.getVersion());
+        assertEquals(List.of(0, 2, 4), playQueue.getFiles().stream().map(MediaFile::getId).toList());
+        verifyNoInteractions(mediaFileService);
+    }
+
+    @Test
+    public void testRearrangeSendsNewOrder() {
+        // given
+        PlayQueue playQueue = createPlayQueue(3);
+        long baseVersion = playQueue.getVersion();
+        when(webSocketClient.sendToUser(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        playQueueService.rearrange(mockedPlayer, List.of(2, 0, 1));
+
+        // then
+        PlayQueueChange change = captureChange();
+        assertEquals(PlayQueueChange.Type.REORDER, change.getType());
+        assertEquals(List.of(2, 0, 1), change.getIndexes());
+        assertEquals(baseVersion, change.getBaseVersion());
+        assertEquals(baseVersion + 1, change.getVersion());
+        verifyNoInteractions(mediaFileService);
+    }
+
+    private PlayQueue createPlayQueue(int size) {
+        PlayQueue playQueue = new PlayQueue();
+        for (int i = 0; i < size; i++) {
+            MediaFile mediaFile = new MediaFile();
+            mediaFile.setId(i);
+            playQueue.addFiles(true, mediaFile);
+        }
+        when(mockedPlayer.getPlayQueue()).thenReturn(playQueue);
+        when(mockedPlayer.getUsername()).thenReturn("testuser");
+        when(mockedPlayer.getId()).thenReturn(1);
+        return playQueue;
+    }
+
+    private PlayQueueChange captureChange() {
+        ArgumentCaptor<PlayQueueChange> captor = ArgumentCaptor.forClass(PlayQueueChange.class);
+        verify(webSocketClient).sendToUser(eq("testuser"), eq("/queue/playqueues/1/changed"), captor.capture());
+        return captor.getValue();
+    }
+
     // TODO: test methods include broadcastPlayQueue
 
 
@@ -1,6 +1,7 @@
 package org.airsonic.player.service;
 
 import org.airsonic.player.domain.*;
+import org.airsonic.player.domain.dto.PlaylistStats;
 import org.airsonic.player.repository.*;
 import org.airsonic.player.service.PlaylistService.BroadcastedPlaylist;
 import org.airsonic.player.service.cache.PlaylistCache;
@@ -45,6 +46,9 @@ public class PlaylistServiceTest {
     @Mock
     private PlaylistCache playlistCache;
 
+    @Captor
+    private ArgumentCaptor<List<PlaylistMediaFile>> captor;
+
     private Playlist playlist;
     private User user;
     private User sharedUser;
@@ -66,6 +70,7 @@ public class PlaylistServiceTest {
         sharedUsers.add(sharedUser);
         playlist.setSharedUsers(sharedUsers);
 
+        lenient().when(playlistMediaFileRepository.getStatsByPlaylistId(anyInt())).thenReturn(new PlaylistStats(0L, 0.0));
     }
 
     @Test
@@ -179,25 +184,158 @@ public class PlaylistServiceTest {
         assertEquals(1000.0 * 10, result.getDuration());
         assertEquals(5, result.getFileCount());
         for (int i = 0; i < 5; i++) {
-            assertEquals(i, result.getPlaylistMediaFiles().get(i).getOrderIndex());
+            assertEquals(i * PlaylistService.ORDER_INDEX_GAP, result.getPlaylistMediaFiles().get(i).getOrderIndex());
             assertEquals(i, result.getPlaylistMediaFiles().get(i).getMediaFile().getId());
         }
     }
 
     @Test
     public void testRemoveFilesInPlaylistByIndices() {
-        List<PlaylistMediaFile> playlistMediaFiles = new ArrayList<>();
-        playlistMediaFiles.add(new PlaylistMediaFile(playlist, new MediaFile(), 0));
-        playlist.setPlaylistMediaFiles(playlistMediaFiles);
+        MediaFile mediaFile = new MediaFile();
+        mediaFile.setDuration(100.0);
+        PlaylistMediaFile entry = new PlaylistMediaFile(playlist, mediaFile, 0);
+        playlist.setFileCount(1);
+        playlist.setDuration(100.0);
         when(playlistRepository.findById(anyInt())).thenReturn(Optional.of(playlist));
-        assertEquals(1, playlist.getPlaylistMediaFiles().size());
+        when(playlistMediaFileRepository.getStatsByPlaylistId(1)).thenReturn(new PlaylistStats(0L, 0.0));
+        when(playlistMediaFileRepository.findByPlaylistIdOrderByOrderIndexAscIdAsc(eq(1), any(OffsetBasedPageRequest.class))).thenReturn(List.of(entry));
 
         playlistService.removeFilesInPlaylistByIndices(1, List.of(0));
 
         verify(playlistCache).removePlaylistById(anyInt());
         verify(playlistRepository).findById(anyInt());
+        verify(playlistMediaFileRepository).deleteAll(List.of(entry));
         verify(playlistRepository).save(any(Playlist.class));
-        assertEquals(0, playlist.getPlaylistMediaFiles().size());
+        assertEquals(0, playlist.getFileCount());
+        assertEquals(0.0, playlist.getDuration());
+    }
+
+    @Test
+    public void testRemoveFilesInPlaylistByIndicesFetchesContiguousRanges() {
+        when(playlistRepository.findById(anyInt())).thenReturn(Optional.of(playlist));
+        when(playlistMediaFileRepository.findByPlaylistIdOrderByOrderIndexAscIdAsc(eq(1), any(OffsetBasedPageRequest.class))).thenReturn(Collections.emptyList());
+
+        playlistService.removeFilesInPlaylistByIndices(1, List.of(5, 1, 2, 3, 7, 8), true);
+
+        ArgumentCaptor<OffsetBasedPageRequest> pageCaptor = ArgumentCaptor.forClass(OffsetBasedPageRequest.class);
+        verify(playlistMediaFileRepository, times(3)).findByPlaylistIdOrderByOrderIndexAscIdAsc(eq(1), pageCaptor.capture());
+        assertEquals(List.of(1L, 5L, 7L), pageCaptor.getAllValues().stream().map(OffsetBasedPageRequest::getOffset).toList());
+        assertEquals(List.of(3, 1, 2), pageCaptor.getAllValues().stream().map(OffsetBasedPageRequest::getPageSize).toList());
+        verify(playlistMediaFileRepository, never()).deleteAll(anyList());
+    }
+
+    @Test
+    public void testRemoveFilesInPlaylistByPresentIndicesDropsEntriesNotPresent() {
+        MediaFile present = new MediaFile();
+        present.setPresent(true);
+        present.setDuration(100.0);
+        MediaFile gone = new MediaFile();
+        gone.setPresent(false);
+        gone.setDuration(50.0);
+        PlaylistMediaFile presentEntry = new PlaylistMediaFile(playlist, present, 0);
+        PlaylistMediaFile goneEntry = new PlaylistMediaFile(playlist, gone, PlaylistService.ORDER_INDEX_GAP);
+        playlist.setFileCount(3);
+        playlist.setDuration(250.0);
+        when(playlistRepository.findById(anyInt())).thenReturn(Optional.of(playlist));
+        when(playlistMediaFileRepository.getStatsByPlaylistId(1)).thenReturn(new PlaylistStats(1L, 100.0));
+        when(playlistMediaFileRepository.findByPlaylistIdAndMediaFilePresentFalse(1)).thenReturn(List.of(goneEntry));
+        when(playlistMediaFileRepository.findByPlaylistIdAndMediaFilePresentTrueOrderByOrderIndexAscIdAsc(eq(1), any(OffsetBasedPageRequest.class))).thenReturn(List.of(presentEntry));
+
+        playlistService.removeFilesInPlaylistByIndices(1, List.of(0), false);
+
+        verify(playlistMediaFileRepository).deleteAll(List.of(goneEntry));
+        verify(playlistMediaFileRepository).deleteAll(List.of(presentEntry));
+        assertEquals(1, playlist.getFileCount());
+        assertEquals(100.0, playlist.getDuration());
+    }
+
+    @Test
+    public void testAppendFilesToPlaylist() {
+        MediaFile mediaFile = new MediaFile();
+        mediaFile.setDuration(100.0);
+        playlist.setFileCount(2);
+        playlist.setDuration(50.0);
+        when(playlistRepository.findById(anyInt())).thenReturn(Optional.of(playlist));
+        when(playlistMediaFileRepository.getStatsByPlaylistId(1)).thenReturn(new PlaylistStats(4L, 250.0));
+        when(playlistMediaFileRepository.findMaxOrderIndexByPlaylistId(1)).thenReturn(Optional.of(PlaylistService.ORDER_INDEX_GAP));
+
+        playlistService.appendFilesToPlaylist(1, List.of(mediaFile, mediaFile));
+
+        verify(playlistMediaFileRepository).saveAll(captor.capture());
+        assertEquals(2, captor.getValue().size());
+        assertEquals(2 * PlaylistService.ORDER_INDEX_GAP, captor.getValue().get(0).getOrderIndex());
+        assertEquals(3 * PlaylistService.ORDER_INDEX_GAP, captor.getValue().get(1).getOrderIndex());
+        assertEquals(4, playlist.getFileCount());
+        assertEquals(250.0, playlist.getDuration());
+    }
+
+    @Test
+    public void testInsertFilesInPlaylistUsesGap() {
+        MediaFile mediaFile = new MediaFile();
+        mediaFile.setDuration(10.0);
+        PlaylistMediaFile prev = new PlaylistMediaFile(playlist, new MediaFile(), 0);
+        PlaylistMediaFile next = new PlaylistMediaFile(playlist, new MediaFile(), 300);
+        when(playlistRepository.findById(anyInt())).thenReturn(Optional.of(playlist));
+        when(playlistMediaFileRepository.findByPlaylistIdOrderByOrderIndexAscIdAsc(eq(1), any(OffsetBasedPageRequest.class))).thenReturn(List.of(next));
+        when(playlistMediaFileRepository.findFirstByPlaylistIdAndOrderIndexLessThanOrderByOrderIndexDesc(1, 300)).thenReturn(Optional.of(prev));
+
+        playlistService.insertFilesInPlaylist(1, 1, List.of(mediaFile, mediaFile), true);
+
+        verify(playlistMediaFileRepository).saveAll(captor.capture());
+        assertEquals(100, captor.getValue().get(0).getOrderIndex());
+        assertEquals(200, captor.getValue().get(1).getOrderIndex());
+        verify(playlistMediaFileRepository, never()).findByPlaylistIdOrderByOrderIndexAscIdAsc(anyInt());
+    }
+
+    @Test
+    public void testInsertFilesInPlaylistRenumbersWhenGapIsExhausted() {
+        MediaFile mediaFile = new MediaFile();
+        mediaFile.setDuration(10.0);
+        PlaylistMediaFile first = new PlaylistMediaFile(playlist, new MediaFile(), 0);
+        first.setId(1);
+        PlaylistMediaFile second = new PlaylistMediaFile(playlist, new MediaFile(), 1);
+        second.setId(2);
+        when(playlistRepository.findById(anyInt())).thenReturn(Optional.of(playlist));
+        when(playlistMediaFileRepository.findByPlaylistIdOrderByOrderIndexAscIdAsc(eq(1), any(OffsetBasedPageRequest.class))).thenReturn(List.of(second));
+        when(playlistMediaFileRepository.findFirstByPlaylistIdAndOrderIndexLessThanOrderByOrderIndexDesc(1, 1)).thenReturn(Optional.of(first));
+        when(playlistMediaFileRepository.findByPlaylistIdOrderByOrderIndexAscIdAsc(1)).thenReturn(List.of(first, second));
+
+        playlistService.insertFilesInPlaylist(1, 1, List.of(mediaFile), true);
+
+        int gap = PlaylistService.ORDER_INDEX_GAP;
+        assertEquals(0, first.getOrderIndex());
+        assertEquals(2 * gap, second.getOrderIndex());
+        verify(playlistMediaFileRepository, times(2)).saveAll(captor.capture());
+        PlaylistMediaFile inserted = captor.getAllValues().get(1).get(0);
+        assertTrue(inserted.getOrderIndex() > first.getOrderIndex());
+        assertTrue(inserted.getOrderIndex() < second.getOrderIndex());
+    }
+
+    @Test
+    public void testMoveFilesInPlaylist() {
+        // entries at positions 0..3, move position 3 in front of position 1
+        List<PlaylistMediaFile> entries = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            PlaylistMediaFile entry = new PlaylistMediaFile(playlist, new MediaFile(), i * PlaylistService.ORDER_INDEX_GAP);
+            entry.setId(i);
+            entries.add(entry);
+        }
+        when(playlistRepository.findById(anyInt())).thenReturn(Optional.of(playlist));
+        when(playlistMediaFileRepository.findByPlaylistIdOrderByOrderIndexAscIdAsc(eq(1), any(OffsetBasedPageRequest.class))).thenAnswer(invocation -> {
+            OffsetBasedPageRequest page = invocation.getArgument(1);
+            int from = (int) page.getOffset();
+            return entries.subList(from, Math.min(entries.size(), from + page.getPageSize()));
+        });
+        when(playlistMediaFileRepository.findFirstByPlaylistIdAndOrderIndexLessThanOrderByOrderIndexDesc(1, PlaylistService.ORDER_INDEX_GAP))
+                .thenReturn(Optional.of(entries.get(0)));
+
+        playlistService.moveFilesInPlaylist(1, List.of(3), 1, true);
+
+        int moved = entries.get(3).getOrderIndex();
+        assertTrue(moved > entries.get(0).getOrderIndex());
+        assertTrue(moved < entries.get(1).getOrderIndex());
+        verify(playlistMediaFileRepository).saveAll(List.of(entries.get(3)));
+        verify(playlistMediaFileRepository, never()).deleteAll(anyList());
     }
 
     @Test
@@ -57,6 +57,9 @@ public class RatingServiceTest {
     @Mock
     private SecurityService securityService;
 
+    @Mock
+    private AlbumListService albumListService;
+
     @InjectMocks
     private RatingService ratingService;
 
@@ -3,6 +3,7 @@ package org.airsonic.player.service;
 import org.airsonic.player.command.CredentialsManagementCommand;
 import org.airsonic.player.command.CredentialsManagementCommand.CredentialsCommand;
 import org.airsonic.player.config.AirsonicHomeConfig;
+import org.airsonic.player.domain.MediaFile;
 import org.airsonic.player.domain.User;
 import org.airsonic.player.domain.User.Role;
 import org.airsonic.player.domain.UserCredential;
@@ -255,4 +256,16 @@ public class SecurityServiceTest {
         assertEquals(1, userCredentialRepository.countByUserAndApp(testUser, App.AIRSONIC));
 
     }
+
+    @Test
+    public void readIsDeniedForMediaFileWithoutFolder() {
+
+        // given
+        MediaFile mediaFile = new MediaFile();
+        mediaFile.setPresent(true);
+
+        // when / then
+        assertFalse(securityService.isReadAllowed(mediaFile));
+        assertFalse(securityService.isReadAllowed(mediaFile, false));
+    }
 }
@@ -0,0 +1,89 @@
+package org.airsonic.player.service.metadata;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SeekIndexTestCase {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void testFlacSeekTable() throws IOException {
+        ByteBuffer flac = ByteBuffer.allocate(4 + 4 + 34 + 4 + 3 * 18);
+        flac.put("fLaC".getBytes(StandardCharsets.US_ASCII));
+        // STREAMINFO, 44100 Hz
+        flac.put(new byte[] {0, 0, 0, 34});
+        byte[] streamInfo = new byte[34];
+        streamInfo[10] = (byte) (44100 >> 12);
+        streamInfo[11] = (byte) (44100 >> 4);
+        streamInfo[12] = (byte) ((44100 & 0x0F) << 4);
+        flac.put(streamInfo);
+        // last block: SEEKTABLE with points at 0s and 10s, and a placeholder
+        flac.put(new byte[] {(byte) 0x83, 0, 0, 3 * 18});
+        flac.putLong(0).putLong(0).putShort((short) 4096);
+        flac.putLong(441000).putLong(1000).putShort((short) 4096);
+        flac.putLong(-1L).putLong(0).putShort((short) 0);
+        Path file = write("seek.flac", flac.array());
+
+        SeekIndex index = SeekIndex.read(file);
+
+        assertNotNull(index);
+        assertEquals(2, index.size());
+        long audioStart = flac.capacity();
+        assertEquals(audioStart, index.getByteOffset(0));
+        assertEquals(audioStart + 500, index.getByteOffset(5));
+        assertEquals(audioStart + 1000, index.getByteOffset(60));
+    }
+
+    @Test
+    public void testMp3XingTableOfContents() throws IOException {
+        ByteBuffer mp3 = ByteBuffer.allocate(4 + 32 + 8 + 8 + 100);
+        // MPEG 1 layer III, 128 kbps, 44100 Hz, stereo
+        mp3.put(new byte[] {(byte) 0xFF, (byte) 0xFB, (byte) 0x90, 0x00});
+        mp3.put(new byte[32]);
+        mp3.put("Xing".getBytes(StandardCharsets.US_ASCII)).putInt(0x07);
+        // 3828 frames of 1152 samples are 100 seconds
+        mp3.putInt(3828).putInt(256_000);
+        for (int i = 0; i < 100; i++) {
+            mp3.put((byte) (i * 2));
+        }
+        Path file = write("seek.mp3", mp3.array());
+
+        SeekIndex index = SeekIndex.read(file);
+
+        assertNotNull(index);
+        assertEquals(100, index.size());
+        // 25% of the duration is at 50/256 of the bytes
+        double duration = 3828 * 1152 / 44100.0;
+        assertEquals(0, index.getByteOffset(0));
+        assertEquals(50_000, index.getByteOffset(duration / 4));
+    }
+
+    @Test
+    public void testConstantBitRateMp3HasNoIndex() throws IOException {
+        byte[] mp3 = new byte[1024];
+        mp3[0] = (byte) 0xFF;
+        mp3[1] = (byte) 0xFB;
+        mp3[2] = (byte) 0x90;
+        Path file = write("cbr.mp3", mp3);
+
+        assertNull(SeekIndex.read(file));
+    }
+
+    private Path write(String name, byte[] content) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.write(file, content);
+        return file;
+    }
+}
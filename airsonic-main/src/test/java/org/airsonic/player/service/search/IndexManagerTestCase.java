@@ -242,6 +242,34 @@ public class IndexManagerTestCase {
 
     }
 
+    @Test
+    public void testIndexOutsideScan() throws Exception {
+        SearchCriteria criteriaSong = new SearchCriteria();
+        criteriaSong.setOffset(0);
+        criteriaSong.setCount(Integer.MAX_VALUE);
+        criteriaSong.setQuery("Gaspard");
+
+        SearchResult result = searchService.search(criteriaSong, musicFolders, IndexType.SONG);
+        assertEquals(2, result.getMediaFiles().size());
+        MediaFile song = result.getMediaFiles().get(0);
+
+        // no scan involved, the change only has to wait for the next refresh
+        indexManager.delete(song);
+        assertEquals(1, searchUntilSize(criteriaSong, 1));
+
+        indexManager.index(song);
+        assertEquals(2, searchUntilSize(criteriaSong, 2));
+    }
+
+    private int searchUntilSize(SearchCriteria criteria, int expected) throws InterruptedException {
+        int size = -1;
+        for (int i = 0; i < 50 && size != expected; i++) {
+            Thread.sleep(100);
+            size = searchService.search(criteria, musicFolders, IndexType.SONG).getMediaFiles().size();
+        }
+        return size;
+    }
+
     private void deleteMediaFile(MediaFile mediaFile) {
 
         mediaFileRepository.findByPathAndFolderAndStartPosition(mediaFile.getPath(), mediaFile.getFolder(), mediaFile.getStartPosition())
@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 /**
  * Test case for QueryFactory.
@@ -191,6 +192,19 @@ public class QueryFactoryTestCase {
         assertEquals("title:abc title:def*", query.toString(),"SearchByNameTitle");
     }
 
+    @Test
+    public void testSuggest() throws IOException {
+        Query query = queryFactory.suggest(QUERY_ENG_ONLY, SINGLE_FOLDERS, IndexType.ARTIST);
+        assertEquals("+artist:abc +artistPrefix:def (artist:def)^2.0 #(folder:" + PATH1 + ")",
+                query.toString(), "SuggestArtist");
+
+        query = queryFactory.suggest(QUERY_ENG_ONLY, MULTI_FOLDERS, IndexType.ALBUM_ID3);
+        assertEquals("+album:abc +albumPrefix:def (album:def)^2.0 #(folderId:" + FID1 + " folderId:" + FID2 + ")",
+                query.toString(), "SuggestAlbumId3");
+
+        assertNull(queryFactory.suggest(" ", SINGLE_FOLDERS, IndexType.SONG), "SuggestBlank");
+    }
+
     @Test
     public void testGetRandomSongs() throws IOException {
         RandomSearchCriteria criteria = new RandomSearchCriteria(50, "Classic Rock",
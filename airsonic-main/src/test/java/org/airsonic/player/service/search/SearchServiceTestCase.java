@@ -31,6 +31,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.subsonic.restapi.ArtistID3;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
@@ -433,6 +434,34 @@ public class SearchServiceTestCase {
         System.out.println("End. ");
     }
 
+    @Test
+    public void testSearchPaging() {
+
+        List<MusicFolder> allMusicFolders = musicFolderRepository.findByDeleted(false);
+
+        final SearchCriteria searchCriteria = new SearchCriteria();
+        searchCriteria.setQuery("Ravel - Chamber Music");
+        searchCriteria.setCount(Integer.MAX_VALUE);
+        searchCriteria.setOffset(0);
+        List<Integer> all = searchService.search(searchCriteria, allMusicFolders, IndexType.SONG)
+                .getMediaFiles().stream().map(MediaFile::getId).toList();
+        assertEquals(2, all.size(), "(0) Both songs are found at once.");
+
+        /*
+         * The second page continues after the last hit of the first one,
+         * and must be the same as slicing the full result.
+         */
+        searchCriteria.setCount(1);
+        List<Integer> paged = new ArrayList<>();
+        for (int offset = 0; offset < 3; offset++) {
+            searchCriteria.setOffset(offset);
+            SearchResult page = searchService.search(searchCriteria, allMusicFolders, IndexType.SONG);
+            assertEquals(2, page.getTotalHits(), "(1) Total hits do not depend on the page.");
+            page.getMediaFiles().forEach(m -> paged.add(m.getId()));
+        }
+        assertEquals(all, paged, "(2) Pages are the slices of the full result.");
+    }
+
     private static String[] createRandomWords(int count) {
         String[] randomStrings = new String[count];
         Random random = new Random();
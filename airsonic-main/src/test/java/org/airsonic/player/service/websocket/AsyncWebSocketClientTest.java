@@ -0,0 +1,126 @@
+package org.airsonic.player.service.websocket;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@ExtendWith(MockitoExtension.class)
+public class AsyncWebSocketClientTest {
+
+    @Mock
+    private SimpMessagingTemplate brokerTemplate;
+    @Mock
+    private TaskExecutor broadcastThreadPool;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private AsyncWebSocketClient client;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(client, "meterRegistry", meterRegistry);
+    }
+
+    @Test
+    public void testSendLatestToUserConflatesPendingUpdates() {
+        CompletableFuture<Void> first = client.sendLatestToUser("user", "/queue/playqueues/1/updated", 1);
+        CompletableFuture<Void> second = client.sendLatestToUser("user", "/queue/playqueues/1/updated", 2);
+        client.sendLatestToUser("other", "/queue/playqueues/1/updated", 3);
+
+        ArgumentCaptor<Runnable> tasks = ArgumentCaptor.forClass(Runnable.class);
+        verify(broadcastThreadPool, times(2)).execute(tasks.capture());
+        tasks.getAllValues().forEach(Runnable::run);
+
+        verify(brokerTemplate).convertAndSendToUser("user", "/queue/playqueues/1/updated", 2);
+        verify(brokerTemplate).convertAndSendToUser("other", "/queue/playqueues/1/updated", 3);
+        verifyNoMoreInteractions(brokerTemplate);
+        assertThat(first).isCompleted();
+        assertThat(second).isSameAs(first);
+        assertThat(client.getCoalescedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSendLatestDropsWhenPoolIsSaturated() {
+        doThrow(new TaskRejectedException("full")).doNothing().when(broadcastThreadPool).execute(any());
+
+        CompletableFuture<Void> dropped = client.sendLatest("/topic/scanStatus", "stale");
+
+        assertThat(dropped).isCompletedExceptionally();
+        assertThat(client.getDroppedCount()).isEqualTo(1);
+        verifyNoMoreInteractions(brokerTemplate);
+
+        // the next snapshot is sent as usual
+        CompletableFuture<Void> latest = client.sendLatest("/topic/scanStatus", "latest");
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(broadcastThreadPool, times(2)).execute(task.capture());
+        task.getValue().run();
+
+        assertThat(latest).isCompleted();
+        verify(brokerTemplate).convertAndSend("/topic/scanStatus", (Object) "latest");
+    }
+
+    @Test
+    public void testSendLatestCountsMessagesPerUserAndDestination() {
+        client.sendLatestToUser("user", "/queue/playqueues/1/updated", 1);
+        client.sendLatestToUser("user", "/queue/playqueues/1/updated", 2);
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(broadcastThreadPool).execute(task.capture());
+        task.getValue().run();
+
+        assertThat(count("user", "/queue/playqueues/1/updated", "sent")).isEqualTo(1);
+        assertThat(count("user", "/queue/playqueues/1/updated", "coalesced")).isEqualTo(1);
+        assertThat(count("user", "/queue/playqueues/1/updated", "dropped")).isZero();
+    }
+
+    private double count(String user, String destination, String outcome) {
+        return meterRegistry.get("airsonic.websocket.messages")
+                .tags("user", user, "destination", destination, "outcome", outcome)
+                .functionCounter().count();
+    }
+
+    @Test
+    public void testSendLatestWhileSendingIsSentAfterwardsInOrder() {
+        CompletableFuture<Void> second = new CompletableFuture<>();
+        doAnswer(invocation -> {
+            client.sendLatest("/topic/scanStatus", "scanning=false").thenRun(() -> second.complete(null));
+            return null;
+        }).when(brokerTemplate).convertAndSend("/topic/scanStatus", (Object) "scanning=true");
+
+        CompletableFuture<Void> first = client.sendLatest("/topic/scanStatus", "scanning=true");
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(broadcastThreadPool).execute(task.capture());
+        task.getValue().run();
+
+        InOrder inOrder = inOrder(brokerTemplate);
+        inOrder.verify(brokerTemplate).convertAndSend("/topic/scanStatus", (Object) "scanning=true");
+        inOrder.verify(brokerTemplate).convertAndSend("/topic/scanStatus", (Object) "scanning=false");
+        // the running flush sent the second one, no other thread was involved
+        verifyNoMoreInteractions(broadcastThreadPool);
+        assertThat(first).isCompleted();
+        assertThat(second).isCompleted();
+        assertThat(client.getCoalescedCount()).isZero();
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ This file is part of Airsonic.
+
+ Airsonic is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Airsonic is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Airsonic.  If not, see <http://www.gnu.org/licenses/>.
+
+ Copyright 2025 (C) Y.Tory
+ */
+package org.airsonic.player.upload;
+
+import org.airsonic.player.config.AirsonicUploadConfig;
+import org.airsonic.player.domain.Player;
+import org.airsonic.player.domain.TransferStatus;
+import org.airsonic.player.service.StatusService;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ArchiveExtractorTest {
+
+    private static final byte[] SONG = "not really a song".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private StatusService statusService;
+    @Mock
+    private Player player;
+
+    @TempDir
+    private Path tempDir;
+
+    private ArchiveExtractor extractor;
+    private Path uploadDir;
+    private long bytesRead;
+    private final UploadListener listener = new UploadListener() {
+        @Override
+        public void start(String fileName) {
+        }
+
+        @Override
+        public void bytesRead(int n) {
+            bytesRead += n;
+        }
+    };
+
+    @BeforeEach
+    public void setup() throws IOException {
+        when(statusService.createUploadStatus(any())).thenAnswer(invocation -> new TransferStatus(player));
+        extractor = new ArchiveExtractor(new AirsonicUploadConfig(), statusService, Runnable::run);
+        uploadDir = Files.createDirectories(tempDir.resolve("upload"));
+    }
+
+    @Test
+    public void testZipIsExtractedWhileUploading() throws IOException {
+        byte[] zip = zip("album/song.mp3");
+        MonitoredMultipartFile file = new MonitoredMultipartFile(new MockMultipartFile("file", "test.zip", null, zip), listener);
+        Path archive = uploadDir.resolve("test.zip");
+        List<Path> extracted = new ArrayList<>();
+        List<String> exceptions = new ArrayList<>();
+
+        assertTrue(extractor.extractUpload(file, archive, player, extracted, exceptions));
+
+        Path song = uploadDir.resolve("album/song.mp3");
+        assertEquals(List.of(song), extracted);
+        assertEquals(List.of(), exceptions);
+        assertArrayEquals(SONG, Files.readAllBytes(song));
+        assertFalse(Files.exists(archive));
+        assertEquals(zip.length, bytesRead);
+    }
+
+    @Test
+    public void testOtherFormatsAreExtractedFromDiskAndCountedOnce() throws IOException {
+        byte[] tar = tar("album/song.mp3");
+        MonitoredMultipartFile file = new MonitoredMultipartFile(new MockMultipartFile("file", "test.tar", null, tar), listener);
+        Path archive = uploadDir.resolve("test.tar");
+        List<Path> extracted = new ArrayList<>();
+        List<String> exceptions = new ArrayList<>();
+
+        assertFalse(extractor.extractUpload(file, archive, player, extracted, exceptions));
+        file.transferTo(archive.toFile());
+        extractor.extract(archive, player, extracted, exceptions);
+
+        Path song = uploadDir.resolve("album/song.mp3");
+        assertEquals(List.of(song), extracted);
+        assertEquals(List.of(), exceptions);
+        assertArrayEquals(SONG, Files.readAllBytes(song));
+        assertFalse(Files.exists(archive));
+        // the upload was read twice, but is counted once
+        assertEquals(tar.length, bytesRead);
+    }
+
+    @Test
+    public void testEntriesOutsideTheUploadDirectoryAreRejected() throws IOException {
+        MonitoredMultipartFile file = new MonitoredMultipartFile(
+                new MockMultipartFile("file", "test.zip", null, zip("../evil.mp3", "good.mp3")), listener);
+        List<Path> extracted = new ArrayList<>();
+        List<String> exceptions = new ArrayList<>();
+
+        assertTrue(extractor.extractUpload(file, uploadDir.resolve("test.zip"), player, extracted, exceptions));
+
+        assertEquals(List.of(uploadDir.resolve("good.mp3")), extracted);
+        assertEquals(1, exceptions.size());
+        assertTrue(exceptions.get(0).startsWith("Bad zip filename"));
+        assertFalse(Files.exists(tempDir.resolve("evil.mp3")));
+    }
+
+    private static byte[] zip(String... names) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (String name : names) {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.write(SONG);
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] tar(String name) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(bytes)) {
+            TarArchiveEntry entry = new TarArchiveEntry(name);
+            entry.setSize(SONG.length);
+            tar.putArchiveEntry(entry);
+            tar.write(SONG);
+            tar.closeArchiveEntry();
+        }
+        return bytes.toByteArray();
+    }
+}